@@ -83,8 +83,9 @@ public class FoundationsMain extends Application {
 		
 		// Connect to the in-memory database
 		try {
-			// Connect to the database
-			database.connectToDatabase();
+			// Connect to the database, keeping the existing data and applying only the schema
+			// migrations that are missing
+			database.connectToDatabase(true);
 		} catch (SQLException e) {
 			// If the connection request fails, it usually means some other app is using it
 			databaseInUse.setTitle("*** ERROR ***");
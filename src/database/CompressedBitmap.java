@@ -0,0 +1,337 @@
+package database;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/*******
+ * <p> Title: CompressedBitmap Class. </p>
+ *
+ * <p> Description: A set of non-negative ints, such as the posts one student has read, stored
+ * in the Roaring layout.  The ids are split by their upper 16 bits into chunks of 65,536.
+ * A chunk holding few ids keeps them as a sorted array of 16-bit values (two bytes per id);
+ * once it holds more than 4,096 it switches to a plain 8 KB bitmap, which is smaller from
+ * that point on.  A reader of a few posts therefore costs a few bytes, and a reader of every
+ * post costs one bit per post.</p>
+ *
+ * <p> {@link #andNot(CompressedBitmap)} works chunk by chunk, which is how the unread posts of
+ * a reader are found: every post, and-not the posts the reader has read.</p>
+ *
+ * <p> A bitmap is not thread-safe; ReadState guards the bitmaps it shares.</p>
+ *
+ * <p> Copyright: CSE 360 Team © 2025 </p>
+ *
+ * @author CSE 360 Team
+ *
+ * @version 1.00		2025-12-05 Initial version
+ */
+public class CompressedBitmap {
+
+	// A chunk with more ids than this is stored as a bitmap
+	private static final int ARRAY_LIMIT = 4096;
+
+	// Format marker written first by toBytes
+	private static final byte FORMAT = 1;
+
+	/*
+	 * The ids of one chunk, as 16-bit values.  Exactly one of values and bits is in use.
+	 */
+	private static final class Chunk {
+		char[] values;		// Sorted, while the chunk is small
+		long[] bits;		// 1,024 words, once it is large
+		int size;
+
+		Chunk() {
+			values = new char[4];
+		}
+
+		boolean contains(char low) {
+			if (bits != null) return (bits[low >>> 6] & (1L << low)) != 0;
+			return Arrays.binarySearch(values, 0, size, low) >= 0;
+		}
+
+		boolean add(char low) {
+			if (bits != null) {
+				long mask = 1L << low;
+				if ((bits[low >>> 6] & mask) != 0) return false;
+				bits[low >>> 6] |= mask;
+				size++;
+				return true;
+			}
+			int at = Arrays.binarySearch(values, 0, size, low);
+			if (at >= 0) return false;
+			at = -at - 1;
+			if (size == ARRAY_LIMIT) {
+				toBits();
+				return add(low);
+			}
+			if (size == values.length) values = Arrays.copyOf(values, Math.min(size * 2, ARRAY_LIMIT));
+			System.arraycopy(values, at, values, at + 1, size - at);
+			values[at] = low;
+			size++;
+			return true;
+		}
+
+		private void toBits() {
+			bits = new long[1024];
+			for (int i = 0; i < size; i++) bits[values[i] >>> 6] |= 1L << values[i];
+			values = null;
+		}
+
+		// The ids of this chunk that are not in the other one
+		Chunk andNot(Chunk other) {
+			Chunk result = new Chunk();
+			if (bits != null) {
+				// Clear the other chunk's ids from a copy of the bitmap
+				result.bits = bits.clone();
+				result.values = null;
+				if (other.bits != null) {
+					for (int i = 0; i < 1024; i++) {
+						result.bits[i] &= ~other.bits[i];
+						result.size += Long.bitCount(result.bits[i]);
+					}
+				} else {
+					result.size = size;
+					for (int i = 0; i < other.size; i++) {
+						char low = other.values[i];
+						long mask = 1L << low;
+						if ((result.bits[low >>> 6] & mask) != 0) {
+							result.bits[low >>> 6] &= ~mask;
+							result.size--;
+						}
+					}
+				}
+				if (result.size <= ARRAY_LIMIT) result.toValues();
+				return result;
+			}
+			forEach(low -> {
+				if (!other.contains(low)) result.add(low);
+			});
+			return result;
+		}
+
+		private void toValues() {
+			char[] small = new char[Math.max(size, 4)];
+			int n = 0;
+			for (int word = 0; word < 1024; word++) {
+				for (long w = bits[word]; w != 0; w &= w - 1) {
+					small[n++] = (char) (word * 64 + Long.numberOfTrailingZeros(w));
+				}
+			}
+			values = small;
+			bits = null;
+		}
+
+		void forEach(CharConsumer action) {
+			if (bits == null) {
+				for (int i = 0; i < size; i++) action.accept(values[i]);
+				return;
+			}
+			for (int word = 0; word < 1024; word++) {
+				for (long w = bits[word]; w != 0; w &= w - 1) {
+					action.accept((char) (word * 64 + Long.numberOfTrailingZeros(w)));
+				}
+			}
+		}
+
+		Chunk copy() {
+			Chunk copy = new Chunk();
+			copy.size = size;
+			copy.values = values == null ? null : values.clone();
+			copy.bits = bits == null ? null : bits.clone();
+			return copy;
+		}
+	}
+
+	private interface CharConsumer {
+		void accept(char value);
+	}
+
+	private char[] keys = new char[4];			// Upper 16 bits of each chunk, sorted
+	private Chunk[] chunks = new Chunk[4];
+	private int chunkCount = 0;
+
+	/*******
+	 * <p> Method: boolean add(int id) </p>
+	 *
+	 * <p> Description: Adds an id to the set.</p>
+	 *
+	 * @param id is the id to add; must not be negative
+	 *
+	 * @return true if the id was not in the set before
+	 */
+	public boolean add(int id) {
+		char key = (char) (id >>> 16);
+		int at = find(key);
+		if (at < 0) {
+			at = -at - 1;
+			if (chunkCount == keys.length) {
+				keys = Arrays.copyOf(keys, chunkCount * 2);
+				chunks = Arrays.copyOf(chunks, chunkCount * 2);
+			}
+			System.arraycopy(keys, at, keys, at + 1, chunkCount - at);
+			System.arraycopy(chunks, at, chunks, at + 1, chunkCount - at);
+			keys[at] = key;
+			chunks[at] = new Chunk();
+			chunkCount++;
+		}
+		return chunks[at].add((char) id);
+	}
+
+	/*******
+	 * <p> Method: boolean contains(int id) </p>
+	 *
+	 * @param id is the id to look for
+	 *
+	 * @return true if the id is in the set
+	 */
+	public boolean contains(int id) {
+		int at = find((char) (id >>> 16));
+		return at >= 0 && chunks[at].contains((char) id);
+	}
+
+	/*******
+	 * <p> Method: int cardinality() </p>
+	 *
+	 * @return the number of ids in the set
+	 */
+	public int cardinality() {
+		int total = 0;
+		for (int i = 0; i < chunkCount; i++) total += chunks[i].size;
+		return total;
+	}
+
+	/*******
+	 * <p> Method: CompressedBitmap andNot(CompressedBitmap other) </p>
+	 *
+	 * <p> Description: Builds the set of ids that are in this set but not in the other.
+	 * Neither set is changed.</p>
+	 *
+	 * @param other is the set of ids to leave out
+	 *
+	 * @return a new set
+	 */
+	public CompressedBitmap andNot(CompressedBitmap other) {
+		CompressedBitmap result = new CompressedBitmap();
+		result.keys = new char[Math.max(chunkCount, 4)];
+		result.chunks = new Chunk[Math.max(chunkCount, 4)];
+		for (int i = 0; i < chunkCount; i++) {
+			int at = other.find(keys[i]);
+			Chunk chunk = at < 0 ? chunks[i].copy() : chunks[i].andNot(other.chunks[at]);
+			if (chunk.size == 0) continue;
+			result.keys[result.chunkCount] = keys[i];
+			result.chunks[result.chunkCount++] = chunk;
+		}
+		return result;
+	}
+
+	/*******
+	 * <p> Method: Integer[] toArray() </p>
+	 *
+	 * @return the ids in ascending order, ready to bind to an "= ANY(?)" parameter
+	 */
+	public Integer[] toArray() {
+		Integer[] ids = new Integer[cardinality()];
+		int[] n = {0};
+		for (int i = 0; i < chunkCount; i++) {
+			int high = keys[i] << 16;
+			chunks[i].forEach(low -> ids[n[0]++] = high | low);
+		}
+		return ids;
+	}
+
+	/*******
+	 * <p> Method: CompressedBitmap copy() </p>
+	 *
+	 * @return an independent copy of this set
+	 */
+	public CompressedBitmap copy() {
+		CompressedBitmap copy = new CompressedBitmap();
+		copy.keys = keys.clone();
+		copy.chunks = new Chunk[chunks.length];
+		for (int i = 0; i < chunkCount; i++) copy.chunks[i] = chunks[i].copy();
+		copy.chunkCount = chunkCount;
+		return copy;
+	}
+
+	/*******
+	 * <p> Method: byte[] toBytes() </p>
+	 *
+	 * <p> Description: Encodes the set for storage.  Each chunk is written in its own layout,
+	 * so the stored form is as small as the one in memory.</p>
+	 *
+	 * @return the encoded set
+	 */
+	public byte[] toBytes() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(FORMAT);
+			out.writeShort(chunkCount);
+			for (int i = 0; i < chunkCount; i++) {
+				Chunk chunk = chunks[i];
+				out.writeChar(keys[i]);
+				out.writeInt(chunk.size);
+				if (chunk.bits == null) {
+					for (int j = 0; j < chunk.size; j++) out.writeChar(chunk.values[j]);
+				} else {
+					for (long word : chunk.bits) out.writeLong(word);
+				}
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);  // A ByteArrayOutputStream does not fail
+		}
+		return bytes.toByteArray();
+	}
+
+	/*******
+	 * <p> Method: CompressedBitmap fromBytes(byte[] data) </p>
+	 *
+	 * <p> Description: Decodes a set written by toBytes.</p>
+	 *
+	 * @param data is the encoded set, or null for an empty set
+	 *
+	 * @return the set
+	 *
+	 * @throws IllegalArgumentException when the data is not an encoded set
+	 */
+	public static CompressedBitmap fromBytes(byte[] data) {
+		CompressedBitmap bitmap = new CompressedBitmap();
+		if (data == null || data.length == 0) return bitmap;
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+			if (in.readByte() != FORMAT) throw new IllegalArgumentException("Unknown bitmap format");
+			int count = in.readUnsignedShort();
+			bitmap.keys = new char[Math.max(count, 4)];
+			bitmap.chunks = new Chunk[Math.max(count, 4)];
+			for (int i = 0; i < count; i++) {
+				Chunk chunk = new Chunk();
+				bitmap.keys[i] = in.readChar();
+				chunk.size = in.readInt();
+				if (chunk.size <= ARRAY_LIMIT) {
+					chunk.values = new char[Math.max(chunk.size, 4)];
+					for (int j = 0; j < chunk.size; j++) chunk.values[j] = in.readChar();
+				} else {
+					chunk.values = null;
+					chunk.bits = new long[1024];
+					for (int j = 0; j < 1024; j++) chunk.bits[j] = in.readLong();
+				}
+				bitmap.chunks[i] = chunk;
+			}
+			bitmap.chunkCount = count;
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Truncated bitmap", e);
+		}
+		return bitmap;
+	}
+
+	private int find(char key) {
+		return Arrays.binarySearch(keys, 0, chunkCount, key);
+	}
+
+	@Override
+	public String toString() {
+		return "CompressedBitmap{ids=" + cardinality() + ", chunks=" + chunkCount + "}";
+	}
+}
@@ -0,0 +1,395 @@
+package database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/*******
+ * <p> Title: ConnectionPool Class. </p>
+ *
+ * <p> Description: A small, thread-safe pool of JDBC connections used by the Database class.
+ * Every Database method checks a connection out of the pool for the duration of one call and
+ * hands it back when the try-with-resources block closes it, so two GUI actions (or a GUI action
+ * and a background task) never share a Connection or a Statement.</p>
+ *
+ * <p> The connections handed out are thin proxies around the physical H2 connections.  Calling
+ * close() on a proxy returns the physical connection to the pool instead of closing it.  The pool
+ * keeps at least the configured minimum number of connections open, grows on demand up to the
+ * configured maximum, and makes callers wait (up to a timeout) when every connection is in use.
+ * </p>
+ *
+ * <p> Each physical connection carries its own {@link StatementCache}, so repeated calls to
+ * prepareStatement(sql) with the same SQL (the hot read paths run many times per screen refresh)
+ * reuse the statement H2 has already parsed and planned.</p>
+ *
+ * <p> The pool also keeps simple metrics (active connections, idle connections, number of
+ * checkouts and the time callers spent waiting for a connection) so contention can be observed
+ * while the application is running.</p>
+ *
+ * <p> Copyright: CSE 360 Team © 2025 </p>
+ *
+ * @author CSE 360 Team
+ *
+ * @version 1.00		2025-11-20 Initial version
+ * @version 1.01		2025-12-11 Broken connections give their slot back and wake waiting callers
+ */
+public class ConnectionPool {
+
+	private final String url;
+	private final String user;
+	private final String password;
+	private final int minSize;
+	private final int maxSize;
+	private final long checkoutTimeoutMillis;
+	private final int statementCacheSize;
+
+	// How long a waiting caller sleeps before checking again whether it may open a connection
+	static final long WAIT_SLICE_MILLIS = 50;
+
+	/*
+	 * A physical connection together with the statements cached on it.
+	 */
+	private static class Pooled {
+		final Connection physical;
+		final StatementCache statements;
+
+		Pooled(Connection physical, StatementCache statements) {
+			this.physical = physical;
+			this.statements = statements;
+		}
+	}
+
+	// Physical connections that are open but not checked out
+	private final LinkedBlockingDeque<Pooled> idle = new LinkedBlockingDeque<>();
+
+	// Number of physical connections currently open (idle + active)
+	private final AtomicInteger openCount = new AtomicInteger();
+
+	// Metrics
+	private final AtomicInteger activeCount = new AtomicInteger();
+	private final AtomicLong checkoutCount = new AtomicLong();
+	private final AtomicLong totalWaitNanos = new AtomicLong();
+	private final AtomicLong maxWaitNanos = new AtomicLong();
+	private final AtomicLong timeoutCount = new AtomicLong();
+	private final AtomicLong statementHits = new AtomicLong();
+	private final AtomicLong statementMisses = new AtomicLong();
+	private final AtomicLong statementEvictions = new AtomicLong();
+
+	private volatile boolean shutdown = false;
+
+	// Told the SQL of every prepareStatement call, so tests can examine the real queries
+	private volatile Consumer<String> statementListener = null;
+
+	/*******
+	 * <p> Method: ConnectionPool(String url, String user, String password, int minSize,
+	 * int maxSize, long checkoutTimeoutMillis, int statementCacheSize) </p>
+	 *
+	 * <p> Description: Creates the pool and opens the minimum number of connections.</p>
+	 *
+	 * @param url is the JDBC url of the database
+	 * @param user is the database user
+	 * @param password is the database password
+	 * @param minSize is the number of connections that are kept open at all times
+	 * @param maxSize is the largest number of connections the pool will ever open
+	 * @param checkoutTimeoutMillis is how long a caller waits for a free connection
+	 * @param statementCacheSize is the number of prepared statements cached per connection
+	 *
+	 * @throws SQLException when the initial connections cannot be opened
+	 */
+	public ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+			long checkoutTimeoutMillis, int statementCacheSize) throws SQLException {
+		if (minSize < 0 || maxSize < 1 || minSize > maxSize)
+			throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+		if (statementCacheSize < 0)
+			throw new IllegalArgumentException("Invalid statement cache size: " + statementCacheSize);
+		this.url = url;
+		this.user = user;
+		this.password = password;
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.checkoutTimeoutMillis = checkoutTimeoutMillis;
+		this.statementCacheSize = statementCacheSize;
+
+		for (int i = 0; i < minSize; i++) {
+			openCount.incrementAndGet();
+			idle.add(openPhysical());
+		}
+	}
+
+	/*******
+	 * <p> Method: Connection getConnection() </p>
+	 *
+	 * <p> Description: Checks a connection out of the pool.  An idle connection is reused when
+	 * one is available, a new one is opened when the pool is below its maximum size, and
+	 * otherwise the caller waits for another thread to return one.  While it waits it checks
+	 * every WAIT_SLICE_MILLIS whether a slot was freed by a broken connection being discarded,
+	 * and if so opens a new connection instead of waiting for the timeout.  A connection found
+	 * closed is discarded, giving its slot back, and the checkout starts over.  The returned
+	 * connection must be closed (normally by a try-with-resources block) to give it back to the
+	 * pool.</p>
+	 *
+	 * @return a pooled connection
+	 *
+	 * @throws SQLException when the pool is shut down or no connection became free in time
+	 */
+	public Connection getConnection() throws SQLException {
+		if (shutdown) throw new SQLException("Connection pool has been shut down");
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(checkoutTimeoutMillis);
+		Pooled pooled = null;
+
+		while (pooled == null) {
+			pooled = idle.pollFirst();
+			if (pooled == null) pooled = tryOpenNew();
+			if (pooled == null) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					timeoutCount.incrementAndGet();
+					throw new SQLException("Timed out after " + checkoutTimeoutMillis
+							+ " ms waiting for a database connection (" + maxSize + " in use)");
+				}
+				try {
+					pooled = idle.pollFirst(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(WAIT_SLICE_MILLIS)),
+							TimeUnit.NANOSECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new SQLException("Interrupted while waiting for a database connection", e);
+				}
+			}
+
+			// A connection closed underneath us gives its slot back, and the checkout starts over
+			if (pooled != null && isBroken(pooled)) {
+				discard(pooled);
+				pooled = null;
+			}
+		}
+
+		long waited = System.nanoTime() - start;
+		totalWaitNanos.addAndGet(waited);
+		maxWaitNanos.accumulateAndGet(waited, Math::max);
+		checkoutCount.incrementAndGet();
+		activeCount.incrementAndGet();
+		return wrap(pooled);
+	}
+
+	/*
+	 * Opens a new physical connection if the pool has not reached its maximum size, otherwise
+	 * returns null.
+	 */
+	private Pooled tryOpenNew() throws SQLException {
+		while (true) {
+			int open = openCount.get();
+			if (open >= maxSize) return null;
+			if (openCount.compareAndSet(open, open + 1)) break;
+		}
+		try {
+			return openPhysical();
+		} catch (SQLException e) {
+			openCount.decrementAndGet();
+			throw e;
+		}
+	}
+
+	private static boolean isBroken(Pooled pooled) {
+		try {
+			return pooled.physical.isClosed();
+		} catch (SQLException e) {
+			return true;
+		}
+	}
+
+	// Closes a connection and frees its slot, so a waiting caller may open a new one
+	private void discard(Pooled pooled) {
+		closeQuietly(pooled);
+		openCount.decrementAndGet();
+	}
+
+	private Pooled openPhysical() throws SQLException {
+		Connection physical = DriverManager.getConnection(url, user, password);
+		return new Pooled(physical, new StatementCache(physical, statementCacheSize,
+				statementHits, statementMisses, statementEvictions));
+	}
+
+	/*
+	 * Called when a borrowed connection is closed.  The connection is reset to auto-commit so a
+	 * half finished transaction can never leak into the next borrower.
+	 */
+	private void release(Pooled pooled) {
+		activeCount.decrementAndGet();
+		Connection physical = pooled.physical;
+		try {
+			if (!physical.isClosed() && !physical.getAutoCommit()) {
+				physical.rollback();
+				physical.setAutoCommit(true);
+			}
+		} catch (SQLException e) {
+			closeQuietly(pooled);
+		}
+
+		if (shutdown || isBroken(pooled)) {
+			discard(pooled);
+		} else {
+			idle.offerFirst(pooled);
+		}
+	}
+
+	/*******
+	 * <p> Method: void shutdown() </p>
+	 *
+	 * <p> Description: Closes every idle connection and marks the pool as shut down so that the
+	 * connections still checked out are closed as soon as they are returned.</p>
+	 */
+	public void shutdown() {
+		shutdown = true;
+		Pooled pooled;
+		while ((pooled = idle.pollFirst()) != null) discard(pooled);
+	}
+
+	private static void closeQuietly(Pooled pooled) {
+		pooled.statements.clear();
+		try {
+			pooled.physical.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/*
+	 * Wraps a physical connection so close() gives it back to the pool and the plain
+	 * prepareStatement calls go through the statement cache.  Every other call is passed straight
+	 * through to the physical connection.
+	 */
+	private Connection wrap(Pooled pooled) {
+		Connection physical = pooled.physical;
+		InvocationHandler handler = new InvocationHandler() {
+			private boolean closed = false;
+
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				switch (method.getName()) {
+				case "close":
+					if (!closed) {
+						closed = true;
+						release(pooled);
+					}
+					return null;
+				case "isClosed":
+					return closed || physical.isClosed();
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Pooled[" + physical + "]";
+				case "prepareStatement":
+					if (closed) throw new SQLException("Connection has already been returned to the pool");
+					Consumer<String> listener = statementListener;
+					if (listener != null) listener.accept((String) args[0]);
+					if (statementCacheSize > 0 && args.length == 1)
+						return pooled.statements.prepare((String) args[0], Statement.NO_GENERATED_KEYS);
+					if (statementCacheSize > 0 && args.length == 2 && args[1] instanceof Integer)
+						return pooled.statements.prepare((String) args[0], (Integer) args[1]);
+					return invokePhysical(method, args);
+				default:
+					if (closed) throw new SQLException("Connection has already been returned to the pool");
+					return invokePhysical(method, args);
+				}
+			}
+
+			private Object invokePhysical(Method method, Object[] args) throws Throwable {
+				try {
+					return method.invoke(physical, args);
+				} catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+			}
+		};
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, handler);
+	}
+
+	/*******
+	 * <p> Method: void setStatementListener(Consumer&lt;String&gt; listener) </p>
+	 *
+	 * <p> Description: Registers a listener that is given the SQL of every statement prepared
+	 * on a pooled connection, before it is prepared.  QueryPlanTest uses it to EXPLAIN the
+	 * queries Database really runs.</p>
+	 *
+	 * @param listener is told each SQL string; null stops the calls
+	 */
+	public void setStatementListener(Consumer<String> listener) {
+		statementListener = listener;
+	}
+
+	/*-*******************************************************************************************
+	 * Metrics
+	 */
+
+	/** @return the configured minimum number of open connections */
+	public int getMinSize() { return minSize; }
+
+	/** @return the configured maximum number of open connections */
+	public int getMaxSize() { return maxSize; }
+
+	/** @return the number of connections currently checked out */
+	public int getActiveCount() { return activeCount.get(); }
+
+	/** @return the number of physical connections currently open, checked out or idle */
+	public int getOpenCount() { return openCount.get(); }
+
+	/** @return the number of open connections waiting in the pool */
+	public int getIdleCount() { return idle.size(); }
+
+	/** @return the number of successful checkouts since the pool was created */
+	public long getCheckoutCount() { return checkoutCount.get(); }
+
+	/** @return the number of checkouts that gave up waiting for a connection */
+	public long getTimeoutCount() { return timeoutCount.get(); }
+
+	/** @return the total time, in milliseconds, callers have spent waiting for a connection */
+	public double getTotalWaitMillis() { return totalWaitNanos.get() / 1_000_000.0; }
+
+	/** @return the longest single wait, in milliseconds, for a connection */
+	public double getMaxWaitMillis() { return maxWaitNanos.get() / 1_000_000.0; }
+
+	/** @return the number of prepareStatement calls answered from a statement cache */
+	public long getStatementCacheHits() { return statementHits.get(); }
+
+	/** @return the number of prepareStatement calls that had to ask H2 to prepare the SQL */
+	public long getStatementCacheMisses() { return statementMisses.get(); }
+
+	/** @return the number of cached statements closed to make room for newer ones */
+	public long getStatementCacheEvictions() { return statementEvictions.get(); }
+
+	/** @return the fraction of prepareStatement calls answered from a statement cache */
+	public double getStatementCacheHitRate() {
+		long total = statementHits.get() + statementMisses.get();
+		return total == 0 ? 0 : (double) statementHits.get() / total;
+	}
+
+	/** @return the average wait, in milliseconds, per checkout */
+	public double getAverageWaitMillis() {
+		long count = checkoutCount.get();
+		return count == 0 ? 0 : getTotalWaitMillis() / count;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("ConnectionPool[active=%d, idle=%d, max=%d, checkouts=%d, "
+				+ "avgWait=%.3f ms, maxWait=%.3f ms, timeouts=%d, statementHits=%d, "
+				+ "statementMisses=%d, statementEvictions=%d]",
+				getActiveCount(), getIdleCount(), maxSize, getCheckoutCount(),
+				getAverageWaitMillis(), getMaxWaitMillis(), getTimeoutCount(),
+				getStatementCacheHits(), getStatementCacheMisses(), getStatementCacheEvictions());
+	}
+}
@@ -1,7 +1,6 @@
 package database;
 
 import java.sql.*;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -38,9 +37,29 @@ public class Database {
 	static final String USER = "sa"; 
 	static final String PASS = ""; 
 
+	//  Connection pool sizing.  Each public method checks a connection out of the pool for the
+	//  duration of the call, so the GUI thread and background work never share a Connection.
+	static final int DEFAULT_MIN_POOL_SIZE = 2;
+	static final int DEFAULT_MAX_POOL_SIZE = 8;
+	static final long CHECKOUT_TIMEOUT_MILLIS = 5000;
+	static final int STATEMENT_CACHE_SIZE = 64;		// Prepared statements cached per connection
+	static final int PAGE_CACHE_SIZE = 128;			// Post pages kept for the home screens
+	static final int POST_CACHE_SIZE = 256;			// Posts kept for getPostById
+
 	//  Shared variables used within this class
-	private Connection connection = null;		// Singleton to access the database 
-	private Statement statement = null;			// The H2 Statement is used to construct queries
+	private final int minPoolSize;
+	private final int maxPoolSize;
+	private ConnectionPool pool = null;			// Source of the connections used by every query
+	private final SchemaMigrator migrator = buildMigrations();	// Versioned schema changes
+	private long lastStartupMillis = 0;			// How long the last connectToDatabase call took
+	private final GradeEngine gradeEngine = new GradeEngine();	// Per-user post and reply counters
+	private final SearchIndex searchIndex = new SearchIndex();	// Words of every post and reply
+	private final PageCache pageCache = new PageCache(PAGE_CACHE_SIZE);	// Recently listed post pages
+	private final PostCache postCache = new PostCache(POST_CACHE_SIZE);	// Frequently opened posts
+	private final ReadState readState = new ReadState();		// Posts each user has read
+	private ReadMarkWriter readMarkWriter = null;			// Stores read marks in batches
+	private final UnreadCounter unreadCounter = new UnreadCounter();	// Unread private messages per recipient
+	private final MessageSearchIndex messageSearchIndex = new MessageSearchIndex();	// Words of every private message and broadcast
 	
 	// These are the easily accessible attributes of the currently logged-in user
 	// This is only useful for single user applications
@@ -63,9 +82,34 @@ public class Database {
 	 */
 	
 	public Database () {
-		
+		this(DEFAULT_MIN_POOL_SIZE, DEFAULT_MAX_POOL_SIZE);
 	}
-	private void createForumTables() throws SQLException {
+
+	/*******
+	 * <p> Method: Database(int minPoolSize, int maxPoolSize) </p>
+	 * 
+	 * <p> Description: Establishes this object with an explicitly sized connection pool.</p>
+	 * 
+	 * @param minPoolSize is the number of connections kept open while connected
+	 * @param maxPoolSize is the largest number of connections that will be opened at once
+	 */
+	public Database (int minPoolSize, int maxPoolSize) {
+		this.minPoolSize = minPoolSize;
+		this.maxPoolSize = maxPoolSize;
+	}
+
+	/*******
+	 * <p> Method: ConnectionPool getConnectionPool() </p>
+	 * 
+	 * <p> Description: Gives access to the connection pool so its metrics (active and idle
+	 * connections, wait times, prepared-statement cache hits and misses) can be inspected.</p>
+	 * 
+	 * @return the connection pool, or null before connectToDatabase has been called
+	 */
+	public ConnectionPool getConnectionPool() {
+		return pool;
+	}
+	private void createForumTables(Statement statement) throws SQLException {
 	    // Create the posts table
 	    String postsTable = "CREATE TABLE IF NOT EXISTS posts ("
 	            + "postId INT AUTO_INCREMENT PRIMARY KEY, "
@@ -116,7 +160,7 @@ public class Database {
 	 *
 	 * @throws SQLException If a database access error occurs or the SQL statement is malformed.
 	 */
-	private void createRequestTables() throws SQLException {
+	private void createRequestTables(Statement statement) throws SQLException {
 	    // Status: PENDING, CLOSED, REOPENED
 	    String requestsTable = "CREATE TABLE IF NOT EXISTS admin_requests ("
 	            + "requestId INT AUTO_INCREMENT PRIMARY KEY, "
@@ -144,7 +188,7 @@ public class Database {
 	public int createRequest(String staffUsername, String description) {
 	    String insertRequest = "INSERT INTO admin_requests (staffUsername, description, timestamp) "
 	            + "VALUES (?, ?, ?)";
-	    try (PreparedStatement pstmt = connection.prepareStatement(insertRequest, Statement.RETURN_GENERATED_KEYS)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(insertRequest, Statement.RETURN_GENERATED_KEYS)) {
 	        pstmt.setString(1, staffUsername);
 	        pstmt.setString(2, description);
 	        pstmt.setTimestamp(3, new java.sql.Timestamp(System.currentTimeMillis()));
@@ -177,7 +221,7 @@ public class Database {
 	    // when the current status is CLOSED exclusively
 	    String query = "UPDATE admin_requests SET status = 'REOPENED', description = ? WHERE requestId = ? AND status = 'CLOSED'";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setString(1, newDescription);
 	        pstmt.setInt(2, requestId);
 	        
@@ -200,7 +244,7 @@ public class Database {
 	    List<Request> requestList = new ArrayList<>();
 	    String query = "SELECT * FROM admin_requests WHERE status = 'PENDING' OR status = 'REOPENED' ORDER BY timestamp ASC";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        ResultSet rs = pstmt.executeQuery();
 	        while (rs.next()) {
 	            // Mapping the ResultSet to the Request entity object
@@ -224,23 +268,49 @@ public class Database {
 	    return requestList;
 	}
 
+	/*
+	 * Builds a Post from the current row of a query over the posts table.  The reply count is
+	 * kept in the posts table itself, so a list of posts carries its reply counts without any
+	 * additional queries.
+	 */
+	private Post mapPost(ResultSet rs) throws SQLException {
+	    Post post = new Post(
+	        rs.getInt("postId"),
+	        rs.getString("author"),
+	        rs.getString("title"),
+	        rs.getString("content"),
+	        rs.getString("thread"),
+	        rs.getTimestamp("timestamp").toLocalDateTime(),
+	        rs.getBoolean("isDeleted")
+	    );
+	    post.setReplyCount(rs.getInt("replyCount"));
+	    return post;
+	}
+
 	public int createPost(Post post) {
-	    String insertPost = "INSERT INTO posts (author, title, content, thread, timestamp, isDeleted) "
-	            + "VALUES (?, ?, ?, ?, ?, ?)";
-	    try (PreparedStatement pstmt = connection.prepareStatement(insertPost, Statement.RETURN_GENERATED_KEYS)) {
+	    String insertPost = "INSERT INTO posts (author, title, content, thread, timestamp, isDeleted, preview, searchKey) "
+	            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(insertPost, Statement.RETURN_GENERATED_KEYS)) {
 	        pstmt.setString(1, post.getAuthor());
 	        pstmt.setString(2, post.getTitle());
 	        pstmt.setString(3, post.getContent());
 	        pstmt.setString(4, post.getThread());
 	        pstmt.setTimestamp(5, java.sql.Timestamp.valueOf(post.getTimestamp()));
 	        pstmt.setBoolean(6, post.isDeleted());
+	        pstmt.setString(7, PostSummary.previewOf(post.getContent()));
+	        pstmt.setString(8, searchKeyOf(post.getTitle(), post.getContent()));
 	        
 	        int affectedRows = pstmt.executeUpdate();
 	        
 	        if (affectedRows > 0) {
 	            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
 	                if (generatedKeys.next()) {
-	                    return generatedKeys.getInt(1);
+	                    int postId = generatedKeys.getInt(1);
+	                    if (!post.isDeleted()) gradeEngine.postCreated(post.getAuthor());
+	                    searchIndex.postIndexed(postId, post.getTitle(), post.getContent());
+	                    readState.postCreated(postId);
+	                    pageCache.postCreated(post.getThread(), post.getAuthor());
+	                    return postId;
 	                }
 	            }
 	        }
@@ -259,18 +329,10 @@ public class Database {
 	    PostList postList = new PostList();
 	    String query = "SELECT * FROM posts ORDER BY timestamp DESC";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        ResultSet rs = pstmt.executeQuery();
 	        while (rs.next()) {
-	            Post post = new Post(
-	                rs.getInt("postId"),
-	                rs.getString("author"),
-	                rs.getString("title"),
-	                rs.getString("content"),
-	                rs.getString("thread"),
-	                rs.getTimestamp("timestamp").toLocalDateTime(),
-	                rs.getBoolean("isDeleted")
-	            );
+	            Post post = mapPost(rs);
 	            postList.addPost(post);
 	        }
 	    } catch (SQLException e) {
@@ -280,23 +342,30 @@ public class Database {
 	}
 
 
+	/*******
+	 * <p> Method: Post getPostById(int postId) </p>
+	 * 
+	 * <p> Description: Reads one post.  Frequently opened posts are answered from the post
+	 * cache; each call returns its own Post object, so changing it does not change the cache.</p>
+	 * 
+	 * @param postId is the post to read
+	 * 
+	 * @return the post, or null if there is no such post
+	 */
 	public Post getPostById(int postId) {
+	    Post cached = postCache.get(postId);
+	    if (cached != null) return cached;
+	    long stamp = postCache.stamp();
 	    String query = "SELECT * FROM posts WHERE postId = ?";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setInt(1, postId);
 	        ResultSet rs = pstmt.executeQuery();
 	        
 	        if (rs.next()) {
-	            return new Post(
-	                rs.getInt("postId"),
-	                rs.getString("author"),
-	                rs.getString("title"),
-	                rs.getString("content"),
-	                rs.getString("thread"),
-	                rs.getTimestamp("timestamp").toLocalDateTime(),
-	                rs.getBoolean("isDeleted")
-	            );
+	            Post post = mapPost(rs);
+	            postCache.put(post, stamp);
+	            return post;
 	        }
 	    } catch (SQLException e) {
 	        e.printStackTrace();
@@ -306,27 +375,55 @@ public class Database {
 
 	
 	public boolean updatePost(Post post) {
-	    String query = "UPDATE posts SET title = ?, content = ?, thread = ? WHERE postId = ?";
+	    String query = "UPDATE posts SET title = ?, content = ?, thread = ?, preview = ?, searchKey = ? WHERE postId = ?";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setString(1, post.getTitle());
 	        pstmt.setString(2, post.getContent());
 	        pstmt.setString(3, post.getThread());
-	        pstmt.setInt(4, post.getPostId());
-	        
-	        return pstmt.executeUpdate() > 0;
+	        pstmt.setString(4, PostSummary.previewOf(post.getContent()));
+	        pstmt.setString(5, searchKeyOf(post.getTitle(), post.getContent()));
+	        pstmt.setInt(6, post.getPostId());
+	        
+	        if (pstmt.executeUpdate() == 0) return false;
+	        searchIndex.postIndexed(post.getPostId(), post.getTitle(), post.getContent());
+	        pageCache.postEdited(post.getPostId(), post.getThread());
+	        postCache.invalidate(post.getPostId());
+	        return true;
 	    } catch (SQLException e) {
 	        e.printStackTrace();
 	    }
 	    return false;
 	}
 	
+	/*******
+	 * <p> Method: boolean deletePost(int postId) </p>
+	 * 
+	 * <p> Description: Soft deletes a post.  The author's post counter in the grade engine is
+	 * lowered only when the post was not already deleted.</p>
+	 * 
+	 * @param postId is the post to delete
+	 * 
+	 * @return true if the post exists (and is now deleted), else false
+	 */
 	public boolean deletePost(int postId) {
-	    String query = "UPDATE posts SET isDeleted = TRUE WHERE postId = ?";
+	    String query = "UPDATE posts SET isDeleted = TRUE WHERE postId = ? AND isDeleted = FALSE";
+	    String lookup = "SELECT author FROM posts WHERE postId = ?";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query);
+	         PreparedStatement find = conn.prepareStatement(lookup)) {
 	        pstmt.setInt(1, postId);
-	        return pstmt.executeUpdate() > 0;
+	        boolean changed = pstmt.executeUpdate() > 0;
+	        find.setInt(1, postId);
+	        try (ResultSet rs = find.executeQuery()) {
+	            if (!rs.next()) return false;
+	            if (changed) {
+	                gradeEngine.postDeleted(rs.getString("author"));
+	                pageCache.postChanged(postId);
+	                postCache.invalidate(postId);
+	            }
+	            return true;
+	        }
 	    } catch (SQLException e) {
 	        e.printStackTrace();
 	    }
@@ -338,20 +435,12 @@ public class Database {
 	    PostList postList = new PostList();
 	    String query = "SELECT * FROM posts WHERE author = ? ORDER BY timestamp DESC";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setString(1, author);
 	        ResultSet rs = pstmt.executeQuery();
 	        
 	        while (rs.next()) {
-	            Post post = new Post(
-	                rs.getInt("postId"),
-	                rs.getString("author"),
-	                rs.getString("title"),
-	                rs.getString("content"),
-	                rs.getString("thread"),
-	                rs.getTimestamp("timestamp").toLocalDateTime(),
-	                rs.getBoolean("isDeleted")
-	            );
+	            Post post = mapPost(rs);
 	            postList.addPost(post);
 	        }
 	    } catch (SQLException e) {
@@ -369,20 +458,12 @@ public class Database {
 	    PostList postList = new PostList();
 	    String query = "SELECT * FROM posts WHERE thread = ? ORDER BY timestamp DESC";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setString(1, thread);
 	        ResultSet rs = pstmt.executeQuery();
 	        
 	        while (rs.next()) {
-	            Post post = new Post(
-	                rs.getInt("postId"),
-	                rs.getString("author"),
-	                rs.getString("title"),
-	                rs.getString("content"),
-	                rs.getString("thread"),
-	                rs.getTimestamp("timestamp").toLocalDateTime(),
-	                rs.getBoolean("isDeleted")
-	            );
+	            Post post = mapPost(rs);
 	            postList.addPost(post);
 	        }
 	    } catch (SQLException e) {
@@ -391,24 +472,460 @@ public class Database {
 	    return postList;
 	}
 
+	/*******
+	 * <p> Method: PostPage getAllPostsPage(String searchText, PageCursor after, int pageSize) </p>
+	 * 
+	 * <p> Description: Keyset-paginated variant of getAllPosts.  Returns up to pageSize post
+	 * summaries, newest first, that come after the cursor in (timestamp, postId) order and
+	 * contain every keyword of the search text in their title or content.</p>
+	 * 
+	 * @param searchText is the space-separated keywords to match, or empty for no search
+	 * @param after is the cursor of the previous page, or null for the first page
+	 * @param pageSize is the largest number of posts to return
+	 * 
+	 * @return the page, whose next cursor is null when there are no more posts
+	 */
+	public PostPage getAllPostsPage(String searchText, PageCursor after, int pageSize) {
+	    return cachedPage(new PageCache.Key(PageCache.Scope.THREAD, "All", searchText, after, pageSize),
+	            () -> queryPostPage("posts p", "TRUE", searchText, after, pageSize));
+	}
+
+	/*******
+	 * <p> Method: PostPage getPostsByThreadPage(String thread, String searchText, PageCursor after,
+	 * int pageSize) </p>
+	 * 
+	 * <p> Description: Keyset-paginated variant of getPostsByThread.  The thread "All" pages
+	 * through every post.</p>
+	 * 
+	 * @param thread is the thread to list
+	 * @param searchText is the space-separated keywords to match, or empty for no search
+	 * @param after is the cursor of the previous page, or null for the first page
+	 * @param pageSize is the largest number of posts to return
+	 * 
+	 * @return the page, whose next cursor is null when there are no more posts
+	 */
+	public PostPage getPostsByThreadPage(String thread, String searchText, PageCursor after, int pageSize) {
+	    if (thread.equals("All")) {
+	    	return getAllPostsPage(searchText, after, pageSize);
+	    }
+	    return cachedPage(new PageCache.Key(PageCache.Scope.THREAD, thread, searchText, after, pageSize),
+	            () -> queryPostPage("posts p", "p.thread = ?", searchText, after, pageSize, thread));
+	}
+
+	/*******
+	 * <p> Method: PostPage getPostsByAuthorPage(String author, String searchText, PageCursor after,
+	 * int pageSize) </p>
+	 * 
+	 * <p> Description: Keyset-paginated variant of getPostsByAuthor.</p>
+	 * 
+	 * @param author is the author whose posts are listed
+	 * @param searchText is the space-separated keywords to match, or empty for no search
+	 * @param after is the cursor of the previous page, or null for the first page
+	 * @param pageSize is the largest number of posts to return
+	 * 
+	 * @return the page, whose next cursor is null when there are no more posts
+	 */
+	public PostPage getPostsByAuthorPage(String author, String searchText, PageCursor after, int pageSize) {
+	    return cachedPage(new PageCache.Key(PageCache.Scope.AUTHOR, author, searchText, after, pageSize),
+	            () -> queryPostPage("posts p", "p.author = ?", searchText, after, pageSize, author));
+	}
+
+	/*******
+	 * <p> Method: PostPage getUnreadPostsPage(String userName, String searchText, PageCursor after,
+	 * int pageSize) </p>
+	 * 
+	 * <p> Description: Keyset-paginated variant of getUnreadPosts.</p>
+	 * 
+	 * @param userName is the reader; the reader's own posts are never listed as unread
+	 * @param searchText is the space-separated keywords to match, or empty for no search
+	 * @param after is the cursor of the previous page, or null for the first page
+	 * @param pageSize is the largest number of posts to return
+	 * 
+	 * @return the page, whose next cursor is null when there are no more posts
+	 */
+	public PostPage getUnreadPostsPage(String userName, String searchText, PageCursor after, int pageSize) {
+	    return cachedPage(new PageCache.Key(PageCache.Scope.UNREAD, userName, searchText, after, pageSize), () -> {
+	        Condition unread = unreadCondition(userName);
+	        return queryPostPage("posts p", unread.where, searchText, after, pageSize, unread.params);
+	    });
+	}
+
+	/*******
+	 * <p> Method: PostPage getFlaggedPostsPage(boolean flagged, String searchText, PageCursor after,
+	 * int pageSize) </p>
+	 * 
+	 * <p> Description: Keyset-paginated variant of getFlaggedPosts and getUnflaggedPosts.</p>
+	 * 
+	 * @param flagged is true to list flagged posts and false to list unflagged posts
+	 * @param searchText is the space-separated keywords to match, or empty for no search
+	 * @param after is the cursor of the previous page, or null for the first page
+	 * @param pageSize is the largest number of posts to return
+	 * 
+	 * @return the page, whose next cursor is null when there are no more posts
+	 */
+	public PostPage getFlaggedPostsPage(boolean flagged, String searchText, PageCursor after, int pageSize) {
+	    return queryPostPage("posts p", flagged ? "p.isFlagged = TRUE" : "p.isFlagged = FALSE",
+	            searchText, after, pageSize);
+	}
+
+	/*******
+	 * <p> Method: PostPage getPostsFlaggedByStaffPage(String staffUsername, String searchText,
+	 * PageCursor after, int pageSize) </p>
+	 * 
+	 * <p> Description: Keyset-paginated variant of getPostsFlaggedByStaff.</p>
+	 * 
+	 * @param staffUsername is the staff member whose flags are followed
+	 * @param searchText is the space-separated keywords to match, or empty for no search
+	 * @param after is the cursor of the previous page, or null for the first page
+	 * @param pageSize is the largest number of posts to return
+	 * 
+	 * @return the page, whose next cursor is null when there are no more posts
+	 */
+	public PostPage getPostsFlaggedByStaffPage(String staffUsername, String searchText, PageCursor after,
+	        int pageSize) {
+	    return queryPostPage("posts p", "p.postId IN (SELECT mf.postId FROM moderationFlags mf WHERE mf.staffId = ?)",
+	            searchText, after, pageSize, staffUsername);
+	}
+
+	/*******
+	 * <p> Method: List&lt;SearchHit&gt; getAllPostsRanked(String searchText, int limit) </p>
+	 * 
+	 * <p> Description: Relevance-ranked search over every post.  Posts with any keyword in
+	 * their title, content or replies are scored with BM25 and the best ones are returned.</p>
+	 * 
+	 * @param searchText is the space-separated keywords
+	 * @param limit is the largest number of results to return
+	 * 
+	 * @return the best matches, most relevant first
+	 */
+	public List<SearchHit> getAllPostsRanked(String searchText, int limit) {
+	    return getAllPostsRanked(searchText, limit, false);
+	}
+
+	/*******
+	 * <p> Method: List&lt;SearchHit&gt; getAllPostsRanked(String searchText, int limit,
+	 * boolean activeOnly) </p>
+	 * 
+	 * <p> Description: Relevance-ranked search over every post, optionally leaving out deleted
+	 * posts before the best ones are chosen, so they never take the place of a post that can
+	 * be shown.</p>
+	 * 
+	 * @param searchText is the space-separated keywords
+	 * @param limit is the largest number of results to return
+	 * @param activeOnly is true to leave out deleted posts
+	 * 
+	 * @return the best matches, most relevant first
+	 */
+	public List<SearchHit> getAllPostsRanked(String searchText, int limit, boolean activeOnly) {
+	    return queryRanked("posts p", activeOnly ? ACTIVE_ONLY : "TRUE", searchText, limit);
+	}
+
+	/*******
+	 * <p> Method: List&lt;SearchHit&gt; getPostsByThreadRanked(String thread, String searchText,
+	 * int limit) </p>
+	 * 
+	 * <p> Description: Relevance-ranked variant of getPostsByThreadPage.  "All" searches every
+	 * thread.</p>
+	 * 
+	 * @param thread is the thread to search, or "All"
+	 * @param searchText is the space-separated keywords
+	 * @param limit is the largest number of results to return
+	 * 
+	 * @return the best matches, most relevant first
+	 */
+	public List<SearchHit> getPostsByThreadRanked(String thread, String searchText, int limit) {
+	    return getPostsByThreadRanked(thread, searchText, limit, false);
+	}
+
+	/*******
+	 * <p> Method: List&lt;SearchHit&gt; getPostsByThreadRanked(String thread, String searchText,
+	 * int limit, boolean activeOnly) </p>
+	 * 
+	 * <p> Description: getPostsByThreadRanked, optionally leaving out deleted posts before
+	 * the best ones are chosen.</p>
+	 * 
+	 * @param thread is the thread to search, or "All"
+	 * @param searchText is the space-separated keywords
+	 * @param limit is the largest number of results to return
+	 * @param activeOnly is true to leave out deleted posts
+	 * 
+	 * @return the best matches, most relevant first
+	 */
+	public List<SearchHit> getPostsByThreadRanked(String thread, String searchText, int limit,
+	        boolean activeOnly) {
+	    if (thread.equals("All")) {
+	    	return getAllPostsRanked(searchText, limit, activeOnly);
+	    }
+	    String where = activeOnly ? ACTIVE_ONLY + " AND p.thread = ?" : "p.thread = ?";
+	    return queryRanked("posts p", where, searchText, limit, thread);
+	}
+
+	/*******
+	 * <p> Method: List&lt;SearchHit&gt; getPostsByAuthorRanked(String author, String searchText,
+	 * int limit) </p>
+	 * 
+	 * <p> Description: Relevance-ranked variant of getPostsByAuthorPage.</p>
+	 * 
+	 * @param author is the author whose posts are searched
+	 * @param searchText is the space-separated keywords
+	 * @param limit is the largest number of results to return
+	 * 
+	 * @return the best matches, most relevant first
+	 */
+	public List<SearchHit> getPostsByAuthorRanked(String author, String searchText, int limit) {
+	    return getPostsByAuthorRanked(author, searchText, limit, false);
+	}
+
+	/*******
+	 * <p> Method: List&lt;SearchHit&gt; getPostsByAuthorRanked(String author, String searchText,
+	 * int limit, boolean activeOnly) </p>
+	 * 
+	 * <p> Description: getPostsByAuthorRanked, optionally leaving out deleted posts before
+	 * the best ones are chosen.</p>
+	 * 
+	 * @param author is the author whose posts are searched
+	 * @param searchText is the space-separated keywords
+	 * @param limit is the largest number of results to return
+	 * @param activeOnly is true to leave out deleted posts
+	 * 
+	 * @return the best matches, most relevant first
+	 */
+	public List<SearchHit> getPostsByAuthorRanked(String author, String searchText, int limit,
+	        boolean activeOnly) {
+	    String where = activeOnly ? ACTIVE_ONLY + " AND p.author = ?" : "p.author = ?";
+	    return queryRanked("posts p", where, searchText, limit, author);
+	}
+
+	/*******
+	 * <p> Method: List&lt;SearchHit&gt; getUnreadPostsRanked(String userName, String searchText,
+	 * int limit) </p>
+	 * 
+	 * <p> Description: Relevance-ranked variant of getUnreadPostsPage.</p>
+	 * 
+	 * @param userName is the reader
+	 * @param searchText is the space-separated keywords
+	 * @param limit is the largest number of results to return
+	 * 
+	 * @return the best matches, most relevant first
+	 */
+	public List<SearchHit> getUnreadPostsRanked(String userName, String searchText, int limit) {
+	    Condition unread = unreadCondition(userName);
+	    return queryRanked("posts p", unread.where, searchText, limit, unread.params);
+	}
+
+	// Filter of the ranked searches that leave out deleted posts
+	private static final String ACTIVE_ONLY = "p.isDeleted = FALSE";
+
+	/*
+	 * Runs one ranked search.  The search index scores the posts that match any keyword; the
+	 * summaries of those that also pass the list's filter are read by primary key, and the
+	 * best "limit" of them are kept in a min-heap of that size, so only the results are ever
+	 * sorted.  Highlight offsets for the title and preview are worked out here, once.
+	 */
+	private List<SearchHit> queryRanked(String from, String where, String searchText, int limit,
+	        Object... params) {
+	    if (limit < 1 || searchText == null || searchText.trim().isEmpty()) return new ArrayList<>();
+	    java.util.Map<Integer, Double> scores = searchIndex.scorePosts(searchText);
+	    if (scores.isEmpty()) return new ArrayList<>();
+	    
+	    String query = "SELECT p.postId, p.author, p.title, p.thread, p.timestamp, p.isDeleted, "
+	            + "p.replyCount, p.preview FROM " + from + " WHERE " + where + " AND p.postId = ANY(?)";
+	    java.util.PriorityQueue<SearchHit> best = new java.util.PriorityQueue<>(limit + 1,
+	            java.util.Comparator.comparingDouble(SearchHit::getScore));
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
+	        int index = 1;
+	        for (Object param : params) {
+	            pstmt.setObject(index++, param);
+	        }
+	        pstmt.setObject(index, scores.keySet().toArray(new Integer[0]));
+	        try (ResultSet rs = pstmt.executeQuery()) {
+	            while (rs.next()) {
+	                int postId = rs.getInt("postId");
+	                double score = scores.get(postId);
+	                if (best.size() == limit && score <= best.peek().getScore()) continue;
+	                best.add(new SearchHit(mapSummary(rs), score, null, null));
+	                if (best.size() > limit) best.poll();
+	            }
+	        }
+	    } catch (SQLException e) {
+	        e.printStackTrace();
+	        return new ArrayList<>();
+	    }
+	    
+	    List<SearchHit> hits = new ArrayList<>(best.size());
+	    while (!best.isEmpty()) {
+	        SearchHit hit = best.poll();
+	        PostSummary summary = hit.getSummary();
+	        hits.add(new SearchHit(summary, hit.getScore(),
+	                SearchIndex.highlight(summary.getTitle(), searchText),
+	                SearchIndex.highlight(summary.getPreview(), searchText)));
+	    }
+	    java.util.Collections.reverse(hits);
+	    return hits;
+	}
+
+	/*
+	 * Answers a home-screen page from the page cache, or runs its query and caches the result.
+	 * The page is not cached if a write happened while the query ran.
+	 */
+	private PostPage cachedPage(PageCache.Key key, java.util.function.Supplier<PostPage> query) {
+	    PostPage page = pageCache.get(key);
+	    if (page != null) return page;
+	    long stamp = pageCache.stamp();
+	    page = query.get();
+	    pageCache.put(key, page, stamp);
+	    return page;
+	}
+
+	/*
+	 * Runs one keyset page query.  The rows after the cursor are found with a range condition on
+	 * (timestamp, postId) instead of an OFFSET, so every page costs the same no matter how deep
+	 * the user has scrolled.  The condition is written as "timestamp <= t AND (timestamp < t OR
+	 * postId < id)" so H2 can seek the (..., timestamp DESC, postId DESC) indexes in
+	 * ForumIndexes to the cursor.  One extra row is read to learn whether another page exists.
+	 * 
+	 * Only the summary columns are selected.  When there are keywords, the search index first
+	 * narrows the query to the posts that hold every trigram of each keyword, which H2 reads
+	 * by primary key.  Those few candidates are then checked inside H2 against the stored
+	 * searchKey column with the same "title or content contains every keyword, ignoring case
+	 * and accents" rule as Post.matchesAllKeywords, so the content is searched without being
+	 * sent back with the rows.
+	 */
+	private PostPage queryPostPage(String from, String where, String searchText, PageCursor after,
+	        int pageSize, Object... params) {
+	    if (pageSize < 1) return PostPage.empty();
+	    
+	    String[] keywords = SearchKey.keywords(searchText);
+	    Integer[] candidates = null;
+	    if (keywords.length > 0) {
+	        java.util.BitSet found = searchIndex.findPosts(searchText, true);
+	        if (found != null) {
+	            if (found.isEmpty()) return PostPage.empty();
+	            candidates = found.stream().boxed().toArray(Integer[]::new);
+	        }
+	    }
+	    
+	    StringBuilder query = new StringBuilder("SELECT p.postId, p.author, p.title, p.thread, p.timestamp, "
+	            + "p.isDeleted, p.replyCount, p.preview FROM ").append(from).append(" WHERE ").append(where);
+	    if (candidates != null) {
+	        query.append(" AND p.postId = ANY(?)");
+	    }
+	    for (int i = 0; i < keywords.length; i++) {
+	        query.append(" AND LOCATE(?, p.searchKey) > 0");
+	    }
+	    if (after != null) {
+	        query.append(" AND p.timestamp <= ? AND (p.timestamp < ? OR p.postId < ?)");
+	    }
+	    query.append(" ORDER BY p.timestamp DESC, p.postId DESC LIMIT ?");
+	    
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query.toString())) {
+	        int index = 1;
+	        for (Object param : params) {
+	            pstmt.setObject(index++, param);
+	        }
+	        if (candidates != null) {
+	            pstmt.setObject(index++, candidates);
+	        }
+	        for (String keyword : keywords) {
+	            pstmt.setString(index++, keyword);
+	        }
+	        if (after != null) {
+	            Timestamp ts = Timestamp.valueOf(after.getTimestamp());
+	            pstmt.setTimestamp(index++, ts);
+	            pstmt.setTimestamp(index++, ts);
+	            pstmt.setInt(index++, after.getPostId());
+	        }
+	        pstmt.setInt(index, pageSize + 1);
+	        
+	        List<PostSummary> summaries = new ArrayList<>();
+	        boolean more = false;
+	        try (ResultSet rs = pstmt.executeQuery()) {
+	            while (rs.next()) {
+	                if (summaries.size() == pageSize) {
+	                    more = true;
+	                    break;
+	                }
+	                summaries.add(mapSummary(rs));
+	            }
+	        }
+	        PageCursor next = more ? PageCursor.after(summaries.get(summaries.size() - 1)) : null;
+	        return new PostPage(summaries, next);
+	    } catch (SQLException e) {
+	        e.printStackTrace();
+	        pageCache.queryFailed();  // The empty page below is not a real answer
+	    }
+	    return PostPage.empty();
+	}
+
+	/*
+	 * The searchKey column of a post: the SearchKey of its title and of its content on separate
+	 * lines.  Keywords never hold a line break, so a keyword cannot match across the two.
+	 */
+	private static String searchKeyOf(String title, String content) {
+	    return SearchKey.of(title) + "\n" + SearchKey.of(content);
+	}
+
+	/*
+	 * Builds a PostSummary from the current row of a summary query.
+	 */
+	private PostSummary mapSummary(ResultSet rs) throws SQLException {
+	    return new PostSummary(
+	        rs.getInt("postId"),
+	        rs.getString("author"),
+	        rs.getString("title"),
+	        rs.getString("thread"),
+	        rs.getTimestamp("timestamp").toLocalDateTime(),
+	        rs.getBoolean("isDeleted"),
+	        rs.getInt("replyCount"),
+	        rs.getString("preview")
+	    );
+	}
+
 	
+	/*******
+	 * <p> Method: int createReply(Reply reply) </p>
+	 * 
+	 * <p> Description: Inserts a reply and, in the same transaction, increments the reply count
+	 * stored with its post.</p>
+	 * 
+	 * @param reply is the reply to store
+	 * 
+	 * @return the generated replyId, or -1 if the reply could not be stored
+	 */
 	public int createReply(Reply reply) {
 	    String insertReply = "INSERT INTO replies (postId, author, content, timestamp) "
 	            + "VALUES (?, ?, ?, ?)";
-	    try (PreparedStatement pstmt = connection.prepareStatement(insertReply, Statement.RETURN_GENERATED_KEYS)) {
-	        pstmt.setInt(1, reply.getPostId());
-	        pstmt.setString(2, reply.getAuthor());
-	        pstmt.setString(3, reply.getContent());
-	        pstmt.setTimestamp(4, java.sql.Timestamp.valueOf(reply.getTimestamp()));
-	        
-	        int affectedRows = pstmt.executeUpdate();
-	        
-	        if (affectedRows > 0) {
-	            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-	                if (generatedKeys.next()) {
-	                    return generatedKeys.getInt(1);
+	    String countReply = "UPDATE posts SET replyCount = replyCount + 1 WHERE postId = ?";
+	    try (Connection conn = pool.getConnection()) {
+	        conn.setAutoCommit(false);
+	        try (PreparedStatement pstmt = conn.prepareStatement(insertReply, Statement.RETURN_GENERATED_KEYS);
+	             PreparedStatement count = conn.prepareStatement(countReply)) {
+	            pstmt.setInt(1, reply.getPostId());
+	            pstmt.setString(2, reply.getAuthor());
+	            pstmt.setString(3, reply.getContent());
+	            pstmt.setTimestamp(4, java.sql.Timestamp.valueOf(reply.getTimestamp()));
+	            
+	            int affectedRows = pstmt.executeUpdate();
+	            
+	            if (affectedRows > 0) {
+	                try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+	                    if (generatedKeys.next()) {
+	                        int replyId = generatedKeys.getInt(1);
+	                        count.setInt(1, reply.getPostId());
+	                        count.executeUpdate();
+	                        conn.commit();
+	                        gradeEngine.replyCreated(reply.getAuthor());
+	                        searchIndex.replyIndexed(replyId, reply.getPostId(), reply.getContent());
+	                        pageCache.postChanged(reply.getPostId());
+	                        postCache.invalidate(reply.getPostId());
+	                        return replyId;
+	                    }
 	                }
 	            }
+	            conn.rollback();
+	        } catch (SQLException e) {
+	            conn.rollback();
+	            throw e;
 	        }
 	    } catch (SQLException e) {
 	        e.printStackTrace();
@@ -421,7 +938,7 @@ public class Database {
 	    ReplyList replyList = new ReplyList();
 	    String query = "SELECT * FROM replies WHERE postId = ? ORDER BY timestamp ASC";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setInt(1, postId);
 	        ResultSet rs = pstmt.executeQuery();
 	        
@@ -446,7 +963,7 @@ public class Database {
 	    ReplyList replyList = new ReplyList();
 	    String query = "SELECT * FROM replies ORDER BY timestamp DESC";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        ResultSet rs = pstmt.executeQuery();
 	        
 	        while (rs.next()) {
@@ -467,9 +984,9 @@ public class Database {
 
 	
 	public int getReplyCountForPost(int postId) {
-	    String query = "SELECT COUNT(*) AS count FROM replies WHERE postId = ?";
+	    String query = "SELECT replyCount AS count FROM posts WHERE postId = ?";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setInt(1, postId);
 	        ResultSet rs = pstmt.executeQuery();
 	        
@@ -483,12 +1000,94 @@ public class Database {
 	}
 
 	
+	/*******
+	 * <p> Method: ReplyList searchReplies(String searchText) </p>
+	 * 
+	 * <p> Description: Finds the replies that contain every keyword, newest first.  The search
+	 * index narrows the replies to the candidates, which are read by primary key and checked
+	 * with Reply.matchesAllKeywords.</p>
+	 * 
+	 * @param searchText is the space-separated keywords
+	 * 
+	 * @return the matching replies, or an empty list when there are none
+	 */
+	public ReplyList searchReplies(String searchText) {
+	    ReplyList replyList = new ReplyList();
+	    if (searchText == null || searchText.trim().isEmpty()) return replyList;
+	    
+	    java.util.BitSet found = searchIndex.findReplies(searchText, true);
+	    if (found != null && found.isEmpty()) return replyList;
+	    String query = found == null ? "SELECT * FROM replies ORDER BY timestamp DESC"
+	            : "SELECT * FROM replies WHERE replyId = ANY(?) ORDER BY timestamp DESC";
+	    
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
+	        if (found != null) pstmt.setObject(1, found.stream().boxed().toArray(Integer[]::new));
+	        try (ResultSet rs = pstmt.executeQuery()) {
+	            while (rs.next()) {
+	                Reply reply = new Reply(
+	                    rs.getInt("replyId"),
+	                    rs.getInt("postId"),
+	                    rs.getString("author"),
+	                    rs.getString("content"),
+	                    rs.getTimestamp("timestamp").toLocalDateTime()
+	                );
+	                if (reply.matchesAllKeywords(searchText)) replyList.addReply(reply);
+	            }
+	        }
+	    } catch (SQLException e) {
+	        e.printStackTrace();
+	    }
+	    return replyList;
+	}
+
+	
+	/*******
+	 * <p> Method: boolean deleteReply(int replyId) </p>
+	 * 
+	 * <p> Description: Deletes a reply and, in the same transaction, decrements the reply count
+	 * stored with its post.</p>
+	 * 
+	 * @param replyId is the reply to delete
+	 * 
+	 * @return true if a reply was deleted, else false
+	 */
 	public boolean deleteReply(int replyId) {
+	    String lookup = "SELECT postId, author FROM replies WHERE replyId = ?";
+	    String uncountReply = "UPDATE posts SET replyCount = replyCount - 1 WHERE postId = ?";
 	    String query = "DELETE FROM replies WHERE replyId = ?";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-	        pstmt.setInt(1, replyId);
-	        return pstmt.executeUpdate() > 0;
+	    try (Connection conn = pool.getConnection()) {
+	        conn.setAutoCommit(false);
+	        try (PreparedStatement find = conn.prepareStatement(lookup);
+	             PreparedStatement uncount = conn.prepareStatement(uncountReply);
+	             PreparedStatement pstmt = conn.prepareStatement(query)) {
+	            find.setInt(1, replyId);
+	            int postId;
+	            String author;
+	            try (ResultSet rs = find.executeQuery()) {
+	                if (!rs.next()) {
+	                    conn.rollback();
+	                    return false;
+	                }
+	                postId = rs.getInt("postId");
+	                author = rs.getString("author");
+	            }
+	            uncount.setInt(1, postId);
+	            uncount.executeUpdate();
+	            pstmt.setInt(1, replyId);
+	            if (pstmt.executeUpdate() > 0) {
+	                conn.commit();
+	                gradeEngine.replyDeleted(author);
+	                searchIndex.replyRemoved(replyId);
+	                pageCache.postChanged(postId);
+	                postCache.invalidate(postId);
+	                return true;
+	            }
+	            conn.rollback();
+	        } catch (SQLException e) {
+	            conn.rollback();
+	            throw e;
+	        }
 	    } catch (SQLException e) {
 	        e.printStackTrace();
 	    }
@@ -496,58 +1095,123 @@ public class Database {
 	}
 
 	
+	/*******
+	 * <p> Method: void markPostAsRead(int postId, String userName) </p>
+	 * 
+	 * <p> Description: Adds the post to the user's read set.  The change is seen at once by
+	 * isPostRead and the unread lists; the set is stored a moment later by the read mark
+	 * writer, together with other users' marks.  Viewing a post the user has already read
+	 * changes nothing.</p>
+	 * 
+	 * @param postId is the post that was viewed
+	 * @param userName is the reader
+	 */
 	public void markPostAsRead(int postId, String userName) {
-	    String query = "MERGE INTO postReadStatus (postId, userName, isRead) "
-	            + "KEY(postId, userName) VALUES (?, ?, TRUE)";
-	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-	        pstmt.setInt(1, postId);
-	        pstmt.setString(2, userName);
-	        pstmt.executeUpdate();
-	    } catch (SQLException e) {
-	        e.printStackTrace();
+	    if (!readState.postExists(postId)) return;
+	    CompressedBitmap read = readPostsOf(userName);
+	    if (read == null) return;
+	    synchronized (read) {
+	        if (!read.add(postId)) return;
 	    }
+	    pageCache.postRead(postId, userName);
+	    int waiting = readState.marked(userName);
+	    if (readMarkWriter != null) readMarkWriter.marked(waiting);
+	}
+
+	/*******
+	 * <p> Method: void flushReadMarks() </p>
+	 * 
+	 * <p> Description: Stores every read mark that is still waiting, for example when a user
+	 * logs out.</p>
+	 */
+	public void flushReadMarks() {
+	    if (readMarkWriter != null) readMarkWriter.flush();
 	}
 
 	
 	public boolean isPostRead(int postId, String userName) {
-	    String query = "SELECT isRead FROM postReadStatus WHERE postId = ? AND userName = ?";
-	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-	        pstmt.setInt(1, postId);
-	        pstmt.setString(2, userName);
-	        ResultSet rs = pstmt.executeQuery();
-	        
-	        if (rs.next()) {
-	            return rs.getBoolean("isRead");
-	        }
+	    CompressedBitmap read = readPostsOf(userName);
+	    if (read == null) return false;
+	    synchronized (read) {
+	        return read.contains(postId);
+	    }
+	}
+
+	/*
+	 * The user's read set, read from postReadSets the first time it is needed; null if it
+	 * cannot be read.
+	 */
+	private CompressedBitmap readPostsOf(String userName) {
+	    CompressedBitmap read = readState.cached(userName);
+	    if (read != null) return read;
+	    try (Connection conn = pool.getConnection()) {
+	        return readState.load(conn, userName);
 	    } catch (SQLException e) {
 	        e.printStackTrace();
 	    }
-	    return false; 
+	    return null;
 	}
+
+	/*
+	 * A WHERE condition on "posts p" and its parameters.
+	 */
+	private static final class Condition {
+	    final String where;
+	    final Object[] params;
+	    
+	    Condition(String where, Object... params) {
+	        this.where = where;
+	        this.params = params;
+	    }
+	}
+
+	/*
+	 * The condition selecting the posts a user has not read and did not write.  The unread
+	 * posts are every post and-not the user's read set; whichever of the unread and read sets
+	 * is smaller is bound as the "= ANY(?)" array, so the condition stays short both for new
+	 * users and for users who have read nearly everything.
+	 */
+	private Condition unreadCondition(String userName) {
+	    CompressedBitmap read = readPostsOf(userName);
+	    if (read == null) return new Condition("p.author != ?", userName);
+	    int readCount;
+	    synchronized (read) {
+	        readCount = read.cardinality();
+	    }
+	    if (readCount == 0) return new Condition("p.author != ?", userName);
+	    if (readCount < readState.getPostCount() - readCount) {
+	        Integer[] readIds;
+	        synchronized (read) {
+	            readIds = read.toArray();
+	        }
+	        return new Condition("NOT (p.postId = ANY(?)) AND p.author != ?", readIds, userName);
+	    }
+	    return new Condition("p.postId = ANY(?) AND p.author != ?", readState.unread(read).toArray(), userName);
+	}
+
+	/*******
+	 * <p> Method: PostList getUnreadPosts(String userName) </p>
+	 * 
+	 * <p> Description: Lists the posts the user has not read, newest first.  The user's own
+	 * posts are never listed as unread.</p>
+	 * 
+	 * @param userName is the reader
+	 * 
+	 * @return the unread posts
+	 */
 	public PostList getUnreadPosts(String userName) {
 	    PostList postList = new PostList();
-	    String query = "SELECT p.* FROM posts p " +
-	                   "LEFT JOIN postReadStatus prs ON p.postId = prs.postId AND prs.userName = ? " +
-	                   "WHERE (prs.isRead IS NULL OR prs.isRead = FALSE) AND p.author != ? " +
-	                   "ORDER BY p.timestamp DESC";
+	    Condition unread = unreadCondition(userName);
+	    String query = "SELECT p.* FROM posts p WHERE " + unread.where + " ORDER BY p.timestamp DESC";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-	        pstmt.setString(1, userName);
-	        pstmt.setString(2, userName); 
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
+	        for (int i = 0; i < unread.params.length; i++) {
+	            pstmt.setObject(i + 1, unread.params[i]);
+	        }
 	        ResultSet rs = pstmt.executeQuery();
 	        
 	        while (rs.next()) {
-	            Post post = new Post(
-	                rs.getInt("postId"),
-	                rs.getString("author"),
-	                rs.getString("title"),
-	                rs.getString("content"),
-	                rs.getString("thread"),
-	                rs.getTimestamp("timestamp").toLocalDateTime(),
-	                rs.getBoolean("isDeleted")
-	            );
+	            Post post = mapPost(rs);
 	            postList.addPost(post);
 	        }
 	    } catch (SQLException e) {
@@ -557,7 +1221,7 @@ public class Database {
 	}
 	public void setTemporaryPassword(String username, String tempPassword) {
 	    String query = "UPDATE userDB SET password = ?, isTemporaryPassword = TRUE WHERE userName = ?";  // Changed username to userName
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setString(1, tempPassword);
 	        pstmt.setString(2, username);
 	        pstmt.executeUpdate();
@@ -568,7 +1232,7 @@ public class Database {
 
 	public boolean isPasswordTemporary(String username) {
 	    String query = "SELECT isTemporaryPassword FROM userDB WHERE userName = ?";  // Already correct
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setString(1, username);
 	        ResultSet rs = pstmt.executeQuery();
 	        if (rs.next()) {
@@ -582,7 +1246,7 @@ public class Database {
 
 	public void clearTemporaryPasswordFlag(String username) {
 	    String query = "UPDATE userDB SET isTemporaryPassword = FALSE WHERE userName = ?";  // Changed username to userName
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setString(1, username);
 	        pstmt.executeUpdate();
 	    } catch (SQLException e) {
@@ -593,28 +1257,307 @@ public class Database {
  * <p> Method: connectToDatabase </p>
  * 
  * <p> Description: Used to establish the in-memory instance of the H2 database from secondary
- *		storage.</p>
+ *		storage.  This clears the database and rebuilds it from fresh, which is what the
+ *		testers rely on.</p>
  *
  * @throws SQLException when the DriverManager is unable to establish a connection
  * 
  */
 	public void connectToDatabase() throws SQLException {
+		connectToDatabase(false);
+	}
+
+/*******
+ * <p> Method: connectToDatabase(boolean persistent) </p>
+ * 
+ * <p> Description: Used to establish the in-memory instance of the H2 database from secondary
+ *		storage.  In persistent mode the existing data is kept and only the schema migrations
+ *		missing from the schema_migrations ledger are applied, so a warm start does no schema
+ *		work at all.  Otherwise every object is dropped first and all migrations are applied to
+ *		an empty database.  The startup time is reported on the console.</p>
+ *
+ * @param persistent is true to keep the existing data, false to restart from fresh
+ * 
+ * @throws SQLException when the DriverManager is unable to establish a connection
+ * 
+ */
+	public void connectToDatabase(boolean persistent) throws SQLException {
+		long start = System.currentTimeMillis();
 		try {
 			Class.forName(JDBC_DRIVER); // Load the JDBC driver
-			connection = DriverManager.getConnection(DB_URL, USER, PASS);
-			statement = connection.createStatement(); 
-			// You can use this command to clear the database and restart from fresh.
-			statement.execute("DROP ALL OBJECTS");
+			if (readMarkWriter != null) {
+				// Reconnecting: store the waiting read marks through the pool they were made on
+				readMarkWriter.close();
+				readMarkWriter = null;
+			}
+			pool = new ConnectionPool(DB_URL, USER, PASS, minPoolSize, maxPoolSize, CHECKOUT_TIMEOUT_MILLIS,
+					STATEMENT_CACHE_SIZE);
+			try (Connection conn = pool.getConnection(); Statement statement = conn.createStatement()) {
+				if (!persistent) {
+					// You can use this command to clear the database and restart from fresh.
+					statement.execute("DROP ALL OBJECTS");
+				}
 
-			createTables();  // Create the necessary tables if they don't exist
+				int applied = migrator.migrate(conn);  // Apply only the migrations not yet in the ledger
+				List<String> indexed = ForumIndexes.ensure(conn);  // Create any missing hot-query indexes
+				if (!indexed.isEmpty()) System.out.println("*** Created indexes " + indexed + " ***");
+				gradeEngine.setConfig(readModerationConfig(conn));
+				gradeEngine.load(conn);
+				searchIndex.load(conn);
+				readState.load(conn);
+				unreadCounter.load(conn);
+				messageSearchIndex.load(conn);
+				readMarkWriter = new ReadMarkWriter(pool, readState);
+				pageCache.clear();
+				postCache.clear();
+				lastStartupMillis = System.currentTimeMillis() - start;
+				System.out.println("*** Database ready in " + lastStartupMillis + " ms ("
+						+ (persistent ? "persistent" : "fresh") + " start, " + applied
+						+ " migration(s) applied, schema version " + migrator.getSchemaVersion(conn)
+						+ ") ***");
+			}
 		} catch (ClassNotFoundException e) {
 			System.err.println("JDBC Driver not found: " + e.getMessage());
 		}
 	}
 
-	
+	/*******
+	 * <p> Method: long getLastStartupMillis() </p>
+	 * 
+	 * <p> Description: Reports how long the most recent connectToDatabase call took, including
+	 * any schema migrations it had to apply.</p>
+	 * 
+	 * @return the startup time in milliseconds
+	 */
+	public long getLastStartupMillis() {
+		return lastStartupMillis;
+	}
 
-	private void createTables() throws SQLException {
+	/*******
+	 * <p> Method: List&lt;String&gt; getMissingIndexes() </p>
+	 * 
+	 * <p> Description: Lists the managed forum indexes that do not exist in the database.  The
+	 * list is empty after a successful connectToDatabase.</p>
+	 * 
+	 * @return the names of the missing indexes, or null if the schema could not be read
+	 */
+	public List<String> getMissingIndexes() {
+		try (Connection conn = pool.getConnection()) {
+			List<String> names = new ArrayList<>();
+			for (ForumIndexes.Index index : ForumIndexes.missing(conn)) names.add(index.name);
+			return names;
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+
+	/*******
+	 * <p> Method: String explainQuery(String sql) </p>
+	 * 
+	 * <p> Description: Asks H2 for the plan it would use to run a query.  A plan that reads a
+	 * whole table contains the word "tableScan"; one that uses an index names the index.  The
+	 * query may hold "?" parameters, as the statements Database prepares do; H2 plans them
+	 * without values.</p>
+	 * 
+	 * @param sql is the query to explain
+	 * 
+	 * @return the plan text, or null if the query could not be explained
+	 */
+	public String explainQuery(String sql) {
+		try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement("EXPLAIN " + sql);
+			 ResultSet rs = pstmt.executeQuery()) {
+			StringBuilder plan = new StringBuilder();
+			while (rs.next()) plan.append(rs.getString(1)).append('\n');
+			return plan.toString();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+
+	/*******
+	 * <p> Method: int getSchemaVersion() </p>
+	 * 
+	 * <p> Description: Reads the highest migration version recorded in the schema ledger.</p>
+	 * 
+	 * @return the current schema version, or -1 when the ledger cannot be read
+	 */
+	public int getSchemaVersion() {
+		try (Connection conn = pool.getConnection()) {
+			return migrator.getSchemaVersion(conn);
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return -1;
+	}
+
+	/*
+	 * The ordered list of schema migrations.  Released migrations must never be edited; a schema
+	 * change is always added as a new version at the end.
+	 */
+	private SchemaMigrator buildMigrations() {
+		return new SchemaMigrator()
+			.add(1, "Create user and invitation tables", this::createTables)
+			.add(2, "Create admin request tables", (conn, statement) -> createRequestTables(statement))
+			.add(3, "Create forum tables", (conn, statement) -> createForumTables(statement))
+			.add(4, "Create moderation and private message tables", (conn, statement) -> createModerationTables(statement))
+			.add(5, "Create moderation config table", (conn, statement) -> createModerationConfigTable(statement))
+			.add(6, "Store reply counts with posts", (conn, statement) -> addReplyCountColumn(statement))
+			.add(7, "Store content previews with posts", (conn, statement) -> addPreviewColumn(statement))
+			.add(8, "Store message and flag times as TIMESTAMP", (conn, statement) -> convertModerationTimestamps(statement))
+			.add(9, "Store read posts as one bitmap per user", this::convertReadStatusToBitmaps)
+			.add(10, "Group private messages into conversations", this::addConversationColumns)
+			.add(11, "Create broadcast message tables", (conn, statement) -> createBroadcastTables(statement))
+			.add(12, "Store search keys with posts", this::addSearchKeyColumn);
+	}
+
+	/*
+	 * Schema migration 6: a denormalized reply count on each post, kept current by createReply
+	 * and deleteReply, so post lists do not need a COUNT query per post.
+	 */
+	private void addReplyCountColumn(Statement statement) throws SQLException {
+	    statement.execute("ALTER TABLE posts ADD COLUMN IF NOT EXISTS replyCount INT DEFAULT 0 NOT NULL");
+	    statement.execute("UPDATE posts p SET replyCount = "
+	            + "(SELECT COUNT(*) FROM replies r WHERE r.postId = p.postId)");
+	}
+
+	/*
+	 * Schema migration 7: the preview shown in post lists, kept current by createPost and
+	 * updatePost, so list queries never read the content CLOB.
+	 */
+	private void addPreviewColumn(Statement statement) throws SQLException {
+	    int length = PostSummary.PREVIEW_LENGTH;
+	    statement.execute("ALTER TABLE posts ADD COLUMN IF NOT EXISTS preview VARCHAR(" + (length + 3) + ")");
+	    statement.execute("UPDATE posts SET preview = CASE WHEN CHAR_LENGTH(content) > " + length
+	            + " THEN SUBSTRING(content, 1, " + length + ") || '...' ELSE content END");
+	}
+
+	/*
+	 * Schema migration 8: privateMessages and moderationFlags kept their times as ISO-8601 text.
+	 * The columns are converted in place, H2 parsing each stored value, so ordering compares
+	 * times rather than strings and rows map without parsing.  The single-column indexes from
+	 * migration 4 are replaced by the time-ordered ones in ForumIndexes.
+	 */
+	private void convertModerationTimestamps(Statement statement) throws SQLException {
+	    statement.execute("ALTER TABLE privateMessages ALTER COLUMN timestamp SET DATA TYPE TIMESTAMP");
+	    statement.execute("ALTER TABLE moderationFlags ALTER COLUMN timestamp SET DATA TYPE TIMESTAMP");
+	    statement.execute("DROP INDEX IF EXISTS idx_pm_recipient");
+	    statement.execute("DROP INDEX IF EXISTS idx_mf_post");
+	    statement.execute("DROP INDEX IF EXISTS idx_mf_staff");
+	}
+
+	/*
+	 * Schema migration 9: postReadStatus held one row per post a user had read, so it grew with
+	 * users times posts.  Each user's read posts become one CompressedBitmap in postReadSets,
+	 * which ReadState keeps in memory, and the old table is dropped.  H2 commits each DDL
+	 * statement on its own, so a run that failed part way may already have created the new
+	 * table or dropped the old one; the copy is skipped once postReadStatus is gone and the
+	 * sets are merged, so the migration can simply be run again.
+	 */
+	private void convertReadStatusToBitmaps(Connection conn, Statement statement) throws SQLException {
+	    statement.execute("CREATE TABLE IF NOT EXISTS postReadSets ("
+	            + "userName VARCHAR(255) PRIMARY KEY, "
+	            + "readPosts BLOB, "
+	            + "FOREIGN KEY (userName) REFERENCES userDB(userName))");
+	    try (ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES "
+	            + "WHERE TABLE_SCHEMA = SCHEMA() AND TABLE_NAME = 'POSTREADSTATUS'")) {
+	        if (rs.next() && rs.getInt(1) == 0) return;  // Already copied and dropped
+	    }
+	    java.util.Map<String, CompressedBitmap> sets = new java.util.HashMap<>();
+	    try (ResultSet rs = statement.executeQuery(
+	            "SELECT userName, postId FROM postReadStatus WHERE isRead = TRUE")) {
+	        while (rs.next()) {
+	            sets.computeIfAbsent(rs.getString("userName"), user -> new CompressedBitmap()).add(rs.getInt("postId"));
+	        }
+	    }
+	    try (PreparedStatement insert = conn.prepareStatement(
+	            "MERGE INTO postReadSets (userName, readPosts) KEY(userName) VALUES (?, ?)")) {
+	        for (java.util.Map.Entry<String, CompressedBitmap> set : sets.entrySet()) {
+	            insert.setString(1, set.getKey());
+	            insert.setBytes(2, set.getValue().toBytes());
+	            insert.addBatch();
+	        }
+	        insert.executeBatch();
+	    }
+	    statement.execute("DROP TABLE postReadStatus");
+	}
+
+	/*
+	 * Schema migration 10: each private message stores the id of its conversation's first
+	 * message, so a conversation is read in one indexed query instead of one query per reply
+	 * level, and a preview, so inbox summaries never read message bodies.  The roots of the
+	 * existing messages are found with one recursive query over the parent links.
+	 */
+	private void addConversationColumns(Connection conn, Statement statement) throws SQLException {
+	    int length = PostSummary.PREVIEW_LENGTH;
+	    statement.execute("ALTER TABLE privateMessages ADD COLUMN IF NOT EXISTS rootMessageId INTEGER");
+	    statement.execute("ALTER TABLE privateMessages ADD COLUMN IF NOT EXISTS preview VARCHAR(" + (length + 3) + ")");
+	    statement.execute("UPDATE privateMessages SET preview = CASE WHEN CHAR_LENGTH(content) > " + length
+	            + " THEN SUBSTRING(content, 1, " + length + ") || '...' ELSE content END");
+	    String roots = "WITH RECURSIVE tree(messageId, rootId) AS ("
+	            + "SELECT m.messageId, m.messageId FROM privateMessages m WHERE m.parentMessageId IS NULL "
+	            + "OR NOT EXISTS (SELECT 1 FROM privateMessages p WHERE p.messageId = m.parentMessageId) "
+	            + "UNION ALL SELECT m.messageId, t.rootId FROM privateMessages m "
+	            + "JOIN tree t ON m.parentMessageId = t.messageId) "
+	            + "SELECT messageId, rootId FROM tree";
+	    try (ResultSet rs = statement.executeQuery(roots);
+	         PreparedStatement update = conn.prepareStatement(
+	                 "UPDATE privateMessages SET rootMessageId = ? WHERE messageId = ?")) {
+	        while (rs.next()) {
+	            update.setInt(1, rs.getInt("rootId"));
+	            update.setInt(2, rs.getInt("messageId"));
+	            update.addBatch();
+	        }
+	        update.executeBatch();
+	    }
+	    // Messages in a parent cycle have no root; each starts its own conversation
+	    statement.execute("UPDATE privateMessages SET rootMessageId = messageId WHERE rootMessageId IS NULL");
+	}
+
+	/*
+	 * Schema migration 11: a broadcast's body is stored once in broadcasts, and each recipient
+	 * gets only a narrow row with its read flag and the send time, which lets the inbox page
+	 * through a user's broadcasts in index order without joining the bodies.
+	 */
+	private void createBroadcastTables(Statement statement) throws SQLException {
+	    int length = PostSummary.PREVIEW_LENGTH;
+	    statement.execute("CREATE TABLE IF NOT EXISTS broadcasts ("
+	            + "broadcastId INTEGER PRIMARY KEY AUTO_INCREMENT, "
+	            + "senderId VARCHAR(255) NOT NULL, "
+	            + "postId INTEGER, "
+	            + "content TEXT NOT NULL, "
+	            + "preview VARCHAR(" + (length + 3) + "), "
+	            + "timestamp TIMESTAMP NOT NULL)");
+	    statement.execute("CREATE TABLE IF NOT EXISTS broadcastRecipients ("
+	            + "broadcastId INTEGER NOT NULL, "
+	            + "recipientId VARCHAR(255) NOT NULL, "
+	            + "isRead BOOLEAN DEFAULT FALSE NOT NULL, "
+	            + "timestamp TIMESTAMP NOT NULL, "
+	            + "PRIMARY KEY (broadcastId, recipientId), "
+	            + "FOREIGN KEY (broadcastId) REFERENCES broadcasts(broadcastId) ON DELETE CASCADE)");
+	}
+
+	/*
+	 * Schema migration 12: the lower-case, accent-free SearchKey of each post's title and
+	 * content, kept current by createPost and updatePost, so keyword page queries match
+	 * "Café" with "cafe" inside H2 the same way Post.matchesAllKeywords does.  SearchKey is
+	 * Java code, so the existing posts are keyed here rather than in SQL.
+	 */
+	private void addSearchKeyColumn(Connection conn, Statement statement) throws SQLException {
+	    statement.execute("ALTER TABLE posts ADD COLUMN IF NOT EXISTS searchKey CLOB");
+	    try (ResultSet rs = statement.executeQuery("SELECT postId, title, content FROM posts");
+	         PreparedStatement update = conn.prepareStatement("UPDATE posts SET searchKey = ? WHERE postId = ?")) {
+	        while (rs.next()) {
+	            update.setString(1, searchKeyOf(rs.getString("title"), rs.getString("content")));
+	            update.setInt(2, rs.getInt("postId"));
+	            update.addBatch();
+	        }
+	        update.executeBatch();
+	    }
+	}
+
+	private void createTables(Connection conn, Statement statement) throws SQLException {
 		
 	    String userTable = "CREATE TABLE IF NOT EXISTS userDB ("
 	            + "id INT AUTO_INCREMENT PRIMARY KEY, "
@@ -643,16 +1586,14 @@ public class Database {
 	            + ")";
 	    statement.execute(invitationCodesDeadline);
 	    
-	    ensureDeadlineColumnExists();
-	    ensureTemporaryPasswordColumnExists();  
-		createRequestTables();
-	    createForumTables();
+	    ensureDeadlineColumnExists(conn);
+	    ensureTemporaryPasswordColumnExists(conn);  
 	}
-	private void ensureTemporaryPasswordColumnExists() throws SQLException {
-	    if (!columnExists("userDB", "isTemporaryPassword")) {
+	private void ensureTemporaryPasswordColumnExists(Connection conn) throws SQLException {
+	    if (!columnExists(conn, "userDB", "isTemporaryPassword")) {
 	        System.out.println("Adding missing 'isTemporaryPassword' column to userDB...");
 	        String alterSQL = "ALTER TABLE userDB ADD COLUMN isTemporaryPassword BOOL DEFAULT FALSE";
-	        try (Statement stmt = connection.createStatement()) {
+	        try (Statement stmt = conn.createStatement()) {
 	            stmt.execute(alterSQL);
 	        }
 	    }
@@ -670,7 +1611,7 @@ public class Database {
 		//create a string of a query to be used to connect to the SQL table to access the database
 		String query = "SELECT userName, firstname, lastName, preferredFirstName, emailAddress, "
 				+ "adminRole, newRole1, newRole2 FROM userDB";
-		try (PreparedStatement pstmt = connection.prepareStatement(query))
+		try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query))
 		{
 			//Once accessed save that connection of the table
 			ResultSet rs = pstmt.executeQuery();
@@ -710,7 +1651,7 @@ public class Database {
  */
 	public boolean isDatabaseEmpty() {
 		String query = "SELECT COUNT(*) AS count FROM userDB";
-		try {
+		try (Connection conn = pool.getConnection(); Statement statement = conn.createStatement()) {
 			ResultSet resultSet = statement.executeQuery(query);
 			if (resultSet.next()) {
 				return resultSet.getInt("count") == 0;
@@ -732,7 +1673,7 @@ public class Database {
  */
 	public int getNumberOfUsers() {
 		String query = "SELECT COUNT(*) AS count FROM userDB";
-		try {
+		try (Connection conn = pool.getConnection(); Statement statement = conn.createStatement()) {
 			ResultSet resultSet = statement.executeQuery(query);
 			if (resultSet.next()) {
 				return resultSet.getInt("count");
@@ -757,7 +1698,7 @@ public class Database {
 		String insertUser = "INSERT INTO userDB (userName, password, firstName, middleName, "
 				+ "lastName, preferredFirstName, emailAddress, adminRole, newRole1, newRole2) "
 				+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-		try (PreparedStatement pstmt = connection.prepareStatement(insertUser)) {
+		try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(insertUser)) {
 			currentUsername = user.getUserName();
 			pstmt.setString(1, currentUsername);
 			
@@ -805,7 +1746,7 @@ public class Database {
 		List<String> userList = new ArrayList<String>();
 		userList.add("<Select a User>");
 		String query = "SELECT userName FROM userDB";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			ResultSet rs = pstmt.executeQuery();
 			while (rs.next()) {
 				userList.add(rs.getString("userName"));
@@ -832,7 +1773,7 @@ public class Database {
 		// Validates an admin user's login credentials so the user can login in as an Admin.
 		String query = "SELECT * FROM userDB WHERE userName = ? AND password = ? AND "
 				+ "adminRole = TRUE";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, user.getUserName());
 			pstmt.setString(2, user.getPassword());
 			ResultSet rs = pstmt.executeQuery();
@@ -859,7 +1800,7 @@ public class Database {
 		// Validates a student user's login credentials.
 		String query = "SELECT * FROM userDB WHERE userName = ? AND password = ? AND "
 				+ "newRole1 = TRUE";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, user.getUserName());
 			pstmt.setString(2, user.getPassword());
 			ResultSet rs = pstmt.executeQuery();
@@ -885,7 +1826,7 @@ public class Database {
 	public boolean loginRole2(User user) {
 		String query = "SELECT * FROM userDB WHERE userName = ? AND password = ? AND "
 				+ "newRole2 = TRUE";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, user.getUserName());
 			pstmt.setString(2, user.getPassword());
 			ResultSet rs = pstmt.executeQuery();
@@ -910,7 +1851,7 @@ public class Database {
 	// Checks if a user already exists in the database based on their userName.
 	public boolean doesUserExist(String userName) {
 	    String query = "SELECT COUNT(*) FROM userDB WHERE userName = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        
 	        pstmt.setString(1, userName);
 	        ResultSet rs = pstmt.executeQuery();
@@ -966,7 +1907,7 @@ public class Database {
 	    String code = UUID.randomUUID().toString().substring(0, 6); // Generate a random 6-character code
 	    String query = "INSERT INTO InvitationCodes (code, emailaddress, role) VALUES (?, ?, ?)";
 
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setString(1, code);
 	        pstmt.setString(2, emailAddress);
 	        pstmt.setString(3, role);
@@ -989,7 +1930,7 @@ public class Database {
 	// Number of invitations in the database
 	public int getNumberOfInvitations() {
 		String query = "SELECT COUNT(*) AS count FROM InvitationCodes";
-		try {
+		try (Connection conn = pool.getConnection(); Statement statement = conn.createStatement()) {
 			ResultSet resultSet = statement.executeQuery(query);
 			if (resultSet.next()) {
 				return resultSet.getInt("count");
@@ -1014,7 +1955,7 @@ public class Database {
 	// Check to see if an email address is already in the database
 	public boolean emailaddressHasBeenUsed(String emailAddress) {
 	    String query = "SELECT COUNT(*) AS count FROM InvitationCodes WHERE emailAddress = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setString(1, emailAddress);
 	        ResultSet rs = pstmt.executeQuery();
 	        System.out.println(rs);
@@ -1042,7 +1983,7 @@ public class Database {
 	// Obtain the roles associated with an invitation code.
 	public String getRoleGivenAnInvitationCode(String code) {
 	    String query = "SELECT * FROM InvitationCodes WHERE code = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setString(1, code);
 	        ResultSet rs = pstmt.executeQuery();
 	        if (rs.next()) {
@@ -1068,7 +2009,7 @@ public class Database {
 	// For a given invitation code, return the associated email address of an empty string
 	public String getEmailAddressUsingCode (String code ) {
 	    String query = "SELECT emailAddress FROM InvitationCodes WHERE code = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setString(1, code);
 	        ResultSet rs = pstmt.executeQuery();
 	        if (rs.next()) {
@@ -1092,7 +2033,7 @@ public class Database {
 	// Remove an invitation using an email address once the user account has been setup
 	public void removeInvitationAfterUse(String code) {
 	    String query = "SELECT COUNT(*) AS count FROM InvitationCodes WHERE code = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setString(1, code);
 	        ResultSet rs = pstmt.executeQuery();
 	        if (rs.next()) {
@@ -1100,7 +2041,7 @@ public class Database {
 	            // Only do the remove if the code is still in the invitation table
 	        	if (counter > 0) {
         			query = "DELETE FROM InvitationCodes WHERE code = ?";
-	        		try (PreparedStatement pstmt2 = connection.prepareStatement(query)) {
+	        		try (PreparedStatement pstmt2 = conn.prepareStatement(query)) {
 	        			pstmt2.setString(1, code);
 	        			pstmt2.executeUpdate();
 	        		}catch (SQLException e) {
@@ -1128,7 +2069,7 @@ public class Database {
 	// update the first name
 	public void updateUsername(String oldUsername, String newUsername) {
 	    String query = "UPDATE userDB SET userName = ? WHERE userName = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setString(1, newUsername);
 	        pstmt.setString(2, oldUsername);
 	        pstmt.executeUpdate();
@@ -1152,7 +2093,7 @@ public class Database {
 	// Get the First Name
 	public String getFirstName(String username) {
 		String query = "SELECT firstName FROM userDB WHERE userName = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, username);
 	        ResultSet rs = pstmt.executeQuery();
 	        
@@ -1181,7 +2122,7 @@ public class Database {
 	// update the first name
 	public void updateFirstName(String username, String firstName) {
 	    String query = "UPDATE userDB SET firstName = ? WHERE username = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setString(1, firstName);
 	        pstmt.setString(2, username);
 	        pstmt.executeUpdate();
@@ -1195,7 +2136,7 @@ public class Database {
 	
 	public String getPassword(String password) {
 		String query = "SELECT password FROM userDB WHERE userName = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, password);
 	        ResultSet rs = pstmt.executeQuery();
 	        
@@ -1224,7 +2165,7 @@ public class Database {
 	// update the first name
 	public void updatePassword(String username, String password) {
 	    String query = "UPDATE userDB SET password = ? WHERE username = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setString(1, password);
 	        pstmt.setString(2, username);
 	        pstmt.executeUpdate();
@@ -1249,7 +2190,7 @@ public class Database {
 	// get the middle name
 	public String getMiddleName(String username) {
 		String query = "SELECT MiddleName FROM userDB WHERE userName = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, username);
 	        ResultSet rs = pstmt.executeQuery();
 	        
@@ -1277,7 +2218,7 @@ public class Database {
 	// update the middle name
 	public void updateMiddleName(String username, String middleName) {
 	    String query = "UPDATE userDB SET middleName = ? WHERE username = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setString(1, middleName);
 	        pstmt.setString(2, username);
 	        pstmt.executeUpdate();
@@ -1301,7 +2242,7 @@ public class Database {
 	// get he last name
 	public String getLastName(String username) {
 		String query = "SELECT LastName FROM userDB WHERE userName = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, username);
 	        ResultSet rs = pstmt.executeQuery();
 	        
@@ -1329,7 +2270,7 @@ public class Database {
 	// update the last name
 	public void updateLastName(String username, String lastName) {
 	    String query = "UPDATE userDB SET lastName = ? WHERE username = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setString(1, lastName);
 	        pstmt.setString(2, username);
 	        pstmt.executeUpdate();
@@ -1353,7 +2294,7 @@ public class Database {
 	// get the preferred first name
 	public String getPreferredFirstName(String username) {
 		String query = "SELECT preferredFirstName FROM userDB WHERE userName = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, username);
 	        ResultSet rs = pstmt.executeQuery();
 	        
@@ -1382,7 +2323,7 @@ public class Database {
 	// update the preferred first name of the user
 	public void updatePreferredFirstName(String username, String preferredFirstName) {
 	    String query = "UPDATE userDB SET preferredFirstName = ? WHERE username = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setString(1, preferredFirstName);
 	        pstmt.setString(2, username);
 	        pstmt.executeUpdate();
@@ -1406,7 +2347,7 @@ public class Database {
 	// get the email address
 	public String getEmailAddress(String username) {
 		String query = "SELECT emailAddress FROM userDB WHERE userName = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, username);
 	        ResultSet rs = pstmt.executeQuery();
 	        
@@ -1433,7 +2374,7 @@ public class Database {
 	// check the email address
 	public boolean checkEmailAddress(String emailAddress) {
 		String query = "SELECT emailAddress FROM userDB WHERE emailAddress = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, emailAddress);
 	        ResultSet rs = pstmt.executeQuery();
 	        
@@ -1462,7 +2403,7 @@ public class Database {
 	// update the email address
 	public void updateEmailAddress(String username, String emailAddress) {
 	    String query = "UPDATE userDB SET emailAddress = ? WHERE username = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setString(1, emailAddress);
 	        pstmt.setString(2, username);
 	        pstmt.executeUpdate();
@@ -1486,7 +2427,7 @@ public class Database {
 	// get the attributes for a specified user
 	public boolean getUserAccountDetails(String username) {
 		String query = "SELECT * FROM userDB WHERE username = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, username);
 	        ResultSet rs = pstmt.executeQuery();			
 			rs.next();
@@ -1526,7 +2467,7 @@ public class Database {
 	public boolean updateUserRole(String username, String role, String value) {
 		if (role.compareTo("Admin") == 0) {
 			String query = "UPDATE userDB SET adminRole = ? WHERE username = ?";
-			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+			try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 				pstmt.setString(1, value);
 				pstmt.setString(2, username);
 				pstmt.executeUpdate();
@@ -1541,7 +2482,7 @@ public class Database {
 		}
 		if (role.compareTo("Role1") == 0) {
 			String query = "UPDATE userDB SET newRole1 = ? WHERE username = ?";
-			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+			try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 				pstmt.setString(1, value);
 				pstmt.setString(2, username);
 				pstmt.executeUpdate();
@@ -1556,7 +2497,7 @@ public class Database {
 		}
 		if (role.compareTo("Role2") == 0) {
 			String query = "UPDATE userDB SET newRole2 = ? WHERE username = ?";
-			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+			try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 				pstmt.setString(1, value);
 				pstmt.setString(2, username);
 				pstmt.executeUpdate();
@@ -1687,6 +2628,7 @@ public class Database {
 
 	public void dump() throws SQLException {
 		String query = "SELECT * FROM userDB";
+		try (Connection conn = pool.getConnection(); Statement statement = conn.createStatement()) {
 		ResultSet resultSet = statement.executeQuery(query);
 		ResultSetMetaData meta = resultSet.getMetaData();
 		while (resultSet.next()) {
@@ -1698,32 +2640,33 @@ public class Database {
 		System.out.println();
 		}
 		resultSet.close();
+		}
 	}
 
 
 	/*******
 	 * <p> Method: void closeConnection()</p>
 	 * 
-	 * <p> Description: Closes the database statement and connection.</p>
+	 * <p> Description: Stores any waiting read marks, then shuts down the connection pool,
+	 * closing every pooled connection.</p>
 	 * 
 	 */
-	// Closes the database statement and connection.
+	// Closes the pooled database connections.
 	public void closeConnection() {
-		try{ 
-			if(statement!=null) statement.close(); 
-		} catch(SQLException se2) { 
-			se2.printStackTrace();
-		} 
-		try { 
-			if(connection!=null) connection.close(); 
-		} catch(SQLException se){ 
-			se.printStackTrace(); 
-		} 
+		if (readMarkWriter != null) {
+			readMarkWriter.close();  // Store the waiting read marks while the pool is still open
+			readMarkWriter = null;
+		}
+		if (pool != null) {
+			System.out.println("*** Closing database: " + pool + " ***");
+			pool.shutdown();
+			pool = null;
+		}
 	}
 
 	public boolean DeleteUser(String userName) {
 	    String query = "DELETE FROM userDB WHERE userName = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        
 	        pstmt.setString(1, userName);
 	        int deleteRows = pstmt.executeUpdate();
@@ -1738,7 +2681,7 @@ public class Database {
 		List<String> userList = new ArrayList<String>();
 		userList.add("<Select an Email>");
 		String query = "SELECT emailAddress FROM InvitationCodes";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			ResultSet rs = pstmt.executeQuery();
 			while (rs.next()) {
 				userList.add(rs.getString("emailAddress"));
@@ -1752,7 +2695,7 @@ public class Database {
 	
 	public String getCodebyEmail (String email ) {
 	    String query = "SELECT code FROM InvitationCodes WHERE emailAddress = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setString(1, email);
 	        ResultSet rs = pstmt.executeQuery();
 	        if (rs.next()) {
@@ -1765,31 +2708,29 @@ public class Database {
 	}
 	
 	public void setDeadlineInDatabase(String code, long deadline) {
-	    try {
-	        String sql = "MERGE INTO invitationCodesDeadline (code, deadline) KEY(code) VALUES (?, ?)";
-	        PreparedStatement ps = connection.prepareStatement(sql);
+	    String sql = "MERGE INTO invitationCodesDeadline (code, deadline) KEY(code) VALUES (?, ?)";
+	    try (Connection conn = pool.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
 	        ps.setString(1, code);
 	        ps.setLong(2, deadline);
 	        ps.executeUpdate();
-	        ps.close();
 	    } catch (SQLException e) {
 	        System.err.println("Error setting deadline in database: " + e.getMessage());
 	        e.printStackTrace();
 	    }
 	}
 	
-	private boolean columnExists(String tableName, String columnName) throws SQLException {
-	    DatabaseMetaData meta = connection.getMetaData();
+	private boolean columnExists(Connection conn, String tableName, String columnName) throws SQLException {
+	    DatabaseMetaData meta = conn.getMetaData();
 	    try (ResultSet rs = meta.getColumns(null, null, tableName.toUpperCase(), columnName.toUpperCase())) {
 	        return rs.next();
 	    }
 	}
 	
-	public void ensureDeadlineColumnExists() throws SQLException {
-	    if (!columnExists("invitationCodesDeadline", "deadline")) {
+	public void ensureDeadlineColumnExists(Connection conn) throws SQLException {
+	    if (!columnExists(conn, "invitationCodesDeadline", "deadline")) {
 	        System.out.println("Adding missing 'deadline' column to invitationCodesDeadline...");
 	        String alterSQL = "ALTER TABLE invitationCodesDeadline ADD COLUMN deadline BIGINT";
-	        try (Statement stmt = connection.createStatement()) {
+	        try (Statement stmt = conn.createStatement()) {
 	            stmt.execute(alterSQL);
 	        }
 	    }
@@ -1798,7 +2739,7 @@ public class Database {
 	public long getDeadlineFromDatabase(String code) {
 	    long deadline = 0L;
 	    String sql = "SELECT deadline FROM invitationCodesDeadline WHERE code = ?";
-	    try (PreparedStatement ps = connection.prepareStatement(sql)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
 	        ps.setString(1, code);
 	        try (ResultSet rs = ps.executeQuery()) {
 	            if (rs.next()) {
@@ -1815,7 +2756,7 @@ public class Database {
 	public void removeExpiredInvitations() {
 	    long now = System.currentTimeMillis();
 	    String sql = "DELETE FROM InvitationCodes WHERE code IN (SELECT code FROM invitationCodesDeadline WHERE deadline < ?)";
-	    try (PreparedStatement ps = connection.prepareStatement(sql)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
 	        ps.setLong(1, now);
 	        ps.executeUpdate();
 	    } catch (SQLException e) {
@@ -1824,74 +2765,169 @@ public class Database {
 	    }
 	}
 	
+	/*
+	 * Builds a PrivateMessage from the current row of a query over privateMessages.
+	 */
+	private PrivateMessage mapPrivateMessage(ResultSet rs) throws SQLException {
+	    return mapPrivateMessage(rs, rs.getString("content"));
+	}
+
+	/*
+	 * Builds a PrivateMessage from the current row with the given body, which is null for rows
+	 * that only carry the preview.
+	 */
+	private PrivateMessage mapPrivateMessage(ResultSet rs, String content) throws SQLException {
+	    PrivateMessage message = new PrivateMessage(
+	        rs.getInt("messageId"),
+	        rs.getString("senderId"),
+	        rs.getString("recipientId"),
+	        rs.getObject("postId", Integer.class),
+	        content,
+	        rs.getBoolean("isRead"),
+	        rs.getObject("parentMessageId", Integer.class),
+	        rs.getTimestamp("timestamp").toLocalDateTime()
+	    );
+	    message.setRootMessageId(rs.getObject("rootMessageId", Integer.class));
+	    return message;
+	}
+
+	/*
+	 * Builds a ModerationFlag from the current row of a query over moderationFlags.
+	 */
+	private ModerationFlag mapModerationFlag(ResultSet rs) throws SQLException {
+	    return new ModerationFlag(
+	        rs.getInt("flagId"),
+	        rs.getInt("postId"),
+	        rs.getString("staffId"),
+	        rs.getString("flagReason"),
+	        rs.getTimestamp("timestamp").toLocalDateTime(),
+	        rs.getString("status")
+	    );
+	}
+
 	/**
-	 * Creates a new private message in the database.
+	 * Creates a new private message in the database.  A reply joins the conversation of the
+	 * message it answers; any other message starts a new one.  On success the message's id
+	 * and conversation are set.
 	 * @param message PrivateMessage object to create
 	 * @return true if successful
 	 */
 	public boolean createPrivateMessage(PrivateMessage message) {
-	    String sql = "INSERT INTO privateMessages (senderId, recipientId, postId, content, isRead, parentMessageId, timestamp) " +
-	                 "VALUES (?, ?, ?, ?, ?, ?, ?)";
+	    String sql = "INSERT INTO privateMessages (senderId, recipientId, postId, content, isRead, parentMessageId, timestamp, "
+	            + "preview, rootMessageId) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+	    String startConversation = "UPDATE privateMessages SET rootMessageId = messageId WHERE messageId = ?";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-	        pstmt.setString(1, message.getSenderId());
-	        pstmt.setString(2, message.getRecipientId());
-	        
-	        if (message.getPostId() != null) {
-	            pstmt.setInt(3, message.getPostId());
-	        } else {
-	            pstmt.setNull(3, java.sql.Types.INTEGER);
-	        }
-	        
-	        pstmt.setString(4, message.getContent());
-	        pstmt.setBoolean(5, message.isRead());
-	        
-	        if (message.getParentMessageId() != null) {
-	            pstmt.setInt(6, message.getParentMessageId());
-	        } else {
-	            pstmt.setNull(6, java.sql.Types.INTEGER);
+	    try (Connection conn = pool.getConnection()) {
+	        conn.setAutoCommit(false);
+	        try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+	             PreparedStatement start = conn.prepareStatement(startConversation)) {
+	            // A reply joins its parent's conversation; a missing parent starts a new one
+	            Integer rootMessageId = message.getParentMessageId() == null ? null
+	                    : lookupRootMessageId(conn, message.getParentMessageId());
+	            
+	            pstmt.setString(1, message.getSenderId());
+	            pstmt.setString(2, message.getRecipientId());
+	            pstmt.setObject(3, message.getPostId(), java.sql.Types.INTEGER);
+	            pstmt.setString(4, message.getContent());
+	            pstmt.setBoolean(5, message.isRead());
+	            pstmt.setObject(6, message.getParentMessageId(), java.sql.Types.INTEGER);
+	            pstmt.setTimestamp(7, Timestamp.valueOf(message.getTimestamp()));
+	            pstmt.setString(8, PostSummary.previewOf(message.getContent()));
+	            pstmt.setObject(9, rootMessageId, java.sql.Types.INTEGER);
+	            
+	            if (pstmt.executeUpdate() > 0) {
+	                try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+	                    if (generatedKeys.next()) {
+	                        int messageId = generatedKeys.getInt(1);
+	                        if (rootMessageId == null) {
+	                            start.setInt(1, messageId);
+	                            start.executeUpdate();
+	                            rootMessageId = messageId;
+	                        }
+	                        conn.commit();
+	                        message.setMessageId(messageId);
+	                        message.setRootMessageId(rootMessageId);
+	                        if (!message.isRead()) unreadCounter.add(message.getRecipientId(), 1);
+	                        messageSearchIndex.messageIndexed(messageId, message.getSenderId(),
+	                                message.getRecipientId(), message.getContent(), message.getTimestamp());
+	                        return true;
+	                    }
+	                }
+	            }
+	            conn.rollback();
+	        } catch (SQLException e) {
+	            conn.rollback();
+	            throw e;
 	        }
-	        
-	        pstmt.setString(7, message.getTimestamp().toString());
-	        
-	        int rowsAffected = pstmt.executeUpdate();
-	        return rowsAffected > 0;
-	        
 	    } catch (SQLException e) {
 	        System.err.println("Error creating private message: " + e.getMessage());
 	        e.printStackTrace();
-	        return false;
+	    }
+	    return false;
+	}
+
+	/*
+	 * Reads the conversation a stored message belongs to, or null if there is no such message.
+	 */
+	private Integer lookupRootMessageId(Connection conn, int messageId) throws SQLException {
+	    try (PreparedStatement pstmt = conn.prepareStatement("SELECT rootMessageId FROM privateMessages WHERE messageId = ?")) {
+	        pstmt.setInt(1, messageId);
+	        try (ResultSet rs = pstmt.executeQuery()) {
+	            return rs.next() ? rs.getObject(1, Integer.class) : null;
+	        }
 	    }
 	}
 
+	// The inbox columns of a direct message, and of one recipient's row of a broadcast joined
+	// with its body; a broadcast's messageId is its broadcastId.  The inbox list and search
+	// read only the stored preview, and the body is read when a message is opened
+	private static final String INBOX_MESSAGE_COLUMNS = inboxMessageColumns("preview");
+	private static final String INBOX_BROADCAST_COLUMNS = inboxBroadcastColumns("b.preview");
+	private static final String FULL_MESSAGE_COLUMNS = inboxMessageColumns("content, preview");
+	private static final String FULL_BROADCAST_COLUMNS = inboxBroadcastColumns("b.content, b.preview");
+	private static final String INBOX_ORDER = " ORDER BY timestamp DESC, isBroadcast DESC, messageId DESC";
+
+	private static String inboxMessageColumns(String body) {
+	    return "SELECT messageId, senderId, recipientId, postId, " + body + ", "
+	            + "isRead, parentMessageId, timestamp, rootMessageId, FALSE AS isBroadcast FROM privateMessages";
+	}
+
+	private static String inboxBroadcastColumns(String body) {
+	    return "SELECT b.broadcastId AS messageId, b.senderId, r.recipientId, "
+	            + "b.postId, " + body + ", r.isRead, CAST(NULL AS INTEGER) AS parentMessageId, r.timestamp, "
+	            + "CAST(NULL AS INTEGER) AS rootMessageId, TRUE AS isBroadcast "
+	            + "FROM broadcastRecipients r JOIN broadcasts b ON b.broadcastId = r.broadcastId";
+	}
+
+	/*
+	 * Builds a PrivateMessage from the current row of an inbox query, which may be a broadcast.
+	 * Rows of the inbox list carry only the preview, and their content is left null.
+	 */
+	private PrivateMessage mapInboxMessage(ResultSet rs, boolean withContent) throws SQLException {
+	    PrivateMessage message = mapPrivateMessage(rs, withContent ? rs.getString("content") : null);
+	    message.setPreview(rs.getString("preview"));
+	    message.setBroadcast(rs.getBoolean("isBroadcast"));
+	    return message;
+	}
+
 	/**
-	 * Gets all private messages for a specific user (as recipient).
+	 * Gets all private messages for a specific user (as recipient), with the broadcasts sent
+	 * to the user merged in.
 	 * @param username User's username
 	 * @return List of PrivateMessage objects ordered by newest first
 	 */
 	public List<PrivateMessage> getPrivateMessagesForUser(String username) {
 	    List<PrivateMessage> messages = new ArrayList<>();
-	    String sql = "SELECT * FROM privateMessages WHERE recipientId = ? ORDER BY timestamp DESC";
+	    String sql = "SELECT * FROM (" + FULL_MESSAGE_COLUMNS + " WHERE recipientId = ? UNION ALL "
+	            + FULL_BROADCAST_COLUMNS + " WHERE r.recipientId = ?) m" + INBOX_ORDER;
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 	        pstmt.setString(1, username);
+	        pstmt.setString(2, username);
 	        ResultSet rs = pstmt.executeQuery();
 	        
 	        while (rs.next()) {
-	            Integer postId = rs.getObject("postId", Integer.class);
-	            Integer parentId = rs.getObject("parentMessageId", Integer.class);
-	            
-	            PrivateMessage message = new PrivateMessage(
-	                rs.getInt("messageId"),
-	                rs.getString("senderId"),
-	                rs.getString("recipientId"),
-	                postId,
-	                rs.getString("content"),
-	                rs.getBoolean("isRead"),
-	                parentId,
-	                LocalDateTime.parse(rs.getString("timestamp"))
-	            );
-	            messages.add(message);
+	            messages.add(mapInboxMessage(rs, true));
 	        }
 	        
 	    } catch (SQLException e) {
@@ -1903,27 +2939,168 @@ public class Database {
 	}
 
 	/**
-	 * Gets count of unread messages for a user.
+	 * Gets one keyset page of a user's inbox, newest first, together with the number of unread
+	 * messages in the whole inbox.  Direct messages and broadcasts are each read up to one
+	 * page through their (recipientId, isRead, timestamp, id) indexes, then merged.  The
+	 * read/unread filter and the cursor are applied by H2 and the count comes from the
+	 * in-memory UnreadCounter, so a refresh costs the same however large the inbox is.
+	 * One extra row is read to learn whether another page exists.  Only the stored preview of
+	 * each message is read; getPrivateMessageContent reads the body of the one that is opened.
 	 * @param username User's username
-	 * @return Count of unread messages
-	 */
-	public int getUnreadMessageCount(String username) {
-	    String sql = "SELECT COUNT(*) FROM privateMessages WHERE recipientId = ? AND isRead = FALSE";
+	 * @param filter Which messages to list: all, unread only or read only
+	 * @param after Cursor of the previous page, or null for the first page
+	 * @param pageSize Largest number of messages to return
+	 * @return The page, whose next cursor is null when there are no more messages
+	 */
+	public MessagePage getPrivateMessagesPage(String username, MessagePage.Filter filter,
+	        MessagePage.Cursor after, int pageSize) {
+	    if (pageSize < 1) return MessagePage.empty();
+	    String readFilter = filter == MessagePage.Filter.ALL ? "" : " AND isRead = ?";
+	    // Direct messages sort after a broadcast with the same time, broadcasts before a direct message
+	    StringBuilder messages = new StringBuilder(INBOX_MESSAGE_COLUMNS).append(" WHERE recipientId = ?").append(readFilter);
+	    StringBuilder broadcasts = new StringBuilder(INBOX_BROADCAST_COLUMNS).append(" WHERE r.recipientId = ?")
+	            .append(readFilter.replace("isRead", "r.isRead"));
+	    if (after != null) {
+	        messages.append(" AND timestamp <= ? AND (timestamp < ? OR ? OR messageId < ?)");
+	        broadcasts.append(" AND r.timestamp <= ? AND (r.timestamp < ? OR (? AND r.broadcastId < ?))");
+	    }
+	    messages.append(" ORDER BY timestamp DESC, messageId DESC LIMIT ?");
+	    broadcasts.append(" ORDER BY r.timestamp DESC, r.broadcastId DESC LIMIT ?");
+	    String sql = "SELECT * FROM ((" + messages + ") UNION ALL (" + broadcasts + ")) x" + INBOX_ORDER + " LIMIT ?";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-	        pstmt.setString(1, username);
-	        ResultSet rs = pstmt.executeQuery();
-	        
-	        if (rs.next()) {
-	            return rs.getInt(1);
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+	        int index = 1;
+	        for (int branch = 0; branch < 2; branch++) {
+	            pstmt.setString(index++, username);
+	            if (filter != MessagePage.Filter.ALL) {
+	                pstmt.setBoolean(index++, filter == MessagePage.Filter.READ);
+	            }
+	            if (after != null) {
+	                Timestamp ts = Timestamp.valueOf(after.getTimestamp());
+	                pstmt.setTimestamp(index++, ts);
+	                pstmt.setTimestamp(index++, ts);
+	                pstmt.setBoolean(index++, after.isBroadcast());
+	                pstmt.setInt(index++, after.getMessageId());
+	            }
+	            pstmt.setInt(index++, pageSize + 1);
 	        }
-	        
+	        pstmt.setInt(index, pageSize + 1);
+	        
+	        List<PrivateMessage> page = new ArrayList<>();
+	        boolean more = false;
+	        try (ResultSet rs = pstmt.executeQuery()) {
+	            while (rs.next()) {
+	                if (page.size() == pageSize) {
+	                    more = true;
+	                    break;
+	                }
+	                page.add(mapInboxMessage(rs, false));
+	            }
+	        }
+	        MessagePage.Cursor next = more ? MessagePage.Cursor.after(page.get(page.size() - 1)) : null;
+	        return new MessagePage(page, next, unreadCounter.get(username));
 	    } catch (SQLException e) {
-	        System.err.println("Error getting unread message count: " + e.getMessage());
+	        System.err.println("Error getting private messages page: " + e.getMessage());
 	        e.printStackTrace();
 	    }
+	    return MessagePage.empty();
+	}
+
+	/**
+	 * Searches the private messages a user has received or sent, and the broadcasts the user
+	 * has received, for keywords, best match first.  The message search index finds and ranks
+	 * the matches in memory, by relevance and recency, so no message content is scanned; only
+	 * the messages on the requested page are then read, by primary key, with their previews
+	 * but not their bodies.
+	 * @param username User's username
+	 * @param searchText Space-separated keywords; each matches any word it begins
+	 * @param offset Position in the ranking of the first message to return
+	 * @param pageSize Largest number of messages to return
+	 * @return The page, whose next offset is -1 when there are no more matches
+	 */
+	public MessageSearchPage searchPrivateMessages(String username, String searchText, int offset, int pageSize) {
+	    if (pageSize < 1 || offset < 0) return MessageSearchPage.empty();
+	    List<MessageSearchIndex.Match> ranked = messageSearchIndex.search(username, searchText, java.time.LocalDateTime.now());
+	    if (offset >= ranked.size()) return new MessageSearchPage(null, -1, ranked.size());
+	    int end = Math.min(ranked.size(), offset + pageSize);
+	    List<MessageSearchIndex.Match> matches = ranked.subList(offset, end);
+	    List<Integer> messageIds = new ArrayList<>();
+	    List<Integer> broadcastIds = new ArrayList<>();
+	    for (MessageSearchIndex.Match match : matches) {
+	        (match.isBroadcast() ? broadcastIds : messageIds).add(match.getId());
+	    }
+	    String sql = INBOX_MESSAGE_COLUMNS + " WHERE messageId = ANY(?) UNION ALL "
+	            + INBOX_BROADCAST_COLUMNS + " WHERE r.recipientId = ? AND r.broadcastId = ANY(?)";
 	    
-	    return 0;
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+	        pstmt.setObject(1, messageIds.toArray(new Integer[0]));
+	        pstmt.setString(2, username);
+	        pstmt.setObject(3, broadcastIds.toArray(new Integer[0]));
+	        java.util.Map<Integer, PrivateMessage> foundMessages = new java.util.HashMap<>();
+	        java.util.Map<Integer, PrivateMessage> foundBroadcasts = new java.util.HashMap<>();
+	        try (ResultSet rs = pstmt.executeQuery()) {
+	            while (rs.next()) {
+	                PrivateMessage message = mapInboxMessage(rs, false);
+	                (message.isBroadcast() ? foundBroadcasts : foundMessages).put(message.getMessageId(), message);
+	            }
+	        }
+	        // Back into the order of the ranking
+	        List<PrivateMessage> page = new ArrayList<>(matches.size());
+	        for (MessageSearchIndex.Match match : matches) {
+	            PrivateMessage message = (match.isBroadcast() ? foundBroadcasts : foundMessages).get(match.getId());
+	            if (message != null) page.add(message);
+	        }
+	        return new MessageSearchPage(page, end < ranked.size() ? end : -1, ranked.size());
+	    } catch (SQLException e) {
+	        System.err.println("Error searching private messages: " + e.getMessage());
+	        e.printStackTrace();
+	    }
+	    return MessageSearchPage.empty();
+	}
+
+	/**
+	 * Gets the body of one message or broadcast, for a message listed by
+	 * getPrivateMessagesPage or searchPrivateMessages, which carry only the preview.
+	 * @param messageId ID of the message, or of the broadcast
+	 * @param broadcast true if messageId is a broadcastId
+	 * @return The body, or null if there is no such message
+	 */
+	public String getPrivateMessageContent(int messageId, boolean broadcast) {
+	    String sql = broadcast ? "SELECT content FROM broadcasts WHERE broadcastId = ?"
+	            : "SELECT content FROM privateMessages WHERE messageId = ?";
+	    
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+	        pstmt.setInt(1, messageId);
+	        try (ResultSet rs = pstmt.executeQuery()) {
+	            return rs.next() ? rs.getString(1) : null;
+	        }
+	    } catch (SQLException e) {
+	        System.err.println("Error getting message content: " + e.getMessage());
+	        e.printStackTrace();
+	    }
+	    return null;
+	}
+
+	/**
+	 * Gets count of unread messages for a user.  The count is kept in memory by the unread
+	 * counter, so no query is run.
+	 * @param username User's username
+	 * @return Count of unread messages
+	 */
+	public int getUnreadMessageCount(String username) {
+	    return unreadCounter.get(username);
+	}
+
+	/**
+	 * Calls a listener with a user's unread message count now and every time it changes,
+	 * so a badge can follow the count without polling.  The listener runs on the thread that
+	 * changed the count.
+	 * @param username User's username
+	 * @param listener Given each new count
+	 * @return The subscription; close it when the count is no longer shown
+	 */
+	public UnreadCounter.Subscription subscribeUnreadMessageCount(String username, java.util.function.IntConsumer listener) {
+	    return unreadCounter.subscribe(username, listener);
 	}
 
 	/**
@@ -1932,35 +3109,137 @@ public class Database {
 	 * @return true if successful
 	 */
 	public boolean markPrivateMessageAsRead(int messageId) {
-	    String sql = "UPDATE privateMessages SET isRead = TRUE WHERE messageId = ?";
+	    return setPrivateMessageRead(messageId, true);
+	}
+
+	/**
+	 * Marks a message as unread.
+	 * @param messageId Message ID
+	 * @return true if successful
+	 */
+	public boolean markPrivateMessageAsUnread(int messageId) {
+	    return setPrivateMessageRead(messageId, false);
+	}
+
+	/**
+	 * Sends one announcement to many recipients.  The body is stored once; each recipient
+	 * gets a row holding only its read flag, and those rows are written in one JDBC batch in
+	 * the same transaction as the body.  Repeated recipients are sent the broadcast once.
+	 * @param senderId Username of the sender
+	 * @param recipientIds Usernames of the recipients
+	 * @param postId Related post ID (can be null)
+	 * @param content Message body
+	 * @return The new broadcastId, or -1 if the broadcast could not be stored
+	 */
+	public int createBroadcast(String senderId, List<String> recipientIds, Integer postId, String content) {
+	    java.util.Set<String> recipients = new java.util.LinkedHashSet<>(recipientIds);
+	    recipients.remove(null);
+	    if (recipients.isEmpty()) return -1;
+	    String insertBroadcast = "INSERT INTO broadcasts (senderId, postId, content, preview, timestamp) VALUES (?, ?, ?, ?, ?)";
+	    String insertRecipient = "INSERT INTO broadcastRecipients (broadcastId, recipientId, timestamp) VALUES (?, ?, ?)";
+	    Timestamp now = Timestamp.valueOf(java.time.LocalDateTime.now());
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-	        pstmt.setInt(1, messageId);
-	        int rowsAffected = pstmt.executeUpdate();
-	        return rowsAffected > 0;
-	        
+	    try (Connection conn = pool.getConnection()) {
+	        conn.setAutoCommit(false);
+	        try (PreparedStatement pstmt = conn.prepareStatement(insertBroadcast, Statement.RETURN_GENERATED_KEYS);
+	             PreparedStatement recipient = conn.prepareStatement(insertRecipient)) {
+	            pstmt.setString(1, senderId);
+	            pstmt.setObject(2, postId, java.sql.Types.INTEGER);
+	            pstmt.setString(3, content);
+	            pstmt.setString(4, PostSummary.previewOf(content));
+	            pstmt.setTimestamp(5, now);
+	            pstmt.executeUpdate();
+	            
+	            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+	                if (generatedKeys.next()) {
+	                    int broadcastId = generatedKeys.getInt(1);
+	                    for (String recipientId : recipients) {
+	                        recipient.setInt(1, broadcastId);
+	                        recipient.setString(2, recipientId);
+	                        recipient.setTimestamp(3, now);
+	                        recipient.addBatch();
+	                    }
+	                    recipient.executeBatch();
+	                    conn.commit();
+	                    for (String recipientId : recipients) unreadCounter.add(recipientId, 1);
+	                    messageSearchIndex.broadcastIndexed(broadcastId, recipients, content, now.toLocalDateTime());
+	                    return broadcastId;
+	                }
+	            }
+	            conn.rollback();
+	        } catch (SQLException e) {
+	            conn.rollback();
+	            throw e;
+	        }
 	    } catch (SQLException e) {
-	        System.err.println("Error marking message as read: " + e.getMessage());
+	        System.err.println("Error creating broadcast: " + e.getMessage());
 	        e.printStackTrace();
-	        return false;
 	    }
+	    return -1;
 	}
 
 	/**
-	 * Marks a message as unread.
-	 * @param messageId Message ID
+	 * Marks one recipient's copy of a broadcast as read.
+	 * @param broadcastId Broadcast ID
+	 * @param recipientId Username of the recipient
 	 * @return true if successful
 	 */
-	public boolean markPrivateMessageAsUnread(int messageId) {
-	    String sql = "UPDATE privateMessages SET isRead = FALSE WHERE messageId = ?";
+	public boolean markBroadcastAsRead(int broadcastId, String recipientId) {
+	    return setBroadcastRead(broadcastId, recipientId, true);
+	}
+
+	/**
+	 * Marks one recipient's copy of a broadcast as unread.
+	 * @param broadcastId Broadcast ID
+	 * @param recipientId Username of the recipient
+	 * @return true if successful
+	 */
+	public boolean markBroadcastAsUnread(int broadcastId, String recipientId) {
+	    return setBroadcastRead(broadcastId, recipientId, false);
+	}
+
+	/*
+	 * Sets the read flag of one recipient's copy of a broadcast, moving the recipient's unread
+	 * count only when the flag really changed, as setPrivateMessageRead does.
+	 */
+	private boolean setBroadcastRead(int broadcastId, String recipientId, boolean read) {
+	    String sql = "SELECT isRead FROM OLD TABLE (UPDATE broadcastRecipients SET isRead = ? "
+	            + "WHERE broadcastId = ? AND recipientId = ?)";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-	        pstmt.setInt(1, messageId);
-	        int rowsAffected = pstmt.executeUpdate();
-	        return rowsAffected > 0;
-	        
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+	        pstmt.setBoolean(1, read);
+	        pstmt.setInt(2, broadcastId);
+	        pstmt.setString(3, recipientId);
+	        try (ResultSet rs = pstmt.executeQuery()) {
+	            if (!rs.next()) return false;
+	            if (rs.getBoolean("isRead") != read) unreadCounter.add(recipientId, read ? -1 : 1);
+	            return true;
+	        }
+	    } catch (SQLException e) {
+	        System.err.println("Error marking broadcast as " + (read ? "read: " : "unread: ") + e.getMessage());
+	        e.printStackTrace();
+	        return false;
+	    }
+	}
+
+	/*
+	 * Sets the read flag of a message.  The update hands back the row as it was before, in the
+	 * same statement, so the recipient's unread count is moved only when the flag really
+	 * changed.
+	 */
+	private boolean setPrivateMessageRead(int messageId, boolean read) {
+	    String sql = "SELECT recipientId, isRead FROM OLD TABLE (UPDATE privateMessages SET isRead = ? WHERE messageId = ?)";
+	    
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+	        pstmt.setBoolean(1, read);
+	        pstmt.setInt(2, messageId);
+	        try (ResultSet rs = pstmt.executeQuery()) {
+	            if (!rs.next()) return false;
+	            if (rs.getBoolean("isRead") != read) unreadCounter.add(rs.getString("recipientId"), read ? -1 : 1);
+	            return true;
+	        }
 	    } catch (SQLException e) {
-	        System.err.println("Error marking message as unread: " + e.getMessage());
+	        System.err.println("Error marking message as " + (read ? "read: " : "unread: ") + e.getMessage());
 	        e.printStackTrace();
 	        return false;
 	    }
@@ -1975,25 +3254,12 @@ public class Database {
 	    List<PrivateMessage> replies = new ArrayList<>();
 	    String sql = "SELECT * FROM privateMessages WHERE parentMessageId = ? ORDER BY timestamp ASC";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 	        pstmt.setInt(1, parentMessageId);
 	        ResultSet rs = pstmt.executeQuery();
 	        
 	        while (rs.next()) {
-	            Integer postId = rs.getObject("postId", Integer.class);
-	            Integer parentId = rs.getObject("parentMessageId", Integer.class);
-	            
-	            PrivateMessage message = new PrivateMessage(
-	                rs.getInt("messageId"),
-	                rs.getString("senderId"),
-	                rs.getString("recipientId"),
-	                postId,
-	                rs.getString("content"),
-	                rs.getBoolean("isRead"),
-	                parentId,
-	                LocalDateTime.parse(rs.getString("timestamp"))
-	            );
-	            replies.add(message);
+	            replies.add(mapPrivateMessage(rs));
 	        }
 	        
 	    } catch (SQLException e) {
@@ -2004,6 +3270,33 @@ public class Database {
 	    return replies;
 	}
 
+	/**
+	 * Gets a whole conversation in one query: the first message and every reply under it,
+	 * however many levels deep.
+	 * @param rootMessageId ID of the conversation's first message, as given by
+	 *        PrivateMessage.getConversationId
+	 * @return List of the conversation's messages ordered by oldest first
+	 */
+	public List<PrivateMessage> getConversation(int rootMessageId) {
+	    List<PrivateMessage> messages = new ArrayList<>();
+	    String sql = "SELECT * FROM privateMessages WHERE rootMessageId = ? ORDER BY timestamp ASC, messageId ASC";
+	    
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+	        pstmt.setInt(1, rootMessageId);
+	        ResultSet rs = pstmt.executeQuery();
+	        
+	        while (rs.next()) {
+	            messages.add(mapPrivateMessage(rs));
+	        }
+	        
+	    } catch (SQLException e) {
+	        System.err.println("Error getting conversation: " + e.getMessage());
+	        e.printStackTrace();
+	    }
+	    
+	    return messages;
+	}
+
 	/**
 	 * Creates a new moderation flag in the database.
 	 * @param flag ModerationFlag object to create
@@ -2013,11 +3306,11 @@ public class Database {
 	    String sql = "INSERT INTO moderationFlags (postId, staffId, flagReason, timestamp, status) " +
 	                 "VALUES (?, ?, ?, ?, ?)";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 	        pstmt.setInt(1, flag.getPostId());
 	        pstmt.setString(2, flag.getStaffId());
 	        pstmt.setString(3, flag.getFlagReason());
-	        pstmt.setString(4, flag.getTimestamp().toString());
+	        pstmt.setTimestamp(4, Timestamp.valueOf(flag.getTimestamp()));
 	        pstmt.setString(5, flag.getStatus());
 	        
 	        int rowsAffected = pstmt.executeUpdate();
@@ -2039,7 +3332,7 @@ public class Database {
 	public boolean markPostAsFlagged(int postId, boolean flagged) {
 	    String sql = "UPDATE posts SET isFlagged = ? WHERE postId = ?";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 	        pstmt.setBoolean(1, flagged);
 	        pstmt.setInt(2, postId);
 	        
@@ -2061,7 +3354,7 @@ public class Database {
 	public boolean isPostFlagged(int postId) {
 	    String sql = "SELECT isFlagged FROM posts WHERE postId = ?";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 	        pstmt.setInt(1, postId);
 	        ResultSet rs = pstmt.executeQuery();
 	        
@@ -2085,19 +3378,12 @@ public class Database {
 	    List<ModerationFlag> flags = new ArrayList<>();
 	    String sql = "SELECT * FROM moderationFlags ORDER BY timestamp DESC";
 	    
-	    try (Statement stmt = connection.createStatement();
-	         ResultSet rs = stmt.executeQuery(sql)) {
+	    try (Connection conn = pool.getConnection();
+	         PreparedStatement pstmt = conn.prepareStatement(sql);
+	         ResultSet rs = pstmt.executeQuery()) {
 	        
 	        while (rs.next()) {
-	            ModerationFlag flag = new ModerationFlag(
-	                rs.getInt("flagId"),
-	                rs.getInt("postId"),
-	                rs.getString("staffId"),
-	                rs.getString("flagReason"),
-	                LocalDateTime.parse(rs.getString("timestamp")),
-	                rs.getString("status")
-	            );
-	            flags.add(flag);
+	            flags.add(mapModerationFlag(rs));
 	        }
 	        
 	    } catch (SQLException e) {
@@ -2117,20 +3403,12 @@ public class Database {
 	    List<ModerationFlag> flags = new ArrayList<>();
 	    String sql = "SELECT * FROM moderationFlags WHERE staffId = ? ORDER BY timestamp DESC";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 	        pstmt.setString(1, staffUsername);
 	        ResultSet rs = pstmt.executeQuery();
 	        
 	        while (rs.next()) {
-	            ModerationFlag flag = new ModerationFlag(
-	                rs.getInt("flagId"),
-	                rs.getInt("postId"),
-	                rs.getString("staffId"),
-	                rs.getString("flagReason"),
-	                LocalDateTime.parse(rs.getString("timestamp")),
-	                rs.getString("status")
-	            );
-	            flags.add(flag);
+	            flags.add(mapModerationFlag(rs));
 	        }
 	        
 	    } catch (SQLException e) {
@@ -2150,20 +3428,12 @@ public class Database {
 	    List<ModerationFlag> flags = new ArrayList<>();
 	    String sql = "SELECT * FROM moderationFlags WHERE postId = ? ORDER BY timestamp DESC";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 	        pstmt.setInt(1, postId);
 	        ResultSet rs = pstmt.executeQuery();
 	        
 	        while (rs.next()) {
-	            ModerationFlag flag = new ModerationFlag(
-	                rs.getInt("flagId"),
-	                rs.getInt("postId"),
-	                rs.getString("staffId"),
-	                rs.getString("flagReason"),
-	                LocalDateTime.parse(rs.getString("timestamp")),
-	                rs.getString("status")
-	            );
-	            flags.add(flag);
+	            flags.add(mapModerationFlag(rs));
 	        }
 	        
 	    } catch (SQLException e) {
@@ -2183,7 +3453,7 @@ public class Database {
 	public boolean updateFlagStatus(int flagId, String status) {
 	    String sql = "UPDATE moderationFlags SET status = ? WHERE flagId = ?";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 	        pstmt.setString(1, status);
 	        pstmt.setInt(2, flagId);
 	        
@@ -2207,19 +3477,12 @@ public class Database {
 	    List<Post> posts = new ArrayList<>();
 	    String sql = "SELECT * FROM posts WHERE isFlagged = TRUE ORDER BY timestamp DESC";
 	    
-	    try (Statement stmt = connection.createStatement();
+	    try (Connection conn = pool.getConnection();
+	         Statement stmt = conn.createStatement();
 	         ResultSet rs = stmt.executeQuery(sql)) {
 	        
 	        while (rs.next()) {
-	            Post post = new Post(
-	                rs.getInt("postId"),
-	                rs.getString("author"),
-	                rs.getString("title"),
-	                rs.getString("content"),
-	                rs.getString("thread"),
-	                LocalDateTime.parse(rs.getString("timestamp")),
-	                rs.getBoolean("isDeleted")
-	            );
+	            Post post = mapPost(rs);
 	            posts.add(post);
 	        }
 	        
@@ -2239,19 +3502,12 @@ public class Database {
 	    List<Post> posts = new ArrayList<>();
 	    String sql = "SELECT * FROM posts WHERE isFlagged = FALSE ORDER BY timestamp DESC";
 	    
-	    try (Statement stmt = connection.createStatement();
+	    try (Connection conn = pool.getConnection();
+	         Statement stmt = conn.createStatement();
 	         ResultSet rs = stmt.executeQuery(sql)) {
 	        
 	        while (rs.next()) {
-	            Post post = new Post(
-	                rs.getInt("postId"),
-	                rs.getString("author"),
-	                rs.getString("title"),
-	                rs.getString("content"),
-	                rs.getString("thread"),
-	                LocalDateTime.parse(rs.getString("timestamp")),
-	                rs.getBoolean("isDeleted")
-	            );
+	            Post post = mapPost(rs);
 	            posts.add(post);
 	        }
 	        
@@ -2274,20 +3530,12 @@ public class Database {
 	                 "INNER JOIN moderationFlags mf ON p.postId = mf.postId " +
 	                 "WHERE mf.staffId = ? ORDER BY p.timestamp DESC";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 	        pstmt.setString(1, staffUsername);
 	        ResultSet rs = pstmt.executeQuery();
 	        
 	        while (rs.next()) {
-	            Post post = new Post(
-	                rs.getInt("postId"),
-	                rs.getString("author"),
-	                rs.getString("title"),
-	                rs.getString("content"),
-	                rs.getString("thread"),
-	                LocalDateTime.parse(rs.getString("timestamp")),
-	                rs.getBoolean("isDeleted")
-	            );
+	            Post post = mapPost(rs);
 	            posts.add(post);
 	        }
 	        
@@ -2307,7 +3555,8 @@ public class Database {
 	public int getTotalPostCount() {
 	    String sql = "SELECT COUNT(*) FROM posts";
 	    
-	    try (Statement stmt = connection.createStatement();
+	    try (Connection conn = pool.getConnection();
+	         Statement stmt = conn.createStatement();
 	         ResultSet rs = stmt.executeQuery(sql)) {
 	        
 	        if (rs.next()) {
@@ -2329,7 +3578,8 @@ public class Database {
 	public int getFlaggedPostCount() {
 	    String sql = "SELECT COUNT(*) FROM posts WHERE isFlagged = TRUE";
 	    
-	    try (Statement stmt = connection.createStatement();
+	    try (Connection conn = pool.getConnection();
+	         Statement stmt = conn.createStatement();
 	         ResultSet rs = stmt.executeQuery(sql)) {
 	        
 	        if (rs.next()) {
@@ -2351,7 +3601,8 @@ public class Database {
 	public int getPendingFlagCount() {
 	    String sql = "SELECT COUNT(*) FROM moderationFlags WHERE status = 'PENDING'";
 	    
-	    try (Statement stmt = connection.createStatement();
+	    try (Connection conn = pool.getConnection();
+	         Statement stmt = conn.createStatement();
 	         ResultSet rs = stmt.executeQuery(sql)) {
 	        
 	        if (rs.next()) {
@@ -2369,74 +3620,63 @@ public class Database {
 
 	/**
 	 * Initializes the moderation tables in the database.
-	 * Call this method during database setup/initialization.
+	 * The tables are created by the schema migrations when connecting, so on an up to date
+	 * database this only confirms that no migration is missing.
 	 */
 	public void initializeModerationTables() {
-	    try (Statement stmt = connection.createStatement()) {
-	        
-	        // Create privateMessages table
-	        System.out.println("Creating privateMessages table...");
-	        stmt.execute(
-	            "CREATE TABLE IF NOT EXISTS privateMessages (" +
-	            "messageId INTEGER PRIMARY KEY AUTO_INCREMENT, " +
-	            "senderId VARCHAR(255) NOT NULL, " +
-	            "recipientId VARCHAR(255) NOT NULL, " +
-	            "postId INTEGER, " +
-	            "content TEXT NOT NULL, " +
-	            "isRead BOOLEAN DEFAULT FALSE, " +
-	            "parentMessageId INTEGER, " +
-	            "timestamp VARCHAR(50) NOT NULL)"
-	        );
-	        
-	        // Create moderationFlags table
-	        System.out.println("Creating moderationFlags table...");
-	        stmt.execute(
-	            "CREATE TABLE IF NOT EXISTS moderationFlags (" +
-	            "flagId INTEGER PRIMARY KEY AUTO_INCREMENT, " +
-	            "postId INTEGER NOT NULL, " +
-	            "staffId VARCHAR(255) NOT NULL, " +
-	            "flagReason TEXT NOT NULL, " +
-	            "timestamp VARCHAR(50) NOT NULL, " +
-	            "status VARCHAR(20) DEFAULT 'PENDING')"
-	        );
-	        
-	        // Add isFlagged column to posts table
-	        System.out.println("Adding isFlagged column to posts table...");
-	        try {
-	            stmt.execute("ALTER TABLE posts ADD COLUMN isFlagged BOOLEAN DEFAULT FALSE");
-	            System.out.println("isFlagged column added successfully");
-	        } catch (SQLException e) {
-	            // Column might already exist
-	            if (e.getMessage().contains("duplicate column") || 
-	                e.getMessage().contains("already exists")) {
-	                System.out.println("isFlagged column already exists");
-	            } else {
-	                throw e;
-	            }
-	        }
-	        
-	        // Create indexes for better performance
-	        System.out.println("Creating indexes...");
-	        try {
-	            stmt.execute("CREATE INDEX IF NOT EXISTS idx_pm_recipient ON privateMessages(recipientId)");
-	            stmt.execute("CREATE INDEX IF NOT EXISTS idx_pm_unread ON privateMessages(recipientId, isRead)");
-	            stmt.execute("CREATE INDEX IF NOT EXISTS idx_mf_post ON moderationFlags(postId)");
-	            stmt.execute("CREATE INDEX IF NOT EXISTS idx_mf_staff ON moderationFlags(staffId)");
-	            stmt.execute("CREATE INDEX IF NOT EXISTS idx_posts_flagged ON posts(isFlagged)");
-	            System.out.println("Indexes created successfully");
-	        } catch (SQLException e) {
-	            // Indexes might already exist, that's okay
-	            System.out.println("Some indexes already exist: " + e.getMessage());
-	        }
-	        
-	        System.out.println("Moderation tables initialized successfully!");
-	        
+	    try (Connection conn = pool.getConnection()) {
+	        migrator.migrate(conn);
 	    } catch (SQLException e) {
 	        System.err.println("Error initializing moderation tables: " + e.getMessage());
 	        e.printStackTrace();
 	    }
 	}
 
+	/*
+	 * Schema migration 4: the private message and moderation flag tables.
+	 */
+	private void createModerationTables(Statement stmt) throws SQLException {
+	    // Create privateMessages table
+	    System.out.println("Creating privateMessages table...");
+	    stmt.execute(
+	        "CREATE TABLE IF NOT EXISTS privateMessages (" +
+	        "messageId INTEGER PRIMARY KEY AUTO_INCREMENT, " +
+	        "senderId VARCHAR(255) NOT NULL, " +
+	        "recipientId VARCHAR(255) NOT NULL, " +
+	        "postId INTEGER, " +
+	        "content TEXT NOT NULL, " +
+	        "isRead BOOLEAN DEFAULT FALSE, " +
+	        "parentMessageId INTEGER, " +
+	        "timestamp VARCHAR(50) NOT NULL)"
+	    );
+	    
+	    // Create moderationFlags table
+	    System.out.println("Creating moderationFlags table...");
+	    stmt.execute(
+	        "CREATE TABLE IF NOT EXISTS moderationFlags (" +
+	        "flagId INTEGER PRIMARY KEY AUTO_INCREMENT, " +
+	        "postId INTEGER NOT NULL, " +
+	        "staffId VARCHAR(255) NOT NULL, " +
+	        "flagReason TEXT NOT NULL, " +
+	        "timestamp VARCHAR(50) NOT NULL, " +
+	        "status VARCHAR(20) DEFAULT 'PENDING')"
+	    );
+	    
+	    // Add isFlagged column to posts table
+	    System.out.println("Adding isFlagged column to posts table...");
+	    stmt.execute("ALTER TABLE posts ADD COLUMN IF NOT EXISTS isFlagged BOOLEAN DEFAULT FALSE");
+	    
+	    // Create indexes for better performance
+	    System.out.println("Creating indexes...");
+	    stmt.execute("CREATE INDEX IF NOT EXISTS idx_pm_recipient ON privateMessages(recipientId)");
+	    stmt.execute("CREATE INDEX IF NOT EXISTS idx_pm_unread ON privateMessages(recipientId, isRead)");
+	    stmt.execute("CREATE INDEX IF NOT EXISTS idx_mf_post ON moderationFlags(postId)");
+	    stmt.execute("CREATE INDEX IF NOT EXISTS idx_mf_staff ON moderationFlags(staffId)");
+	    stmt.execute("CREATE INDEX IF NOT EXISTS idx_posts_flagged ON posts(isFlagged)");
+	    
+	    System.out.println("Moderation tables initialized successfully!");
+	}
+
 	/**
 	 * Updates the status of an existing request to 'CLOSED' and records the details of the admin action.
 	 *
@@ -2448,7 +3688,7 @@ public class Database {
 	public boolean closeRequest(int requestId, String adminAction, String adminUsername) {
 	    String query = "UPDATE admin_requests SET status = 'CLOSED', adminAction = ?, closedByAdmin = ? WHERE requestId = ?";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setString(1, adminAction);
 	        pstmt.setString(2, adminUsername);
 	        pstmt.setInt(3, requestId);
@@ -2472,7 +3712,7 @@ public class Database {
 	    // Query selects only requests that have been closed
 	    String query = "SELECT * FROM admin_requests WHERE status = 'CLOSED' ORDER BY timestamp DESC"; 
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        ResultSet rs = pstmt.executeQuery();
 	        while (rs.next()) {
 	            // Mapping the ResultSet to the Request entity object
@@ -2506,7 +3746,7 @@ public class Database {
 	public int createReopenedRequest(int closedRequestId, String staffUsername, String newDescription) {
 	    String insertRequest = "INSERT INTO admin_requests (staffUsername, description, status, originalClosedRequestId, timestamp) "
 	            + "VALUES (?, ?, 'REOPENED', ?, ?)";
-	    try (PreparedStatement pstmt = connection.prepareStatement(insertRequest, Statement.RETURN_GENERATED_KEYS)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(insertRequest, Statement.RETURN_GENERATED_KEYS)) {
 	        pstmt.setString(1, staffUsername);
 	        pstmt.setString(2, newDescription);
 	        pstmt.setInt(3, closedRequestId); // Link to the closed request ID
@@ -2537,7 +3777,7 @@ public class Database {
 	public Request getRequestById(int requestId) {
 	    String query = "SELECT * FROM admin_requests WHERE requestId = ?";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setInt(1, requestId);
 	        ResultSet rs = pstmt.executeQuery();
 	        
@@ -2560,7 +3800,7 @@ public class Database {
 	    return null;
 	}
 	
-	private void createModerationConfigTable() throws SQLException {
+	private void createModerationConfigTable(Statement statement) throws SQLException {
 	    String sql = """
 	        CREATE TABLE IF NOT EXISTS MODERATION_CONFIG (
 	            id INT AUTO_INCREMENT PRIMARY KEY,
@@ -2578,12 +3818,24 @@ public class Database {
 
 	/** Load config */
 	public ModerationConfig loadModerationConfig() {
-	    try {
-	        createModerationConfigTable();
+	    try (Connection conn = pool.getConnection()) {
+	        return readModerationConfig(conn);
+	    } catch (Exception e) {
+	        e.printStackTrace();
+	    }
+
+	    return ModerationConfig.defaultConfig();
+	}
 
-	        var rs = connection.prepareStatement(
+	/*
+	 * Reads the newest saved grading configuration on the given connection, falling back to the
+	 * default configuration when none has been saved.
+	 */
+	private ModerationConfig readModerationConfig(Connection conn) throws SQLException {
+	    try (Statement stmt = conn.createStatement()) {
+	        var rs = stmt.executeQuery(
 	            "SELECT * FROM MODERATION_CONFIG ORDER BY id DESC LIMIT 1"
-	        ).executeQuery();
+	        );
 
 	        if (rs.next()) {
 	            return new ModerationConfig(
@@ -2595,9 +3847,6 @@ public class Database {
 	                rs.getBoolean("auto_highlight")
 	            );
 	        }
-
-	    } catch (Exception e) {
-	        e.printStackTrace();
 	    }
 
 	    return ModerationConfig.defaultConfig();
@@ -2605,14 +3854,11 @@ public class Database {
 
 	/** Save config */
 	public boolean saveModerationConfig(ModerationConfig cfg) {
-	    try {
-	        createModerationConfigTable();
-
-	        var ps = connection.prepareStatement(
+	    try (Connection conn = pool.getConnection();
+	         PreparedStatement ps = conn.prepareStatement(
 	            "INSERT INTO MODERATION_CONFIG " +
 	            "(min_posts, min_peers, passing, excellence, sensitivity, auto_highlight) " +
-	            "VALUES (?, ?, ?, ?, ?, ?)"
-	        );
+	            "VALUES (?, ?, ?, ?, ?, ?)")) {
 
 	        ps.setInt(1, cfg.getMinPosts());
 	        ps.setInt(2, cfg.getMinPeerResponses());
@@ -2622,6 +3868,7 @@ public class Database {
 	        ps.setBoolean(6, cfg.isAutoHighlightLowEngagement());
 
 	        ps.executeUpdate();
+	        gradeEngine.setConfig(cfg);		// Regrade the whole class with the new parameters
 	        return true;
 
 	    } catch (Exception e) {
@@ -2637,7 +3884,7 @@ public class Database {
 	 */
 	public int getMinPostsThreshold() {
 		String query = "SELECT min_posts FROM MODERATION_CONFIG";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        ResultSet rs = pstmt.executeQuery();
 	        
 	        if (rs.next()) {
@@ -2656,7 +3903,7 @@ public class Database {
 	 */
 	public int getMinPeersThreshold() {
 		String query = "SELECT min_peers FROM MODERATION_CONFIG";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        ResultSet rs = pstmt.executeQuery();
 	        
 	        if (rs.next()) {
@@ -2669,39 +3916,82 @@ public class Database {
 	}
 
 	/**
-	 * Calculates and returns the overall grade for the active student.
+	 * Returns the overall grade for the active student.  The grade comes from the grade
+	 * engine's per-user post and reply counters and the cached grading configuration, so no
+	 * posts or replies are read.
 	 *
 	 * @param username the current student
-	 * @return The value of min_posts from MODERATION_CONFIG, or -1 if no parameters set.
+	 * @return The student's grade, from 0 to 100.
 	 */
 	public int getOverallGrade(String username) {
-		ModerationConfig cfg = loadModerationConfig();	
-		int postsBar = cfg.getMinPosts();
-		int peersBar = cfg.getMinPeerResponses();
-		int totalPosts = 0;
-		int totalReplies = 0;
-		
-		List<Post> posts = getAllPosts().getAllPosts();
-		for (Post post : posts) {
-			if (post.getAuthor().equals(username) && !post.isDeleted()) {
-				totalPosts += 1;
-			}
-			List<Reply> replies = getRepliesForPost(post.getPostId()).getAllReplies();
-			for (Reply reply : replies) {
-				if (reply.getAuthor().equals(username)) {
-					totalReplies += 1;
-				}
-			}
-		}
-				
-		double postPercent = (double) totalPosts / postsBar;
-		if (postPercent > 1) {postPercent = 1; }
-		double replyPercent = (double) totalReplies / peersBar;
-		if (replyPercent > 1) {replyPercent = 1; }
-		double overall = (postPercent * 60) + (replyPercent * 40);
-		
-		return (int)Math.round(overall);
+		return gradeEngine.getGrade(username);
+	}
+
+	/**
+	 * Gives access to the grade engine, for example to read the grades of the whole class.
+	 *
+	 * @return the grade engine kept current by this database
+	 */
+	public GradeEngine getGradeEngine() {
+		return gradeEngine;
+	}
+
+	/**
+	 * Gives access to the search index, for example to see how many posts it holds.
+	 *
+	 * @return the keyword index kept current by this database
+	 */
+	public SearchIndex getSearchIndex() {
+		return searchIndex;
+	}
+
+	/**
+	 * Gives access to the private message search index, for example to see how many messages
+	 * it holds.
+	 *
+	 * @return the message index kept current by this database
+	 */
+	public MessageSearchIndex getMessageSearchIndex() {
+		return messageSearchIndex;
+	}
+
+	/**
+	 * Gives access to the page cache, for example to read its hit, miss and eviction counts.
+	 *
+	 * @return the cache of post pages kept current by this database
+	 */
+	public PageCache getPageCache() {
+		return pageCache;
 	}
+
+	/**
+	 * Gives access to the post cache, for example to read its hit, miss and eviction counts.
+	 *
+	 * @return the cache of posts read by getPostById, kept current by this database
+	 */
+	public PostCache getPostCache() {
+		return postCache;
+	}
+
+	/**
+	 * Gives access to the unread message counts, for example to see how many users have a
+	 * subscribed screen.
+	 *
+	 * @return the unread private message counts kept current by this database
+	 */
+	public UnreadCounter getUnreadCounter() {
+		return unreadCounter;
+	}
+
+	/**
+	 * Gives access to the read sets, for example to see how many are waiting to be stored.
+	 *
+	 * @return the posts each user has read, as kept in memory by this database
+	 */
+	public ReadState getReadState() {
+		return readState;
+	}
+
 	
 }
 
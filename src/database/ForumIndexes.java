@@ -0,0 +1,139 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/*******
+ * <p> Title: ForumIndexes Class. </p>
+ *
+ * <p> Description: The managed set of secondary indexes behind the forum's hot queries.  Each
+ * index is declared once here together with the access path it serves.  When the database is
+ * opened, the indexes present are read from INFORMATION_SCHEMA in one query and any that are
+ * missing are created, so adding an index to the list is all it takes to roll it out, and an
+ * index dropped by hand comes back on the next start.</p>
+ *
+ * <p> The post indexes end in (timestamp DESC, postId DESC), the order every post list is
+ * read in, so H2 walks the index in list order and stops after one page instead of sorting
+ * the whole table.</p>
+ *
+ * <p> Copyright: CSE 360 Team © 2025 </p>
+ *
+ * @author CSE 360 Team
+ *
+ * @version 1.00		2025-11-24 Initial version
+ * @version 1.01		2025-11-25 Time-ordered indexes for private messages and moderation flags
+ * @version 1.02		2025-12-07 Conversation indexes for private messages
+ * @version 1.03		2025-12-08 Read and unread inbox pages
+ * @version 1.04		2025-12-10 Broadcast inbox pages
+ * @version 1.05		2025-12-11 Dropped the unused conversation summary index
+ */
+class ForumIndexes {
+
+	/*
+	 * One managed index.
+	 */
+	static class Index {
+		final String name;
+		final String table;
+		final String columns;
+
+		Index(String name, String table, String columns) {
+			this.name = name;
+			this.table = table;
+			this.columns = columns;
+		}
+
+		String createSql() {
+			return "CREATE INDEX IF NOT EXISTS " + name + " ON " + table + "(" + columns + ")";
+		}
+	}
+
+	static final List<Index> INDEXES = List.of(
+		// getAllPosts and the unfiltered post pages
+		new Index("idx_posts_time", "posts", "timestamp DESC, postId DESC"),
+		// getPostsByThread and the thread pages
+		new Index("idx_posts_thread_time", "posts", "thread, timestamp DESC, postId DESC"),
+		// getPostsByAuthor and the "My Posts" pages
+		new Index("idx_posts_author_time", "posts", "author, timestamp DESC, postId DESC"),
+		// Flagged and unflagged pages of the moderation dashboard
+		new Index("idx_posts_flagged_time", "posts", "isFlagged, timestamp DESC, postId DESC"),
+		// getRepliesForPost
+		new Index("idx_replies_post_time", "replies", "postId, timestamp"),
+		// getAllReplies
+		new Index("idx_replies_time", "replies", "timestamp DESC"),
+		// getActiveRequests and getClosedRequests
+		new Index("idx_requests_status_time", "admin_requests", "status, timestamp"),
+		// getPrivateMessagesForUser, the inbox
+		new Index("idx_pm_recipient_time", "privateMessages", "recipientId, timestamp DESC"),
+		// getPrivateMessagesPage with the read or unread filter
+		new Index("idx_pm_recipient_read_time", "privateMessages", "recipientId, isRead, timestamp DESC, messageId DESC"),
+		// getPrivateMessageReplies
+		new Index("idx_pm_parent_time", "privateMessages", "parentMessageId, timestamp"),
+		// Broadcasts in getPrivateMessagesForUser and the inbox pages
+		new Index("idx_br_recipient_time", "broadcastRecipients", "recipientId, timestamp DESC, broadcastId DESC"),
+		// Broadcasts in the read or unread inbox pages and the unread counts
+		new Index("idx_br_recipient_read_time", "broadcastRecipients", "recipientId, isRead, timestamp DESC, broadcastId DESC"),
+		// getConversation
+		new Index("idx_pm_root_time", "privateMessages", "rootMessageId, timestamp"),
+		// getAllModerationFlags, the flag queue
+		new Index("idx_mf_time", "moderationFlags", "timestamp DESC"),
+		// getModerationFlagsByStaff
+		new Index("idx_mf_staff_time", "moderationFlags", "staffId, timestamp DESC"),
+		// getModerationFlagsForPost
+		new Index("idx_mf_post_time", "moderationFlags", "postId, timestamp DESC")
+	);
+
+	private ForumIndexes() {
+	}
+
+	/*******
+	 * <p> Method: List&lt;String&gt; ensure(Connection conn) </p>
+	 *
+	 * <p> Description: Creates every managed index that does not exist yet.</p>
+	 *
+	 * @param conn is the connection used to inspect and change the schema
+	 *
+	 * @return the names of the indexes that had to be created
+	 *
+	 * @throws SQLException when the schema cannot be read or an index cannot be created
+	 */
+	static List<String> ensure(Connection conn) throws SQLException {
+		List<String> created = new ArrayList<>();
+		try (Statement stmt = conn.createStatement()) {
+			for (Index index : missing(conn)) {
+				stmt.execute(index.createSql());
+				created.add(index.name);
+			}
+		}
+		return created;
+	}
+
+	/*******
+	 * <p> Method: List&lt;Index&gt; missing(Connection conn) </p>
+	 *
+	 * @param conn is the connection used to read the schema
+	 *
+	 * @return the managed indexes that do not exist in the database
+	 *
+	 * @throws SQLException when the schema cannot be read
+	 */
+	static List<Index> missing(Connection conn) throws SQLException {
+		Set<String> present = new HashSet<>();
+		try (Statement stmt = conn.createStatement();
+			 ResultSet rs = stmt.executeQuery("SELECT INDEX_NAME FROM INFORMATION_SCHEMA.INDEXES "
+					 + "WHERE TABLE_SCHEMA = SCHEMA()")) {
+			while (rs.next()) present.add(rs.getString(1).toUpperCase());
+		}
+		List<Index> missing = new ArrayList<>();
+		for (Index index : INDEXES) {
+			if (!present.contains(index.name.toUpperCase())) missing.add(index);
+		}
+		return missing;
+	}
+}
@@ -0,0 +1,183 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import entityClasses.ModerationConfig;
+
+/*******
+ * <p> Title: GradeEngine Class. </p>
+ *
+ * <p> Description: Keeps the participation grade of every student current without rereading
+ * the forum.  The engine holds a post counter and a reply counter for each user.  The counters
+ * are seeded by one aggregate query per table when the database is opened, and Database then
+ * updates them each time a post or reply is created or deleted.  A grade is computed from the
+ * two counters and the cached ModerationConfig in constant time.</p>
+ *
+ * <p> A post counts while it is not deleted.  Every reply a user writes counts, which is the
+ * same rule the original post-by-post grade calculation used.</p>
+ *
+ * <p> The grades of the whole class are computed on demand, in a single pass over the
+ * counters, so they always reflect both the latest activity and the latest grading
+ * parameters.</p>
+ *
+ * <p> Copyright: CSE 360 Team © 2025 </p>
+ *
+ * @author CSE 360 Team
+ *
+ * @version 1.00		2025-11-20 Initial version
+ * @version 1.01		2025-12-11 Class grades computed on demand instead of kept as a snapshot
+ */
+public class GradeEngine {
+
+	/*
+	 * The running totals for one user.
+	 */
+	private static class Counters {
+		final AtomicInteger posts = new AtomicInteger();
+		final AtomicInteger replies = new AtomicInteger();
+	}
+
+	private final ConcurrentHashMap<String, Counters> counters = new ConcurrentHashMap<>();
+	private volatile ModerationConfig config = ModerationConfig.defaultConfig();
+
+	/*******
+	 * <p> Method: void load(Connection conn) </p>
+	 *
+	 * <p> Description: Replaces all counters with the totals currently in the database, using
+	 * one grouped query over posts and one over replies.</p>
+	 *
+	 * @param conn is the connection used to read the totals
+	 *
+	 * @throws SQLException when the totals cannot be read
+	 */
+	void load(Connection conn) throws SQLException {
+		counters.clear();
+		try (Statement stmt = conn.createStatement()) {
+			try (ResultSet rs = stmt.executeQuery("SELECT author, COUNT(*) AS total FROM posts "
+					+ "WHERE isDeleted = FALSE GROUP BY author")) {
+				while (rs.next()) countersFor(rs.getString("author")).posts.set(rs.getInt("total"));
+			}
+			try (ResultSet rs = stmt.executeQuery("SELECT author, COUNT(*) AS total FROM replies "
+					+ "GROUP BY author")) {
+				while (rs.next()) countersFor(rs.getString("author")).replies.set(rs.getInt("total"));
+			}
+		}
+	}
+
+	private Counters countersFor(String username) {
+		return counters.computeIfAbsent(username, name -> new Counters());
+	}
+
+	/** Records that a post by this user was created. @param author is the post's author */
+	void postCreated(String author) { if (author != null) countersFor(author).posts.incrementAndGet(); }
+
+	/** Records that a post by this user was deleted. @param author is the post's author */
+	void postDeleted(String author) { if (author != null) countersFor(author).posts.decrementAndGet(); }
+
+	/** Records that a reply by this user was created. @param author is the reply's author */
+	void replyCreated(String author) { if (author != null) countersFor(author).replies.incrementAndGet(); }
+
+	/** Records that a reply by this user was deleted. @param author is the reply's author */
+	void replyDeleted(String author) { if (author != null) countersFor(author).replies.decrementAndGet(); }
+
+	/*******
+	 * <p> Method: int getGrade(String username) </p>
+	 *
+	 * <p> Description: Computes the current grade of one user from that user's counters and the
+	 * cached grading parameters.</p>
+	 *
+	 * @param username is the student whose grade is wanted
+	 *
+	 * @return the grade, from 0 to 100
+	 */
+	public int getGrade(String username) {
+		Counters c = counters.get(username);
+		if (c == null) return computeGrade(0, 0, config);
+		return computeGrade(c.posts.get(), c.replies.get(), config);
+	}
+
+	/*******
+	 * <p> Method: int getPostCount(String username) </p>
+	 *
+	 * @param username is the user
+	 *
+	 * @return the number of non-deleted posts written by the user
+	 */
+	public int getPostCount(String username) {
+		Counters c = counters.get(username);
+		return c == null ? 0 : c.posts.get();
+	}
+
+	/*******
+	 * <p> Method: int getReplyCount(String username) </p>
+	 *
+	 * @param username is the user
+	 *
+	 * @return the number of replies written by the user
+	 */
+	public int getReplyCount(String username) {
+		Counters c = counters.get(username);
+		return c == null ? 0 : c.replies.get();
+	}
+
+	/*******
+	 * <p> Method: ModerationConfig getConfig() </p>
+	 *
+	 * @return the grading parameters the engine is currently using
+	 */
+	public ModerationConfig getConfig() {
+		return config;
+	}
+
+	/*******
+	 * <p> Method: void setConfig(ModerationConfig cfg) </p>
+	 *
+	 * <p> Description: Switches to new grading parameters.  Every grade read after this uses
+	 * them.</p>
+	 *
+	 * @param cfg is the new grading configuration
+	 */
+	public void setConfig(ModerationConfig cfg) {
+		config = cfg == null ? ModerationConfig.defaultConfig() : cfg;
+	}
+
+	/*******
+	 * <p> Method: Map&lt;String, Integer&gt; getClassGrades() </p>
+	 *
+	 * <p> Description: Computes the grade of every user with activity in one pass over the
+	 * counters, using the current grading parameters.</p>
+	 *
+	 * @return an unmodifiable map from username to grade
+	 */
+	public Map<String, Integer> getClassGrades() {
+		ModerationConfig cfg = config;
+		Map<String, Integer> grades = new HashMap<>();
+		for (Map.Entry<String, Counters> entry : counters.entrySet()) {
+			Counters c = entry.getValue();
+			grades.put(entry.getKey(), computeGrade(c.posts.get(), c.replies.get(), cfg));
+		}
+		return Collections.unmodifiableMap(grades);
+	}
+
+	/*
+	 * Completing the required posts is worth 60% of the grade and completing the required peer
+	 * replies is worth the remaining 40%.
+	 */
+	static int computeGrade(int posts, int replies, ModerationConfig cfg) {
+		double postPercent = (double) posts / cfg.getMinPosts();
+		if (postPercent > 1) {postPercent = 1; }
+		double replyPercent = (double) replies / cfg.getMinPeerResponses();
+		if (replyPercent > 1) {replyPercent = 1; }
+		double overall = (postPercent * 60) + (replyPercent * 40);
+
+		return (int)Math.round(overall);
+	}
+}
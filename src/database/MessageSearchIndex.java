@@ -0,0 +1,308 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*******
+ * <p> Title: MessageSearchIndex Class. </p>
+ *
+ * <p> Description: An in-memory word index over the content of every private message and
+ * broadcast, so the inbox search box finds a user's messages without reading the user's
+ * whole message history on each keystroke.  The index is built when the database is opened,
+ * and Database adds each message and broadcast as it is created.  Neither is ever edited or
+ * deleted, so nothing is ever taken out.</p>
+ *
+ * <p> Text is split into words as SearchIndex does, and a keyword matches every word it is a
+ * prefix of, so the results follow the search box as the user types.  A message matches when
+ * every keyword matches one of its words.  Besides the words, the index keeps the messages
+ * each user has sent or received, so a search only ever looks at the searching user's
+ * messages, and the time of each message.</p>
+ *
+ * <p> A broadcast's body is indexed once, under its broadcastId, in a field of its own, since
+ * broadcast and message ids overlap.  Each recipient gets a bit for it in the user's
+ * broadcasts, just as a direct message sets a bit for its sender and recipient.  Both fields
+ * are scored against one shared set of word statistics, so a broadcast and a message that
+ * match equally well rank equally.</p>
+ *
+ * <p> Matches are ranked by BM25 relevance times a recency boost: a message sent just now
+ * counts up to twice as much as an equally relevant one, and the boost halves every
+ * HALF_LIFE_DAYS days, so newer messages come first among similar matches without burying an
+ * old message that matches much better.</p>
+ *
+ * <p> Copyright: CSE 360 Team © 2025 </p>
+ *
+ * @author CSE 360 Team
+ *
+ * @version 1.00		2025-12-11 Initial version
+ * @version 1.01		2025-12-11 Broadcasts are searched by their recipients
+ */
+public class MessageSearchIndex {
+
+	// Age at which the recency boost of a message has dropped by half
+	static final double HALF_LIFE_DAYS = 30.0;
+
+	// Largest recency boost, given to a message sent just now
+	static final double RECENCY_WEIGHT = 1.0;
+
+	private final SearchIndex.Field contents = new SearchIndex.Field();		// Message bodies, by messageId
+	private final Map<String, BitSet> userMessages = new HashMap<>();		// username -> messages sent or received
+	private final Map<Integer, LocalDateTime> times = new HashMap<>();		// messageId -> when it was sent
+	private final SearchIndex.Field broadcastContents = new SearchIndex.Field();	// Broadcast bodies, by broadcastId
+	private final Map<String, BitSet> userBroadcasts = new HashMap<>();		// username -> broadcasts received
+	private final Map<Integer, LocalDateTime> broadcastTimes = new HashMap<>();	// broadcastId -> when it was sent
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/*******
+	 * <p> Method: void load(Connection conn) </p>
+	 *
+	 * <p> Description: Replaces the whole index with the private messages and broadcasts
+	 * currently in the database.</p>
+	 *
+	 * @param conn is the connection used to read the messages
+	 *
+	 * @throws SQLException when the messages cannot be read
+	 */
+	void load(Connection conn) throws SQLException {
+		lock.writeLock().lock();
+		try (Statement stmt = conn.createStatement()) {
+			contents.clear();
+			userMessages.clear();
+			times.clear();
+			broadcastContents.clear();
+			userBroadcasts.clear();
+			broadcastTimes.clear();
+			try (ResultSet rs = stmt.executeQuery("SELECT messageId, senderId, recipientId, content, timestamp FROM privateMessages")) {
+				while (rs.next()) {
+					addMessage(rs.getInt("messageId"), rs.getString("senderId"), rs.getString("recipientId"),
+							rs.getString("content"), rs.getTimestamp("timestamp").toLocalDateTime());
+				}
+			}
+			try (ResultSet rs = stmt.executeQuery("SELECT broadcastId, content, timestamp FROM broadcasts")) {
+				while (rs.next()) {
+					addBroadcast(rs.getInt("broadcastId"), List.of(), rs.getString("content"),
+							rs.getTimestamp("timestamp").toLocalDateTime());
+				}
+			}
+			try (ResultSet rs = stmt.executeQuery("SELECT broadcastId, recipientId FROM broadcastRecipients")) {
+				while (rs.next()) {
+					userBroadcasts.computeIfAbsent(rs.getString("recipientId"), u -> new BitSet())
+							.set(rs.getInt("broadcastId"));
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void addMessage(int messageId, String senderId, String recipientId, String content,
+			LocalDateTime timestamp) {
+		contents.remove(messageId);
+		contents.add(messageId, SearchIndex.tokenize(content));
+		times.put(messageId, timestamp);
+		if (senderId != null) userMessages.computeIfAbsent(senderId, u -> new BitSet()).set(messageId);
+		if (recipientId != null) userMessages.computeIfAbsent(recipientId, u -> new BitSet()).set(messageId);
+	}
+
+	private void addBroadcast(int broadcastId, Collection<String> recipientIds, String content,
+			LocalDateTime timestamp) {
+		broadcastContents.remove(broadcastId);
+		broadcastContents.add(broadcastId, SearchIndex.tokenize(content));
+		broadcastTimes.put(broadcastId, timestamp);
+		for (String recipientId : recipientIds) {
+			userBroadcasts.computeIfAbsent(recipientId, u -> new BitSet()).set(broadcastId);
+		}
+	}
+
+	/*******
+	 * <p> Method: void messageIndexed(int messageId, String senderId, String recipientId,
+	 * String content, LocalDateTime timestamp) </p>
+	 *
+	 * <p> Description: Indexes a new message for both its sender and its recipient.</p>
+	 *
+	 * @param messageId is the message
+	 * @param senderId is the user who sent it
+	 * @param recipientId is the user it was sent to
+	 * @param content is its body
+	 * @param timestamp is when it was sent
+	 */
+	void messageIndexed(int messageId, String senderId, String recipientId, String content,
+			LocalDateTime timestamp) {
+		lock.writeLock().lock();
+		try {
+			addMessage(messageId, senderId, recipientId, content, timestamp);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/*******
+	 * <p> Method: void broadcastIndexed(int broadcastId, Collection&lt;String&gt; recipientIds,
+	 * String content, LocalDateTime timestamp) </p>
+	 *
+	 * <p> Description: Indexes a new broadcast's body once and marks it as received by each
+	 * recipient.</p>
+	 *
+	 * @param broadcastId is the broadcast
+	 * @param recipientIds are the users it was sent to
+	 * @param content is its body
+	 * @param timestamp is when it was sent
+	 */
+	void broadcastIndexed(int broadcastId, Collection<String> recipientIds, String content,
+			LocalDateTime timestamp) {
+		lock.writeLock().lock();
+		try {
+			addBroadcast(broadcastId, recipientIds, content, timestamp);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/*******
+	 * <p> Title: Match Class. </p>
+	 *
+	 * <p> Description: One search result: a direct message or one of the user's broadcasts.</p>
+	 */
+	public static class Match {
+		private final int id;
+		private final boolean broadcast;
+		private final LocalDateTime sent;
+		private double score;
+
+		private Match(int id, boolean broadcast, LocalDateTime sent) {
+			this.id = id;
+			this.broadcast = broadcast;
+			this.sent = sent;
+		}
+
+		/*******
+		 * @return the messageId, or the broadcastId of a broadcast
+		 */
+		public int getId() { return id; }
+		public boolean isBroadcast() { return broadcast; }
+
+		@Override
+		public String toString() {
+			return (broadcast ? "broadcast " : "message ") + id;
+		}
+	}
+
+	// Newest first, a broadcast before a message sent at the same time, as the inbox lists them
+	private static final Comparator<Match> NEWEST_FIRST = Comparator
+			.comparing((Match match) -> match.sent, Comparator.nullsLast(Comparator.reverseOrder()))
+			.thenComparing(match -> !match.broadcast)
+			.thenComparing(match -> -match.id);
+
+	/*******
+	 * <p> Method: List&lt;Match&gt; search(String username, String searchText,
+	 * LocalDateTime now) </p>
+	 *
+	 * <p> Description: Finds the messages the user sent or received, and the broadcasts the
+	 * user received, that have, for every keyword, a word starting with it, and ranks them
+	 * together.  The user's messages and broadcasts are narrowed with one BitSet AND per
+	 * keyword before any are scored, so the work grows with the number of matches, not with
+	 * the size of the user's history.</p>
+	 *
+	 * @param username is the user whose inbox and sent messages are searched
+	 * @param searchText is the space-separated keywords
+	 * @param now is the time the recency boost is measured from
+	 *
+	 * @return the matching messages and broadcasts, best first; ties go to the newer one
+	 */
+	public List<Match> search(String username, String searchText, LocalDateTime now) {
+		Set<String> keywords = new LinkedHashSet<>(SearchIndex.tokenize(searchText));
+		List<Match> ranked = new ArrayList<>();
+		if (keywords.isEmpty()) return ranked;
+		lock.readLock().lock();
+		try {
+			Set<String> words = new LinkedHashSet<>();
+			BitSet messages = narrow(contents, userMessages.get(username), keywords, words);
+			BitSet broadcasts = narrow(broadcastContents, userBroadcasts.get(username), keywords, words);
+			if (messages.isEmpty() && broadcasts.isEmpty()) return ranked;
+
+			// Word statistics over both fields, so their scores can be compared
+			int total = contents.size() + broadcastContents.size();
+			double averageLength = (contents.averageLength() * contents.size()
+					+ broadcastContents.averageLength() * broadcastContents.size()) / total;
+			Map<Integer, Match> messageMatches = new HashMap<>();
+			Map<Integer, Match> broadcastMatches = new HashMap<>();
+			for (String word : words) {
+				double frequency = contents.ids(word).cardinality() + broadcastContents.ids(word).cardinality();
+				double idf = Math.log(1 + (total - frequency + 0.5) / (frequency + 0.5));
+				score(contents, messages, word, idf, averageLength, messageMatches, false, times);
+				score(broadcastContents, broadcasts, word, idf, averageLength, broadcastMatches, true, broadcastTimes);
+			}
+			ranked.addAll(messageMatches.values());
+			ranked.addAll(broadcastMatches.values());
+			for (Match match : ranked) match.score *= recencyBoost(match.sent, now);
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		ranked.sort(Comparator.comparingDouble((Match match) -> match.score).reversed().thenComparing(NEWEST_FIRST));
+		return ranked;
+	}
+
+	// The user's documents in one field that have a word starting with every keyword; the
+	// words that matched are added to words
+	private static BitSet narrow(SearchIndex.Field field, BitSet mine, Set<String> keywords, Set<String> words) {
+		if (mine == null) return new BitSet();
+		BitSet matches = (BitSet) mine.clone();
+		for (String keyword : keywords) {
+			BitSet holders = new BitSet();
+			for (String word : field.wordsWithPrefix(keyword)) {
+				holders.or(field.ids(word));
+				words.add(word);
+			}
+			matches.and(holders);
+			if (matches.isEmpty()) break;
+		}
+		return matches;
+	}
+
+	// Adds one word's BM25 term to the score of each match in the field that holds it
+	private static void score(SearchIndex.Field field, BitSet matches, String word, double idf,
+			double averageLength, Map<Integer, Match> scored, boolean broadcast, Map<Integer, LocalDateTime> sent) {
+		BitSet holders = (BitSet) field.ids(word).clone();
+		holders.and(matches);
+		for (int id = holders.nextSetBit(0); id >= 0; id = holders.nextSetBit(id + 1)) {
+			double tf = SearchIndex.normalized(field, id, word, averageLength);
+			Match match = scored.computeIfAbsent(id, key -> new Match(key, broadcast, sent.get(key)));
+			match.score += idf * tf * (SearchIndex.K1 + 1) / (tf + SearchIndex.K1);
+		}
+	}
+
+	// 1 + RECENCY_WEIGHT for a message sent now, halving toward 1 every HALF_LIFE_DAYS
+	static double recencyBoost(LocalDateTime sent, LocalDateTime now) {
+		if (sent == null) return 1;
+		double ageDays = Math.max(0, Duration.between(sent, now).toMinutes() / (60.0 * 24));
+		return 1 + RECENCY_WEIGHT * Math.pow(0.5, ageDays / HALF_LIFE_DAYS);
+	}
+
+	/*******
+	 * <p> Method: int getMessageCount() </p>
+	 *
+	 * @return the number of messages in the index
+	 */
+	public int getMessageCount() {
+		lock.readLock().lock();
+		try {
+			return times.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+}
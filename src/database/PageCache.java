@@ -0,0 +1,236 @@
+package database;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import entityClasses.PageCursor;
+import entityClasses.PostPage;
+import entityClasses.PostSummary;
+
+/*******
+ * <p> Title: PageCache Class. </p>
+ *
+ * <p> Description: Remembers the post pages the home screens asked for, so clicking back to a
+ * thread filter or refreshing an unchanged list is answered without a query.  A page is
+ * cached under its list (a thread, an author's posts, or one reader's unread posts), the
+ * search text, the cursor and the page size.  The cache holds at most a fixed number of pages
+ * and evicts the least recently used one when it is full.</p>
+ *
+ * <p> Database tells the cache about every write that can change a listed page, and the cache
+ * drops only the pages the write can affect:</p>
+ * <ul>
+ * <li> a new post drops the pages of its thread, of "All", of its author, and every reader's
+ * unread pages;</li>
+ * <li> an edited post drops the pages that show it, the pages of its new thread, and every
+ * page of a search;</li>
+ * <li> a deleted post, or a reply added to or removed from a post, drops the pages that show
+ * the post;</li>
+ * <li> a post marked as read drops that reader's unread pages that show it.</li>
+ * </ul>
+ *
+ * <p> A query that was running while a write happened may have read the old rows, so its page
+ * is not stored; see {@link #stamp()}.</p>
+ *
+ * <p> Copyright: CSE 360 Team © 2025 </p>
+ *
+ * @author CSE 360 Team
+ *
+ * @version 1.00		2025-12-03 Initial version
+ */
+public class PageCache {
+
+	/** The lists a cached page can belong to. */
+	enum Scope { THREAD, AUTHOR, UNREAD }
+
+	/*
+	 * What a page was asked for.  A thread page of every post has the thread "All".
+	 */
+	static final class Key {
+		final Scope scope;
+		final String name;			// Thread, author or reader
+		final String search;		// Lower-cased and trimmed
+		final PageCursor after;
+		final int pageSize;
+
+		Key(Scope scope, String name, String searchText, PageCursor after, int pageSize) {
+			this.scope = scope;
+			this.name = name;
+			this.search = searchText == null ? "" : searchText.trim().toLowerCase();
+			this.after = after;
+			this.pageSize = pageSize;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Key key && key.scope == scope && key.pageSize == pageSize
+					&& Objects.equals(key.name, name) && key.search.equals(search)
+					&& Objects.equals(key.after, after);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(scope, name, search, after, pageSize);
+		}
+	}
+
+	private final int capacity;
+	private final LinkedHashMap<Key, PostPage> pages;
+	private long writes = 0;		// Number of invalidating writes so far
+
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+	private long invalidations = 0;
+
+	/*******
+	 * <p> Method: PageCache(int capacity) </p>
+	 *
+	 * <p> Description: Creates an empty cache.</p>
+	 *
+	 * @param capacity is the largest number of pages kept
+	 */
+	public PageCache(int capacity) {
+		this.capacity = Math.max(capacity, 1);
+		// Access order, so the eldest entry is the least recently used page
+		this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, PostPage> eldest) {
+				if (size() <= PageCache.this.capacity) return false;
+				evictions++;
+				return true;
+			}
+		};
+	}
+
+	/*******
+	 * <p> Method: long stamp() </p>
+	 *
+	 * <p> Description: Marks the start of a query.  Passing the stamp to put stores the page
+	 * only if no write has invalidated anything since.</p>
+	 *
+	 * @return the current write count
+	 */
+	synchronized long stamp() {
+		return writes;
+	}
+
+	/** Returns the cached page, counting a hit or a miss. @param key is the page asked for @return the page, or null */
+	synchronized PostPage get(Key key) {
+		PostPage page = pages.get(key);
+		if (page == null) misses++;
+		else hits++;
+		return page;
+	}
+
+	/** Stores a page read by a query that started at the stamp. @param key is the page asked for @param page is the result @param stamp is from stamp() */
+	synchronized void put(Key key, PostPage page, long stamp) {
+		if (stamp == writes) pages.put(key, page);
+	}
+
+	/** Drops the pages a new post can appear on. @param thread is its thread @param author is its author */
+	synchronized void postCreated(String thread, String author) {
+		drop(key -> key.scope == Scope.UNREAD
+				|| (key.scope == Scope.THREAD && (key.name.equals("All") || key.name.equals(thread)))
+				|| (key.scope == Scope.AUTHOR && key.name.equals(author)));
+	}
+
+	/** Drops the pages an edited post can appear on or leave. @param postId is the post @param thread is its new thread */
+	synchronized void postEdited(int postId, String thread) {
+		drop(key -> !key.search.isEmpty() || (key.scope == Scope.THREAD && key.name.equals(thread)),
+				postId);
+	}
+
+	/** Drops the pages that show a post, after its deleted flag or reply count changed. @param postId is the post */
+	synchronized void postChanged(int postId) {
+		drop(key -> false, postId);
+	}
+
+	/** Drops a reader's unread pages that show a post. @param postId is the post @param userName is the reader */
+	synchronized void postRead(int postId, String userName) {
+		writes++;
+		Iterator<Map.Entry<Key, PostPage>> entries = pages.entrySet().iterator();
+		while (entries.hasNext()) {
+			Map.Entry<Key, PostPage> entry = entries.next();
+			Key key = entry.getKey();
+			if (key.scope == Scope.UNREAD && key.name.equals(userName) && shows(entry.getValue(), postId)) {
+				entries.remove();
+				invalidations++;
+			}
+		}
+	}
+
+	/** Keeps the result of a failed query, and of any query running alongside it, out of the cache. */
+	synchronized void queryFailed() {
+		writes++;
+	}
+
+	/*******
+	 * <p> Method: void clear() </p>
+	 *
+	 * <p> Description: Drops every page, as when the database is reopened.</p>
+	 */
+	public synchronized void clear() {
+		writes++;
+		invalidations += pages.size();
+		pages.clear();
+	}
+
+	// Drops the pages whose key matches
+	private void drop(Predicate<Key> match) {
+		writes++;
+		Iterator<Key> keys = pages.keySet().iterator();
+		while (keys.hasNext()) {
+			if (match.test(keys.next())) {
+				keys.remove();
+				invalidations++;
+			}
+		}
+	}
+
+	// Drops the pages whose key matches or that show the post
+	private void drop(Predicate<Key> match, int postId) {
+		writes++;
+		Iterator<Map.Entry<Key, PostPage>> entries = pages.entrySet().iterator();
+		while (entries.hasNext()) {
+			Map.Entry<Key, PostPage> entry = entries.next();
+			if (match.test(entry.getKey()) || shows(entry.getValue(), postId)) {
+				entries.remove();
+				invalidations++;
+			}
+		}
+	}
+
+	private static boolean shows(PostPage page, int postId) {
+		for (PostSummary summary : page.getSummaries()) {
+			if (summary.getPostId() == postId) return true;
+		}
+		return false;
+	}
+
+	/** @return the number of pages answered from the cache */
+	public synchronized long getHits() { return hits; }
+
+	/** @return the number of pages that had to be queried */
+	public synchronized long getMisses() { return misses; }
+
+	/** @return the number of pages dropped to make room */
+	public synchronized long getEvictions() { return evictions; }
+
+	/** @return the number of pages dropped because a write changed them */
+	public synchronized long getInvalidations() { return invalidations; }
+
+	/** @return the number of pages cached now */
+	public synchronized int size() { return pages.size(); }
+
+	/** @return the largest number of pages kept */
+	public int getCapacity() { return capacity; }
+
+	@Override
+	public synchronized String toString() {
+		return "PageCache{size=" + pages.size() + "/" + capacity + ", hits=" + hits + ", misses=" + misses
+				+ ", evictions=" + evictions + ", invalidations=" + invalidations + "}";
+	}
+}
@@ -0,0 +1,218 @@
+package database;
+
+import java.lang.ref.SoftReference;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import entityClasses.Post;
+
+/*******
+ * <p> Title: PostCache Class. </p>
+ *
+ * <p> Description: Keeps the posts that are opened again and again, so getPostById can answer
+ * them without a query.  Post objects can be changed by whoever holds them, so the cache
+ * stores the column values and hands out a new Post on every hit.</p>
+ *
+ * <p> The cache holds at most a fixed number of posts.  Which posts it holds is decided in the
+ * TinyLFU way: a small count-min sketch estimates how often each postId has been asked for
+ * recently, and when the cache is full a newly read post only replaces the least recently
+ * used one if it has been asked for more often.  A post opened once, for example while
+ * scrolling through the moderation queue, therefore cannot push out the posts that are opened
+ * all the time.  The counts are halved periodically so old popularity fades.</p>
+ *
+ * <p> The content of a long post is held through a SoftReference, so the garbage collector
+ * can reclaim it when memory runs short; the post is then read again on its next request.</p>
+ *
+ * <p> Database drops a post from the cache whenever it writes to it.  A post read by a query
+ * that overlapped such a write is not stored.</p>
+ *
+ * <p> Copyright: CSE 360 Team © 2025 </p>
+ *
+ * @author CSE 360 Team
+ *
+ * @version 1.00		2025-12-04 Initial version
+ */
+public class PostCache {
+
+	// Content longer than this many characters is held through a SoftReference
+	static final int SOFT_CONTENT_LENGTH = 512;
+
+	// Counter rows of the sketch, each hashed differently
+	private static final int DEPTH = 4;
+
+	// Largest value of a sketch counter
+	private static final int MAX_COUNT = 15;
+
+	/*
+	 * The stored columns of one post.  Short content is kept directly; long content only
+	 * through the soft reference.
+	 */
+	private static final class Entry {
+		final String author;
+		final String title;
+		final String thread;
+		final LocalDateTime timestamp;
+		final boolean isDeleted;
+		final int replyCount;
+		final String content;
+		final SoftReference<String> softContent;
+
+		Entry(Post post) {
+			author = post.getAuthor();
+			title = post.getTitle();
+			thread = post.getThread();
+			timestamp = post.getTimestamp();
+			isDeleted = post.isDeleted();
+			replyCount = post.getReplyCount();
+			String body = post.getContent();
+			boolean soft = body != null && body.length() > SOFT_CONTENT_LENGTH;
+			content = soft ? null : body;
+			softContent = soft ? new SoftReference<>(body) : null;
+		}
+
+		// A new Post with these values, or null if the content has been reclaimed
+		Post toPost(int postId) {
+			String body = softContent == null ? content : softContent.get();
+			if (body == null && softContent != null) return null;
+			Post post = new Post(postId, author, title, body, thread, timestamp, isDeleted);
+			post.setReplyCount(replyCount);
+			return post;
+		}
+	}
+
+	private final int capacity;
+	private final LinkedHashMap<Integer, Entry> posts = new LinkedHashMap<>(16, 0.75f, true);
+	private final int[] sketch;			// DEPTH rows of width counters
+	private final int widthMask;
+	private final int sampleSize;		// Requests between two halvings of the counts
+	private int samples = 0;
+	private long writes = 0;			// Number of invalidating writes so far
+
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+	private long rejections = 0;
+
+	/*******
+	 * <p> Method: PostCache(int capacity) </p>
+	 *
+	 * <p> Description: Creates an empty cache.</p>
+	 *
+	 * @param capacity is the largest number of posts kept
+	 */
+	public PostCache(int capacity) {
+		this.capacity = Math.max(capacity, 1);
+		int width = Integer.highestOneBit(Math.max(this.capacity * 4, 16) - 1) << 1;
+		this.sketch = new int[DEPTH * width];
+		this.widthMask = width - 1;
+		this.sampleSize = this.capacity * 10;
+	}
+
+	/** Marks the start of a query; see PageCache.stamp(). @return the current write count */
+	synchronized long stamp() {
+		return writes;
+	}
+
+	/** Returns a copy of the cached post, counting the request. @param postId is the post @return the post, or null */
+	synchronized Post get(int postId) {
+		record(postId);
+		Entry entry = posts.get(postId);
+		Post post = entry == null ? null : entry.toPost(postId);
+		if (post == null) {
+			if (entry != null) posts.remove(postId);  // Its content was reclaimed
+			misses++;
+		} else {
+			hits++;
+		}
+		return post;
+	}
+
+	/** Offers a post read by a query that started at the stamp. @param post is the post read @param stamp is from stamp() */
+	synchronized void put(Post post, long stamp) {
+		if (post == null || stamp != writes) return;
+		int postId = post.getPostId();
+		if (!posts.containsKey(postId) && posts.size() >= capacity) {
+			// The least recently used post is first in access order
+			Iterator<Integer> eldest = posts.keySet().iterator();
+			int victim = eldest.next();
+			if (frequency(postId) <= frequency(victim)) {
+				rejections++;
+				return;
+			}
+			eldest.remove();
+			evictions++;
+		}
+		posts.put(postId, new Entry(post));
+	}
+
+	/** Drops a post after a write to it. @param postId is the post */
+	synchronized void invalidate(int postId) {
+		writes++;
+		posts.remove(postId);
+	}
+
+	/*******
+	 * <p> Method: void clear() </p>
+	 *
+	 * <p> Description: Drops every post and forgets the request counts, as when the database
+	 * is reopened.</p>
+	 */
+	public synchronized void clear() {
+		writes++;
+		posts.clear();
+		Arrays.fill(sketch, 0);
+		samples = 0;
+	}
+
+	// Adds one request for the post to the sketch, halving every count now and then
+	private void record(int postId) {
+		for (int row = 0; row < DEPTH; row++) {
+			int slot = slot(postId, row);
+			if (sketch[slot] < MAX_COUNT) sketch[slot]++;
+		}
+		if (++samples >= sampleSize) {
+			for (int i = 0; i < sketch.length; i++) sketch[i] >>= 1;
+			samples /= 2;
+		}
+	}
+
+	// Estimated recent requests for the post: the smallest of its counters
+	private int frequency(int postId) {
+		int frequency = MAX_COUNT;
+		for (int row = 0; row < DEPTH; row++) frequency = Math.min(frequency, sketch[slot(postId, row)]);
+		return frequency;
+	}
+
+	private int slot(int postId, int row) {
+		int h = (postId + row * 0x61C88647) * 0x9E3779B9;
+		h ^= h >>> 15;
+		return row * (widthMask + 1) + (h & widthMask);
+	}
+
+	/** @return the number of posts answered from the cache */
+	public synchronized long getHits() { return hits; }
+
+	/** @return the number of posts that had to be queried */
+	public synchronized long getMisses() { return misses; }
+
+	/** @return the number of posts dropped to make room for more popular ones */
+	public synchronized long getEvictions() { return evictions; }
+
+	/** @return the number of posts not cached because they were less popular than the eldest */
+	public synchronized long getRejections() { return rejections; }
+
+	/** @return the number of posts cached now */
+	public synchronized int size() { return posts.size(); }
+
+	/** @return the largest number of posts kept */
+	public int getCapacity() { return capacity; }
+
+	@Override
+	public synchronized String toString() {
+		return "PostCache{size=" + posts.size() + "/" + capacity + ", hits=" + hits + ", misses=" + misses
+				+ ", evictions=" + evictions + ", rejections=" + rejections + "}";
+	}
+}
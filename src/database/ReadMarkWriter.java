@@ -0,0 +1,157 @@
+package database;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*******
+ * <p> Title: ReadMarkWriter Class. </p>
+ *
+ * <p> Description: Stores read marks behind the reader.  markPostAsRead only adds the post to
+ * the user's read set in ReadState, which every read-state query already uses, and notes the
+ * user as changed.  This class writes the sets of the changed users to postReadSets in one
+ * JDBC batch: every FLUSH_MILLIS, as soon as FLUSH_MARKS marks are waiting, when a user logs
+ * out, when the database is closed, and when the JVM exits.  Marking the same post again, or
+ * many posts by one user between two flushes, costs one row write at most.</p>
+ *
+ * <p> If a user's row cannot be stored, for example because the user no longer exists, that
+ * user's set is dropped from memory and read back from the table on next use.  If the whole
+ * batch fails, the users stay marked as changed and are tried again on the next flush.</p>
+ *
+ * <p> Copyright: CSE 360 Team © 2025 </p>
+ *
+ * @author CSE 360 Team
+ *
+ * @version 1.00		2025-12-06 Initial version
+ */
+public class ReadMarkWriter {
+
+	// Longest time a read mark waits before it is stored
+	static final long FLUSH_MILLIS = 2000;
+
+	// Number of waiting marks that starts a flush without waiting for the timer
+	static final int FLUSH_MARKS = 128;
+
+	private static final String STORE = "MERGE INTO postReadSets (userName, readPosts) KEY(userName) VALUES (?, ?)";
+
+	private final ConnectionPool pool;
+	private final ReadState readState;
+	private final ScheduledExecutorService writer;
+	private final AtomicBoolean flushQueued = new AtomicBoolean();
+	private final Thread onExit;
+	private final Object flushing = new Object();	// One flush at a time
+
+	/*******
+	 * <p> Method: ReadMarkWriter(ConnectionPool pool, ReadState readState) </p>
+	 *
+	 * <p> Description: Starts the writer thread and the flush on JVM exit.</p>
+	 *
+	 * @param pool is where the connections for the batches come from
+	 *
+	 * @param readState holds the read sets and which of them have changed
+	 */
+	ReadMarkWriter(ConnectionPool pool, ReadState readState) {
+		this.pool = pool;
+		this.readState = readState;
+		this.writer = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "read-mark-writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		writer.scheduleWithFixedDelay(this::flush, FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+		this.onExit = new Thread(this::flush, "read-mark-flush-on-exit");
+		Runtime.getRuntime().addShutdownHook(onExit);
+	}
+
+	/*******
+	 * <p> Method: void marked(int waiting) </p>
+	 *
+	 * <p> Description: Called after a mark is added; starts a flush on the writer thread once
+	 * enough marks are waiting.</p>
+	 *
+	 * @param waiting is the number of marks waiting to be stored
+	 */
+	void marked(int waiting) {
+		if (waiting < FLUSH_MARKS || !flushQueued.compareAndSet(false, true)) return;
+		try {
+			writer.execute(() -> {
+				flushQueued.set(false);
+				flush();
+			});
+		} catch (RejectedExecutionException e) {
+			flushQueued.set(false);  // Closing; close() flushes what is left
+		}
+	}
+
+	/*******
+	 * <p> Method: void flush() </p>
+	 *
+	 * <p> Description: Stores the read set of every user that has changed since the last flush,
+	 * in one batch.</p>
+	 */
+	void flush() {
+		synchronized (flushing) {
+			List<String> users = readState.takeChanged();
+			if (users.isEmpty()) return;
+			List<String> batched = new ArrayList<>(users.size());
+			try (Connection conn = pool.getConnection(); PreparedStatement pstmt = conn.prepareStatement(STORE)) {
+				for (String user : users) {
+					CompressedBitmap read = readState.cached(user);
+					if (read == null) continue;
+					byte[] data;
+					synchronized (read) {
+						data = read.toBytes();
+					}
+					pstmt.setString(1, user);
+					pstmt.setBytes(2, data);
+					pstmt.addBatch();
+					batched.add(user);
+				}
+				pstmt.executeBatch();
+			} catch (BatchUpdateException e) {
+				int[] counts = e.getUpdateCounts();
+				for (int i = 0; i < batched.size(); i++) {
+					if (counts == null || i >= counts.length) {
+						readState.changed(batched.get(i));		// Not tried; keep for the next flush
+					} else if (counts[i] == Statement.EXECUTE_FAILED) {
+						System.err.println("*** Read marks of " + batched.get(i) + " not stored: " + e.getMessage());
+						readState.forget(batched.get(i));
+					}
+				}
+			} catch (SQLException e) {
+				e.printStackTrace();
+				for (String user : users) readState.changed(user);
+			}
+		}
+	}
+
+	/*******
+	 * <p> Method: void close() </p>
+	 *
+	 * <p> Description: Stops the writer thread and stores every waiting mark.  Called before the
+	 * connection pool is shut down.</p>
+	 */
+	void close() {
+		writer.shutdown();
+		try {
+			writer.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flush();
+		try {
+			Runtime.getRuntime().removeShutdownHook(onExit);
+		} catch (IllegalStateException e) {
+			// The JVM is already exiting and runs the hook itself
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*******
+ * <p> Title: ReadState Class. </p>
+ *
+ * <p> Description: Keeps which posts each user has read, as one CompressedBitmap of postIds per
+ * user, instead of one postReadStatus row per post and user.  The bitmaps are stored one row
+ * per user in postReadSets and read into memory the first time a user's read state is
+ * needed.  The ids of every post are held in one more bitmap, loaded when the database is
+ * opened and updated by createPost.</p>
+ *
+ * <p> A user's unread posts are every post and-not the posts the user has read.  Database
+ * turns the smaller of that set and the read set into the "= ANY(?)" condition of its unread
+ * queries, so no query joins the posts table with per-user rows.</p>
+ *
+ * <p> Each user's bitmap is guarded by its own monitor.  A new read mark changes only the
+ * bitmap in memory and notes the user as changed; ReadMarkWriter stores the changed bitmaps
+ * in batches, so queries always see the marks even before they are stored.</p>
+ *
+ * <p> Copyright: CSE 360 Team © 2025 </p>
+ *
+ * @author CSE 360 Team
+ *
+ * @version 1.00		2025-12-05 Initial version
+ * @version 1.01		2025-12-06 Changed sets are stored behind the reader
+ */
+public class ReadState {
+
+	private CompressedBitmap allPosts = new CompressedBitmap();		// Guarded by this
+	private final ConcurrentHashMap<String, CompressedBitmap> readers = new ConcurrentHashMap<>();
+	private final Set<String> changed = ConcurrentHashMap.newKeySet();	// Users whose sets are not stored yet
+	private final AtomicInteger waiting = new AtomicInteger();			// Marks since the last flush
+
+	/*******
+	 * <p> Method: void load(Connection conn) </p>
+	 *
+	 * <p> Description: Reads the ids of every post and forgets the read sets in memory; they
+	 * are read again as they are needed.  Marks not yet stored are forgotten too, so the
+	 * ReadMarkWriter must be flushed before the state is reloaded.</p>
+	 *
+	 * @param conn is the connection used to read the ids
+	 *
+	 * @throws SQLException when the ids cannot be read
+	 */
+	void load(Connection conn) throws SQLException {
+		CompressedBitmap posts = new CompressedBitmap();
+		try (Statement stmt = conn.createStatement();
+			 ResultSet rs = stmt.executeQuery("SELECT postId FROM posts")) {
+			while (rs.next()) posts.add(rs.getInt("postId"));
+		}
+		synchronized (this) {
+			allPosts = posts;
+		}
+		readers.clear();
+		changed.clear();
+		waiting.set(0);
+	}
+
+	/** Records a new post. @param postId is the new post */
+	synchronized void postCreated(int postId) {
+		allPosts.add(postId);
+	}
+
+	/** @param postId is a post @return true if the post exists */
+	synchronized boolean postExists(int postId) {
+		return allPosts.contains(postId);
+	}
+
+	/** Returns the read set of a user if it is in memory. @param userName is the reader @return the set, or null */
+	CompressedBitmap cached(String userName) {
+		return readers.get(userName);
+	}
+
+	/*******
+	 * <p> Method: CompressedBitmap load(Connection conn, String userName) </p>
+	 *
+	 * <p> Description: Reads a user's read set from postReadSets into memory.  A user with no
+	 * row has read nothing.</p>
+	 *
+	 * @param conn is the connection used to read the row
+	 *
+	 * @param userName is the reader
+	 *
+	 * @return the user's read set, shared with later calls
+	 *
+	 * @throws SQLException when the row cannot be read
+	 */
+	CompressedBitmap load(Connection conn, String userName) throws SQLException {
+		CompressedBitmap read;
+		try (PreparedStatement pstmt = conn.prepareStatement("SELECT readPosts FROM postReadSets WHERE userName = ?")) {
+			pstmt.setString(1, userName);
+			try (ResultSet rs = pstmt.executeQuery()) {
+				read = CompressedBitmap.fromBytes(rs.next() ? rs.getBytes("readPosts") : null);
+			}
+		}
+		CompressedBitmap existing = readers.putIfAbsent(userName, read);
+		return existing == null ? read : existing;
+	}
+
+	/** Drops a user's read set from memory, after it could not be stored. @param userName is the reader */
+	void forget(String userName) {
+		readers.remove(userName);
+	}
+
+	/** Notes a new read mark by a user. @param userName is the reader @return the number of marks waiting to be stored */
+	int marked(String userName) {
+		changed.add(userName);
+		return waiting.incrementAndGet();
+	}
+
+	/** Notes that a user's set still has to be stored. @param userName is the reader */
+	void changed(String userName) {
+		changed.add(userName);
+	}
+
+	/** Takes the users whose sets have to be stored, clearing the list. @return the users */
+	List<String> takeChanged() {
+		waiting.set(0);
+		List<String> users = new ArrayList<>();
+		for (Iterator<String> it = changed.iterator(); it.hasNext(); ) {
+			users.add(it.next());
+			it.remove();
+		}
+		return users;
+	}
+
+	/** @return the number of users whose read sets are not stored yet */
+	public int getUnstoredCount() {
+		return changed.size();
+	}
+
+	/*******
+	 * <p> Method: CompressedBitmap unread(CompressedBitmap read) </p>
+	 *
+	 * <p> Description: Computes the posts a user has not read.</p>
+	 *
+	 * @param read is the user's read set
+	 *
+	 * @return every post and-not the read ones
+	 */
+	CompressedBitmap unread(CompressedBitmap read) {
+		synchronized (this) {
+			synchronized (read) {
+				return allPosts.andNot(read);
+			}
+		}
+	}
+
+	/** @return the number of posts */
+	public synchronized int getPostCount() {
+		return allPosts.cardinality();
+	}
+}
@@ -0,0 +1,168 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/*******
+ * <p> Title: SchemaMigrator Class. </p>
+ *
+ * <p> Description: Keeps the database schema up to date with a versioned migration ledger.
+ * Every change to the schema is registered as a numbered migration.  The versions that have
+ * already been applied are recorded in the schema_migrations table, so on a warm database only
+ * the migrations that are missing are run and startup does not pay for rebuilding every table.
+ * </p>
+ *
+ * <p> Migrations must be registered in increasing version order and, once released, must never
+ * be changed or renumbered; a schema change always becomes a new migration at the end of the
+ * list.  H2 commits every DDL statement as soon as it runs, so a migration that fails part way
+ * can leave some of its work behind.  Each migration must therefore be re-runnable: guard DDL
+ * with IF EXISTS / IF NOT EXISTS and write rows with MERGE, so the next start can finish it.</p>
+ *
+ * <p> Copyright: CSE 360 Team © 2025 </p>
+ *
+ * @author CSE 360 Team
+ *
+ * @version 1.00		2025-11-20 Initial version
+ * @version 1.01		2025-12-11 Migrations are re-runnable rather than atomic
+ */
+class SchemaMigrator {
+
+	static final String LEDGER_TABLE = "schema_migrations";
+
+	/*
+	 * The work done by one migration.  It receives a connection and a statement on that
+	 * connection.
+	 */
+	interface Step {
+		void apply(Connection conn, Statement statement) throws SQLException;
+	}
+
+	private static final class Migration {
+		final int version;
+		final String description;
+		final Step step;
+
+		Migration(int version, String description, Step step) {
+			this.version = version;
+			this.description = description;
+			this.step = step;
+		}
+	}
+
+	private final List<Migration> migrations = new ArrayList<>();
+
+	/*******
+	 * <p> Method: SchemaMigrator add(int version, String description, Step step) </p>
+	 *
+	 * <p> Description: Registers the next migration.</p>
+	 *
+	 * @param version is the migration number, larger than every version registered before it
+	 * @param description is a short human readable summary stored in the ledger
+	 * @param step is the work the migration performs
+	 *
+	 * @return this migrator so registrations can be chained
+	 */
+	SchemaMigrator add(int version, String description, Step step) {
+		if (!migrations.isEmpty() && migrations.get(migrations.size() - 1).version >= version)
+			throw new IllegalArgumentException("Migration " + version + " is out of order");
+		migrations.add(new Migration(version, description, step));
+		return this;
+	}
+
+	/*******
+	 * <p> Method: int getLatestVersion() </p>
+	 *
+	 * @return the version of the newest registered migration, or 0 when none are registered
+	 */
+	int getLatestVersion() {
+		return migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).version;
+	}
+
+	/*******
+	 * <p> Method: int migrate(Connection conn) </p>
+	 *
+	 * <p> Description: Creates the ledger when needed and runs, in order, every registered
+	 * migration that the ledger does not list yet.  The ledger row is written in the same
+	 * transaction as the migration's data changes, but any DDL the migration runs is committed
+	 * by H2 immediately, so a failed migration is not fully undone.</p>
+	 *
+	 * @param conn is the connection used to apply the migrations
+	 *
+	 * @return the number of migrations that were applied
+	 *
+	 * @throws SQLException when a migration fails; its uncommitted changes are rolled back and it
+	 * is not recorded, so it is run again in full when the database is next opened
+	 */
+	int migrate(Connection conn) throws SQLException {
+		Set<Integer> applied = appliedVersions(conn);
+		int count = 0;
+		boolean autoCommit = conn.getAutoCommit();
+		try (Statement statement = conn.createStatement();
+			 PreparedStatement record = conn.prepareStatement("INSERT INTO " + LEDGER_TABLE
+					 + " (version, description, appliedAt, durationMillis) VALUES (?, ?, ?, ?)")) {
+			for (Migration migration : migrations) {
+				if (applied.contains(migration.version)) continue;
+
+				long start = System.currentTimeMillis();
+				conn.setAutoCommit(false);
+				try {
+					migration.step.apply(conn, statement);
+					record.setInt(1, migration.version);
+					record.setString(2, migration.description);
+					record.setTimestamp(3, new java.sql.Timestamp(System.currentTimeMillis()));
+					record.setLong(4, System.currentTimeMillis() - start);
+					record.executeUpdate();
+					conn.commit();
+				} catch (SQLException e) {
+					conn.rollback();
+					System.err.println("Migration " + migration.version + " ("
+							+ migration.description + ") failed: " + e.getMessage());
+					throw e;
+				} finally {
+					conn.setAutoCommit(autoCommit);
+				}
+				System.out.println("*** Applied migration " + migration.version + ": "
+						+ migration.description + " ***");
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/*******
+	 * <p> Method: int getSchemaVersion(Connection conn) </p>
+	 *
+	 * @param conn is the connection used to read the ledger
+	 *
+	 * @return the highest migration version recorded in the ledger, or 0 for an empty ledger
+	 *
+	 * @throws SQLException when the ledger cannot be read
+	 */
+	int getSchemaVersion(Connection conn) throws SQLException {
+		int version = 0;
+		for (int applied : appliedVersions(conn)) version = Math.max(version, applied);
+		return version;
+	}
+
+	private Set<Integer> appliedVersions(Connection conn) throws SQLException {
+		Set<Integer> versions = new HashSet<>();
+		try (Statement statement = conn.createStatement()) {
+			statement.execute("CREATE TABLE IF NOT EXISTS " + LEDGER_TABLE + " ("
+					+ "version INT PRIMARY KEY, "
+					+ "description VARCHAR(255), "
+					+ "appliedAt TIMESTAMP, "
+					+ "durationMillis BIGINT)");
+			try (ResultSet rs = statement.executeQuery("SELECT version FROM " + LEDGER_TABLE)) {
+				while (rs.next()) versions.add(rs.getInt("version"));
+			}
+		}
+		return versions;
+	}
+}
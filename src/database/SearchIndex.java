@@ -0,0 +1,524 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import entityClasses.SearchHit;
+import entityClasses.SearchKey;
+
+/*******
+ * <p> Title: SearchIndex Class. </p>
+ *
+ * <p> Description: In-memory indexes over the text of every post and reply, so a keyword
+ * search looks up the few posts that can contain the keywords instead of reading the content
+ * of every post.  The indexes are built with one query per table when the database is opened,
+ * and Database then updates them each time a post is created or edited and each time a reply
+ * is created or deleted.  Deleting a post only marks it deleted; it keeps its content and is
+ * still listed, so it stays in the indexes.</p>
+ *
+ * <p> The search box matches any substring, as Post.matchesKeyword does: "recur" and "cursion"
+ * both find "recursion".  To keep that, keyword searches use a trigram index, which maps every
+ * three-character run of the text's SearchKey (lower case, no accents) to the ids of the posts
+ * (or replies) holding it.  A post can only contain a keyword if it holds every trigram of the
+ * keyword, so intersecting those postings gives a short list of candidates, which Database
+ * then checks with the exact "contains" rule.  Keywords shorter than three characters cannot be looked up and leave the
+ * candidates as they are.</p>
+ *
+ * <p> Relevance ranking works on whole words instead.  Text is split into lower-case words of
+ * letters and digits, and the index counts how often each word occurs in a post's title, its
+ * content and its replies taken together, so {@link #scorePosts(String)} can rank posts with
+ * BM25F: each field's count is normalized by the field's length, weighted (a title hit is
+ * worth most), and summed before the usual BM25 saturation.</p>
+ *
+ * <p> Post and reply ids are small, dense integers, so each postings list is a BitSet and AND
+ * and OR are word-at-a-time bit operations.</p>
+ *
+ * <p> Copyright: CSE 360 Team © 2025 </p>
+ *
+ * @author CSE 360 Team
+ *
+ * @version 1.00		2025-11-27 Initial version
+ * @version 1.01		2025-11-28 Word counts per field and BM25F scoring
+ * @version 1.02		2025-11-29 Trigram index for substring keyword search
+ * @version 1.03		2025-12-11 Field shared with MessageSearchIndex
+ */
+public class SearchIndex {
+
+	// Length of the character runs in the substring index
+	static final int GRAM = 3;
+
+	// BM25 parameters: term-frequency saturation and length normalization
+	static final double K1 = 1.2;
+	static final double B = 0.75;
+
+	// Field weights: a keyword in the title counts three times one in the content
+	static final double TITLE_WEIGHT = 3.0;
+	static final double CONTENT_WEIGHT = 1.0;
+	static final double REPLIES_WEIGHT = 0.5;
+
+	/*
+	 * One indexed field: word -> ids of the documents containing it, and how often each word
+	 * occurs in each document so documents can be scored and removed again.  MessageSearchIndex
+	 * keeps private messages in one as well.
+	 */
+	static class Field {
+		private final TreeMap<String, BitSet> terms = new TreeMap<>();
+		private final Map<Integer, Map<String, Integer>> counts = new HashMap<>();
+		private final Map<Integer, Integer> lengths = new HashMap<>();
+		private long totalLength = 0;
+
+		void add(int id, List<String> words) {
+			if (words.isEmpty()) return;
+			Map<String, Integer> wordCounts = counts.computeIfAbsent(id, k -> new HashMap<>());
+			for (String word : words) {
+				wordCounts.merge(word, 1, Integer::sum);
+				terms.computeIfAbsent(word, w -> new BitSet()).set(id);
+			}
+			lengths.merge(id, words.size(), Integer::sum);
+			totalLength += words.size();
+		}
+
+		// Takes back words added earlier, as when one of a post's replies is deleted
+		void subtract(int id, Map<String, Integer> words) {
+			Map<String, Integer> wordCounts = counts.get(id);
+			if (wordCounts == null) return;
+			int removed = 0;
+			for (Map.Entry<String, Integer> entry : words.entrySet()) {
+				Integer count = wordCounts.get(entry.getKey());
+				if (count == null) continue;
+				int taken = Math.min(count, entry.getValue());
+				removed += taken;
+				if (count > taken) {
+					wordCounts.put(entry.getKey(), count - taken);
+				} else {
+					wordCounts.remove(entry.getKey());
+					clearTerm(entry.getKey(), id);
+				}
+			}
+			totalLength -= removed;
+			if (wordCounts.isEmpty()) {
+				counts.remove(id);
+				lengths.remove(id);
+			} else {
+				lengths.merge(id, -removed, Integer::sum);
+			}
+		}
+
+		void remove(int id) {
+			Map<String, Integer> wordCounts = counts.remove(id);
+			if (wordCounts == null) return;
+			for (String word : wordCounts.keySet()) clearTerm(word, id);
+			totalLength -= lengths.remove(id);
+		}
+
+		private void clearTerm(String word, int id) {
+			BitSet ids = terms.get(word);
+			ids.clear(id);
+			if (ids.isEmpty()) terms.remove(word);
+		}
+
+		void clear() {
+			terms.clear();
+			counts.clear();
+			lengths.clear();
+			totalLength = 0;
+		}
+
+		int size() {
+			return counts.size();
+		}
+
+		Map<String, Integer> countsOf(int id) {
+			return counts.getOrDefault(id, Collections.emptyMap());
+		}
+
+		int count(int id, String word) {
+			return countsOf(id).getOrDefault(word, 0);
+		}
+
+		int length(int id) {
+			return lengths.getOrDefault(id, 0);
+		}
+
+		double averageLength() {
+			return counts.isEmpty() ? 1 : (double) totalLength / counts.size();
+		}
+
+		BitSet ids(String word) {
+			BitSet ids = terms.get(word);
+			return ids == null ? new BitSet() : ids;
+		}
+
+		// The words that start with the prefix
+		Set<String> wordsWithPrefix(String prefix) {
+			return terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).keySet();
+		}
+	}
+
+	/*
+	 * The substring index of one kind of document: trigram -> ids of the documents holding it,
+	 * plus the trigrams of each document so it can be removed again.
+	 */
+	private static class Trigrams {
+		private final Map<String, BitSet> grams = new HashMap<>();
+		private final Map<Integer, Set<String>> documentGrams = new HashMap<>();
+
+		void add(int id, String... texts) {
+			remove(id);
+			Set<String> found = new HashSet<>();
+			for (String text : texts) {
+				if (text == null) continue;
+				String lower = SearchKey.of(text);
+				// Each text on its own, so no trigram spans the end of the title and the content
+				for (int i = 0; i + GRAM <= lower.length(); i++) found.add(lower.substring(i, i + GRAM));
+			}
+			for (String gram : found) grams.computeIfAbsent(gram, g -> new BitSet()).set(id);
+			documentGrams.put(id, found);
+		}
+
+		void remove(int id) {
+			Set<String> found = documentGrams.remove(id);
+			if (found == null) return;
+			for (String gram : found) {
+				BitSet ids = grams.get(gram);
+				ids.clear(id);
+				if (ids.isEmpty()) grams.remove(gram);
+			}
+		}
+
+		void clear() {
+			grams.clear();
+			documentGrams.clear();
+		}
+
+		// Ids of the documents holding every trigram of the keyword; null when it is too short
+		BitSet containing(String keyword) {
+			if (keyword.length() < GRAM) return null;
+			BitSet result = null;
+			for (int i = 0; i + GRAM <= keyword.length(); i++) {
+				BitSet ids = grams.get(keyword.substring(i, i + GRAM));
+				if (ids == null) return new BitSet();
+				if (result == null) result = (BitSet) ids.clone();
+				else result.and(ids);
+				if (result.isEmpty()) break;
+			}
+			return result;
+		}
+
+		// Evaluates the keywords; null when none of them narrows the candidates
+		BitSet match(String searchText, boolean matchAll) {
+			if (searchText == null || searchText.trim().isEmpty()) return null;
+			BitSet result = null;
+			for (String keyword : SearchKey.keywords(searchText)) {
+				BitSet ids = containing(keyword);
+				if (ids == null) {
+					// Too short to look up; under OR such a keyword could match any document
+					if (!matchAll) return null;
+					continue;
+				}
+				if (result == null) result = ids;
+				else if (matchAll) result.and(ids);
+				else result.or(ids);
+			}
+			return result;
+		}
+	}
+
+	private final BitSet postIds = new BitSet();				// Every indexed post
+	private final Field titles = new Field();					// Post titles, by postId
+	private final Field contents = new Field();					// Post bodies, by postId
+	private final Field replyText = new Field();				// All replies of a post, by postId
+	private final Field replies = new Field();					// Each reply, by replyId
+	private final Map<Integer, Integer> replyPost = new HashMap<>();	// replyId -> postId
+	private final Trigrams postGrams = new Trigrams();			// Substrings of title and content
+	private final Trigrams replyGrams = new Trigrams();			// Substrings of each reply
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/*******
+	 * <p> Method: List&lt;String&gt; tokenize(String text) </p>
+	 *
+	 * <p> Description: Splits text into the lower-case words the index is built from.  A word
+	 * is a run of letters and digits.</p>
+	 *
+	 * @param text is the text to split; null gives no words
+	 *
+	 * @return the words in the order they appear, repeats included
+	 */
+	public static List<String> tokenize(String text) {
+		List<String> words = new ArrayList<>();
+		if (text == null) return words;
+		int start = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			boolean inWord = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+			if (inWord && start < 0) {
+				start = i;
+			} else if (!inWord && start >= 0) {
+				words.add(text.substring(start, i).toLowerCase());
+				start = -1;
+			}
+		}
+		return words;
+	}
+
+	/*******
+	 * <p> Method: List&lt;SearchHit.Span&gt; highlight(String text, String searchText) </p>
+	 *
+	 * <p> Description: Finds where the keywords occur in a piece of text, using the same
+	 * rule as the index: the start of any word that begins with a keyword is highlighted,
+	 * as far as the longest keyword it begins with.</p>
+	 *
+	 * @param text is the text that will be displayed
+	 *
+	 * @param searchText is the space-separated keywords
+	 *
+	 * @return the runs to highlight, in order; empty when nothing matches
+	 */
+	public static List<SearchHit.Span> highlight(String text, String searchText) {
+		List<SearchHit.Span> spans = new ArrayList<>();
+		if (text == null) return spans;
+		Set<String> keywords = new LinkedHashSet<>(tokenize(searchText));
+		if (keywords.isEmpty()) return spans;
+		int start = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			boolean inWord = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+			if (inWord && start < 0) {
+				start = i;
+			} else if (!inWord && start >= 0) {
+				String word = text.substring(start, i).toLowerCase();
+				int longest = 0;
+				for (String keyword : keywords) {
+					if (word.startsWith(keyword)) longest = Math.max(longest, keyword.length());
+				}
+				if (longest > 0) spans.add(new SearchHit.Span(start, start + longest));
+				start = -1;
+			}
+		}
+		return spans;
+	}
+
+	/*******
+	 * <p> Method: void load(Connection conn) </p>
+	 *
+	 * <p> Description: Replaces the whole index with the posts and replies currently in the
+	 * database.</p>
+	 *
+	 * @param conn is the connection used to read the forum
+	 *
+	 * @throws SQLException when the posts or replies cannot be read
+	 */
+	void load(Connection conn) throws SQLException {
+		lock.writeLock().lock();
+		try (Statement stmt = conn.createStatement()) {
+			postIds.clear();
+			titles.clear();
+			contents.clear();
+			replyText.clear();
+			replies.clear();
+			replyPost.clear();
+			postGrams.clear();
+			replyGrams.clear();
+			try (ResultSet rs = stmt.executeQuery("SELECT postId, title, content FROM posts")) {
+				while (rs.next()) addPost(rs.getInt("postId"), rs.getString("title"), rs.getString("content"));
+			}
+			try (ResultSet rs = stmt.executeQuery("SELECT replyId, postId, content FROM replies")) {
+				while (rs.next()) addReply(rs.getInt("replyId"), rs.getInt("postId"), rs.getString("content"));
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void addPost(int postId, String title, String content) {
+		titles.remove(postId);
+		contents.remove(postId);
+		titles.add(postId, tokenize(title));
+		contents.add(postId, tokenize(content));
+		postGrams.add(postId, title, content);
+		postIds.set(postId);
+	}
+
+	private void addReply(int replyId, int postId, String content) {
+		List<String> words = tokenize(content);
+		replies.add(replyId, words);
+		replyText.add(postId, words);
+		replyPost.put(replyId, postId);
+		replyGrams.add(replyId, content);
+	}
+
+	/** Indexes a new or edited post. @param postId is the post @param title is its title @param content is its body */
+	void postIndexed(int postId, String title, String content) {
+		lock.writeLock().lock();
+		try {
+			addPost(postId, title, content);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/** Indexes a new reply. @param replyId is the reply @param postId is its post @param content is its body */
+	void replyIndexed(int replyId, int postId, String content) {
+		lock.writeLock().lock();
+		try {
+			addReply(replyId, postId, content);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/** Removes a deleted reply from the index. @param replyId is the reply */
+	void replyRemoved(int replyId) {
+		lock.writeLock().lock();
+		try {
+			Integer postId = replyPost.remove(replyId);
+			if (postId != null) replyText.subtract(postId, replies.countsOf(replyId));
+			replies.remove(replyId);
+			replyGrams.remove(replyId);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/*******
+	 * <p> Method: BitSet findPosts(String searchText, boolean matchAll) </p>
+	 *
+	 * <p> Description: Finds the posts whose title or content may contain each keyword
+	 * (matchAll) or any keyword (not matchAll) as a substring, ignoring case and accents.  Every
+	 * post that does contain them is returned; a few that hold the keyword's trigrams without the
+	 * keyword itself may be returned as well.</p>
+	 *
+	 * @param searchText is the space-separated keywords
+	 *
+	 * @param matchAll is true to combine the keywords with AND, false for OR
+	 *
+	 * @return the ids of the candidate posts, or null when no keyword is long enough to look
+	 * up and every post is a candidate
+	 */
+	public BitSet findPosts(String searchText, boolean matchAll) {
+		lock.readLock().lock();
+		try {
+			return postGrams.match(searchText, matchAll);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/*******
+	 * <p> Method: BitSet findReplies(String searchText, boolean matchAll) </p>
+	 *
+	 * <p> Description: Finds the replies whose content may contain each keyword (matchAll) or
+	 * any keyword (not matchAll) as a substring, ignoring case and accents, in the same way as
+	 * findPosts.</p>
+	 *
+	 * @param searchText is the space-separated keywords
+	 *
+	 * @param matchAll is true to combine the keywords with AND, false for OR
+	 *
+	 * @return the ids of the candidate replies, or null when no keyword is long enough to
+	 * look up and every reply is a candidate
+	 */
+	public BitSet findReplies(String searchText, boolean matchAll) {
+		lock.readLock().lock();
+		try {
+			return replyGrams.match(searchText, matchAll);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/*******
+	 * <p> Method: Map&lt;Integer, Double&gt; scorePosts(String searchText) </p>
+	 *
+	 * <p> Description: Scores every post that has a word starting with any keyword in its
+	 * title, content or replies.  Each keyword is expanded to the indexed words it is a prefix
+	 * of, and each of those words adds idf * tf * (K1 + 1) / (tf + K1) to the posts holding
+	 * it, where tf sums the length-normalized counts of the three fields times their weights
+	 * and idf favours rare words.</p>
+	 *
+	 * @param searchText is the space-separated keywords
+	 *
+	 * @return the score of each matching post; empty when nothing matches
+	 */
+	public Map<Integer, Double> scorePosts(String searchText) {
+		Map<Integer, Double> scores = new HashMap<>();
+		Set<String> keywords = new LinkedHashSet<>(tokenize(searchText));
+		lock.readLock().lock();
+		try {
+			double total = postIds.cardinality();
+			double averageTitle = titles.averageLength();
+			double averageContent = contents.averageLength();
+			double averageReplies = replyText.averageLength();
+
+			Set<String> words = new LinkedHashSet<>();
+			for (String keyword : keywords) {
+				words.addAll(titles.wordsWithPrefix(keyword));
+				words.addAll(contents.wordsWithPrefix(keyword));
+				words.addAll(replyText.wordsWithPrefix(keyword));
+			}
+			for (String word : words) {
+				BitSet holders = (BitSet) titles.ids(word).clone();
+				holders.or(contents.ids(word));
+				holders.or(replyText.ids(word));
+				double frequency = holders.cardinality();
+				double idf = Math.log(1 + (total - frequency + 0.5) / (frequency + 0.5));
+
+				for (int postId = holders.nextSetBit(0); postId >= 0; postId = holders.nextSetBit(postId + 1)) {
+					double tf = TITLE_WEIGHT * normalized(titles, postId, word, averageTitle)
+							+ CONTENT_WEIGHT * normalized(contents, postId, word, averageContent)
+							+ REPLIES_WEIGHT * normalized(replyText, postId, word, averageReplies);
+					scores.merge(postId, idf * tf * (K1 + 1) / (tf + K1), Double::sum);
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		return scores;
+	}
+
+	// A word's count in one field of a post, scaled down for fields longer than average
+	static double normalized(Field field, int id, String word, double averageLength) {
+		int count = field.count(id, word);
+		if (count == 0) return 0;
+		return count / (1 - B + B * field.length(id) / averageLength);
+	}
+
+	/*******
+	 * <p> Method: int getPostCount() </p>
+	 *
+	 * @return the number of posts in the index
+	 */
+	public int getPostCount() {
+		lock.readLock().lock();
+		try {
+			return postIds.cardinality();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/*******
+	 * <p> Method: int getReplyCount() </p>
+	 *
+	 * @return the number of replies in the index
+	 */
+	public int getReplyCount() {
+		lock.readLock().lock();
+		try {
+			return replyPost.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+}
@@ -0,0 +1,221 @@
+package database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*******
+ * <p> Title: StatementCache Class. </p>
+ *
+ * <p> Description: A least-recently-used cache of PreparedStatements that belongs to one
+ * physical pooled connection.  The Database methods still write
+ * {@code conn.prepareStatement(sql)} inside a try-with-resources block, but when the SQL has been
+ * seen before on that connection the already parsed and planned statement is handed back instead
+ * of asking H2 to prepare it again.</p>
+ *
+ * <p> The statement given to the caller is a light wrapper.  Closing it closes its open result,
+ * as closing a statement always does, clears its parameters and returns it to the cache rather
+ * than closing the underlying H2 statement.  If the same SQL
+ * is prepared again while the cached copy is still in use (a nested query), an ordinary uncached
+ * statement is prepared so the two never share parameters.</p>
+ *
+ * <p> Hit, miss and eviction counters are shared by all the caches of a pool so the overall
+ * effectiveness can be reported by {@link ConnectionPool}.</p>
+ *
+ * <p> Copyright: CSE 360 Team © 2025 </p>
+ *
+ * @author CSE 360 Team
+ *
+ * @version 1.00		2025-11-20 Initial version
+ * @version 1.01		2025-12-11 Returning a statement closes its result
+ */
+class StatementCache {
+
+	/*
+	 * One cached statement.  inUse is true while a caller holds the statement.
+	 */
+	private static class Entry {
+		final PreparedStatement statement;
+		boolean inUse = false;
+		boolean evicted = false;
+
+		Entry(PreparedStatement statement) {
+			this.statement = statement;
+		}
+	}
+
+	private final Connection physical;
+	private final int capacity;
+	private final AtomicLong hits;
+	private final AtomicLong misses;
+	private final AtomicLong evictions;
+
+	// Access ordered so the first entry is always the least recently used one
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	/*******
+	 * <p> Method: StatementCache(Connection physical, int capacity, AtomicLong hits,
+	 * AtomicLong misses, AtomicLong evictions) </p>
+	 *
+	 * <p> Description: Creates an empty cache for one physical connection.</p>
+	 *
+	 * @param physical is the real H2 connection the statements are prepared on
+	 * @param capacity is the largest number of statements kept open
+	 * @param hits is the shared counter of cache hits
+	 * @param misses is the shared counter of cache misses
+	 * @param evictions is the shared counter of statements closed to make room
+	 */
+	StatementCache(Connection physical, int capacity, AtomicLong hits, AtomicLong misses,
+			AtomicLong evictions) {
+		this.physical = physical;
+		this.capacity = capacity;
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+	}
+
+	/*******
+	 * <p> Method: PreparedStatement prepare(String sql, int autoGeneratedKeys) </p>
+	 *
+	 * <p> Description: Returns a prepared statement for the SQL, reusing a cached one when
+	 * possible.</p>
+	 *
+	 * @param sql is the SQL text
+	 * @param autoGeneratedKeys is Statement.RETURN_GENERATED_KEYS or Statement.NO_GENERATED_KEYS
+	 *
+	 * @return a statement whose close() returns it to this cache
+	 *
+	 * @throws SQLException when H2 cannot prepare the statement
+	 */
+	synchronized PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+		String key = autoGeneratedKeys + ":" + sql;
+		Entry entry = entries.get(key);
+
+		if (entry != null && entry.statement.isClosed()) {
+			entries.remove(key);
+			entry = null;
+		}
+
+		if (entry != null) {
+			if (entry.inUse) {
+				// Nested use of the same SQL: hand out a private, uncached statement
+				misses.incrementAndGet();
+				return physical.prepareStatement(sql, autoGeneratedKeys);
+			}
+			hits.incrementAndGet();
+		} else {
+			misses.incrementAndGet();
+			entry = new Entry(physical.prepareStatement(sql, autoGeneratedKeys));
+			entries.put(key, entry);
+			evictIfNeeded();
+		}
+
+		entry.inUse = true;
+		return wrap(entry);
+	}
+
+	/*
+	 * Closes least recently used statements until the cache fits its capacity.  A statement that
+	 * is still in use is closed when its caller gives it back.
+	 */
+	private void evictIfNeeded() {
+		Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+		while (entries.size() > capacity && it.hasNext()) {
+			Entry eldest = it.next().getValue();
+			it.remove();
+			evictions.incrementAndGet();
+			eldest.evicted = true;
+			if (!eldest.inUse) closeQuietly(eldest.statement);
+		}
+	}
+
+	private synchronized void release(Entry entry) {
+		entry.inUse = false;
+		if (entry.evicted) {
+			closeQuietly(entry.statement);
+			return;
+		}
+		try {
+			// Closing a statement closes its result, and callers rely on that
+			ResultSet result = entry.statement.getResultSet();
+			if (result != null) result.close();
+			entry.statement.clearParameters();
+		} catch (SQLException e) {
+			closeQuietly(entry.statement);
+		}
+	}
+
+	/*******
+	 * <p> Method: void clear() </p>
+	 *
+	 * <p> Description: Closes every cached statement.  Used when the connection is closed.</p>
+	 */
+	synchronized void clear() {
+		for (Entry entry : entries.values()) closeQuietly(entry.statement);
+		entries.clear();
+	}
+
+	/*******
+	 * <p> Method: int size() </p>
+	 *
+	 * @return the number of statements currently cached
+	 */
+	synchronized int size() {
+		return entries.size();
+	}
+
+	private static void closeQuietly(PreparedStatement statement) {
+		try {
+			statement.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/*
+	 * Wraps a cached statement so close() hands it back instead of closing it.
+	 */
+	private PreparedStatement wrap(Entry entry) {
+		InvocationHandler handler = new InvocationHandler() {
+			private boolean closed = false;
+
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				switch (method.getName()) {
+				case "close":
+					if (!closed) {
+						closed = true;
+						release(entry);
+					}
+					return null;
+				case "isClosed":
+					return closed || entry.statement.isClosed();
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Cached[" + entry.statement + "]";
+				default:
+					if (closed) throw new SQLException("Statement has already been closed");
+					try {
+						return method.invoke(entry.statement, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				}
+			}
+		};
+		return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+				new Class<?>[] { PreparedStatement.class }, handler);
+	}
+}
@@ -0,0 +1,155 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntConsumer;
+
+/*******
+ * <p> Title: UnreadCounter Class. </p>
+ *
+ * <p> Description: Keeps the number of unread private messages of every recipient in memory,
+ * so the inbox badges never run a COUNT query.  The counts are read once, with one grouped
+ * query over direct messages and broadcasts, when the database is opened.  After that
+ * Database moves them with each write that changes whether a message is unread:
+ * createPrivateMessage, createBroadcast, and marking a message or broadcast read or
+ * unread.</p>
+ *
+ * <p> A screen that shows a count subscribes to its user's count.  The listener is given the
+ * current count straight away and the new count after every change, on the thread that made
+ * the change, so listeners that touch the GUI hand the value to the JavaFX thread.  Closing
+ * the Subscription stops the calls.</p>
+ *
+ * <p> Copyright: CSE 360 Team © 2025 </p>
+ *
+ * @author CSE 360 Team
+ *
+ * @version 1.00		2025-12-09 Initial version
+ * @version 1.01		2025-12-10 Broadcasts are counted with direct messages
+ */
+public class UnreadCounter {
+
+	/*******
+	 * <p> Title: Subscription Class. </p>
+	 *
+	 * <p> Description: A listener registered for one user's count.  Closing it more than once
+	 * does nothing.</p>
+	 */
+	public final class Subscription implements AutoCloseable {
+		private final String userName;
+		private final IntConsumer listener;
+
+		private Subscription(String userName, IntConsumer listener) {
+			this.userName = userName;
+			this.listener = listener;
+		}
+
+		/** Stops the listener from being called. */
+		@Override
+		public void close() {
+			listeners.computeIfPresent(userName, (user, list) -> {
+				list.remove(this);
+				return list.isEmpty() ? null : list;
+			});
+		}
+	}
+
+	private final ConcurrentHashMap<String, Integer> counts = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, CopyOnWriteArrayList<Subscription>> listeners = new ConcurrentHashMap<>();
+
+	/*******
+	 * <p> Method: void load(Connection conn) </p>
+	 *
+	 * <p> Description: Reads every recipient's unread count and tells the subscribers the
+	 * counts that were read.</p>
+	 *
+	 * @param conn is the connection used to read the counts
+	 *
+	 * @throws SQLException when the counts cannot be read
+	 */
+	void load(Connection conn) throws SQLException {
+		Map<String, Integer> loaded = new HashMap<>();
+		try (Statement stmt = conn.createStatement();
+			 ResultSet rs = stmt.executeQuery("SELECT recipientId, COUNT(*) FROM ("
+					 + "SELECT recipientId FROM privateMessages WHERE isRead = FALSE UNION ALL "
+					 + "SELECT recipientId FROM broadcastRecipients WHERE isRead = FALSE) unread "
+					 + "GROUP BY recipientId")) {
+			while (rs.next()) loaded.put(rs.getString(1), rs.getInt(2));
+		}
+		counts.clear();
+		counts.putAll(loaded);
+		for (String userName : listeners.keySet()) notify(userName, get(userName));
+	}
+
+	/*******
+	 * <p> Method: int get(String userName) </p>
+	 *
+	 * <p> Description: Returns a user's count without a query.</p>
+	 *
+	 * @param userName is the recipient
+	 *
+	 * @return the number of unread messages sent to the user
+	 */
+	public int get(String userName) {
+		return userName == null ? 0 : counts.getOrDefault(userName, 0);
+	}
+
+	/*******
+	 * <p> Method: void add(String userName, int delta) </p>
+	 *
+	 * <p> Description: Moves a user's count after a write, and tells its subscribers.</p>
+	 *
+	 * @param userName is the recipient
+	 *
+	 * @param delta is +1 for a new or re-opened unread message, -1 for one that was read
+	 */
+	void add(String userName, int delta) {
+		if (userName == null || delta == 0) return;
+		Integer count = counts.compute(userName, (user, old) -> {
+			int updated = (old == null ? 0 : old) + delta;
+			return updated > 0 ? updated : null;
+		});
+		notify(userName, count == null ? 0 : count);
+	}
+
+	/*******
+	 * <p> Method: Subscription subscribe(String userName, IntConsumer listener) </p>
+	 *
+	 * <p> Description: Calls listener with the user's count now and after every change.</p>
+	 *
+	 * @param userName is the recipient whose count is wanted
+	 *
+	 * @param listener is given each new count
+	 *
+	 * @return the subscription, to be closed when the count is no longer shown
+	 */
+	public Subscription subscribe(String userName, IntConsumer listener) {
+		Subscription subscription = new Subscription(userName, listener);
+		listeners.computeIfAbsent(userName, user -> new CopyOnWriteArrayList<>()).add(subscription);
+		listener.accept(get(userName));
+		return subscription;
+	}
+
+	/** @return the number of users with at least one subscriber */
+	public int getSubscribedUserCount() {
+		return listeners.size();
+	}
+
+	private void notify(String userName, int count) {
+		List<Subscription> subscribed = listeners.get(userName);
+		if (subscribed == null) return;
+		for (Subscription subscription : subscribed) {
+			try {
+				subscription.listener.accept(count);
+			} catch (RuntimeException e) {
+				e.printStackTrace();  // A broken screen must not fail the write that changed the count
+			}
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package entityClasses;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/*******
+ * <p> Title: IntIndex Class </p>
+ * 
+ * <p> Description: Hash map from an int key to a value, used by PostList and ReplyList to find
+ * entries by id without a scan.  Keys are kept in a plain int array with open addressing, so
+ * a lookup neither boxes the key nor follows a chain of entry objects.  Removing a key moves
+ * the entries probed after it back into the gap, so the table never holds markers for removed
+ * keys and lookups stay as short as if the key had never been added.</p>
+ * 
+ * <p> Copyright: CSE 360 Team © 2025 </p>
+ * 
+ * @param <V> Type of the values
+ * 
+ * @author CSE 360 Team
+ * @version 1.00    2025-12-01 Initial version
+ * @version 1.01    2025-12-11 Removal
+ */
+final class IntIndex<V> {
+    
+    private static final int INITIAL_CAPACITY = 16;  // Always a power of two
+    
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private Object[] values = new Object[INITIAL_CAPACITY];  // null marks a free slot
+    private int size = 0;
+    
+    /*******
+     * Finds the value for a key.
+     * @param key Key to look up
+     * @return The value, or null if the key was never added
+     */
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        int mask = keys.length - 1;
+        for (int slot = mix(key) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) return (V) values[slot];
+        }
+        return null;
+    }
+    
+    /*******
+     * Adds a value unless the key already has one.
+     * @param key Key to add
+     * @param value Value for the key; must not be null
+     * @return The value now stored for the key
+     */
+    V putIfAbsent(int key, V value) {
+        return computeIfAbsent(key, k -> value);
+    }
+    
+    /*******
+     * Finds the value for a key, creating and adding it if the key has none.
+     * @param key Key to look up
+     * @param create Makes the value for a new key; must not return null
+     * @return The value stored for the key
+     */
+    @SuppressWarnings("unchecked")
+    V computeIfAbsent(int key, IntFunction<V> create) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        for (; values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) return (V) values[slot];
+        }
+        V value = create.apply(key);
+        keys[slot] = key;
+        values[slot] = value;
+        // Keep at least a quarter of the slots free so probe runs stay short
+        if (++size * 4 > keys.length * 3) grow();
+        return value;
+    }
+    
+    /*******
+     * Removes a key and its value.
+     * @param key Key to remove
+     * @return The value the key had, or null if the key was never added
+     */
+    @SuppressWarnings("unchecked")
+    V remove(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (values[slot] != null && keys[slot] != key) slot = (slot + 1) & mask;
+        V removed = (V) values[slot];
+        if (removed == null) return null;
+        
+        // Pull back each later entry of the probe run whose home slot is not after the gap
+        int gap = slot;
+        for (int next = (gap + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+            int home = mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        values[gap] = null;
+        size--;
+        return removed;
+    }
+    
+    /*******
+     * Removes every entry.
+     */
+    void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    private void grow() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] == null) continue;
+            int slot = mix(oldKeys[i]) & mask;
+            while (values[slot] != null) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+    
+    // Spreads sequential ids across the table
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,144 @@
+package entityClasses;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/*******
+ * <p> Title: MessagePage Class </p>
+ *
+ * <p> Description: One page of a keyset-paginated inbox query.  It holds the private messages
+ * on the page, newest first, the cursor that fetches the following page, and the number of
+ * unread messages in the whole inbox, taken from the database's in-memory unread counts so
+ * the page query never counts them.  The cursor is null when there are no more messages.</p>
+ *
+ * <p> Copyright: CSE 360 Team © 2025 </p>
+ *
+ * @author CSE 360 Team
+ * @version 1.00    2025-12-08 Initial version
+ * @version 1.01    2025-12-10 Broadcasts are paged together with direct messages
+ * @version 1.02    2025-12-11 The unread count comes from the in-memory counts
+ */
+public class MessagePage {
+
+    /*******
+     * Which messages of the inbox a page is read from.
+     */
+    public enum Filter {
+        ALL, UNREAD, READ;
+
+        /*******
+         * Maps the inbox filter choices to a filter.
+         * @param choice "Unread Only", "Read Only" or anything else for all messages
+         * @return The matching filter
+         */
+        public static Filter of(String choice) {
+            if ("Unread Only".equals(choice)) return UNREAD;
+            if ("Read Only".equals(choice)) return READ;
+            return ALL;
+        }
+    }
+
+    /*******
+     * Marks a position in an inbox ordered newest first, in the same way PageCursor does for
+     * posts.  Messages are ordered by timestamp, then broadcasts before direct messages, since
+     * the two have their ids counted apart, then by id.  The next page holds the messages
+     * after it.
+     */
+    public static class Cursor {
+        private final LocalDateTime timestamp;  // Timestamp of the last message on the previous page
+        private final boolean broadcast;        // Whether that message was a broadcast
+        private final int messageId;            // messageId (or broadcastId) of that message
+
+        public Cursor(LocalDateTime timestamp, boolean broadcast, int messageId) {
+            this.timestamp = timestamp;
+            this.broadcast = broadcast;
+            this.messageId = messageId;
+        }
+
+        public Cursor(LocalDateTime timestamp, int messageId) {
+            this(timestamp, false, messageId);
+        }
+
+        /*******
+         * Creates a cursor positioned just after a message.
+         * @param message The last message already shown
+         * @return Cursor for the message, or null if the message is null
+         */
+        public static Cursor after(PrivateMessage message) {
+            if (message == null) return null;
+            return new Cursor(message.getTimestamp(), message.isBroadcast(), message.getMessageId());
+        }
+
+        public LocalDateTime getTimestamp() { return timestamp; }
+        public boolean isBroadcast() { return broadcast; }
+        public int getMessageId() { return messageId; }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Cursor cursor && cursor.messageId == messageId
+                    && cursor.broadcast == broadcast && Objects.equals(cursor.timestamp, timestamp);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * Objects.hashCode(timestamp) + Boolean.hashCode(broadcast)) + messageId;
+        }
+
+        @Override
+        public String toString() {
+            return "MessagePage.Cursor{" + timestamp + (broadcast ? ", broadcastId=" : ", messageId=")
+                    + messageId + "}";
+        }
+    }
+
+    private final List<PrivateMessage> messages;  // Messages on this page
+    private final Cursor nextCursor;              // Where the next page starts, or null at the end
+    private final int unreadCount;                // Unread messages in the whole inbox
+
+    /*******
+     * Creates a page.
+     * @param messages Messages on the page, newest first
+     * @param nextCursor Cursor of the next page, or null when this is the last page
+     * @param unreadCount Number of unread messages in the whole inbox
+     */
+    public MessagePage(List<PrivateMessage> messages, Cursor nextCursor, int unreadCount) {
+        this.messages = messages == null ? Collections.emptyList()
+                : Collections.unmodifiableList(new ArrayList<>(messages));
+        this.nextCursor = nextCursor;
+        this.unreadCount = unreadCount;
+    }
+
+    /*******
+     * Creates an empty last page.
+     * @return Page with no messages, no next cursor and no unread messages
+     */
+    public static MessagePage empty() {
+        return new MessagePage(null, null, 0);
+    }
+
+    /*******
+     * @return Messages on this page, newest first (unmodifiable)
+     */
+    public List<PrivateMessage> getMessages() { return messages; }
+    public Cursor getNextCursor() { return nextCursor; }
+    public int getUnreadCount() { return unreadCount; }
+
+    /*******
+     * @return Number of messages on this page
+     */
+    public int size() { return messages.size(); }
+
+    /*******
+     * @return true if another page can be fetched
+     */
+    public boolean hasMore() { return nextCursor != null; }
+
+    @Override
+    public String toString() {
+        return "MessagePage{count=" + messages.size() + ", hasMore=" + hasMore()
+                + ", unread=" + unreadCount + "}";
+    }
+}
@@ -0,0 +1,69 @@
+package entityClasses;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*******
+ * <p> Title: MessageSearchPage Class </p>
+ *
+ * <p> Description: One page of a keyword search over a user's private messages.  Results are
+ * ranked by relevance and recency rather than by time alone, so a MessagePage.Cursor cannot
+ * mark where the next page starts; the search is paged by its position in the ranking
+ * instead.  The page also carries how many messages matched in all.</p>
+ *
+ * <p> Copyright: CSE 360 Team © 2025 </p>
+ *
+ * @author CSE 360 Team
+ * @version 1.00    2025-12-11 Initial version
+ */
+public class MessageSearchPage {
+
+    private final List<PrivateMessage> messages;  // Messages on this page, best first
+    private final int nextOffset;                 // Rank of the first message of the next page, or -1
+    private final int totalMatches;               // Messages that matched the search
+
+    /*******
+     * Creates a page.
+     * @param messages Messages on the page, best match first
+     * @param nextOffset Position of the next page in the ranking, or -1 when this is the last page
+     * @param totalMatches Number of messages that matched the search
+     */
+    public MessageSearchPage(List<PrivateMessage> messages, int nextOffset, int totalMatches) {
+        this.messages = messages == null ? Collections.emptyList()
+                : Collections.unmodifiableList(new ArrayList<>(messages));
+        this.nextOffset = nextOffset;
+        this.totalMatches = totalMatches;
+    }
+
+    /*******
+     * Creates an empty last page.
+     * @return Page with no messages and no matches
+     */
+    public static MessageSearchPage empty() {
+        return new MessageSearchPage(null, -1, 0);
+    }
+
+    /*******
+     * @return Messages on this page, best match first (unmodifiable)
+     */
+    public List<PrivateMessage> getMessages() { return messages; }
+    public int getNextOffset() { return nextOffset; }
+    public int getTotalMatches() { return totalMatches; }
+
+    /*******
+     * @return Number of messages on this page
+     */
+    public int size() { return messages.size(); }
+
+    /*******
+     * @return true if another page can be fetched
+     */
+    public boolean hasMore() { return nextOffset >= 0; }
+
+    @Override
+    public String toString() {
+        return "MessageSearchPage{count=" + messages.size() + ", hasMore=" + hasMore()
+                + ", matches=" + totalMatches + "}";
+    }
+}
@@ -0,0 +1,74 @@
+package entityClasses;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/*******
+ * <p> Title: PageCursor Class </p>
+ *
+ * <p> Description: Marks a position in a list of posts ordered newest first.  Posts are
+ * ordered by timestamp and then by postId, so the pair identifies exactly one place in the
+ * list even when several posts share a timestamp.  The next page holds the posts that come
+ * after the cursor in that order.</p>
+ *
+ * <p> A cursor is immutable.  A null cursor means "start at the newest post".</p>
+ *
+ * <p> Copyright: CSE 360 Team © 2025 </p>
+ *
+ * @author CSE 360 Team
+ * @version 1.00    2025-11-22 Initial version
+ */
+public class PageCursor {
+
+    private final LocalDateTime timestamp;  // Timestamp of the last post on the previous page
+    private final int postId;               // postId of the last post on the previous page
+
+    /*******
+     * Creates a cursor positioned just after the given timestamp and postId.
+     * @param timestamp Timestamp of the last post already shown
+     * @param postId postId of the last post already shown
+     */
+    public PageCursor(LocalDateTime timestamp, int postId) {
+        this.timestamp = timestamp;
+        this.postId = postId;
+    }
+
+    /*******
+     * Creates a cursor positioned just after a post.
+     * @param post The last post already shown
+     * @return Cursor for the post, or null if the post is null
+     */
+    public static PageCursor after(Post post) {
+        if (post == null) return null;
+        return new PageCursor(post.getTimestamp(), post.getPostId());
+    }
+
+    /*******
+     * Creates a cursor positioned just after a listed post.
+     * @param summary The last post already shown
+     * @return Cursor for the post, or null if the summary is null
+     */
+    public static PageCursor after(PostSummary summary) {
+        if (summary == null) return null;
+        return new PageCursor(summary.getTimestamp(), summary.getPostId());
+    }
+
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public int getPostId() { return postId; }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof PageCursor cursor && cursor.postId == postId
+                && Objects.equals(cursor.timestamp, timestamp);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hashCode(timestamp) + postId;
+    }
+
+    @Override
+    public String toString() {
+        return "PageCursor{" + timestamp + ", postId=" + postId + "}";
+    }
+}
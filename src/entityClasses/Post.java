@@ -43,6 +43,10 @@ import java.time.format.DateTimeFormatter;
  * isDeleted: Soft delete flag. Source: User Story #7 (delete posts) and #6 (hide deleted).
  * Rationale: Marks posts as deleted without removing from database, preserving audit trail
  * and maintaining reply links.
+ * 
+ * replyCount: Number of replies. Source: post listings show the reply count of every post.
+ * Rationale: Loaded together with the post so a list of posts renders without one count query
+ * per post.
  * </p>
  * 
  * <p> Copyright: CSE 360 Team © 2025 </p>
@@ -101,6 +105,22 @@ public class Post {
      */
     private boolean isDeleted;
     
+    /*******
+     * Number of replies to this post, as stored with the post in the database.
+     * Source: Post listings display reply counts
+     * Rationale: Avoids a separate count query for every post that is displayed
+     */
+    private int replyCount;
+    
+    /*******
+     * Search keys of the title and content, made on the first search and cleared when
+     * the title or content changes.
+     * Source: User Story #4 (search posts)
+     * Rationale: Repeated searches compare keywords without lower-casing the post each time
+     */
+    private String titleKey;
+    private String contentKey;
+    
     /*******
      * Default constructor - creates empty post with defaults.
      */
@@ -215,6 +235,14 @@ public class Post {
     { 
     	return isDeleted; 
     }
+    /**
+     * getter function to grab the number of replies to the post.
+     * @return replyCount the number of replies
+     */
+    public int getReplyCount() 
+    { 
+    	return replyCount; 
+    }
     
     // UPDATE operations - setters for modifying post data
     /**
@@ -241,6 +269,7 @@ public class Post {
     public void setTitle(String title) 
     { 
     	this.title = title; 
+    	this.titleKey = null;
     }
     /**
      * set the post with a body
@@ -249,7 +278,7 @@ public class Post {
     public void setContent(String content) 
     { 
     	this.content = content; 
-    	
+    	this.contentKey = null;
     }
     /**
      * set the thread of a post
@@ -267,6 +296,14 @@ public class Post {
     { 
     	this.timestamp = timestamp; 
     }
+    /**
+     * set the number of replies to the post
+     * @param replyCount the number of replies
+     */
+    public void setReplyCount(int replyCount) 
+    { 
+    	this.replyCount = replyCount; 
+    }
     
     /*******
      * DELETE operation - marks post as deleted (soft delete).
@@ -300,13 +337,23 @@ public class Post {
             return true;
         }
         
-        // Convert to lowercase for case-insensitive comparison
-        String lowerKeyword = keyword.toLowerCase().trim();
-        String lowerTitle = title.toLowerCase();
-        String lowerContent = content.toLowerCase();
+        return matchesSearchKey(SearchKey.of(keyword.trim()));
+    }
+    
+    /*******
+     * Checks if post matches a keyword that is already normalized, so a search over many
+     * posts normalizes each keyword only once.
+     * User Story #4: Search posts
+     * 
+     * @param key Keyword in SearchKey form
+     * @return true if keyword found in title or content (ignoring case and accents)
+     */
+    public boolean matchesSearchKey(String key) {
+        if (titleKey == null) titleKey = SearchKey.of(title);
+        if (contentKey == null) contentKey = SearchKey.of(content);
         
         // Search both title and content fields
-        return lowerTitle.contains(lowerKeyword) || lowerContent.contains(lowerKeyword);
+        return titleKey.contains(key) || contentKey.contains(key);
     }
     
     /*******
@@ -323,11 +370,11 @@ public class Post {
         }
         
         // Split into individual keywords by whitespace
-        String[] keywords = searchText.trim().split("\\s+");
+        String[] keywords = SearchKey.keywords(searchText);
         
         // All keywords must match (AND logic)
         for (String keyword : keywords) {
-            if (!matchesKeyword(keyword)) {
+            if (!matchesSearchKey(keyword)) {
                 return false;  // Early exit if any keyword doesn't match
             }
         }
@@ -1,7 +1,11 @@
 package entityClasses;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /*******
@@ -10,6 +14,19 @@ import java.util.stream.Collectors;
  * <p> Description: Collection manager for Post objects with filtering, sorting, 
  * and search capabilities. Returns new PostList instances for immutability.</p>
  * 
+ * <p> Filtering and sorting go through {@link Query}, which collects the settings of a
+ * whole chain (thread, author, active, keywords, order, limit) and applies them in one pass
+ * over the posts, so only the result list is allocated.  The single-step methods such as
+ * filterActive and sortByNewest are one-setting queries.</p>
+ * 
+ * <p> Lookups by id and by thread use indexes that are built the first time one is needed
+ * and then kept up to date as posts are added and removed, so a list that is only filtered
+ * once never pays for them and a run of removals never rebuilds them.  The indexes use the id
+ * and thread a post had when it was added; removing a post whose thread has changed since
+ * drops them, to be rebuilt on the next lookup.  Queries over lists of at least
+ * {@link #setParallelThreshold parallelThreshold} posts test the posts in parallel on the
+ * common fork/join pool.</p>
+ * 
  * <p> User Stories Supported:
  * - #3: Filter posts by thread
  * - #4: Search posts by keywords
@@ -22,11 +39,27 @@ import java.util.stream.Collectors;
  * 
  * @author Luke Dempsey
  * @version 1.00    2025-10-24 TP2 Implementation
+ * @version 1.01    2025-11-30 Fused single-pass queries
+ * @version 1.02    2025-12-01 Id and thread indexes, parallel filtering
+ * @version 1.03    2025-12-11 Removals update the indexes in place
  */
 public class PostList {
     
+    private static final Comparator<Post> NEWEST_FIRST =
+            (p1, p2) -> p2.getTimestamp().compareTo(p1.getTimestamp());
+    private static final Comparator<Post> OLDEST_FIRST =
+            (p1, p2) -> p1.getTimestamp().compareTo(p2.getTimestamp());
+    
+    // Size from which queries test posts in parallel
+    private static volatile int parallelThreshold = 10_000;
+    
     private List<Post> posts;  // Internal post collection
     
+    // Built on first use; null until then
+    private IntIndex<Post> byId = null;                 // First post with each id
+    private Map<String, List<Post>> byThread = null;    // Posts of each thread, in list order
+    private boolean duplicateIds = false;               // Some id was indexed more than once
+    
     /*******
      * Creates empty PostList.
      */
@@ -42,6 +75,23 @@ public class PostList {
         this.posts = new ArrayList<>(posts);
     }
     
+    /*
+     * Wraps a list built by a query without copying it again.
+     */
+    private static PostList adopt(List<Post> posts) {
+        PostList list = new PostList();
+        list.posts = posts;
+        return list;
+    }
+    
+    /*******
+     * Sets the list size from which queries test posts in parallel.
+     * @param threshold Smallest list that is filtered in parallel
+     */
+    public static void setParallelThreshold(int threshold) {
+        parallelThreshold = Math.max(threshold, 1);
+    }
+    
     /*******
      * Adds a post to this collection.
      * @param post Post to add (null ignored)
@@ -49,6 +99,7 @@ public class PostList {
     public void addPost(Post post) {
         if (post != null) {
             posts.add(post);
+            if (byId != null) index(post);
         }
     }
     
@@ -58,7 +109,10 @@ public class PostList {
      * @return true if removed
      */
     public boolean removePost(Post post) {
-        return posts.remove(post);
+        int position = positionOf(posts, post);
+        if (position < 0) return false;
+        removeAt(position);
+        return true;
     }
     
     /*******
@@ -67,7 +121,14 @@ public class PostList {
      * @return true if removed
      */
     public boolean removePostById(int postId) {
-        return posts.removeIf(p -> p.getPostId() == postId);
+        // A missing id is answered by the index without touching the list
+        Post first = getPostById(postId);
+        if (first == null) return false;
+        int position = positionOf(posts, first);
+        removeAt(position);
+        // Only a list given the same id twice has more to remove, all of them after the first
+        while (duplicateIds && (position = nextWithId(postId, position)) >= 0) removeAt(position);
+        return true;
     }
     
     /*******
@@ -84,12 +145,7 @@ public class PostList {
      * @return Post with matching ID, or null if not found
      */
     public Post getPostById(int postId) {
-        for (Post post : posts) {
-            if (post.getPostId() == postId) {
-                return post;
-            }
-        }
-        return null;
+        return indexes().byId.get(postId);
     }
     
     /*******
@@ -113,6 +169,79 @@ public class PostList {
      */
     public void clear() {
         posts.clear();
+        dropIndexes();
+    }
+    
+    // Builds the indexes if they are not built yet
+    private PostList indexes() {
+        if (byId == null) {
+            byId = new IntIndex<>();
+            byThread = new HashMap<>();
+            duplicateIds = false;
+            for (Post post : posts) index(post);
+        }
+        return this;
+    }
+    
+    private void index(Post post) {
+        if (byId.putIfAbsent(post.getPostId(), post) != post) duplicateIds = true;
+        byThread.computeIfAbsent(threadKey(post.getThread()), t -> new ArrayList<>()).add(post);
+    }
+    
+    // Removes the post at a position, taking it out of the indexes if they are built
+    private void removeAt(int position) {
+        Post post = posts.remove(position);
+        if (byId != null && !unindex(post, position)) dropIndexes();
+    }
+    
+    // Takes a removed post out of the indexes; false if it is not where it was indexed
+    private boolean unindex(Post post, int position) {
+        List<Post> threadPosts = byThread.get(threadKey(post.getThread()));
+        int slot = threadPosts == null ? -1 : positionOf(threadPosts, post);
+        if (slot < 0) return false;
+        threadPosts.remove(slot);
+        
+        int postId = post.getPostId();
+        if (byId.get(postId) != post) return duplicateIds;
+        byId.remove(postId);
+        // The next post with the same id, if any, is now the first one
+        int next = duplicateIds ? nextWithId(postId, position) : -1;
+        if (next >= 0) byId.putIfAbsent(postId, posts.get(next));
+        return true;
+    }
+    
+    private int nextWithId(int postId, int from) {
+        for (int i = from; i < posts.size(); i++) {
+            if (posts.get(i).getPostId() == postId) return i;
+        }
+        return -1;
+    }
+    
+    // Position of this very post, not of an equal one
+    private static int positionOf(List<Post> list, Post post) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == post) return i;
+        }
+        return -1;
+    }
+    
+    private void dropIndexes() {
+        byId = null;
+        byThread = null;
+    }
+    
+    private static String threadKey(String thread) {
+        return thread == null ? "" : thread.toLowerCase(Locale.ROOT);
+    }
+    
+    /*******
+     * Starts a query over this list.  Settings can be chained in any order and nothing is
+     * read until {@link Query#run()}.
+     * 
+     * @return New query that keeps every post, in list order
+     */
+    public Query query() {
+        return new Query();
     }
     
     /*******
@@ -123,10 +252,7 @@ public class PostList {
      * @return New PostList with only matching posts
      */
     public PostList filterByThread(String thread) {
-        List<Post> filtered = posts.stream()
-                .filter(p -> p.getThread().equalsIgnoreCase(thread))
-                .collect(Collectors.toList());
-        return new PostList(filtered);
+        return query().thread(thread).run();
     }
     
     /*******
@@ -137,10 +263,7 @@ public class PostList {
      * @return New PostList with only posts by this author
      */
      PostList filterByAuthor(String author) {
-        List<Post> filtered = posts.stream()
-                .filter(p -> p.getAuthor().equalsIgnoreCase(author))
-                .collect(Collectors.toList());
-        return new PostList(filtered);
+        return query().author(author).run();
     }
      
     /*******
@@ -150,10 +273,7 @@ public class PostList {
      * @return New PostList with only non-deleted posts
      */
     public PostList filterActive() {
-        List<Post> filtered = posts.stream()
-                .filter(p -> !p.isDeleted())
-                .collect(Collectors.toList());
-        return new PostList(filtered);
+        return query().activeOnly().run();
     }
     
     /*******
@@ -164,14 +284,7 @@ public class PostList {
      * @return New PostList with matching posts
      */
     public PostList searchByKeywords(String searchText) {
-        if (searchText == null || searchText.trim().isEmpty()) {
-            return new PostList(posts);
-        }
-        
-        List<Post> filtered = posts.stream()
-                .filter(p -> p.matchesAllKeywords(searchText))
-                .collect(Collectors.toList());
-        return new PostList(filtered);
+        return query().matching(searchText).run();
     }
     
     /*******
@@ -183,19 +296,14 @@ public class PostList {
      * @return New PostList with both filters applied
      */
     public PostList filterByThreadAndSearch(String thread, String searchText) {
-        PostList result = this;
+        Query query = query().matching(searchText);
         
         // Filter by thread if specified
         if (thread != null && !thread.trim().isEmpty() && !thread.equalsIgnoreCase("All")) {
-            result = result.filterByThread(thread);
+            query.thread(thread);
         }
         
-        // Then search within results
-        if (searchText != null && !searchText.trim().isEmpty()) {
-            result = result.searchByKeywords(searchText);
-        }
-        
-        return result;
+        return query.run();
     }
     
     /*******
@@ -205,9 +313,7 @@ public class PostList {
      * @return New PostList sorted by timestamp descending
      */
     public PostList sortByNewest() {
-        List<Post> sorted = new ArrayList<>(posts);
-        sorted.sort((p1, p2) -> p2.getTimestamp().compareTo(p1.getTimestamp()));
-        return new PostList(sorted);
+        return query().newestFirst().run();
     }
     
     /*******
@@ -217,9 +323,167 @@ public class PostList {
      * @return New PostList sorted by timestamp ascending
      */
     public PostList sortByOldest() {
-        List<Post> sorted = new ArrayList<>(posts);
-        sorted.sort((p1, p2) -> p1.getTimestamp().compareTo(p2.getTimestamp()));
-        return new PostList(sorted);
+        return query().oldestFirst().run();
+    }
+    
+    /*******
+     * <p> Title: Query Class </p>
+     * 
+     * <p> Description: A filter-and-sort over the posts of one PostList, applied in a single
+     * pass.  Every filter is tested on a post before the next post is read, and a post that
+     * passes is placed straight into the result.  With a limit and an order, the result is
+     * kept as a sorted list of at most limit posts, so a top-N read of a long list never
+     * sorts the whole list.  Sorting is stable: posts with the same timestamp keep their
+     * order in the list.  A thread filter reads only that thread's posts from the index.</p>
+     */
+    public class Query {
+        
+        private String thread = null;           // Thread to keep, or null for every thread
+        private String author = null;           // Author to keep, or null for every author
+        private boolean activeOnly = false;     // Skip deleted posts
+        private String[] keywords = new String[0];
+        private Comparator<Post> order = null;  // Result order, or null for list order
+        private int limit = -1;                 // Largest result size, or -1 for no limit
+        
+        private Query() {
+        }
+        
+        /*******
+         * Keeps only posts in a thread.
+         * @param thread Thread name (case-insensitive)
+         * @return This query
+         */
+        public Query thread(String thread) {
+            this.thread = thread;
+            return this;
+        }
+        
+        /*******
+         * Keeps only posts by an author.
+         * @param author Username (case-insensitive)
+         * @return This query
+         */
+        public Query author(String author) {
+            this.author = author;
+            return this;
+        }
+        
+        /*******
+         * Skips deleted posts.
+         * @return This query
+         */
+        public Query activeOnly() {
+            this.activeOnly = true;
+            return this;
+        }
+        
+        /*******
+         * Keeps only posts that contain every keyword, as Post.matchesAllKeywords does.
+         * @param searchText Space-separated keywords (empty keeps every post)
+         * @return This query
+         */
+        public Query matching(String searchText) {
+            this.keywords = SearchKey.keywords(searchText);
+            return this;
+        }
+        
+        /*******
+         * Orders the result by timestamp, newest first.
+         * @return This query
+         */
+        public Query newestFirst() {
+            this.order = NEWEST_FIRST;
+            return this;
+        }
+        
+        /*******
+         * Orders the result by timestamp, oldest first.
+         * @return This query
+         */
+        public Query oldestFirst() {
+            this.order = OLDEST_FIRST;
+            return this;
+        }
+        
+        /*******
+         * Keeps at most this many posts: the first ones in the chosen order.
+         * @param limit Largest number of posts to return
+         * @return This query
+         */
+        public Query limit(int limit) {
+            this.limit = Math.max(limit, 0);
+            return this;
+        }
+        
+        /*******
+         * Runs the query.
+         * @return New PostList holding the posts that pass every filter, in the chosen order
+         */
+        public PostList run() {
+            List<Post> source = thread == null ? posts
+                    : indexes().byThread.getOrDefault(threadKey(thread), List.of());
+            
+            // A limit without an order stops at the first matches, so is best read in order
+            if (source.size() >= parallelThreshold && (order != null || limit < 0)) {
+                return runParallel(source);
+            }
+            
+            List<Post> result = new ArrayList<>(limit >= 0 ? Math.min(limit, source.size()) : 10);
+            if (limit == 0) return adopt(result);
+            
+            for (Post post : source) {
+                if (!accepts(post)) continue;
+                if (order == null || limit < 0) {
+                    result.add(post);
+                    // Without an order the first posts found are the answer
+                    if (order == null && result.size() == limit) break;
+                } else {
+                    insertBounded(result, post);
+                }
+            }
+            if (order != null && limit < 0) result.sort(order);
+            return adopt(result);
+        }
+        
+        // Tests the posts in parallel, then orders the matches
+        private PostList runParallel(List<Post> source) {
+            List<Post> matches = source.parallelStream()
+                    .filter(this::accepts)
+                    .collect(Collectors.toCollection(ArrayList::new));
+            if (order == null) return adopt(matches);
+            if (limit < 0) {
+                matches.sort(order);
+                return adopt(matches);
+            }
+            List<Post> result = new ArrayList<>(Math.min(limit, matches.size()));
+            if (limit == 0) return adopt(result);
+            for (Post post : matches) insertBounded(result, post);
+            return adopt(result);
+        }
+        
+        private boolean accepts(Post post) {
+            if (activeOnly && post.isDeleted()) return false;
+            if (thread != null && !post.getThread().equalsIgnoreCase(thread)) return false;
+            if (author != null && !post.getAuthor().equalsIgnoreCase(author)) return false;
+            for (String keyword : keywords) {
+                if (!post.matchesSearchKey(keyword)) return false;
+            }
+            return true;
+        }
+        
+        // Adds a post to a sorted result of at most limit posts, after any equal ones
+        private void insertBounded(List<Post> result, Post post) {
+            if (result.size() == limit && order.compare(post, result.get(limit - 1)) >= 0) return;
+            int low = 0;
+            int high = result.size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (order.compare(post, result.get(middle)) < 0) high = middle;
+                else low = middle + 1;
+            }
+            result.add(low, post);
+            if (result.size() > limit) result.remove(limit);
+        }
     }
     
     @Override
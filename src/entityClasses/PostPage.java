@@ -0,0 +1,98 @@
+package entityClasses;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/*******
+ * <p> Title: PostPage Class </p>
+ *
+ * <p> Description: One page of a keyset-paginated post query.  It holds the summaries of the
+ * posts on the page, newest first, and the cursor that fetches the following page.  The
+ * cursor is null when there are no more posts.</p>
+ *
+ * <p> Copyright: CSE 360 Team © 2025 </p>
+ *
+ * @author CSE 360 Team
+ * @version 1.00    2025-11-22 Initial version
+ * @version 1.01    2025-11-23 Pages carry PostSummary projections instead of full posts
+ */
+public class PostPage {
+
+    /*******
+     * A paginated query that a page can be read from, such as
+     * {@code (after, size) -> database.getAllPostsPage("", after, size)}.
+     */
+    public interface Source {
+        PostPage fetch(PageCursor after, int pageSize);
+    }
+
+    private final List<PostSummary> summaries;  // Posts on this page
+    private final PageCursor nextCursor;        // Where the next page starts, or null at the end
+
+    /*******
+     * Creates a page.
+     * @param summaries Posts on the page, newest first
+     * @param nextCursor Cursor of the next page, or null when this is the last page
+     */
+    public PostPage(List<PostSummary> summaries, PageCursor nextCursor) {
+        this.summaries = summaries == null ? Collections.emptyList()
+                : Collections.unmodifiableList(new ArrayList<>(summaries));
+        this.nextCursor = nextCursor;
+    }
+
+    /*******
+     * Creates an empty last page.
+     * @return Page with no posts and no next cursor
+     */
+    public static PostPage empty() {
+        return new PostPage(null, null);
+    }
+
+    /*******
+     * Reads pages from a source, keeping the posts that pass a filter, until at least pageSize
+     * posts have been kept or the source runs out.  Used when part of the filtering happens in
+     * memory rather than in the query.
+     *
+     * @param source Paginated query to read from
+     * @param after Cursor to start after, or null for the newest post
+     * @param pageSize Number of posts wanted
+     * @param filter Test a post must pass to be kept
+     * @return Page of filtered posts with the cursor just after the last post read
+     */
+    public static PostPage collect(Source source, PageCursor after, int pageSize,
+            Predicate<PostSummary> filter) {
+        List<PostSummary> result = new ArrayList<>();
+        PageCursor cursor = after;
+        do {
+            PostPage page = source.fetch(cursor, pageSize);
+            for (PostSummary summary : page.getSummaries()) {
+                if (filter.test(summary)) result.add(summary);
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null && result.size() < pageSize);
+        return new PostPage(result, cursor);
+    }
+
+    /*******
+     * @return Posts on this page, newest first (unmodifiable)
+     */
+    public List<PostSummary> getSummaries() { return summaries; }
+    public PageCursor getNextCursor() { return nextCursor; }
+
+    /*******
+     * @return Number of posts on this page
+     */
+    public int size() { return summaries.size(); }
+
+    /*******
+     * @return true if another page can be fetched
+     */
+    public boolean hasMore() { return nextCursor != null; }
+
+    @Override
+    public String toString() {
+        return "PostPage{count=" + summaries.size() + ", hasMore=" + hasMore() + "}";
+    }
+}
@@ -0,0 +1,106 @@
+package entityClasses;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/*******
+ * <p> Title: PostSummary Class </p>
+ *
+ * <p> Description: The part of a post that list screens display: title, author, timestamp,
+ * thread, reply count and a short preview of the body.  List queries read these columns
+ * only, so the full content of each post is never loaded just to draw a row.  The full
+ * Post is loaded by postId when the user opens it.</p>
+ *
+ * <p> Attributes and Rationale:
+ *
+ * preview: The first PREVIEW_LENGTH characters of the content, followed by "..." when the
+ * content is longer.  Source: post listings show a preview of every post.
+ * Rationale: Stored in its own column when the post is written, so listings can show it
+ * without reading the content CLOB.
+ *
+ * The other attributes have the same meaning as in Post.
+ * </p>
+ *
+ * <p> Copyright: CSE 360 Team © 2025 </p>
+ *
+ * @author CSE 360 Team
+ * @version 1.00    2025-11-23 Initial version
+ */
+public class PostSummary {
+
+    /** Number of characters of content kept in a preview. */
+    public static final int PREVIEW_LENGTH = 100;
+
+    private final int postId;
+    private final String author;
+    private final String title;
+    private final String thread;
+    private final LocalDateTime timestamp;
+    private final boolean isDeleted;
+    private final int replyCount;
+    private final String preview;
+
+    /*******
+     * Constructor - used when loading from database.
+     *
+     * @param postId Database ID
+     * @param author Username
+     * @param title Post title
+     * @param thread Category
+     * @param timestamp Creation time
+     * @param isDeleted Delete status
+     * @param replyCount Number of replies
+     * @param preview Stored preview of the content
+     */
+    public PostSummary(int postId, String author, String title, String thread,
+                       LocalDateTime timestamp, boolean isDeleted, int replyCount, String preview) {
+        this.postId = postId;
+        this.author = author;
+        this.title = title;
+        this.thread = thread;
+        this.timestamp = timestamp;
+        this.isDeleted = isDeleted;
+        this.replyCount = replyCount;
+        this.preview = preview == null ? "" : preview;
+    }
+
+    /*******
+     * Builds the preview stored for a post body.
+     * @param content Full post content
+     * @return First PREVIEW_LENGTH characters, with "..." appended when the content is longer
+     */
+    public static String previewOf(String content) {
+        if (content == null) return "";
+        return content.length() > PREVIEW_LENGTH ? content.substring(0, PREVIEW_LENGTH) + "..." : content;
+    }
+
+    public int getPostId() { return postId; }
+    public String getAuthor() { return author; }
+    public String getTitle() { return title; }
+    public String getThread() { return thread; }
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public boolean isDeleted() { return isDeleted; }
+    public int getReplyCount() { return replyCount; }
+    public String getPreview() { return preview; }
+
+    /*******
+     * Returns formatted timestamp for display.
+     * @return Timestamp in format "yyyy-MM-dd HH:mm:ss"
+     */
+    public String getFormattedTimestamp() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        return timestamp.format(formatter);
+    }
+
+    @Override
+    public String toString() {
+        return "PostSummary{" +
+                "postId=" + postId +
+                ", author='" + author + '\'' +
+                ", title='" + title + '\'' +
+                ", thread='" + thread + '\'' +
+                ", timestamp=" + getFormattedTimestamp() +
+                ", isDeleted=" + isDeleted +
+                '}';
+    }
+}
@@ -18,6 +18,9 @@ import java.time.format.DateTimeFormatter;
  * 
  * @author Generated for Moderation Feature
  * @version 1.00    2025-11-12 Moderation Implementation
+ * @version 1.01    2025-12-07 Messages know the conversation they belong to
+ * @version 1.02    2025-12-10 Broadcast announcements appear in the inbox as messages
+ * @version 1.03    2025-12-11 Inbox lists carry the stored preview instead of the body
  */
 public class PrivateMessage {
     
@@ -51,6 +54,13 @@ public class PrivateMessage {
      */
     private String content;
     
+    /*******
+     * The first PostSummary.PREVIEW_LENGTH characters of the content, as stored with the
+     * message.  Inbox lists load only this; their content is null until the message is opened.
+     * Source: Inbox lists should not read every message body
+     */
+    private String preview;
+    
     /*******
      * Read/unread status flag.
      * Source: User Story - Read/unread marker to filter content
@@ -63,6 +73,18 @@ public class PrivateMessage {
      */
     private Integer parentMessageId;
     
+    /*******
+     * ID of the first message of the conversation (null until the message is stored).
+     * Source: Inbox shows a whole exchange, however many replies deep
+     */
+    private Integer rootMessageId;
+    
+    /*******
+     * True when this is one recipient's copy of a broadcast; messageId is then the broadcastId.
+     * Source: Staff announcements to a whole class are stored once, not once per student
+     */
+    private boolean broadcast;
+    
     /*******
      * Message creation timestamp.
      * Source: Standard requirement for message ordering
@@ -127,8 +149,11 @@ public class PrivateMessage {
     public String getRecipientId() { return recipientId; }
     public Integer getPostId() { return postId; }
     public String getContent() { return content; }
+    public String getPreview() { return preview != null ? preview : PostSummary.previewOf(content); }
     public boolean isRead() { return isRead; }
     public Integer getParentMessageId() { return parentMessageId; }
+    public Integer getRootMessageId() { return rootMessageId; }
+    public boolean isBroadcast() { return broadcast; }
     public LocalDateTime getTimestamp() { return timestamp; }
     
     // ==================== Setters ====================
@@ -138,8 +163,11 @@ public class PrivateMessage {
     public void setRecipientId(String recipientId) { this.recipientId = recipientId; }
     public void setPostId(Integer postId) { this.postId = postId; }
     public void setContent(String content) { this.content = content; }
+    public void setPreview(String preview) { this.preview = preview; }
     public void setRead(boolean read) { isRead = read; }
     public void setParentMessageId(Integer parentMessageId) { this.parentMessageId = parentMessageId; }
+    public void setRootMessageId(Integer rootMessageId) { this.rootMessageId = rootMessageId; }
+    public void setBroadcast(boolean broadcast) { this.broadcast = broadcast; }
     public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
     
     // ==================== Utility Methods ====================
@@ -161,6 +189,14 @@ public class PrivateMessage {
         return parentMessageId != null && parentMessageId > 0;
     }
     
+    /*******
+     * Returns the conversation this message belongs to.
+     * @return ID of the conversation's first message; this message's own ID if none is stored
+     */
+    public int getConversationId() {
+        return rootMessageId != null ? rootMessageId : messageId;
+    }
+    
     /*******
      * Checks if message references a specific post.
      * @return true if linked to a post
@@ -198,6 +234,7 @@ public class PrivateMessage {
                 ", postId=" + postId +
                 ", isRead=" + isRead +
                 ", parentMessageId=" + parentMessageId +
+                (broadcast ? ", broadcast" : "") +
                 ", timestamp=" + getFormattedTimestamp() +
                 '}';
     }
@@ -13,6 +13,7 @@ public class Reply {
     private String author;                
     private String content;                 
     private LocalDateTime timestamp;        
+    private String contentKey;              // SearchKey of the content, made on first search
     
    
     public Reply() {
@@ -73,6 +74,7 @@ public class Reply {
     
     public void setContent(String content) {
         this.content = content;
+        this.contentKey = null;
     }
     
     public LocalDateTime getTimestamp() {
@@ -95,10 +97,19 @@ public class Reply {
             return true;
         }
         
-        String lowerKeyword = keyword.toLowerCase().trim();
-        String lowerContent = content.toLowerCase();
-        
-        return lowerContent.contains(lowerKeyword);
+        return matchesSearchKey(SearchKey.of(keyword.trim()));
+    }
+    
+    /*******
+     * Checks if the reply matches a keyword that is already normalized, so a search over
+     * many replies normalizes each keyword only once.
+     * 
+     * @param key Keyword in SearchKey form
+     * @return true if keyword found in the content (ignoring case and accents)
+     */
+    public boolean matchesSearchKey(String key) {
+        if (contentKey == null) contentKey = SearchKey.of(content);
+        return contentKey.contains(key);
     }
     
     public boolean matchesAllKeywords(String searchText) {
@@ -106,10 +117,10 @@ public class Reply {
             return true;
         }
         
-        String[] keywords = searchText.trim().split("\\s+");
+        String[] keywords = SearchKey.keywords(searchText);
         
         for (String keyword : keywords) {
-            if (!matchesKeyword(keyword)) {
+            if (!matchesSearchKey(keyword)) {
                 return false;
             }
         }
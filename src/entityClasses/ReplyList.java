@@ -2,12 +2,21 @@ package entityClasses;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class ReplyList {
     
+    // Size from which filters test replies in parallel
+    private static volatile int parallelThreshold = 10_000;
+    
     private List<Reply> replies;           
     
+    // Built on first lookup by id or post, then kept up to date as replies are added and removed
+    private IntIndex<Reply> byId = null;            // First reply with each id
+    private IntIndex<List<Reply>> byPost = null;    // Replies to each post, in list order
+    private boolean duplicateIds = false;           // Some id was indexed more than once
+    
    
     public ReplyList() {
         this.replies = new ArrayList<>();
@@ -18,21 +27,33 @@ public class ReplyList {
         this.replies = new ArrayList<>(replies);
     }
     
+    public static void setParallelThreshold(int threshold) {
+        parallelThreshold = Math.max(threshold, 1);
+    }
   
     public void addReply(Reply reply) {
         if (reply != null) {
             replies.add(reply);
+            if (byId != null) index(reply);
         }
     }
     
    
     public boolean removeReply(Reply reply) {
-        return replies.remove(reply);
+        int position = positionOf(replies, reply);
+        if (position < 0) return false;
+        removeAt(position);
+        return true;
     }
     
   
     public boolean removeReplyById(int replyId) {
-        return replies.removeIf(r -> r.getReplyId() == replyId);
+        Reply first = getReplyById(replyId);
+        if (first == null) return false;
+        int position = positionOf(replies, first);
+        removeAt(position);
+        while (duplicateIds && (position = nextWithId(replyId, position)) >= 0) removeAt(position);
+        return true;
     }
     
     
@@ -42,12 +63,7 @@ public class ReplyList {
     
    
     public Reply getReplyById(int replyId) {
-        for (Reply reply : replies) {
-            if (reply.getReplyId() == replyId) {
-                return reply;
-            }
-        }
-        return null;
+        return indexes().byId.get(replyId);
     }
     
 
@@ -62,20 +78,15 @@ public class ReplyList {
     
     public void clear() {
         replies.clear();
+        dropIndexes();
     }
     
     public ReplyList filterByPostId(int postId) {
-        List<Reply> filtered = replies.stream()
-                .filter(r -> r.getPostId() == postId)
-                .collect(Collectors.toList());
-        return new ReplyList(filtered);
+        return new ReplyList(repliesTo(postId));
     }
     
     public ReplyList filterByAuthor(String author) {
-        List<Reply> filtered = replies.stream()
-                .filter(r -> r.getAuthor().equalsIgnoreCase(author))
-                .collect(Collectors.toList());
-        return new ReplyList(filtered);
+        return new ReplyList(filter(r -> r.getAuthor().equalsIgnoreCase(author)));
     }
     
     public ReplyList searchByKeywords(String searchText) {
@@ -83,16 +94,17 @@ public class ReplyList {
             return new ReplyList(replies); // Return all if no search text
         }
         
-        List<Reply> filtered = replies.stream()
-                .filter(r -> r.matchesAllKeywords(searchText))
-                .collect(Collectors.toList());
-        return new ReplyList(filtered);
+        String[] keywords = SearchKey.keywords(searchText);
+        return new ReplyList(filter(r -> {
+            for (String keyword : keywords) {
+                if (!r.matchesSearchKey(keyword)) return false;
+            }
+            return true;
+        }));
     }
     
     public int getReplyCountForPost(int postId) {
-        return (int) replies.stream()
-                .filter(r -> r.getPostId() == postId)
-                .count();
+        return repliesTo(postId).size();
     }
     
     public ReplyList sortByNewest() {
@@ -107,6 +119,75 @@ public class ReplyList {
         return new ReplyList(sorted);
     }
     
+    // Large lists are filtered in parallel on the common fork/join pool; order is kept either way
+    private List<Reply> filter(Predicate<Reply> test) {
+        return (replies.size() >= parallelThreshold ? replies.parallelStream() : replies.stream())
+                .filter(test)
+                .collect(Collectors.toList());
+    }
+    
+    private List<Reply> repliesTo(int postId) {
+        List<Reply> bucket = indexes().byPost.get(postId);
+        return bucket == null ? List.of() : bucket;
+    }
+    
+    private ReplyList indexes() {
+        if (byId == null) {
+            byId = new IntIndex<>();
+            byPost = new IntIndex<>();
+            duplicateIds = false;
+            for (Reply reply : replies) index(reply);
+        }
+        return this;
+    }
+    
+    private void index(Reply reply) {
+        if (byId.putIfAbsent(reply.getReplyId(), reply) != reply) duplicateIds = true;
+        byPost.computeIfAbsent(reply.getPostId(), p -> new ArrayList<>()).add(reply);
+    }
+    
+    // Removes the reply at a position, taking it out of the indexes if they are built
+    private void removeAt(int position) {
+        Reply reply = replies.remove(position);
+        if (byId != null && !unindex(reply, position)) dropIndexes();
+    }
+    
+    // Takes a removed reply out of the indexes; false if it is not where it was indexed
+    private boolean unindex(Reply reply, int position) {
+        List<Reply> postReplies = byPost.get(reply.getPostId());
+        int slot = postReplies == null ? -1 : positionOf(postReplies, reply);
+        if (slot < 0) return false;
+        postReplies.remove(slot);
+        
+        int replyId = reply.getReplyId();
+        if (byId.get(replyId) != reply) return duplicateIds;
+        byId.remove(replyId);
+        // The next reply with the same id, if any, is now the first one
+        int next = duplicateIds ? nextWithId(replyId, position) : -1;
+        if (next >= 0) byId.putIfAbsent(replyId, replies.get(next));
+        return true;
+    }
+    
+    private int nextWithId(int replyId, int from) {
+        for (int i = from; i < replies.size(); i++) {
+            if (replies.get(i).getReplyId() == replyId) return i;
+        }
+        return -1;
+    }
+    
+    // Position of this very reply, not of an equal one
+    private static int positionOf(List<Reply> list, Reply reply) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == reply) return i;
+        }
+        return -1;
+    }
+    
+    private void dropIndexes() {
+        byId = null;
+        byPost = null;
+    }
+    
     @Override
     public String toString() {
         return "ReplyList{" +
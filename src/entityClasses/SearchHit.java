@@ -0,0 +1,83 @@
+package entityClasses;
+
+import java.util.Collections;
+import java.util.List;
+
+/*******
+ * <p> Title: SearchHit Class </p>
+ *
+ * <p> Description: One result of a relevance-ranked search: the summary of the post, its
+ * relevance score, and where the keywords occur in the post's title and stored preview so a
+ * list screen can highlight them without searching the text again.</p>
+ *
+ * <p> Copyright: CSE 360 Team © 2025 </p>
+ *
+ * @author CSE 360 Team
+ * @version 1.00    2025-11-28 Initial version
+ */
+public class SearchHit {
+
+    /*******
+     * A run of characters to highlight, from start (inclusive) to end (exclusive).
+     */
+    public static class Span {
+        private final int start;
+        private final int end;
+
+        public Span(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public int getStart() { return start; }
+        public int getEnd() { return end; }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Span span && span.start == start && span.end == end;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * start + end;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + start + ", " + end + ")";
+        }
+    }
+
+    private final PostSummary summary;
+    private final double score;
+    private final List<Span> titleHighlights;
+    private final List<Span> previewHighlights;
+
+    /*******
+     * Creates a search result.
+     *
+     * @param summary The matching post
+     * @param score Relevance of the post to the search; higher is better
+     * @param titleHighlights Keyword occurrences in the title, in order
+     * @param previewHighlights Keyword occurrences in the preview, in order
+     */
+    public SearchHit(PostSummary summary, double score, List<Span> titleHighlights,
+                     List<Span> previewHighlights) {
+        this.summary = summary;
+        this.score = score;
+        this.titleHighlights = titleHighlights == null ? Collections.emptyList()
+                : Collections.unmodifiableList(titleHighlights);
+        this.previewHighlights = previewHighlights == null ? Collections.emptyList()
+                : Collections.unmodifiableList(previewHighlights);
+    }
+
+    public PostSummary getSummary() { return summary; }
+    public double getScore() { return score; }
+    public List<Span> getTitleHighlights() { return titleHighlights; }
+    public List<Span> getPreviewHighlights() { return previewHighlights; }
+
+    @Override
+    public String toString() {
+        return "SearchHit{postId=" + summary.getPostId() + ", score=" + String.format("%.3f", score) + "}";
+    }
+}
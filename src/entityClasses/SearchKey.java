@@ -0,0 +1,65 @@
+package entityClasses;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/*******
+ * <p> Title: SearchKey Class </p>
+ * 
+ * <p> Description: The form of a text that keyword searches compare: lower case, with
+ * accents removed, so "Café" and "cafe" match each other.  Posts and replies keep the key of
+ * their title and content, and searches normalize each keyword once, so comparing a keyword
+ * with a post does not build any new strings.</p>
+ * 
+ * <p> Copyright: CSE 360 Team © 2025 </p>
+ * 
+ * @author CSE 360 Team
+ * @version 1.00    2025-12-02 Initial version
+ */
+public final class SearchKey {
+    
+    private SearchKey() {
+    }
+    
+    /*******
+     * Normalizes a text for keyword comparison.
+     * @param text Text to normalize (null is treated as empty)
+     * @return The text in lower case without accents
+     */
+    public static String of(String text) {
+        if (text == null) return "";
+        if (isAscii(text)) return text.toLowerCase(Locale.ROOT);
+        
+        // Split accented letters into letter + mark, then drop the marks
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder stripped = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            int type = Character.getType(c);
+            if (type != Character.NON_SPACING_MARK && type != Character.ENCLOSING_MARK
+                    && type != Character.COMBINING_SPACING_MARK) {
+                stripped.append(c);
+            }
+        }
+        return stripped.toString().toLowerCase(Locale.ROOT);
+    }
+    
+    /*******
+     * Splits search text into normalized keywords.
+     * @param searchText Space-separated keywords
+     * @return The keywords, or an empty array if the text is empty
+     */
+    public static String[] keywords(String searchText) {
+        if (searchText == null || searchText.trim().isEmpty()) return new String[0];
+        String[] keywords = searchText.trim().split("\\s+");
+        for (int i = 0; i < keywords.length; i++) keywords[i] = of(keywords[i]);
+        return keywords;
+    }
+    
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) return false;
+        }
+        return true;
+    }
+}
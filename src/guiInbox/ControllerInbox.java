@@ -2,9 +2,12 @@ package guiInbox;
 
 import javafx.scene.control.*;
 import javafx.stage.Stage;
+import entityClasses.MessagePage;
+import entityClasses.MessageSearchPage;
 import entityClasses.PrivateMessage;
 import entityClasses.User;
 import entityClasses.Post;
+import guiTools.AsyncDatabase;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,32 +24,38 @@ import java.util.Optional;
  */
 public class ControllerInbox {
     
+    /*
+     * What the message details dialog shows besides the message itself, read together on a
+     * database worker thread before the dialog opens.
+     */
+    private static class MessageDetails {
+        String postTitle;
+        List<PrivateMessage> conversation;
+    }
+    
     /*******
-     * Gets filtered messages based on selection.
+     * Gets one page of the messages matching the filter selection, with the unread count.
+     * The filter and the paging are done by the database query.
      */
-    protected static List<PrivateMessage> getFilteredMessages(String filter) {
-        List<PrivateMessage> messages = ModelInbox.getMessagesForUser(
-            ViewPrivateInbox.currentUsername
-        );
-        
-        switch (filter) {
-            case "Unread Only":
-                messages.removeIf(msg -> msg.isRead());
-                break;
-            case "Read Only":
-                messages.removeIf(msg -> !msg.isRead());
-                break;
-            // "All Messages" shows everything
-        }
-        
-        return messages;
+    protected static MessagePage getFilteredMessages(String filter, MessagePage.Cursor after, int pageSize) {
+        return ModelInbox.getMessagesPage(ViewPrivateInbox.currentUsername,
+            MessagePage.Filter.of(filter), after, pageSize);
+    }
+    
+    /*******
+     * Gets one page of the current user's received and sent messages, and received
+     * broadcasts, that match the keywords, best match first.  The search is answered by the
+     * message search index.
+     */
+    protected static MessageSearchPage getSearchResults(String searchText, int offset, int pageSize) {
+        return ModelInbox.searchMessages(ViewPrivateInbox.currentUsername, searchText, offset, pageSize);
     }
     
     /*******
-     * Gets unread message count.
+     * Subscribes to the current user's unread count.
      */
-    protected static int getUnreadCount() {
-        return ModelInbox.getUnreadMessageCount(ViewPrivateInbox.currentUsername);
+    protected static database.UnreadCounter.Subscription subscribeUnreadCount(java.util.function.IntConsumer listener) {
+        return ModelInbox.subscribeUnreadMessageCount(ViewPrivateInbox.currentUsername, listener);
     }
     
     /*******
@@ -61,17 +70,17 @@ public class ControllerInbox {
             return;
         }
         
-        // Mark as read if unread
+        // Mark as read if unread; the list refreshes once the change is saved
         if (!selected.isRead()) {
-            ModelInbox.markMessageAsRead(selected.getMessageId());
             selected.setRead(true);
+            AsyncDatabase.write(() -> ModelInbox.markMessageAsRead(selected),
+                success -> ViewPrivateInbox.refreshMessagesList());
         }
         
-        // Show message details dialog
-        showMessageDetailsDialog(selected);
-        
-        // Refresh to update read status
-        ViewPrivateInbox.refreshMessagesList();
+        // The list holds only the preview; the body, the post title and the rest of the
+        // conversation are read before the dialog opens
+        AsyncDatabase.load(() -> loadMessageDetails(selected),
+            details -> showMessageDetailsDialog(selected, details));
     }
     
     /*******
@@ -86,6 +95,15 @@ public class ControllerInbox {
             return;
         }
         
+        // The original message is shown in full, so its body is read first
+        AsyncDatabase.load(() -> ModelInbox.loadContent(selected),
+            original -> showReplyDialog(selected, original));
+    }
+    
+    /*******
+     * Shows the reply composition dialog and sends the reply.
+     */
+    private static void showReplyDialog(PrivateMessage selected, String original) {
         // Show reply composition dialog
         Dialog<String> dialog = new Dialog<>();
         dialog.setTitle("Reply to Message");
@@ -109,7 +127,7 @@ public class ControllerInbox {
         
         // Show original message for context
         Label originalLabel = new Label("Original message:");
-        TextArea originalText = new TextArea(selected.getContent());
+        TextArea originalText = new TextArea(original);
         originalText.setEditable(false);
         originalText.setPrefRowCount(4);
         originalText.setWrapText(true);
@@ -147,24 +165,26 @@ public class ControllerInbox {
             }
             
             // Send reply
-            // Get parent message ID (if current is a reply, use its parent, else use current)
-            int parentId = selected.isReply() ? 
-                          selected.getParentMessageId() : selected.getMessageId();
+            // Get parent message ID (if current is a reply, use its parent, else use current).
+            // A reply to a broadcast goes to its sender alone and starts a new conversation.
+            Integer parentId = selected.isBroadcast() ? null : selected.isReply() ? 
+                          selected.getParentMessageId() : Integer.valueOf(selected.getMessageId());
             
-            boolean success = ModelInbox.sendReply(
-                ViewPrivateInbox.currentUsername,
+            String senderId = ViewPrivateInbox.currentUsername;
+            AsyncDatabase.write(() -> ModelInbox.sendReply(
+                senderId,
                 selected.getSenderId(),
                 selected.getPostId(),
                 reply,
                 parentId
-            );
-            
-            if (success) {
-                ViewPrivateInbox.showSuccess("Reply sent successfully!");
-                ViewPrivateInbox.refreshMessagesList();
-            } else {
-                ViewPrivateInbox.showError("Error", "Failed to send reply.");
-            }
+            ), success -> {
+                if (success) {
+                    ViewPrivateInbox.showSuccess("Reply sent successfully!");
+                    ViewPrivateInbox.refreshMessagesList();
+                } else {
+                    ViewPrivateInbox.showError("Error", "Failed to send reply.");
+                }
+            });
         }
     }
     
@@ -184,15 +204,15 @@ public class ControllerInbox {
             return;
         }
         
-        boolean success = ModelInbox.markMessageAsRead(selected.getMessageId());
-        
-        if (success) {
-            selected.setRead(true);
-            ViewPrivateInbox.refreshMessagesList();
-        } else {
-            ViewPrivateInbox.showError("Error", 
-                "Failed to update message status.");
-        }
+        AsyncDatabase.write(() -> ModelInbox.markMessageAsRead(selected), success -> {
+            if (success) {
+                selected.setRead(true);
+                ViewPrivateInbox.refreshMessagesList();
+            } else {
+                ViewPrivateInbox.showError("Error", 
+                    "Failed to update message status.");
+            }
+        });
     }
     
     /*******
@@ -211,15 +231,15 @@ public class ControllerInbox {
             return;
         }
         
-        boolean success = ModelInbox.markMessageAsUnread(selected.getMessageId());
-        
-        if (success) {
-            selected.setRead(false);
-            ViewPrivateInbox.refreshMessagesList();
-        } else {
-            ViewPrivateInbox.showError("Error", 
-                "Failed to update message status.");
-        }
+        AsyncDatabase.write(() -> ModelInbox.markMessageAsUnread(selected), success -> {
+            if (success) {
+                selected.setRead(false);
+                ViewPrivateInbox.refreshMessagesList();
+            } else {
+                ViewPrivateInbox.showError("Error", 
+                    "Failed to update message status.");
+            }
+        });
     }
     
     /*******
@@ -248,10 +268,28 @@ public class ControllerInbox {
         }
     }
     
+    /*******
+     * Reads the message body, the title of the related post, and the rest of the
+     * conversation.  Runs on a database worker thread.
+     */
+    private static MessageDetails loadMessageDetails(PrivateMessage message) {
+        ModelInbox.loadContent(message);
+        
+        MessageDetails details = new MessageDetails();
+        if (message.getPostId() != null) {
+            Post post = ModelInbox.getPostById(message.getPostId());
+            details.postTitle = post != null ? post.getTitle() : null;
+        }
+        // Every level of the conversation is read in one query
+        details.conversation = message.isBroadcast() ? List.of()
+            : ModelInbox.getConversation(message.getConversationId());
+        return details;
+    }
+    
     /*******
      * Shows detailed message information dialog.
      */
-    private static void showMessageDetailsDialog(PrivateMessage message) {
+    private static void showMessageDetailsDialog(PrivateMessage message, MessageDetails loaded) {
         Alert dialog = new Alert(Alert.AlertType.INFORMATION);
         dialog.setTitle("Message Details");
         dialog.setHeaderText("From: " + message.getSenderId());
@@ -262,29 +300,29 @@ public class ControllerInbox {
         
         if (message.getPostId() != null) {
             details.append("Related Post ID: ").append(message.getPostId()).append("\n");
-            
-            // Try to get post details
-            Post post = ModelInbox.getPostById(message.getPostId());
-            if (post != null) {
-                details.append("Post Title: ").append(post.getTitle()).append("\n");
+            if (loaded.postTitle != null) {
+                details.append("Post Title: ").append(loaded.postTitle).append("\n");
             }
         }
         
-        if (message.isReply()) {
+        if (message.isBroadcast()) {
+            details.append("Type: Announcement\n");
+        } else if (message.isReply()) {
             details.append("Type: Reply\n");
         }
         
         details.append("\nMessage:\n");
         details.append(message.getContent());
         
-        // Show replies if any
-        List<PrivateMessage> replies = ModelInbox.getReplies(message.getMessageId());
-        if (!replies.isEmpty()) {
-            details.append("\n\n--- Replies ---\n");
-            for (PrivateMessage reply : replies) {
-                details.append("\nFrom: ").append(reply.getSenderId());
-                details.append(" (").append(reply.getFormattedTimestamp()).append(")\n");
-                details.append(reply.getContent()).append("\n");
+        // Show the rest of the conversation, every level of it
+        List<PrivateMessage> conversation = loaded.conversation;
+        if (conversation.size() > 1) {
+            details.append("\n\n--- Conversation ---\n");
+            for (PrivateMessage other : conversation) {
+                if (other.getMessageId() == message.getMessageId()) continue;
+                details.append("\nFrom: ").append(other.getSenderId());
+                details.append(" (").append(other.getFormattedTimestamp()).append(")\n");
+                details.append(other.getContent()).append("\n");
             }
         }
         
@@ -1,5 +1,7 @@
 package guiInbox;
 
+import entityClasses.MessagePage;
+import entityClasses.MessageSearchPage;
 import entityClasses.PrivateMessage;
 import entityClasses.Post;
 import java.util.List;
@@ -35,6 +37,35 @@ public class ModelInbox {
         return applicationMain.FoundationsMain.database.getPrivateMessagesForUser(username);
     }
 
+    /**
+     * Gets one page of a user's inbox and the user's unread count in a single query.
+     * 
+     * @param username The username of the user whose messages to retrieve
+     * @param filter Which messages to list
+     * @param after Cursor of the previous page, or null for the first page
+     * @param pageSize The largest number of messages to return
+     * @return The page of messages, newest first, with the unread count
+     */
+    protected static MessagePage getMessagesPage(String username, MessagePage.Filter filter,
+                                                 MessagePage.Cursor after, int pageSize) {
+        return applicationMain.FoundationsMain.database.getPrivateMessagesPage(username, filter, after, pageSize);
+    }
+
+    /**
+     * Searches the messages a user has received or sent, and the broadcasts the user has
+     * received, best match first.
+     * 
+     * @param username The username of the user whose messages to search
+     * @param searchText The space-separated keywords
+     * @param offset Position in the ranking of the first message to return
+     * @param pageSize The largest number of messages to return
+     * @return The page of matching messages
+     */
+    protected static MessageSearchPage searchMessages(String username, String searchText,
+                                                      int offset, int pageSize) {
+        return applicationMain.FoundationsMain.database.searchPrivateMessages(username, searchText, offset, pageSize);
+    }
+
     /**
      * Gets unread message count for a user.
      * 
@@ -46,23 +77,42 @@ public class ModelInbox {
     }
 
     /**
-     * Marks a message as read.
+     * Follows a user's unread message count without polling.
+     * 
+     * @param username The username of the user
+     * @param listener Given the count now and after every change, on the thread that changed it
+     * @return The subscription; close it when the count is no longer shown
+     */
+    protected static database.UnreadCounter.Subscription subscribeUnreadMessageCount(String username, java.util.function.IntConsumer listener) {
+        return applicationMain.FoundationsMain.database.subscribeUnreadMessageCount(username, listener);
+    }
+
+    /**
+     * Marks a message as read.  For a broadcast only the recipient's copy is marked.
      * 
-     * @param messageId The ID of the message to mark as read
+     * @param message The message to mark as read
      * @return true if the operation was successful, false otherwise
      */
-    protected static boolean markMessageAsRead(int messageId) {
-        return applicationMain.FoundationsMain.database.markPrivateMessageAsRead(messageId);
+    protected static boolean markMessageAsRead(PrivateMessage message) {
+        if (message.isBroadcast()) {
+            return applicationMain.FoundationsMain.database.markBroadcastAsRead(
+                message.getMessageId(), message.getRecipientId());
+        }
+        return applicationMain.FoundationsMain.database.markPrivateMessageAsRead(message.getMessageId());
     }
 
     /**
-     * Marks a message as unread.
+     * Marks a message as unread.  For a broadcast only the recipient's copy is marked.
      * 
-     * @param messageId The ID of the message to mark as unread
+     * @param message The message to mark as unread
      * @return true if the operation was successful, false otherwise
      */
-    protected static boolean markMessageAsUnread(int messageId) {
-        return applicationMain.FoundationsMain.database.markPrivateMessageAsUnread(messageId);
+    protected static boolean markMessageAsUnread(PrivateMessage message) {
+        if (message.isBroadcast()) {
+            return applicationMain.FoundationsMain.database.markBroadcastAsUnread(
+                message.getMessageId(), message.getRecipientId());
+        }
+        return applicationMain.FoundationsMain.database.markPrivateMessageAsUnread(message.getMessageId());
     }
 
     /**
@@ -72,11 +122,12 @@ public class ModelInbox {
      * @param recipientId The username of the recipient
      * @param postId The ID of the post being referenced (nullable)
      * @param content The content of the reply message
-     * @param parentMessageId The ID of the parent message being replied to
+     * @param parentMessageId The ID of the parent message being replied to (null to start a
+     *        new conversation)
      * @return true if the reply was sent successfully, false otherwise
      */
     protected static boolean sendReply(String senderId, String recipientId,
-                                      Integer postId, String content, int parentMessageId) {
+                                      Integer postId, String content, Integer parentMessageId) {
         PrivateMessage reply = new PrivateMessage(senderId, recipientId, postId,
                                                   content, parentMessageId);
 
@@ -99,6 +150,32 @@ public class ModelInbox {
         return applicationMain.FoundationsMain.database.getPrivateMessageReplies(parentMessageId);
     }
 
+    /**
+     * Gets the body of a message from the inbox list, which holds only its preview.  The body
+     * is read once and kept on the message.
+     * 
+     * @param message The message that is being opened
+     * @return The message body, or its preview if the message no longer exists
+     */
+    protected static String loadContent(PrivateMessage message) {
+        if (message.getContent() == null) {
+            String content = applicationMain.FoundationsMain.database.getPrivateMessageContent(
+                message.getMessageId(), message.isBroadcast());
+            message.setContent(content != null ? content : message.getPreview());
+        }
+        return message.getContent();
+    }
+
+    /**
+     * Gets a whole conversation, the first message and every reply under it, in one query.
+     * 
+     * @param rootMessageId The ID of the conversation's first message
+     * @return List of PrivateMessage objects in the conversation, oldest first
+     */
+    protected static List<PrivateMessage> getConversation(int rootMessageId) {
+        return applicationMain.FoundationsMain.database.getConversation(rootMessageId);
+    }
+
     /**
      * Gets a specific post by ID.
      * 
@@ -8,8 +8,11 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.*;
 import javafx.scene.text.Font;
 import javafx.stage.Stage;
+import database.UnreadCounter;
+import entityClasses.MessagePage;
 import entityClasses.PrivateMessage;
-import java.util.List;
+import guiTools.AsyncDatabase;
+import guiTools.ScrollPaging;
 
 /*******
  * <p> Title: ViewPrivateInbox Class </p>
@@ -40,9 +43,23 @@ public class ViewPrivateInbox {
     private static ComboBox<String> combo_Filter = new ComboBox<>();
     private static Button button_Refresh = new Button("Refresh");
     
+    // Keyword search over the messages received and sent and the announcements received;
+    // the list follows each keystroke
+    private static TextField text_Search = new TextField();
+    private static String currentSearchText = "";
+    
     // Messages table
     protected static TableView<PrivateMessage> table_Messages = new TableView<>();
     protected static PrivateMessage selectedMessage = null;
+    // Number of messages read per page; more are read as the user scrolls
+    protected static final int MESSAGE_PAGE_SIZE = 25;
+    private static MessagePage.Cursor nextMessageCursor = null;
+    // Search results are ranked, so their pages are found by position instead of by cursor
+    private static int nextSearchOffset = -1;
+    // Pushes the unread count to the label; replaced each time the inbox is shown
+    private static UnreadCounter.Subscription unreadSubscription = null;
+    // Messages are read off the JavaFX thread; a new filter replaces a list still loading
+    private static final AsyncDatabase.Latest messageRequests = new AsyncDatabase.Latest();
     
     // Action buttons
     private static Button button_ViewMessage = new Button("View Message");
@@ -69,8 +86,8 @@ public class ViewPrivateInbox {
             theView = new ViewPrivateInbox();
         }
         
+        subscribeUnreadCount();
         refreshMessagesList();
-        updateUnreadCount();
         
         theStage.setTitle("CSE 360 Foundation: Private Inbox");
         theStage.setScene(theInboxScene);
@@ -120,7 +137,17 @@ public class ViewPrivateInbox {
         
         button_Refresh.setOnAction(e -> refreshMessagesList());
         
-        filterBox.getChildren().addAll(label_Filter, combo_Filter, button_Refresh);
+        Label label_Search = new Label("Search:");
+        text_Search.setPromptText("Keywords in messages received or sent...");
+        text_Search.setPrefWidth(300);
+        text_Search.textProperty().addListener((obs, oldText, newText) -> {
+            currentSearchText = newText.trim();
+            // The results are ranked, not split by read state
+            combo_Filter.setDisable(!currentSearchText.isEmpty());
+            refreshMessagesList();
+        });
+        
+        filterBox.getChildren().addAll(label_Filter, combo_Filter, button_Refresh, label_Search, text_Search);
         
         // Messages table
         setupMessagesTable();
@@ -152,6 +179,7 @@ public class ViewPrivateInbox {
      */
     private void setupMessagesTable() {
         table_Messages.setPrefHeight(400);
+        ScrollPaging.install(table_Messages, ViewPrivateInbox::loadMoreMessages);
         table_Messages.getSelectionModel().selectedItemProperty().addListener(
             (obs, oldSelection, newSelection) -> {
                 selectedMessage = newSelection;
@@ -175,7 +203,7 @@ public class ViewPrivateInbox {
         TableColumn<PrivateMessage, String> colSubject = new TableColumn<>("Subject");
         colSubject.setCellValueFactory(cellData -> {
             PrivateMessage msg = cellData.getValue();
-            String subject = "Feedback on Post #" + 
+            String subject = (msg.isBroadcast() ? "Announcement" : "Feedback") + " on Post #" + 
                            (msg.getPostId() != null ? msg.getPostId() : "General");
             if (msg.isReply()) {
                 subject = "Re: " + subject;
@@ -185,12 +213,9 @@ public class ViewPrivateInbox {
         colSubject.setPrefWidth(300);
         
         TableColumn<PrivateMessage, String> colPreview = new TableColumn<>("Preview");
-        colPreview.setCellValueFactory(cellData -> {
-            String content = cellData.getValue().getContent();
-            String preview = content.length() > 50 ? 
-                           content.substring(0, 50) + "..." : content;
-            return new javafx.beans.property.SimpleStringProperty(preview);
-        });
+        // The list holds the preview stored with each message, never the body
+        colPreview.setCellValueFactory(cellData -> 
+            new javafx.beans.property.SimpleStringProperty(cellData.getValue().getPreview()));
         colPreview.setPrefWidth(250);
         
         TableColumn<PrivateMessage, String> colTimestamp = new TableColumn<>("Received");
@@ -207,25 +232,98 @@ public class ViewPrivateInbox {
     }
     
     /*******
-     * Refreshes the messages list based on current filter.
+     * Refreshes the messages list based on current filter, or with the best matches when
+     * there are keywords in the search box.  Only the first page is read here; the rest are
+     * appended by loadMoreMessages as the user scrolls.  The messages are read on a database
+     * worker thread; changing the filter or typing again replaces a list still loading.
      */
     protected static void refreshMessagesList() {
         String filter = combo_Filter.getValue();
+        String searchText = currentSearchText;
+        nextMessageCursor = null;
+        nextSearchOffset = -1;
         
-        List<PrivateMessage> messages = ControllerInbox.getFilteredMessages(filter);
+        if (!searchText.isEmpty()) {
+            messageRequests.load(
+                () -> ControllerInbox.getSearchResults(searchText, 0, MESSAGE_PAGE_SIZE),
+                page -> {
+                    table_Messages.getItems().clear();
+                    table_Messages.getItems().addAll(page.getMessages());
+                    nextSearchOffset = page.getNextOffset();
+                    
+                    updateButtonStates();
+                }
+            );
+            return;
+        }
         
-        table_Messages.getItems().clear();
-        table_Messages.getItems().addAll(messages);
+        messageRequests.load(
+            () -> ControllerInbox.getFilteredMessages(filter, null, MESSAGE_PAGE_SIZE),
+            page -> {
+                table_Messages.getItems().clear();
+                table_Messages.getItems().addAll(page.getMessages());
+                nextMessageCursor = page.getNextCursor();
+                
+                updateButtonStates();
+            }
+        );
+    }
+    
+    /*******
+     * Appends the next page of messages for the current filter or search.  Called when the
+     * user scrolls near the bottom; does nothing once the last page has been shown.
+     */
+    protected static void loadMoreMessages() {
+        if (!currentSearchText.isEmpty()) {
+            loadMoreSearchResults();
+            return;
+        }
+        if (nextMessageCursor == null) return;
         
-        updateUnreadCount();
-        updateButtonStates();
+        MessagePage.Cursor after = nextMessageCursor;
+        nextMessageCursor = null;    // Ignore further scroll events until this page is in
+        String filter = combo_Filter.getValue();
+        messageRequests.load(
+            () -> ControllerInbox.getFilteredMessages(filter, after, MESSAGE_PAGE_SIZE),
+            page -> {
+                table_Messages.getItems().addAll(page.getMessages());
+                nextMessageCursor = page.getNextCursor();
+            }
+        );
+    }
+    
+    /*******
+     * Appends the next page of search results.
+     */
+    private static void loadMoreSearchResults() {
+        if (nextSearchOffset < 0) return;
+        
+        int offset = nextSearchOffset;
+        nextSearchOffset = -1;    // Ignore further scroll events until this page is in
+        String searchText = currentSearchText;
+        messageRequests.load(
+            () -> ControllerInbox.getSearchResults(searchText, offset, MESSAGE_PAGE_SIZE),
+            page -> {
+                table_Messages.getItems().addAll(page.getMessages());
+                nextSearchOffset = page.getNextOffset();
+            }
+        );
+    }
+    
+    /*******
+     * Subscribes the unread count label to the current user's count.  The database pushes
+     * every change, including the ones made from this screen, so the label is never polled.
+     */
+    private static void subscribeUnreadCount() {
+        if (unreadSubscription != null) unreadSubscription.close();
+        unreadSubscription = ControllerInbox.subscribeUnreadCount(unreadCount ->
+            javafx.application.Platform.runLater(() -> updateUnreadCount(unreadCount)));
     }
     
     /*******
      * Updates unread count label.
      */
-    protected static void updateUnreadCount() {
-        int unreadCount = ControllerInbox.getUnreadCount();
+    protected static void updateUnreadCount(int unreadCount) {
         label_UnreadCount.setText("Unread Messages: " + unreadCount);
     }
     
@@ -3,13 +3,17 @@ package guiModeration;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
 import entityClasses.Post;
+import entityClasses.PostSummary;
 import entityClasses.ModerationFlag;
 import entityClasses.PrivateMessage;
 import entityClasses.User;
+import guiTools.AsyncDatabase;
 
 import java.util.List;
 import java.util.Optional;
+import entityClasses.PageCursor;
 import entityClasses.PostList;
+import entityClasses.PostPage;
 
 /**
  * <p> Title: ControllerModeration Class </p>
@@ -58,6 +62,20 @@ public class ControllerModeration {
         return postList.getAllPosts();  
     }
     
+    /**
+     * Gets one page of filtered post summaries.
+     * 
+     * @param filter The filter type to apply ("All Posts", "Flagged Only", "Unflagged Only", "My Flags")
+     * @param searchText The search text to filter by keywords
+     * @param after The cursor of the page already shown, or null for the first page
+     * @param pageSize The number of posts wanted
+     * @return PostPage of posts matching the filter criteria, newest first
+     */
+    protected static PostPage getFilteredPostsPage(String filter, String searchText, PageCursor after, int pageSize) {
+        return ModelModeration.getPostsPage(filter, ViewModerationDashboard.currentStaffUsername,
+            searchText, after, pageSize);
+    }
+    
     /**
      * Gets moderation statistics.
      * 
@@ -73,7 +91,7 @@ public class ControllerModeration {
      * @param stage The JavaFX stage
      */
     protected static void performViewPost(Stage stage) {
-        Post selected = ViewModerationDashboard.selectedPost;
+        PostSummary selected = ViewModerationDashboard.selectedPost;
         
         if (selected == null) {
             ViewModerationDashboard.showError("No Selection", 
@@ -81,7 +99,17 @@ public class ControllerModeration {
             return;
         }
         
-        showPostDetailsDialog(selected);
+        // The table only holds summaries; the content is read on a database worker thread
+        // now that it is needed
+        AsyncDatabase.load(() -> ModelModeration.getPost(selected.getPostId()), post -> {
+            if (post == null) {
+                ViewModerationDashboard.showError("Post Not Found", 
+                    "The selected post no longer exists.");
+                return;
+            }
+            
+            showPostDetailsDialog(post);
+        });
     }
     
     /**
@@ -90,7 +118,7 @@ public class ControllerModeration {
      * @param stage The JavaFX stage
      */
     protected static void performFlagPost(Stage stage) {
-        Post selected = ViewModerationDashboard.selectedPost;
+        PostSummary selected = ViewModerationDashboard.selectedPost;
         
         if (selected == null) {
             ViewModerationDashboard.showError("No Selection", 
@@ -133,31 +161,32 @@ public class ControllerModeration {
                 return;
             }
             
-            boolean success = ModelModeration.createFlag(
+            String staffUsername = ViewModerationDashboard.currentStaffUsername;
+            AsyncDatabase.write(() -> ModelModeration.createFlag(
                 selected.getPostId(),
-                ViewModerationDashboard.currentStaffUsername,
+                staffUsername,
                 reason
-            );
-            
-            if (success) {
-                ViewModerationDashboard.showSuccess("Post flagged successfully!");
-                ViewModerationDashboard.refreshPostsList();
-                
-                Alert askMessage = new Alert(Alert.AlertType.CONFIRMATION);
-                askMessage.setTitle("Send Private Feedback?");
-                askMessage.setHeaderText("Post has been flagged.");
-                askMessage.setContentText(
-                    "Would you like to send private feedback to the post author?"
-                );
-                
-                Optional<ButtonType> messageResult = askMessage.showAndWait();
-                if (messageResult.isPresent() && messageResult.get() == ButtonType.OK) {
-                    performSendMessage(stage);
+            ), success -> {
+                if (success) {
+                    ViewModerationDashboard.showSuccess("Post flagged successfully!");
+                    ViewModerationDashboard.refreshPostsList();
+                    
+                    Alert askMessage = new Alert(Alert.AlertType.CONFIRMATION);
+                    askMessage.setTitle("Send Private Feedback?");
+                    askMessage.setHeaderText("Post has been flagged.");
+                    askMessage.setContentText(
+                        "Would you like to send private feedback to the post author?"
+                    );
+                    
+                    Optional<ButtonType> messageResult = askMessage.showAndWait();
+                    if (messageResult.isPresent() && messageResult.get() == ButtonType.OK) {
+                        performSendMessage(stage);
+                    }
+                } else {
+                    ViewModerationDashboard.showError("Error", 
+                        "Failed to create moderation flag.");
                 }
-            } else {
-                ViewModerationDashboard.showError("Error", 
-                    "Failed to create moderation flag.");
-            }
+            });
         }
     }
     
@@ -167,7 +196,7 @@ public class ControllerModeration {
      * @param stage The JavaFX stage
      */
     protected static void performSendMessage(Stage stage) {
-        Post selected = ViewModerationDashboard.selectedPost;
+        PostSummary selected = ViewModerationDashboard.selectedPost;
         
         if (selected == null) {
             ViewModerationDashboard.showError("No Selection", 
@@ -222,21 +251,22 @@ public class ControllerModeration {
                 return;
             }
             
-            boolean success = ModelModeration.sendPrivateMessage(
-                ViewModerationDashboard.currentStaffUsername,
+            String staffUsername = ViewModerationDashboard.currentStaffUsername;
+            AsyncDatabase.write(() -> ModelModeration.sendPrivateMessage(
+                staffUsername,
                 selected.getAuthor(),
                 selected.getPostId(),
                 message
-            );
-            
-            if (success) {
-                ViewModerationDashboard.showSuccess(
-                    "Private message sent to " + selected.getAuthor()
-                );
-            } else {
-                ViewModerationDashboard.showError("Error", 
-                    "Failed to send private message.");
-            }
+            ), success -> {
+                if (success) {
+                    ViewModerationDashboard.showSuccess(
+                        "Private message sent to " + selected.getAuthor()
+                    );
+                } else {
+                    ViewModerationDashboard.showError("Error", 
+                        "Failed to send private message.");
+                }
+            });
         }
     }
     
@@ -1,7 +1,9 @@
 package guiModeration;
 
+import entityClasses.PageCursor;
 import entityClasses.Post;
 import entityClasses.PostList;
+import entityClasses.PostPage;
 import entityClasses.ModerationFlag;
 import entityClasses.PrivateMessage;
 import java.util.List;
@@ -64,6 +66,41 @@ public class ModelModeration {
         return applicationMain.FoundationsMain.database.getPostsFlaggedByStaff(staffUsername);
     }
 
+    /**
+     * Retrieves one page of post summaries, newest first, for a dashboard filter.
+     *
+     * @param filter    the filter type ("All Posts", "Flagged Only", "Unflagged Only", "My Flags")
+     * @param staffUsername the staff member used by the "My Flags" filter
+     * @param searchText the keywords every listed post must contain, or empty for no search
+     * @param after     the cursor of the previous page, or {@code null} for the first page
+     * @param pageSize  the largest number of posts to return
+     * @return a {@link PostPage} of posts matching the filter
+     */
+    protected static PostPage getPostsPage(String filter, String staffUsername, String searchText,
+            PageCursor after, int pageSize) {
+        switch (filter) {
+            case "Flagged Only":
+                return applicationMain.FoundationsMain.database.getFlaggedPostsPage(true, searchText, after, pageSize);
+            case "Unflagged Only":
+                return applicationMain.FoundationsMain.database.getFlaggedPostsPage(false, searchText, after, pageSize);
+            case "My Flags":
+                return applicationMain.FoundationsMain.database.getPostsFlaggedByStaffPage(staffUsername, searchText,
+                        after, pageSize);
+            default:
+                return applicationMain.FoundationsMain.database.getAllPostsPage(searchText, after, pageSize);
+        }
+    }
+
+    /**
+     * Loads a full post, including its content.
+     *
+     * @param postId the ID of the post
+     * @return the {@link Post}, or {@code null} if it does not exist
+     */
+    protected static Post getPost(int postId) {
+        return applicationMain.FoundationsMain.database.getPostById(postId);
+    }
+
     /**
      * Determines whether a specific post has been flagged.
      *
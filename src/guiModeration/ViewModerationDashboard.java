@@ -8,9 +8,11 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.*;
 import javafx.scene.text.Font;
 import javafx.stage.Stage;
-import entityClasses.Post;
+import entityClasses.PageCursor;
+import entityClasses.PostSummary;
 import entityClasses.ModerationFlag;
-import java.util.List;
+import guiTools.AsyncDatabase;
+import guiTools.ScrollPaging;
 
 /**
  * <p> Title: ViewModerationDashboard Class </p>
@@ -44,9 +46,14 @@ public class ViewModerationDashboard {
     
     // Posts table
     /** TableView component displaying all posts based on current filters. */
-    protected static TableView<Post> table_Posts = new TableView<>();
-    /** The Post object currently selected in the table, used for context-based actions. */
-    protected static Post selectedPost = null;
+    protected static TableView<PostSummary> table_Posts = new TableView<>();
+    /** The post currently selected in the table, used for context-based actions. */
+    protected static PostSummary selectedPost = null;
+    /** Number of posts fetched each time the table is scrolled near its bottom. */
+    protected static final int POST_PAGE_SIZE = 50;
+    private static PageCursor nextPostCursor = null;
+    // Post pages are read off the JavaFX thread; a new filter or search replaces a pending page
+    private static final AsyncDatabase.Latest postRequests = new AsyncDatabase.Latest();
     
     // Action buttons
     private static Button button_ViewPost = new Button("View Details");
@@ -189,6 +196,7 @@ public class ViewModerationDashboard {
      */
     private void setupPostsTable() {
         table_Posts.setPrefHeight(400);
+        ScrollPaging.install(table_Posts, ViewModerationDashboard::loadMorePosts);
         table_Posts.getSelectionModel().selectedItemProperty().addListener(
             (obs, oldSelection, newSelection) -> {
                 selectedPost = newSelection;
@@ -197,23 +205,23 @@ public class ViewModerationDashboard {
         );
         
         // Columns
-        TableColumn<Post, Integer> colPostId = new TableColumn<>("ID");
+        TableColumn<PostSummary, Integer> colPostId = new TableColumn<>("ID");
         colPostId.setCellValueFactory(new PropertyValueFactory<>("postId"));
         colPostId.setPrefWidth(50);
         
-        TableColumn<Post, String> colTitle = new TableColumn<>("Title");
+        TableColumn<PostSummary, String> colTitle = new TableColumn<>("Title");
         colTitle.setCellValueFactory(new PropertyValueFactory<>("title"));
         colTitle.setPrefWidth(250);
         
-        TableColumn<Post, String> colAuthor = new TableColumn<>("Author");
+        TableColumn<PostSummary, String> colAuthor = new TableColumn<>("Author");
         colAuthor.setCellValueFactory(new PropertyValueFactory<>("author"));
         colAuthor.setPrefWidth(120);
         
-        TableColumn<Post, String> colThread = new TableColumn<>("Thread");
+        TableColumn<PostSummary, String> colThread = new TableColumn<>("Thread");
         colThread.setCellValueFactory(new PropertyValueFactory<>("thread"));
         colThread.setPrefWidth(100);
         
-        TableColumn<Post, String> colTimestamp = new TableColumn<>("Posted");
+        TableColumn<PostSummary, String> colTimestamp = new TableColumn<>("Posted");
         colTimestamp.setCellValueFactory(cellData -> 
             new javafx.beans.property.SimpleStringProperty(
                 cellData.getValue().getFormattedTimestamp()
@@ -221,9 +229,9 @@ public class ViewModerationDashboard {
         );
         colTimestamp.setPrefWidth(150);
         
-        TableColumn<Post, String> colStatus = new TableColumn<>("Status");
+        TableColumn<PostSummary, String> colStatus = new TableColumn<>("Status");
         colStatus.setCellValueFactory(cellData -> {
-            Post post = cellData.getValue();
+            PostSummary post = cellData.getValue();
             String status = post.isDeleted() ? "DELETED" : "ACTIVE";
             return new javafx.beans.property.SimpleStringProperty(status);
         });
@@ -236,19 +244,49 @@ public class ViewModerationDashboard {
     
     /**
      * Refreshes the data displayed in the {@link #table_Posts} based on the currently selected 
-     * filter option and search text. Also updates statistics and button states.
+     * filter option and search text. Only the first page of posts is loaded; the rest are
+     * appended by {@link #loadMorePosts()} as the table is scrolled. Also updates statistics
+     * and button states. The page is read on a database worker thread, and changing the
+     * filter again replaces a page that is still loading.
      */
     protected static void refreshPostsList() {
         String filter = combo_Filter.getValue();
         String searchText = text_Search.getText().trim();
+        nextPostCursor = null;
+        
+        postRequests.load(
+            () -> ControllerModeration.getFilteredPostsPage(filter, searchText, null, POST_PAGE_SIZE),
+            page -> {
+                nextPostCursor = page.getNextCursor();
+                
+                table_Posts.getItems().clear();
+                table_Posts.getItems().addAll(page.getSummaries());
+                table_Posts.scrollTo(0);
+                
+                updateStatistics();
+                updateButtonStates();
+            }
+        );
+    }
+    
+    /**
+     * Appends the next page of posts for the current filter and search text to the
+     * {@link #table_Posts}. Does nothing once the last page has been shown.
+     */
+    protected static void loadMorePosts() {
+        if (nextPostCursor == null) return;
         
-        List<Post> posts = ControllerModeration.getFilteredPosts(filter, searchText);
-        
-        table_Posts.getItems().clear();
-        table_Posts.getItems().addAll(posts);
-        
-        updateStatistics();
-        updateButtonStates();
+        PageCursor after = nextPostCursor;
+        nextPostCursor = null;  // Ignore further scroll events until this page is in
+        String filter = combo_Filter.getValue();
+        String searchText = text_Search.getText().trim();
+        postRequests.load(
+            () -> ControllerModeration.getFilteredPostsPage(filter, searchText, after, POST_PAGE_SIZE),
+            page -> {
+                table_Posts.getItems().addAll(page.getSummaries());
+                nextPostCursor = page.getNextCursor();
+            }
+        );
     }
     
     /**
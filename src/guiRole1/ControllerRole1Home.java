@@ -1,10 +1,15 @@
 package guiRole1;
 
-import entityClasses.Post;
+import entityClasses.PageCursor;
 import entityClasses.PostList;
+import entityClasses.PostPage;
+import entityClasses.PostSummary;
+import entityClasses.SearchHit;
+import java.util.List;
 import java.util.Optional;
 
 import database.Database;
+import guiTools.AsyncDatabase;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
 public class ControllerRole1Home {
@@ -60,6 +65,39 @@ public class ControllerRole1Home {
         return ModelRole1Home.getFilteredPosts(ViewRole1Home.theUser, currentThread, currentSearchText);
     }
 
+	/**********
+	 * <p> Method: handleLoadPostsPage(String currentThread, String currentSearchText,
+	 * PageCursor after, int pageSize) </p>
+	 * * <p> Description: Calls the Model to grab the next page of filtered and searched posts
+     * so the View can append it to the list as the user scrolls. </p>
+     * * @param currentThread The current thread filter.
+     * @param currentSearchText The current text filter.
+     * @param after The cursor of the page already shown, or null for the first page.
+     * @param pageSize The number of posts wanted.
+     * @return A PostPage of filtered posts, newest first.
+	 * */
+    protected static PostPage handleLoadPostsPage(String currentThread, String currentSearchText,
+            PageCursor after, int pageSize) {
+        return ModelRole1Home.getFilteredPostsPage(ViewRole1Home.theUser, currentThread,
+                currentSearchText, after, pageSize);
+    }
+
+	/**********
+	 * <p> Method: handleSearchRanked(String currentThread, String currentSearchText,
+	 * int limit) </p>
+	 * * <p> Description: Calls the Model for the posts that best match the search, for the
+     * "Best match" search mode. </p>
+     * * @param currentThread The current thread filter.
+     * @param currentSearchText The current text filter.
+     * @param limit The largest number of results wanted.
+     * @return The best matches, most relevant first.
+	 * */
+    protected static List<SearchHit> handleSearchRanked(String currentThread, String currentSearchText,
+            int limit) {
+        return ModelRole1Home.searchPostsRanked(ViewRole1Home.theUser, currentThread,
+                currentSearchText, limit);
+    }
+
     /**********
      * <p> Method: handleFilterByThread(String thread) </p>
      * * <p> Description: Tells the View to change its thread state and refresh posts. </p>
@@ -86,11 +124,11 @@ public class ControllerRole1Home {
     }
 
     /**********
-     * <p> Method: handleDeletePost(Post post) </p>
+     * <p> Method: handleDeletePost(PostSummary post) </p>
      * * <p> Description: Handles the confirmation and deletes the post, using the Model. </p>
-     * * @param post The post object to be deleted.
+     * * @param post The listed post to be deleted.
      * */
-    protected static void handleDeletePost(Post post) {
+    protected static void handleDeletePost(PostSummary post) {
         Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
         alert.setTitle("Confirm Delete");
         alert.setHeaderText("Are you sure?");
@@ -98,25 +136,17 @@ public class ControllerRole1Home {
 
         Optional<ButtonType> result = alert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            boolean success = ModelRole1Home.deletePost(post.getPostId());
-            if (success) {
-                ViewRole1Home.showInfo("Post deleted successfully!");
-                ViewRole1Home.loadPosts(); // Tell the view to refresh
-            } else {
-                ViewRole1Home.showError("Failed to delete post.");
-            }
+            AsyncDatabase.write(() -> ModelRole1Home.deletePost(post.getPostId()), success -> {
+                if (success) {
+                    ViewRole1Home.showInfo("Post deleted successfully!");
+                    ViewRole1Home.loadPosts(); // Tell the view to refresh
+                } else {
+                    ViewRole1Home.showError("Failed to delete post.");
+                }
+            });
         }
     }
 
-    /**********
-     * <p> Method: handleGetReplyCount(int postId) </p>
-     * * <p> Description: Grabs the reply count for a post from the Model. </p>
-     * * @param postId The ID of the post.
-     * @return The number of replies.
-     * */
-    protected static int handleGetReplyCount(int postId) {
-        return ModelRole1Home.getPostReplyCount(postId);
-    }
     /**********
      * <p> Method: handleGetReplyCount() </p>
      * * <p> Description: controls the creating of the post NOT IMPLEMENTED. </p>
@@ -127,13 +157,14 @@ public class ControllerRole1Home {
         ViewRole1Home.setupPostCreation();
     }
     /**********
-     * <p> Method: handleViewPost(Post post) </p>
-     * * <p> Description: Marks the post as read and opens the view post dialog. </p>
-     * * @param post The post being viewed.
+     * <p> Method: handleViewPost(PostSummary post) </p>
+     * * <p> Description: Marks the post as read and opens the view post dialog, which loads
+     * the full content of the post. </p>
+     * * @param post The listed post being viewed.
      * */
-    protected static void handleViewPost(Post post) {
+    protected static void handleViewPost(PostSummary post) {
         // Use the guiViewPost MVC package to display post details
-        guiViewPost.ViewViewPost.displayViewPost(post, ViewRole1Home.theUser.getUserName(), 
+        guiViewPost.ViewViewPost.displayViewPost(post.getPostId(), ViewRole1Home.theUser.getUserName(), 
             () -> ViewRole1Home.loadPosts());
     }
     /**********
@@ -1,6 +1,11 @@
 package guiRole1;
 
+import entityClasses.PageCursor;
 import entityClasses.PostList;
+import entityClasses.PostPage;
+import entityClasses.SearchHit;
+import java.util.ArrayList;
+import java.util.List;
 import database.Database;
 import entityClasses.User;
 
@@ -30,7 +35,8 @@ public class ModelRole1Home {
      * @param user The current User object.
      * @param currentThread The thread to filter by ("All", "General", "Questions", "MyPosts", "Unread").
      * @param searchText The keywords to search for.
-     * @return A PostList object containing the filtered, searched, and sorted posts.
+     * @return A PostList object containing the filtered, searched, and sorted posts, each
+     * already carrying its reply count.
      * */
     public static PostList getFilteredPosts(User user, String currentThread, String searchText) {
         if (theDatabase == null || user == null) {
@@ -55,15 +61,64 @@ public class ModelRole1Home {
             return new PostList();
         }
 
-        //  search filter
-        if (!searchText.isEmpty()) {
-            posts = posts.searchByKeywords(searchText);
+        // Search and sort in one pass
+        return posts.query().matching(searchText).newestFirst().run();
+    }
+
+    /**********
+     * <p> Method: getFilteredPostsPage() </p>
+     * * <p> Description: Paginated form of getFilteredPosts.  Returns summaries of the posts
+     * that come after the cursor and match the search text; the search runs in the query. </p>
+     * @param user The current User object.
+     * @param currentThread The thread to filter by ("All", "General", "Questions", "MyPosts", "Unread").
+     * @param searchText The keywords to search for.
+     * @param after The cursor returned with the previous page, or null for the first page.
+     * @param pageSize The number of posts wanted.
+     * @return A PostPage of matching post summaries, newest first.
+     * */
+    public static PostPage getFilteredPostsPage(User user, String currentThread, String searchText,
+            PageCursor after, int pageSize) {
+        if (theDatabase == null || user == null) {
+            return PostPage.empty();
+        }
+
+        String username = user.getUserName();
+
+        // Choose the paginated query for the main thread filter
+        if (currentThread.equals("MyPosts")) {
+            return theDatabase.getPostsByAuthorPage(username, searchText, after, pageSize);
+        } else if (currentThread.equals("Unread")) {
+            return theDatabase.getUnreadPostsPage(username, searchText, after, pageSize);
+        } else {
+            return theDatabase.getPostsByThreadPage(currentThread, searchText, after, pageSize);
         }
-            
-        // activate Filter and sort
-        posts = posts.sortByNewest(); 
+    }
 
-        return posts;
+    /**********
+     * <p> Method: searchPostsRanked() </p>
+     * * <p> Description: Relevance-ranked form of getFilteredPostsPage.  Returns the best
+     * matches for the search text within the thread filter, most relevant first. </p>
+     * @param user The current User object.
+     * @param currentThread The thread to filter by ("All", "General", "Questions", "MyPosts", "Unread").
+     * @param searchText The keywords to search for.
+     * @param limit The largest number of results wanted.
+     * @return The best matches, each with the keyword positions to highlight.
+     * */
+    public static List<SearchHit> searchPostsRanked(User user, String currentThread, String searchText,
+            int limit) {
+        if (theDatabase == null || user == null) {
+            return new ArrayList<>();
+        }
+
+        String username = user.getUserName();
+
+        if (currentThread.equals("MyPosts")) {
+            return theDatabase.getPostsByAuthorRanked(username, searchText, limit);
+        } else if (currentThread.equals("Unread")) {
+            return theDatabase.getUnreadPostsRanked(username, searchText, limit);
+        } else {
+            return theDatabase.getPostsByThreadRanked(currentThread, searchText, limit);
+        }
     }
 
     /**********
@@ -10,14 +10,21 @@ import javafx.scene.text.Font;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import database.Database;
+import database.UnreadCounter;
 import entityClasses.User;
 import guiUserUpdate.ViewUserUpdate;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.scene.text.FontWeight;
+import entityClasses.PageCursor;
 import entityClasses.Post;
-import entityClasses.PostList; //added
+import entityClasses.PostPage;
+import entityClasses.PostSummary;
+import entityClasses.SearchHit;
+import guiTools.AsyncDatabase;
+import guiTools.HighlightedText;
+import guiTools.ScrollPaging;
 
 import java.util.List;
 
@@ -63,6 +70,7 @@ public class ViewRole1Home {
 	protected static TextField tfSearch = new TextField();
 	protected static Button btnSearch = new Button("Search");
 	protected static Button btnClearSearch = new Button("Clear");
+	protected static CheckBox cbBestMatch = new CheckBox("Best match");
 	
 	// This is a separator and it is used to partition the GUI for various tasks
 	protected static Line line_Separator1 = new Line(20, 105, width-20, 105);
@@ -76,6 +84,14 @@ public class ViewRole1Home {
 	protected static ListView<HBox> lvPosts;
 	protected static Label lblFullGrade;
 	
+	// Posts are shown a page at a time; the next page is fetched as the list is scrolled
+	protected static final int POST_PAGE_SIZE = 25;
+	private static PageCursor nextPostCursor = null;
+	// Post pages are read off the JavaFX thread; a new filter or search replaces a pending page
+	private static final AsyncDatabase.Latest postRequests = new AsyncDatabase.Latest();
+	// A "Best match" search shows this many of the most relevant posts, without paging
+	protected static final int RANKED_RESULT_LIMIT = 50;
+	
 	
 	// This is a separator and it is used to partition the GUI for various tasks
 	protected static Line line_Separator4 = new Line(20, 600, width-20,600);
@@ -114,6 +130,8 @@ public class ViewRole1Home {
 	private static String currentSearchText = "";
 	private static Button button_PrivateInbox = new Button("Private Inbox");
 	private static Label label_InboxNotification = new Label();
+	// Pushes the user's unread message count to the badge; replaced each time the page is shown
+	private static UnreadCounter.Subscription inboxSubscription = null;
 	private static Button button_ViewGrades = new Button("View Grades");
 
 	/*-*******************************************************************************************
@@ -293,8 +311,9 @@ public class ViewRole1Home {
 
         btnSearch.setOnAction(e -> performSearch());
         btnClearSearch.setOnAction(e -> clearSearch());
+        cbBestMatch.setOnAction(e -> { if (!currentSearchText.isEmpty()) loadPosts(); });
 
-        searchBox.getChildren().addAll(lblSearch, tfSearch, btnSearch, btnClearSearch);
+        searchBox.getChildren().addAll(lblSearch, tfSearch, btnSearch, btnClearSearch, cbBestMatch);
         return searchBox;
     }
 	/**********
@@ -381,6 +400,7 @@ public class ViewRole1Home {
         lvPosts = new ListView<>();
         lvPosts.setPrefHeight(450);
         VBox.setVgrow(lvPosts, Priority.ALWAYS);
+        ScrollPaging.install(lvPosts, ViewRole1Home::loadMorePosts);
 
         panel.getChildren().addAll(lblPosts, lvPosts);
         return panel;
@@ -391,7 +411,9 @@ public class ViewRole1Home {
 	 * 
 	 * <p> Description: load the posts of the current user under specific categories
 	 * , MyPosts are posts created by the user, Unread are the posts not yet seen, 
-	 * All being every post in the forum.</p>
+	 * All being every post in the forum.  Only the first page of posts is loaded here; the
+	 * rest are appended by loadMorePosts as the user scrolls.  The page is read on a database
+	 * worker thread, and a newer filter or search replaces a page that is still loading.</p>
 	 * 
 	 * 
 	 * 
@@ -402,45 +424,141 @@ public class ViewRole1Home {
         	return;
 
         lvPosts.getItems().clear();
+        lvPosts.scrollTo(0);
+        nextPostCursor = null;
+
+        //Ask the Controller for the first page of filtered posts without blocking the window
+        String thread = currentThread;
+        String searchText = currentSearchText;
+        if (cbBestMatch.isSelected() && !searchText.isEmpty()) {
+        	postRequests.load(
+        			() -> ControllerRole1Home.handleSearchRanked(thread, searchText, RANKED_RESULT_LIMIT),
+        			ViewRole1Home::showRankedResults);
+        	return;
+        }
+        postRequests.load(
+        		() -> ControllerRole1Home.handleLoadPostsPage(thread, searchText, null, POST_PAGE_SIZE),
+        		ViewRole1Home::showFirstPage);
+    }
 
-        //Call the Controller to retrieve the filtered and sorted posts
-        PostList posts = ControllerRole1Home.handleLoadPosts(currentThread, currentSearchText);
-        
-        if (posts != null) 
-        {
-            List<Post> postList = posts.getAllPosts();
+	/**********
+	 * <p> Method: showFirstPage(PostPage page) </p>
+	 * 
+	 * <p> Description: Fills the emptied list with the first page of posts once it has been
+	 * loaded.</p>
+	 * 
+	 * @param page is the first page for the current filter and search
+	 */
+	private static void showFirstPage(PostPage page) 
+	{
+        nextPostCursor = page.getNextCursor();
+        List<PostSummary> postList = page.getSummaries();
 
-            if (postList.isEmpty()) 
+        if (postList.isEmpty()) 
+        {
+            Label lblEmpty = new Label("No posts found for the current filter/search.");
+            lblEmpty.setFont(Font.font("Arial", 14));
+            HBox emptyBox = new HBox(lblEmpty);
+            emptyBox.setPadding(new Insets(20));
+            lvPosts.getItems().add(emptyBox);
+        } else 
+        {
+            for (PostSummary post : postList) 
             {
-                Label lblEmpty = new Label("No posts found for the current filter/search.");
-                lblEmpty.setFont(Font.font("Arial", 14));
-                HBox emptyBox = new HBox(lblEmpty);
-                emptyBox.setPadding(new Insets(20));
-                lvPosts.getItems().add(emptyBox);
-            } else 
+                HBox postItem = theView.createPostItem(post);
+                lvPosts.getItems().add(postItem);
+            }
+        }
+        
+        refreshGrade();
+    }
+
+	/**********
+	 * <p> Method: showRankedResults(List&lt;SearchHit&gt; hits) </p>
+	 * 
+	 * <p> Description: Fills the emptied list with the best matches of a "Best match" search,
+	 * most relevant first, with the keywords highlighted.  Ranked results are not paged.</p>
+	 * 
+	 * @param hits are the best matches for the current filter and search
+	 */
+	private static void showRankedResults(List<SearchHit> hits) 
+	{
+        nextPostCursor = null;
+
+        if (hits.isEmpty()) 
+        {
+            Label lblEmpty = new Label("No posts found for the current filter/search.");
+            lblEmpty.setFont(Font.font("Arial", 14));
+            HBox emptyBox = new HBox(lblEmpty);
+            emptyBox.setPadding(new Insets(20));
+            lvPosts.getItems().add(emptyBox);
+        } else 
+        {
+            for (SearchHit hit : hits) 
             {
-                for (Post post : postList) 
-                {
-                    HBox postItem = theView.createPostItem(post);
-                    lvPosts.getItems().add(postItem);
-                }
+                lvPosts.getItems().add(theView.createPostItem(hit.getSummary(), hit));
             }
         }
         
         refreshGrade();
     }
+	
+	/**********
+	 * <p> Method: loadMorePosts() </p>
+	 * 
+	 * <p> Description: Appends the next page of posts for the current filter and search to
+	 * the list.  Called when the user scrolls near the bottom; does nothing once the last
+	 * page has been shown.</p>
+	 * 
+	 */
+	protected static void loadMorePosts() 
+	{
+        if (lvPosts == null || theUser == null || nextPostCursor == null) 
+        	return;
+
+        PageCursor after = nextPostCursor;
+        nextPostCursor = null;		// Ignore further scroll events until this page is in
+        String thread = currentThread;
+        String searchText = currentSearchText;
+        postRequests.load(
+        		() -> ControllerRole1Home.handleLoadPostsPage(thread, searchText, after, POST_PAGE_SIZE),
+        		page -> {
+        			for (PostSummary post : page.getSummaries()) 
+        			{
+        				lvPosts.getItems().add(theView.createPostItem(post));
+        			}
+        			nextPostCursor = page.getNextCursor();
+        		});
+    }
 	/**********
 	 * <p> Method: createPostItem() </p>
 	 * 
 	 * <p> Description: Builds a custom list for one post to be displayed in the main forum.
-	 * It takes data from the Post object and arranges it in a particular way. Uses information
-	 * such as the author, time, and thread.</p>
+	 * It takes data from the PostSummary object and arranges it in a particular way. Uses
+	 * information such as the author, time, thread and the stored preview.</p>
+	 * 
+	 * @param post the summary of the post to be displayed
+	 * @return item which contains the post ready to be put into the list
+	 * 
+	 */
+	private HBox createPostItem(PostSummary post) 
+	{
+	    return createPostItem(post, null);
+	}
+
+	/**********
+	 * <p> Method: createPostItem(PostSummary post, SearchHit hit) </p>
+	 * 
+	 * <p> Description: Builds the list item for one post of a "Best match" search.  The
+	 * keywords found in the title and preview are highlighted using the offsets that came
+	 * with the search hit.</p>
 	 * 
-	 * @param post the object needed to be displayed
+	 * @param post the summary of the post to be displayed
+	 * @param hit the search result for the post, or null to show it without highlights
 	 * @return item which contains the post ready to be put into the list
 	 * 
 	 */
-	private HBox createPostItem(Post post) 
+	private HBox createPostItem(PostSummary post, SearchHit hit) 
 	{
 	    HBox item = new HBox(15);
 	    item.setPadding(new Insets(10));
@@ -481,9 +599,7 @@ public class ViewRole1Home {
 	    if (post.isDeleted()) {
 	        preview = "[Content has been removed. Click View to see replies.]";
 	    } else {
-	        preview = post.getContent().length() > 100 ? 
-	                 post.getContent().substring(0, 100) + "..." : 
-	                 post.getContent();
+	        preview = post.getPreview();
 	    }
 	    Label lblPreview = new Label(preview);
 	    lblPreview.setWrapText(true);
@@ -492,10 +608,18 @@ public class ViewRole1Home {
 	        lblPreview.setStyle("-fx-text-fill: #999; -fx-font-style: italic;");
 	    }
 
-	    postInfo.getChildren().addAll(lblTitle, lblMeta, lblPreview);
+	    if (hit != null && !post.isDeleted()) {
+	        // Same text, with the search keywords highlighted
+	        postInfo.getChildren().addAll(
+	            HighlightedText.create(post.getTitle(), hit.getTitleHighlights(), lblTitle.getFont()),
+	            lblMeta,
+	            HighlightedText.create(post.getPreview(), hit.getPreviewHighlights(), lblPreview.getFont()));
+	    } else {
+	        postInfo.getChildren().addAll(lblTitle, lblMeta, lblPreview);
+	    }
 
 	    // Reply count - ALWAYS show, even for deleted posts
-	    int replyCount = ControllerRole1Home.handleGetReplyCount(post.getPostId());
+	    int replyCount = post.getReplyCount();
 	    VBox replyInfo = new VBox(5);
 	    replyInfo.setAlignment(Pos.CENTER);
 	    replyInfo.setPrefWidth(80);
@@ -623,16 +747,20 @@ public class ViewRole1Home {
         }
         Post newPost = new Post(theUser.getUserName(), title, content, thread);
         
-        int postId = theDatabase.createPost(newPost);
-        
-        if (postId > 0) {
-            showSuccess("Post created successfully!");
-            
-            loadPosts();
-            theStage.close();
-        } else {
-            showPostError("Failed to create post", "Please try again.");
-        }
+        // Save off the JavaFX thread; the form stays disabled so it cannot be sent twice
+        Stage postStage = theStage;
+        postStage.getScene().getRoot().setDisable(true);
+        AsyncDatabase.write(() -> theDatabase.createPost(newPost), postId -> {
+            if (postId > 0) {
+                showSuccess("Post created successfully!");
+                
+                loadPosts();
+                postStage.close();
+            } else {
+                postStage.getScene().getRoot().setDisable(false);
+                showPostError("Failed to create post", "Please try again.");
+            }
+        });
     }
 
     protected static String updateOverallGrade(int grade) {
@@ -753,9 +881,21 @@ public class ViewRole1Home {
         alert.setContentText(message);
         alert.showAndWait();
     }
+	/**********
+	 * <p> Method: updateInboxNotification() </p>
+	 * 
+	 * <p> Description: Subscribes the inbox badge to the current user's unread message
+	 * count.  The database pushes every change of the count, so the badge follows new and
+	 * read messages without querying.</p>
+	 * 
+	 */
     private static void updateInboxNotification() {
-        int unreadCount = theDatabase.getUnreadMessageCount(theUser.getUserName());
-        
+        if (inboxSubscription != null) inboxSubscription.close();
+        inboxSubscription = theDatabase.subscribeUnreadMessageCount(theUser.getUserName(),
+            unreadCount -> javafx.application.Platform.runLater(() -> showInboxNotification(unreadCount)));
+    }
+
+    private static void showInboxNotification(int unreadCount) {
         if (unreadCount > 0) {
             label_InboxNotification.setText("(" + unreadCount + " new)");
             label_InboxNotification.setVisible(true);
@@ -1,7 +1,13 @@
 package guiRole2;
 
+import entityClasses.PageCursor;
 import entityClasses.Post;
 import entityClasses.PostList;
+import entityClasses.PostPage;
+import entityClasses.PostSummary;
+import entityClasses.SearchHit;
+import guiTools.AsyncDatabase;
+import java.util.List;
 import java.util.Optional;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
@@ -91,6 +97,47 @@ public class ControllerRole2Home {
     protected static PostList handleLoadPosts(String currentThread, String currentSearchText) {
         return ModelRole2Home.getFilteredPosts(ViewRole2Home.theUser, currentThread, currentSearchText);
     }
+
+    /**********
+	 * <p> Method: handleLoadPostsPage(String currentThread, String currentSearchText,
+	 * PageCursor after, int pageSize) </p>
+	 * 
+	 * <p> Description: Calls the Model to grab the next page of filtered and searched posts
+     * so the View can append it to the list as the user scrolls. </p>
+     * 
+     * @param currentThread The current thread filter.
+     * @param currentSearchText The current text filter.
+     * @param after The cursor of the page already shown, or null for the first page.
+     * @param pageSize The number of posts wanted.
+     * @return A PostPage of filtered active posts, newest first.
+	 * 
+	 * @see guiRole2.ModelRole2Home#getFilteredPostsPage(entityClasses.User, String, String, PageCursor, int)
+	 */
+    protected static PostPage handleLoadPostsPage(String currentThread, String currentSearchText,
+            PageCursor after, int pageSize) {
+        return ModelRole2Home.getFilteredPostsPage(ViewRole2Home.theUser, currentThread,
+                currentSearchText, after, pageSize);
+    }
+    
+    /**********
+	 * <p> Method: handleSearchRanked(String currentThread, String currentSearchText,
+	 * int limit) </p>
+	 * 
+	 * <p> Description: Calls the Model for the active posts that best match the search, for
+     * the "Best match" search mode. </p>
+     * 
+     * @param currentThread The current thread filter.
+     * @param currentSearchText The current text filter.
+     * @param limit The largest number of results wanted.
+     * @return The best matches, most relevant first.
+	 * 
+	 * @see guiRole2.ModelRole2Home#searchPostsRanked(entityClasses.User, String, String, int)
+	 */
+    protected static List<SearchHit> handleSearchRanked(String currentThread, String currentSearchText,
+            int limit) {
+        return ModelRole2Home.searchPostsRanked(ViewRole2Home.theUser, currentThread,
+                currentSearchText, limit);
+    }
     
     /**********
 	 * <p> Method: handleCreatePost() </p>
@@ -121,33 +168,44 @@ public class ControllerRole2Home {
     }
     
     /**********
-	 * <p> Method: handleEditPost(Post post) </p>
+	 * <p> Method: handleEditPost(PostSummary summary) </p>
 	 * 
-	 * <p> Description: Opens the edit post dialog for the specified post, with permission checks. </p>
+	 * <p> Description: Loads the full post for a listed post and opens the edit post dialog
+	 * for it, with permission checks. </p>
 	 * 
-	 * @param post The post to edit.
+	 * @param summary The listed post to edit.
 	 * 
 	 * @see guiRole2.ModelRole2Home#canEditPost(entityClasses.Post, String)
 	 * @see guiRole2.ViewRole2Home#setupPostEdit(entityClasses.Post)
 	 * @see tester.StaffCrudTest#testCanEditPost()
 	 * @see tester.StaffCrudTest#testCanEditPostNotAuthor()
 	 */
-    protected static void handleEditPost(Post post) {
-        if (post == null) {
+    protected static void handleEditPost(PostSummary summary) {
+        if (summary == null) {
             return;
         }
         
-        // Check if user can edit this post
-        if (!ModelRole2Home.canEditPost(post, ViewRole2Home.theUser.getUserName())) {
-            Alert alert = new Alert(Alert.AlertType.ERROR);
-            alert.setTitle("Cannot Edit Post");
-            alert.setHeaderText(null);
-            alert.setContentText("You can only edit your own posts.");
-            alert.showAndWait();
-            return;
-        }
-        
-        ViewRole2Home.setupPostEdit(post);
+        // The list only holds summaries; the editor needs the full content, which is read on
+        // a database worker thread
+        AsyncDatabase.load(() -> ModelRole2Home.getPost(summary.getPostId()), post -> {
+            if (post == null) {
+                ViewRole2Home.showError("This post no longer exists.");
+                ViewRole2Home.loadPosts();
+                return;
+            }
+            
+            // Check if user can edit this post
+            if (!ModelRole2Home.canEditPost(post, ViewRole2Home.theUser.getUserName())) {
+                Alert alert = new Alert(Alert.AlertType.ERROR);
+                alert.setTitle("Cannot Edit Post");
+                alert.setHeaderText(null);
+                alert.setContentText("You can only edit your own posts.");
+                alert.showAndWait();
+                return;
+            }
+            
+            ViewRole2Home.setupPostEdit(post);
+        });
     }
     
     /**********
@@ -179,19 +237,19 @@ public class ControllerRole2Home {
     }
     
     /**********
-	 * <p> Method: handleDeletePost(Post post) </p>
+	 * <p> Method: handleDeletePost(PostSummary post) </p>
 	 * 
 	 * <p> Description: Handles the confirmation dialog and deletes the post using the Model.
 	 * Verifies that the user has permission to delete the post (must be the author) before
 	 * proceeding with deletion. </p>
 	 * 
-	 * @param post The post object to be deleted.
+	 * @param post The listed post to be deleted.
 	 * 
 	 * @see guiRole2.ModelRole2Home#deletePost(int)
 	 * @see tester.StaffCrudTest#testDeletePostSuccess()
 	 * @see tester.StaffCrudTest#testDeletePostInvalidId()
 	 */
-    protected static void handleDeletePost(Post post) {
+    protected static void handleDeletePost(PostSummary post) {
         if (post == null) {
             return;
         }
@@ -213,50 +271,36 @@ public class ControllerRole2Home {
 
         Optional<ButtonType> result = alert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            boolean success = ModelRole2Home.deletePost(post.getPostId());
-            if (success) {
-                ViewRole2Home.showSuccess("Post deleted successfully!");
-                ViewRole2Home.loadPosts(); // Refresh the view
-            } else {
-                ViewRole2Home.showError("Failed to delete post.");
-            }
+            AsyncDatabase.write(() -> ModelRole2Home.deletePost(post.getPostId()), success -> {
+                if (success) {
+                    ViewRole2Home.showSuccess("Post deleted successfully!");
+                    ViewRole2Home.loadPosts(); // Refresh the view
+                } else {
+                    ViewRole2Home.showError("Failed to delete post.");
+                }
+            });
         }
     }
     
     /**********
-	 * <p> Method: handleViewPost(Post post) </p>
+	 * <p> Method: handleViewPost(PostSummary post) </p>
 	 * 
-	 * <p> Description: Marks the post as read and opens the view post dialog to display
+	 * <p> Description: Marks the post as read and opens the view post dialog, which loads
 	 * the full post content and replies. </p>
 	 * 
-	 * @param post The post being viewed.
+	 * @param post The listed post being viewed.
 	 * 
-	 * @see guiViewPost.ViewViewPost#displayViewPost(entityClasses.Post, String, Runnable)
+	 * @see guiViewPost.ViewViewPost#displayViewPost(int, String, Runnable)
 	 * @see guiRole2.ModelRole2Home#markPostAsRead(int, String)
 	 */
-    protected static void handleViewPost(Post post) {
+    protected static void handleViewPost(PostSummary post) {
         if (post == null) {
             return;
         }
         
         // Use the guiViewPost MVC package to display post details
-        guiViewPost.ViewViewPost.displayViewPost(post, ViewRole2Home.theUser.getUserName(), 
+        guiViewPost.ViewViewPost.displayViewPost(post.getPostId(), ViewRole2Home.theUser.getUserName(), 
             () -> ViewRole2Home.loadPosts());
     }
-    
-    /**********
-	 * <p> Method: handleGetReplyCount(int postId) </p>
-	 * 
-	 * <p> Description: Grabs the reply count for a post from the Model. </p>
-	 * 
-	 * @param postId The ID of the post.
-	 * @return The number of replies.
-	 * 
-	 * @see guiRole2.ModelRole2Home#getPostReplyCount(int)
-	 * @see tester.StaffCrudTest#testGetPostReplyCount()
-	 */
-    protected static int handleGetReplyCount(int postId) {
-        return ModelRole2Home.getPostReplyCount(postId);
-    }
 
 }
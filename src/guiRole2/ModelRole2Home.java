@@ -1,7 +1,12 @@
 package guiRole2;
 
+import entityClasses.PageCursor;
 import entityClasses.Post;
 import entityClasses.PostList;
+import entityClasses.PostPage;
+import entityClasses.SearchHit;
+import java.util.ArrayList;
+import java.util.List;
 import database.Database;
 import entityClasses.User;
 
@@ -30,7 +35,8 @@ public class ModelRole2Home {
      * @param user The current User object.
      * @param currentThread The thread to filter by ("All", "General", "Questions", "MyPosts").
      * @param searchText The keywords to search for.
-     * @return A PostList object containing the filtered, searched, and sorted posts.
+     * @return A PostList object containing the filtered, searched, and sorted posts, each
+     * already carrying its reply count.
      * @see tester.StaffCrudTest#testGetFilteredPostsByThread()
      * @see tester.StaffCrudTest#testGetFilteredPostsAll()
      * @see tester.StaffCrudTest#testGetFilteredPostsMyPosts()
@@ -57,15 +63,73 @@ public class ModelRole2Home {
             return new PostList();
         }
 
-        // Apply search filter
-        if (!searchText.isEmpty()) {
-            posts = posts.searchByKeywords(searchText);
+        // Search, filter out deleted posts and sort in one pass
+        return posts.query().matching(searchText).activeOnly().newestFirst().run();
+    }
+
+    /**********
+     * <p> Method: getFilteredPostsPage() </p>
+     * * <p> Description: Paginated form of getFilteredPosts.  Reads summaries of the posts that
+     * come after the cursor and match the search text one page at a time, keeping only active
+     * posts, until a full page has been found or there are no more posts. </p>
+     * @param user The current User object.
+     * @param currentThread The thread to filter by ("All", "General", "Questions", "MyPosts").
+     * @param searchText The keywords to search for.
+     * @param after The cursor returned with the previous page, or null for the first page.
+     * @param pageSize The number of posts wanted.
+     * @return A PostPage of matching active post summaries, newest first.
+     * */
+    public static PostPage getFilteredPostsPage(User user, String currentThread, String searchText,
+            PageCursor after, int pageSize) {
+        if (theDatabase == null || user == null) {
+            return PostPage.empty();
+        }
+
+        String username = user.getUserName();
+        PostPage.Source source;
+
+        // Choose the paginated query for the main thread filter
+        if (currentThread.equals("MyPosts")) {
+            source = (cursor, size) -> theDatabase.getPostsByAuthorPage(username, searchText, cursor, size);
+        } else {
+            source = (cursor, size) -> theDatabase.getPostsByThreadPage(currentThread, searchText, cursor, size);
+        }
+
+        return PostPage.collect(source, after, pageSize, summary -> !summary.isDeleted());
+    }
+
+    /**********
+     * <p> Method: searchPostsRanked() </p>
+     * * <p> Description: Relevance-ranked form of getFilteredPostsPage.  Returns the best
+     * active matches for the search text within the thread filter, most relevant first. </p>
+     * @param user The current User object.
+     * @param currentThread The thread to filter by ("All", "General", "Questions", "MyPosts").
+     * @param searchText The keywords to search for.
+     * @param limit The largest number of results wanted.
+     * @return The best matches, each with the keyword positions to highlight.
+     * */
+    public static List<SearchHit> searchPostsRanked(User user, String currentThread, String searchText,
+            int limit) {
+        if (theDatabase == null || user == null) {
+            return new ArrayList<>();
         }
-            
-        // Filter out deleted posts and sort
-        posts = posts.filterActive().sortByNewest(); 
 
-        return posts;
+        // Deleted posts are left out by the query, before the best "limit" are chosen
+        if (currentThread.equals("MyPosts")) {
+            return theDatabase.getPostsByAuthorRanked(user.getUserName(), searchText, limit, true);
+        }
+        return theDatabase.getPostsByThreadRanked(currentThread, searchText, limit, true);
+    }
+
+    /**********
+     * <p> Method: getPost() </p>
+     * * <p> Description: Loads the full post, including its content, for a listed post. </p>
+     * * @param postId The ID of the post.
+     * @return The post, or null if it does not exist.
+     * */
+    public static Post getPost(int postId) {
+        if (theDatabase == null) return null;
+        return theDatabase.getPostById(postId);
     }
 
     /**********
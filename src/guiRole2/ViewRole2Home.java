@@ -16,8 +16,15 @@ import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.scene.text.FontWeight;
+import entityClasses.PageCursor;
 import entityClasses.Post;
 import entityClasses.PostList;
+import entityClasses.PostPage;
+import entityClasses.PostSummary;
+import entityClasses.SearchHit;
+import guiTools.AsyncDatabase;
+import guiTools.HighlightedText;
+import guiTools.ScrollPaging;
 import java.util.List;
 
 /*******
@@ -85,6 +92,9 @@ public class ViewRole2Home {
     /** TextField for search input */
     protected static TextField tfSearch = new TextField();
 
+    /** CheckBox that ranks search results by relevance instead of time */
+    protected static CheckBox cbBestMatch = new CheckBox("Best match");
+
 <<<<<<< HEAD
     /** Button to perform search */
     protected static Button btnSearch = new Button("Search");
@@ -358,8 +368,9 @@ public class ViewRole2Home {
 
         btnSearch.setOnAction(e -> performSearch());
         btnClearSearch.setOnAction(e -> clearSearch());
+        cbBestMatch.setOnAction(e -> { if (!currentSearchText.isEmpty()) loadPosts(); });
 
-        searchBox.getChildren().addAll(lblSearch, tfSearch, btnSearch, btnClearSearch);
+        searchBox.getChildren().addAll(lblSearch, tfSearch, btnSearch, btnClearSearch, cbBestMatch);
         return searchBox;
     }
 
@@ -415,44 +426,127 @@ public class ViewRole2Home {
         lvPosts = new ListView<>();
         lvPosts.setPrefHeight(450);
         VBox.setVgrow(lvPosts, Priority.ALWAYS);
+        ScrollPaging.install(lvPosts, ViewRole2Home::loadMorePosts);
 
         panel.getChildren().addAll(lblPosts, lvPosts);
         return panel;
     }
 
+    // Posts are shown a page at a time; the next page is fetched as the list is scrolled
+    protected static final int POST_PAGE_SIZE = 25;
+    private static PageCursor nextPostCursor = null;
+    // Post pages are read off the JavaFX thread; a new filter or search replaces a pending page
+    private static final AsyncDatabase.Latest postRequests = new AsyncDatabase.Latest();
+    // A "Best match" search shows this many of the most relevant posts, without paging
+    protected static final int RANKED_RESULT_LIMIT = 50;
+
     /**
-     * Loads posts from the database based on the current user, thread, and search filters.
+     * Loads the first page of posts from the database based on the current user, thread, and
+     * search filters.  Later pages are appended by loadMorePosts as the user scrolls.  The page
+     * is read on a database worker thread, and a newer filter or search replaces a page that
+     * is still loading.
      */
     protected static void loadPosts() {
         if (lvPosts == null || theUser == null) return;
 
         lvPosts.getItems().clear();
+        lvPosts.scrollTo(0);
+        nextPostCursor = null;
+
+        String thread = currentThread;
+        String searchText = currentSearchText;
+        if (cbBestMatch.isSelected() && !searchText.isEmpty()) {
+            postRequests.load(
+                    () -> ControllerRole2Home.handleSearchRanked(thread, searchText, RANKED_RESULT_LIMIT),
+                    ViewRole2Home::showRankedResults);
+            return;
+        }
+        postRequests.load(
+                () -> ControllerRole2Home.handleLoadPostsPage(thread, searchText, null, POST_PAGE_SIZE),
+                ViewRole2Home::showFirstPage);
+    }
 
-        PostList posts = ControllerRole2Home.handleLoadPosts(currentThread, currentSearchText);
-
-        if (posts != null) {
-            List<Post> postList = posts.getAllPosts();
-            if (postList.isEmpty()) {
-                Label lblEmpty = new Label("No posts found for the current filter/search.");
-                lblEmpty.setFont(Font.font("Arial", 14));
-                HBox emptyBox = new HBox(lblEmpty);
-                emptyBox.setPadding(new Insets(20));
-                lvPosts.getItems().add(emptyBox);
-            } else {
-                for (Post post : postList) {
-                    HBox postItem = theView.createPostItem(post);
-                    lvPosts.getItems().add(postItem);
-                }
+    /**
+     * Fills the emptied list with the first page of posts once it has been loaded.
+     * @param page The first page for the current filter and search
+     */
+    private static void showFirstPage(PostPage page) {
+        nextPostCursor = page.getNextCursor();
+
+        List<PostSummary> postList = page.getSummaries();
+        if (postList.isEmpty()) {
+            Label lblEmpty = new Label("No posts found for the current filter/search.");
+            lblEmpty.setFont(Font.font("Arial", 14));
+            HBox emptyBox = new HBox(lblEmpty);
+            emptyBox.setPadding(new Insets(20));
+            lvPosts.getItems().add(emptyBox);
+        } else {
+            for (PostSummary post : postList) {
+                HBox postItem = theView.createPostItem(post);
+                lvPosts.getItems().add(postItem);
             }
         }
     }
 
+    /**
+     * Fills the emptied list with the best matches of a "Best match" search, most relevant
+     * first, with the keywords highlighted.  Ranked results are not paged.
+     * @param hits The best matches for the current filter and search
+     */
+    private static void showRankedResults(List<SearchHit> hits) {
+        nextPostCursor = null;
+
+        if (hits.isEmpty()) {
+            Label lblEmpty = new Label("No posts found for the current filter/search.");
+            lblEmpty.setFont(Font.font("Arial", 14));
+            HBox emptyBox = new HBox(lblEmpty);
+            emptyBox.setPadding(new Insets(20));
+            lvPosts.getItems().add(emptyBox);
+        } else {
+            for (SearchHit hit : hits) {
+                lvPosts.getItems().add(theView.createPostItem(hit.getSummary(), hit));
+            }
+        }
+    }
+
+    /**
+     * Appends the next page of posts for the current filter and search.  Called when the user
+     * scrolls near the bottom of the list; does nothing once the last page has been shown.
+     */
+    protected static void loadMorePosts() {
+        if (lvPosts == null || theUser == null || nextPostCursor == null) return;
+
+        PageCursor after = nextPostCursor;
+        nextPostCursor = null;      // Ignore further scroll events until this page is in
+        String thread = currentThread;
+        String searchText = currentSearchText;
+        postRequests.load(
+                () -> ControllerRole2Home.handleLoadPostsPage(thread, searchText, after, POST_PAGE_SIZE),
+                page -> {
+                    for (PostSummary post : page.getSummaries()) {
+                        lvPosts.getItems().add(theView.createPostItem(post));
+                    }
+                    nextPostCursor = page.getNextCursor();
+                });
+    }
+
     /**
      * Creates an HBox representing a single post in the forum list.
-     * @param post The post object to display
+     * @param post The summary of the post to display
+     * @return HBox containing formatted post data
+     */
+    private HBox createPostItem(PostSummary post) {
+        return createPostItem(post, null);
+    }
+
+    /**
+     * Creates an HBox representing a single post of a "Best match" search.  The keywords
+     * found in the title and preview are highlighted using the offsets that came with the hit.
+     * @param post The summary of the post to display
+     * @param hit The search result for the post, or null to show it without highlights
      * @return HBox containing formatted post data
      */
-    private HBox createPostItem(Post post) {
+    private HBox createPostItem(PostSummary post, SearchHit hit) {
         HBox item = new HBox(15);
         item.setPadding(new Insets(10));
 
@@ -477,15 +571,23 @@ public class ViewRole2Home {
         lblMeta.setFont(Font.font("Arial", 12));
         lblMeta.setStyle("-fx-text-fill: #666;");
 
-        String preview = post.isDeleted() ? "[Content has been removed. Click View to see replies.]" : post.getContent().length() > 100 ? post.getContent().substring(0, 100) + "..." : post.getContent();
+        String preview = post.isDeleted() ? "[Content has been removed. Click View to see replies.]" : post.getPreview();
         Label lblPreview = new Label(preview);
         lblPreview.setWrapText(true);
 
         if (post.isDeleted()) lblPreview.setStyle("-fx-text-fill: #999; -fx-font-style: italic;");
 
-        postInfo.getChildren().addAll(lblTitle, lblMeta, lblPreview);
+        if (hit != null && !post.isDeleted()) {
+            // Same text, with the search keywords highlighted
+            postInfo.getChildren().addAll(
+                    HighlightedText.create(post.getTitle(), hit.getTitleHighlights(), lblTitle.getFont()),
+                    lblMeta,
+                    HighlightedText.create(post.getPreview(), hit.getPreviewHighlights(), lblPreview.getFont()));
+        } else {
+            postInfo.getChildren().addAll(lblTitle, lblMeta, lblPreview);
+        }
 
-        int replyCount = ControllerRole2Home.handleGetReplyCount(post.getPostId());
+        int replyCount = post.getReplyCount();
         VBox replyInfo = new VBox(5);
         replyInfo.setAlignment(Pos.CENTER);
         replyInfo.setPrefWidth(80);
@@ -0,0 +1,271 @@
+package guiTools;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import javafx.application.Platform;
+
+/*******
+ * <p> Title: AsyncDatabase Class. </p>
+ *
+ * <p> Description: Runs database work off the JavaFX application thread.  Event handlers hand
+ * a query to this class instead of calling FoundationsMain.database directly; the query runs
+ * on a small, bounded pool of worker threads and its result is handed back to the JavaFX
+ * thread with Platform.runLater, so a slow query never freezes the window.</p>
+ *
+ * <p> A screen whose requests replace each other, such as the post list when the user clicks
+ * through the thread filters, uses a {@link Latest}.  Each request made through it cancels
+ * the one before, so a query still waiting for a worker is never run and the result of one
+ * that already ran is dropped instead of overwriting the newer list.</p>
+ *
+ * <p> Changes to the database, such as sending a reply or marking a message as read, are
+ * handed to {@link #write} instead.  They run one at a time on a single writer thread, in the
+ * order the user made them, so marking a message read and then unread can never be saved the
+ * other way round; the screen refreshes from the callback once the change is saved.  The
+ * account and admin screens, the request system and the staff post editor still call the
+ * database directly for their writes.</p>
+ *
+ * <p> The workers share the database's connection pool, so at most WORKERS queries and the
+ * writer run at once and the rest wait in bounded queues.  Workers and the writer are daemon
+ * threads and do not keep the application alive when the window is closed.</p>
+ *
+ * <p> Copyright: CSE 360 Team © 2025 </p>
+ *
+ * @author CSE 360 Team
+ *
+ * @version 1.00		2025-11-26 Initial version
+ * @version 1.01		2025-12-11 Writes run in order on one writer thread
+ *
+ */
+public class AsyncDatabase {
+
+	// Number of worker threads, and of queries that may run at the same time
+	private static final int WORKERS = 4;
+
+	// Number of queries that may wait for a worker before new ones are refused
+	private static final int QUEUE_LIMIT = 256;
+
+	private static final ExecutorService workers = createWorkers();
+
+	// Runs every write, one at a time and in the order they were made
+	private static final ExecutorService writer = createWriter();
+
+	// Where results are delivered; the JavaFX application thread unless a test replaces it
+	private static Executor resultThread = Platform::runLater;
+
+	private AsyncDatabase() {
+	}
+
+	private static ExecutorService createWorkers() {
+		AtomicInteger count = new AtomicInteger();
+		ThreadFactory factory = task -> {
+			Thread thread = new Thread(task, "database-worker-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(WORKERS, WORKERS, 30, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(QUEUE_LIMIT), factory);
+		pool.allowCoreThreadTimeOut(true);
+		return pool;
+	}
+
+	private static ExecutorService createWriter() {
+		ThreadFactory factory = task -> {
+			Thread thread = new Thread(task, "database-writer");
+			thread.setDaemon(true);
+			return thread;
+		};
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(QUEUE_LIMIT), factory);
+		pool.allowCoreThreadTimeOut(true);
+		return pool;
+	}
+
+	/**********
+	 * <p> Method: CompletableFuture&lt;T&gt; supply(Supplier&lt;T&gt; query) </p>
+	 *
+	 * <p> Description: Runs a query on a worker thread.  The future completes on the worker,
+	 * so callers that touch the GUI with the result should use {@link #load} instead.</p>
+	 *
+	 * @param <T> is the type of the query's result
+	 *
+	 * @param query is the database work to run
+	 *
+	 * @return a future for the query's result; it fails if the queue of waiting queries is full
+	 */
+	public static <T> CompletableFuture<T> supply(Supplier<T> query) {
+		return submit(query, workers);
+	}
+
+	private static <T> CompletableFuture<T> submit(Supplier<T> work, ExecutorService executor) {
+		try {
+			return CompletableFuture.supplyAsync(work, executor);
+		} catch (RejectedExecutionException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	/**********
+	 * <p> Method: CompletableFuture&lt;T&gt; load(Supplier&lt;T&gt; query, Consumer&lt;T&gt;
+	 * onResult) </p>
+	 *
+	 * <p> Description: Runs a query on a worker thread and passes its result to onResult on
+	 * the JavaFX application thread.  If the query fails, the error is printed and onResult
+	 * is not called.</p>
+	 *
+	 * @param <T> is the type of the query's result
+	 *
+	 * @param query is the database work to run
+	 *
+	 * @param onResult is given the result on the JavaFX thread
+	 *
+	 * @return a future for the query's result
+	 */
+	public static <T> CompletableFuture<T> load(Supplier<T> query, Consumer<T> onResult) {
+		return deliver(supply(query), onResult);
+	}
+
+	/**********
+	 * <p> Method: CompletableFuture&lt;T&gt; write(Supplier&lt;T&gt; update, Consumer&lt;T&gt;
+	 * onDone) </p>
+	 *
+	 * <p> Description: Runs a change on the writer thread, after every write made before it,
+	 * and passes its result, usually whether it succeeded, to onDone on the JavaFX application
+	 * thread.  If the change throws, the error is printed and onDone is not called.</p>
+	 *
+	 * @param <T> is the type of the change's result
+	 *
+	 * @param update is the database change to make
+	 *
+	 * @param onDone is given the result on the JavaFX thread
+	 *
+	 * @return a future for the change's result
+	 */
+	public static <T> CompletableFuture<T> write(Supplier<T> update, Consumer<T> onDone) {
+		return deliver(submit(update, writer), onDone);
+	}
+
+	/**********
+	 * <p> Method: CompletableFuture&lt;Void&gt; write(Runnable update) </p>
+	 *
+	 * <p> Description: Runs a change that nothing waits for, such as marking a post as read,
+	 * on the writer thread after every write made before it.</p>
+	 *
+	 * @param update is the database change to make
+	 *
+	 * @return a future that completes once the change is made
+	 */
+	public static CompletableFuture<Void> write(Runnable update) {
+		return write(() -> {
+			update.run();
+			return null;
+		}, done -> { });
+	}
+
+	private static <T> CompletableFuture<T> deliver(CompletableFuture<T> future, Consumer<T> onResult) {
+		future.whenComplete((result, error) -> {
+			if (error != null) {
+				report(error);
+			} else {
+				resultThread.execute(() -> onResult.accept(result));
+			}
+		});
+		return future;
+	}
+
+	/**********
+	 * <p> Method: setResultThread(Executor executor) </p>
+	 *
+	 * <p> Description: Replaces where results are delivered.  Tests that run without the
+	 * JavaFX toolkit deliver them directly on the worker thread.</p>
+	 *
+	 * @param executor runs each result callback; null restores Platform.runLater
+	 */
+	public static void setResultThread(Executor executor) {
+		resultThread = executor == null ? Platform::runLater : executor;
+	}
+
+	private static void report(Throwable error) {
+		if (error instanceof CompletionException && error.getCause() != null) error = error.getCause();
+		if (!(error instanceof CancellationException)) error.printStackTrace();
+	}
+
+	/*******
+	 * <p> Title: Latest Class. </p>
+	 *
+	 * <p> Description: A stream of requests where only the most recent one matters.  Each
+	 * call to load cancels the request before it: if that query is still queued it never
+	 * runs, and if it has already run its result is not delivered.</p>
+	 */
+	public static class Latest {
+
+		// Incremented by every request; a request is current while its number is the latest
+		private final AtomicLong generation = new AtomicLong();
+		private CompletableFuture<?> current;
+
+		/**********
+		 * <p> Method: CompletableFuture&lt;T&gt; load(Supplier&lt;T&gt; query,
+		 * Consumer&lt;T&gt; onResult) </p>
+		 *
+		 * <p> Description: Cancels the previous request and starts this one.  onResult is
+		 * called on the JavaFX thread only if no newer request has been made by then.</p>
+		 *
+		 * @param <T> is the type of the query's result
+		 *
+		 * @param query is the database work to run
+		 *
+		 * @param onResult is given the result on the JavaFX thread
+		 *
+		 * @return a future for the query's result; it is cancelled if a newer request is made
+		 * before the query runs
+		 */
+		public synchronized <T> CompletableFuture<T> load(Supplier<T> query, Consumer<T> onResult) {
+			long request = generation.incrementAndGet();
+			if (current != null) current.cancel(false);
+
+			CompletableFuture<T> future = supply(() -> {
+				if (!isCurrent(request)) throw new CancellationException("Replaced by a newer request");
+				return query.get();
+			});
+			future.whenComplete((result, error) -> {
+				if (error != null) {
+					report(error);
+				} else {
+					resultThread.execute(() -> {
+						if (isCurrent(request)) onResult.accept(result);
+					});
+				}
+			});
+			current = future;
+			return future;
+		}
+
+		/**********
+		 * <p> Method: cancel() </p>
+		 *
+		 * <p> Description: Cancels the outstanding request, if any, so its result is never
+		 * delivered.</p>
+		 */
+		public synchronized void cancel() {
+			generation.incrementAndGet();
+			if (current != null) current.cancel(false);
+			current = null;
+		}
+
+		private boolean isCurrent(long request) {
+			return generation.get() == request;
+		}
+	}
+}
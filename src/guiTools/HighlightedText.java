@@ -0,0 +1,65 @@
+package guiTools;
+
+import java.util.List;
+
+import entityClasses.SearchHit;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextFlow;
+
+/*******
+ * <p> Title: HighlightedText Class. </p>
+ *
+ * <p> Description: Draws a line of text with the runs that matched a search in bold and in
+ * a darker colour.  The runs come precomputed with each SearchHit, so the list screens only
+ * cut the text at the given offsets.</p>
+ *
+ * <p> Copyright: CSE 360 Team © 2025 </p>
+ *
+ * @author CSE 360 Team
+ *
+ * @version 1.00		2025-11-28 Initial version
+ *
+ */
+public class HighlightedText {
+
+	private HighlightedText() {
+	}
+
+	/**********
+	 * <p> Method: TextFlow create(String text, List&lt;SearchHit.Span&gt; spans, Font font) </p>
+	 *
+	 * <p> Description: Builds the text with its highlighted runs.</p>
+	 *
+	 * @param text is the text to display
+	 *
+	 * @param spans are the runs to highlight, in order and not overlapping
+	 *
+	 * @param font is the font of the plain text; highlighted runs use its bold form
+	 *
+	 * @return a TextFlow that wraps like a Label
+	 */
+	public static TextFlow create(String text, List<SearchHit.Span> spans, Font font) {
+		TextFlow flow = new TextFlow();
+		Font bold = Font.font(font.getFamily(), FontWeight.BOLD, font.getSize());
+		int position = 0;
+		for (SearchHit.Span span : spans) {
+			if (span.getStart() < position || span.getEnd() > text.length()) continue;
+			if (span.getStart() > position) flow.getChildren().add(plain(text.substring(position, span.getStart()), font));
+			Text match = new Text(text.substring(span.getStart(), span.getEnd()));
+			match.setFont(bold);
+			match.setStyle("-fx-fill: #8a5a00;");
+			flow.getChildren().add(match);
+			position = span.getEnd();
+		}
+		if (position < text.length()) flow.getChildren().add(plain(text.substring(position), font));
+		return flow;
+	}
+
+	private static Text plain(String text, Font font) {
+		Text plain = new Text(text);
+		plain.setFont(font);
+		return plain;
+	}
+}
@@ -0,0 +1,67 @@
+package guiTools;
+
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.Control;
+import javafx.scene.control.ScrollBar;
+
+/*******
+ * <p> Title: ScrollPaging Class. </p>
+ *
+ * <p> Description: Lets a ListView or TableView fetch more rows as the user scrolls.  The
+ * views load the first page of posts straight away and register a callback here; the callback
+ * runs each time the vertical scroll bar comes near the bottom of the list, and it appends the
+ * next page.  This keeps the number of posts held by a view, and the time to open it, bounded
+ * by the page size rather than by the size of the forum.</p>
+ *
+ * <p> The scroll bar only exists once JavaFX has created the control's skin, so the listener is
+ * attached when the skin appears.</p>
+ *
+ * <p> Copyright: CSE 360 Team © 2025 </p>
+ *
+ * @author CSE 360 Team
+ *
+ * @version 1.00		2025-11-22 Initial version
+ *
+ */
+public class ScrollPaging {
+
+	// How close to the bottom, as a fraction of the scroll range, triggers the next page
+	private static final double NEAR_BOTTOM = 0.9;
+
+	private ScrollPaging() {
+	}
+
+	/**********
+	 * <p> Method: install(Control list, Runnable loadMore) </p>
+	 *
+	 * <p> Description: Calls loadMore whenever the user scrolls the list near its bottom.</p>
+	 *
+	 * @param list is the ListView or TableView to watch
+	 *
+	 * @param loadMore is run on the JavaFX thread to append the next page
+	 */
+	public static void install(Control list, Runnable loadMore) {
+		if (list.getSkin() != null) {
+			attach(list, loadMore);
+		} else {
+			list.skinProperty().addListener((obs, oldSkin, newSkin) -> {
+				if (newSkin != null) attach(list, loadMore);
+			});
+		}
+	}
+
+	private static void attach(Control list, Runnable loadMore) {
+		for (Node node : list.lookupAll(".scroll-bar")) {
+			if (node instanceof ScrollBar bar && bar.getOrientation() == Orientation.VERTICAL) {
+				bar.valueProperty().addListener((obs, oldValue, newValue) -> {
+					double range = bar.getMax() - bar.getMin();
+					if (newValue.doubleValue() >= bar.getMin() + range * NEAR_BOTTOM) {
+						loadMore.run();
+					}
+				});
+				return;
+			}
+		}
+	}
+}
@@ -85,6 +85,9 @@ public class ViewUserLogin {
 		// Establish the references to the GUI. There is no current user yet.
 		theStage = ps;
 		
+		// Every logout comes back here; store the read marks of the user who just left
+		applicationMain.FoundationsMain.database.flushReadMarks();
+		
 		// If not yet established, populate the static aspects of the GUI
 		if (theView == null) theView = new ViewUserLogin();
 		
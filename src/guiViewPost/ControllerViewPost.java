@@ -1,9 +1,8 @@
 package guiViewPost;
 
-import java.util.List;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
-import entityClasses.Reply;
+import guiTools.AsyncDatabase;
 
 /*******
  * <p> Title: ControllerViewPost Class </p>
@@ -24,6 +23,9 @@ import entityClasses.Reply;
  */
 public class ControllerViewPost {
     
+    // Replies are read off the JavaFX thread; opening another post replaces a pending load
+    private static final AsyncDatabase.Latest replyRequests = new AsyncDatabase.Latest();
+    
     /*******
      * Handles submit reply button click.
      * User Story #9: Reply to posts
@@ -42,24 +44,22 @@ public class ControllerViewPost {
         }
         
         // Create reply
-        boolean success = ModelViewPost.createReply(
-            ViewViewPost.thePost.getPostId(),
-            ViewViewPost.theCurrentUsername,
-            content
-        );
-        
-        if (success) {
-            showSuccess("Reply posted!");
-            ViewViewPost.text_NewReply.clear();
-            refreshReplies();
-            
-            // Notify parent to refresh
-            if (ViewViewPost.theOnUpdate != null) {
-                ViewViewPost.theOnUpdate.run();
+        int postId = ViewViewPost.thePost.getPostId();
+        String username = ViewViewPost.theCurrentUsername;
+        AsyncDatabase.write(() -> ModelViewPost.createReply(postId, username, content), success -> {
+            if (success) {
+                showSuccess("Reply posted!");
+                ViewViewPost.text_NewReply.clear();
+                refreshReplies();
+                
+                // Notify parent to refresh
+                if (ViewViewPost.theOnUpdate != null) {
+                    ViewViewPost.theOnUpdate.run();
+                }
+            } else {
+                showError("Error", "Failed to post reply.");
             }
-        } else {
-            showError("Error", "Failed to post reply.");
-        }
+        });
     }
     
     /*******
@@ -67,8 +67,9 @@ public class ControllerViewPost {
      * User Story #2: View post replies
      */
     protected static void refreshReplies() {
-        List<Reply> replies = ModelViewPost.getRepliesForPost(ViewViewPost.thePost.getPostId());
-        ViewViewPost.displayReplies(replies);
+        int postId = ViewViewPost.thePost.getPostId();
+        replyRequests.load(() -> ModelViewPost.getRepliesForPost(postId),
+            ViewViewPost::displayReplies);
     }
     
     /*******
@@ -83,10 +84,9 @@ public class ControllerViewPost {
      * User Story #10: Track read posts
      */
     protected static void markCurrentPostAsRead() {
-        ModelViewPost.markPostAsRead(
-            ViewViewPost.thePost.getPostId(),
-            ViewViewPost.theCurrentUsername
-        );
+        int postId = ViewViewPost.thePost.getPostId();
+        String username = ViewViewPost.theCurrentUsername;
+        AsyncDatabase.write(() -> ModelViewPost.markPostAsRead(postId, username));
     }
     
     // Helper methods for alerts
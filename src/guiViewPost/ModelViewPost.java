@@ -2,6 +2,7 @@ package guiViewPost;
 
 import java.util.List;
 import database.Database;
+import entityClasses.Post;
 import entityClasses.Reply;
 import entityClasses.ReplyList;
 
@@ -26,6 +27,17 @@ public class ModelViewPost {
     
     private static Database theDatabase = applicationMain.FoundationsMain.database;
     
+    /*******
+     * Loads a post with its full content.
+     * User Story #2: View post details
+     * 
+     * @param postId Post ID
+     * @return The post, or null if it does not exist
+     */
+    public static Post getPost(int postId) {
+        return theDatabase.getPostById(postId);
+    }
+    
     /*******
      * Gets all replies for a post, sorted chronologically.
      * User Story #2: View post details
@@ -11,6 +11,7 @@ import javafx.stage.Modality;
 import javafx.stage.Stage;
 import entityClasses.Post;
 import entityClasses.Reply;
+import guiTools.AsyncDatabase;
 import java.util.List;
 
 /*******
@@ -92,6 +93,27 @@ public class ViewViewPost {
         theDialog.showAndWait();
     }
     
+    /*******
+     * Displays the view post dialog for a post picked from a list.  Lists only hold post
+     * summaries, so the full post, content included, is loaded on a database worker thread
+     * and the dialog opens once it is in.
+     * User Story #2: View post details
+     * 
+     * @param postId ID of the post to display
+     * @param username Current user
+     * @param onUpdate Callback to refresh parent window
+     */
+    public static void displayViewPost(int postId, String username, Runnable onUpdate) {
+        AsyncDatabase.load(() -> ModelViewPost.getPost(postId), post -> {
+            if (post == null) {
+                // The post disappeared since the list was loaded; just refresh the list
+                if (onUpdate != null) onUpdate.run();
+                return;
+            }
+            displayViewPost(post, username, onUpdate);
+        });
+    }
+    
     /*******
      * Constructor - creates all GUI widgets (singleton).
      */
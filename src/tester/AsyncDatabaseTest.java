@@ -0,0 +1,133 @@
+package tester;
+
+import guiTools.AsyncDatabase;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p> Title: AsyncDatabaseTest Class </p>
+ * <p> Description: Checks that AsyncDatabase delivers results, that a Latest never
+ * delivers the result of a request that a newer one replaced, and that writes are made in
+ * order.  Results are delivered on the worker thread because the tests run without the
+ * JavaFX toolkit.</p>
+ *
+ * @author CSE 360 Team
+ * @version 1.00 2025-11-26 Initial implementation
+ * @version 1.01 2025-12-11 Check cancellation instead of sleeping; write ordering
+ */
+public class AsyncDatabaseTest {
+
+    @BeforeEach
+    public void setUp() {
+        AsyncDatabase.setResultThread(Runnable::run);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        AsyncDatabase.setResultThread(null);
+    }
+
+    @Test
+    public void testLoadDeliversResult() throws Exception {
+        CountDownLatch delivered = new CountDownLatch(1);
+        List<Integer> results = new CopyOnWriteArrayList<>();
+        AsyncDatabase.load(() -> 42, result -> {
+            results.add(result);
+            delivered.countDown();
+        });
+        assertTrue(delivered.await(5, TimeUnit.SECONDS), "The result should be delivered");
+        assertEquals(List.of(42), results);
+    }
+
+    @Test
+    public void testLatestDropsReplacedRequests() throws Exception {
+        AsyncDatabase.Latest latest = new AsyncDatabase.Latest();
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch lastDelivered = new CountDownLatch(1);
+        List<String> results = new CopyOnWriteArrayList<>();
+
+        // A slow request, as if the user picked a thread filter...
+        var first = latest.load(() -> {
+            firstStarted.countDown();
+            await(release);
+            return "General";
+        }, results::add);
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+
+        // ...then quickly picked two more before any of them finished
+        var second = latest.load(() -> {
+            await(release);
+            return "Questions";
+        }, results::add);
+        latest.load(() -> {
+            await(release);
+            return "All";
+        }, result -> {
+            results.add(result);
+            lastDelivered.countDown();
+        });
+        release.countDown();
+
+        // A cancelled future never completes again, so the replaced requests can never deliver
+        assertTrue(lastDelivered.await(5, TimeUnit.SECONDS), "The newest result should be delivered");
+        assertTrue(first.isCancelled() && second.isCancelled(), "Replaced requests should be cancelled");
+        assertEquals(List.of("All"), results, "Only the newest request's result may be delivered");
+    }
+
+    @Test
+    public void testCancelDropsPendingResult() throws Exception {
+        AsyncDatabase.Latest latest = new AsyncDatabase.Latest();
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> results = new CopyOnWriteArrayList<>();
+
+        var future = latest.load(() -> {
+            await(release);
+            return "stale";
+        }, results::add);
+        latest.cancel();
+        release.countDown();
+
+        // A cancelled future never completes again, so its result can never be delivered
+        assertTrue(future.isCancelled(), "The request should be cancelled");
+        assertTrue(results.isEmpty(), "A cancelled request must not deliver its result");
+    }
+
+    @Test
+    public void testWritesRunInOrder() throws Exception {
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch lastDone = new CountDownLatch(1);
+        List<String> made = new CopyOnWriteArrayList<>();
+
+        // The first change is slow, as if the database were busy...
+        AsyncDatabase.write(() -> {
+            firstStarted.countDown();
+            await(release);
+            made.add("read");
+        });
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+
+        // ...so the changes made after it must wait for it, not overtake it
+        AsyncDatabase.write(() -> made.add("unread"));
+        AsyncDatabase.write(() -> made.add("read again"), added -> lastDone.countDown());
+        release.countDown();
+
+        assertTrue(lastDone.await(5, TimeUnit.SECONDS), "The last write should be made");
+        assertEquals(List.of("read", "unread", "read again"), made);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
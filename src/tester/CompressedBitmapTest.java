@@ -0,0 +1,68 @@
+package tester;
+
+import database.CompressedBitmap;
+import java.util.BitSet;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p> Title: CompressedBitmapTest Class </p>
+ * <p> Description: Checks CompressedBitmap against java.util.BitSet on sparse and dense sets,
+ * so both the array and the bitmap form of a chunk, and the switch between them, are
+ * covered.</p>
+ *
+ * @author CSE 360 Team
+ * @version 1.00 2025-12-05 Initial implementation
+ */
+public class CompressedBitmapTest {
+
+    @Test
+    public void testAddContainsAndCardinality() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        BitSet expected = new BitSet();
+        Random random = new Random(360);
+        // Sparse ids across several chunks, then a dense run that turns a chunk into a bitmap
+        for (int i = 0; i < 3000; i++) add(bitmap, expected, random.nextInt(400_000));
+        for (int id = 70_000; id < 80_000; id++) add(bitmap, expected, id);
+
+        assertEquals(expected.cardinality(), bitmap.cardinality());
+        for (int id = 0; id < 400_000; id++) {
+            if (expected.get(id) != bitmap.contains(id)) fail("Wrong membership for " + id);
+        }
+        assertFalse(bitmap.add(70_500), "Adding an id twice should report no change");
+        assertArrayEquals(expected.stream().boxed().toArray(Integer[]::new), bitmap.toArray(),
+                "Ids should come out in ascending order");
+    }
+
+    @Test
+    public void testAndNotAndRoundTrip() {
+        CompressedBitmap all = new CompressedBitmap();
+        CompressedBitmap read = new CompressedBitmap();
+        BitSet expected = new BitSet();
+        for (int id = 1; id <= 150_000; id++) {
+            all.add(id);
+            expected.set(id);
+        }
+        for (int id = 1; id <= 150_000; id += 3) {
+            read.add(id);
+            expected.clear(id);
+        }
+        read.add(10);   // Array chunk against a bitmap chunk below
+
+        CompressedBitmap unread = all.andNot(read);
+        assertEquals(expected.cardinality(), unread.cardinality());
+        assertArrayEquals(expected.stream().boxed().toArray(Integer[]::new), unread.toArray());
+        assertEquals(150_000, all.cardinality(), "andNot should not change its inputs");
+
+        CompressedBitmap restored = CompressedBitmap.fromBytes(unread.toBytes());
+        assertArrayEquals(unread.toArray(), restored.toArray(), "A stored set should read back the same");
+        assertEquals(0, CompressedBitmap.fromBytes(null).cardinality());
+        assertTrue(read.toBytes().length < 150_000 / 3 * 4, "Stored form should be compact");
+    }
+
+    private static void add(CompressedBitmap bitmap, BitSet expected, int id) {
+        assertEquals(!expected.get(id), bitmap.add(id));
+        expected.set(id);
+    }
+}
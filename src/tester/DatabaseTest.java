@@ -1,5 +1,6 @@
 package tester;
 
+import database.CompressedBitmap;
 import database.Database;
 import entityClasses.*;
 import java.sql.SQLException;
@@ -186,4 +187,934 @@ public class DatabaseTest {
         db.markPostAsRead(postId, "readuser");
         assertTrue(db.isPostRead(postId, "readuser"), "Post should still be read (idempotent)");
     }
-}
\ No newline at end of file
+    
+    @Test
+    public void testConcurrentAccessThroughConnectionPool() throws Exception {
+        User user = new User("pooluser", "pass", "Pool", "", "User", 
+                           "", "pool@test.com", false, true, false);
+        db.register(user);
+        
+        int threads = 6;
+        int postsPerThread = 10;
+        java.util.concurrent.ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(threads);
+        java.util.List<java.util.concurrent.Future<Integer>> results = new java.util.ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            results.add(executor.submit(() -> {
+                int created = 0;
+                for (int i = 0; i < postsPerThread; i++) {
+                    Post post = new Post(0, "pooluser", "T" + thread + "-" + i, "Content", "General", 
+                                       java.time.LocalDateTime.now(), false);
+                    if (db.createPost(post) > 0) created++;
+                    db.getAllPosts();
+                }
+                return created;
+            }));
+        }
+        int total = 0;
+        for (java.util.concurrent.Future<Integer> result : results) {
+            total += result.get();
+        }
+        executor.shutdown();
+        
+        assertEquals(threads * postsPerThread, total, "Every concurrent insert should succeed");
+        assertEquals(threads * postsPerThread, db.getAllPosts().size(), "All posts should be stored");
+        assertEquals(0, db.getConnectionPool().getActiveCount(), "All connections should be returned");
+        assertTrue(db.getConnectionPool().getIdleCount() <= db.getConnectionPool().getMaxSize(),
+                "Pool should never grow past its maximum");
+    }
+    
+    @Test
+    public void testBrokenConnectionsFreeTheirSlotAndWakeWaiters() throws Exception {
+        database.ConnectionPool pool = new database.ConnectionPool("jdbc:h2:mem:brokenpool", "sa", "", 1, 1, 5000, 8);
+        java.util.concurrent.ExecutorService executor = java.util.concurrent.Executors.newSingleThreadExecutor();
+        try {
+            // A connection closed while idle is replaced on the next checkout
+            java.sql.Connection physical;
+            try (java.sql.Connection conn = pool.getConnection()) {
+                physical = conn.unwrap(java.sql.Connection.class);
+            }
+            physical.close();
+            try (java.sql.Connection conn = pool.getConnection()) {
+                assertFalse(conn.isClosed());
+            }
+            assertEquals(1, pool.getOpenCount(), "The broken connection's slot should be reused");
+            
+            // A waiter gets a new connection as soon as a broken one is handed back
+            java.sql.Connection held = pool.getConnection();
+            java.util.concurrent.Future<Long> waiter = executor.submit(() -> {
+                long start = System.nanoTime();
+                try (java.sql.Connection conn = pool.getConnection()) {
+                    assertFalse(conn.isClosed());
+                }
+                return (System.nanoTime() - start) / 1_000_000;
+            });
+            Thread.sleep(200);
+            held.unwrap(java.sql.Connection.class).close();
+            held.close();
+            assertTrue(waiter.get(5, java.util.concurrent.TimeUnit.SECONDS) < 4000,
+                    "The waiter should not sit out the checkout timeout");
+            assertEquals(0, pool.getTimeoutCount());
+            assertEquals(1, pool.getOpenCount());
+        } finally {
+            executor.shutdownNow();
+            pool.shutdown();
+        }
+    }
+    
+    @Test
+    public void testPreparedStatementCacheReusesHotQueries() throws SQLException {
+        User user = new User("cacheuser", "pass", "Cache", "", "User", 
+                           "", "cache@test.com", false, true, false);
+        db.register(user);
+        Post post = new Post(0, "cacheuser", "Cached", "Content", "General", 
+                           java.time.LocalDateTime.now(), false);
+        int postId = db.createPost(post);
+        
+        db.getReplyCountForPost(postId);
+        db.getRepliesForPost(postId);
+        long hitsBefore = db.getConnectionPool().getStatementCacheHits();
+        for (int i = 0; i < 20; i++) {
+            // getPostById and isPostRead are answered from memory, so these queries are repeated instead
+            assertEquals(0, db.getReplyCountForPost(postId), "Cached statement should still return the count");
+            assertTrue(db.getRepliesForPost(postId).isEmpty(), "Cached statement parameters should be fresh");
+        }
+        
+        assertTrue(db.getConnectionPool().getStatementCacheHits() - hitsBefore >= 40,
+                "Repeated queries should be answered from the statement cache");
+        assertNull(db.getPostById(postId + 1000), "Parameters must not leak between calls");
+        
+        // Giving a cached statement back closes the result its caller left open
+        try (java.sql.Connection conn = db.getConnectionPool().getConnection()) {
+            java.sql.ResultSet rs;
+            try (java.sql.PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM posts WHERE postId = ?")) {
+                pstmt.setInt(1, postId);
+                rs = pstmt.executeQuery();
+                assertTrue(rs.next());
+            }
+            assertTrue(rs.isClosed(), "Closing the statement should close its result");
+        }
+    }
+    
+    @Test
+    public void testPersistentStartKeepsDataAndSkipsAppliedMigrations() throws SQLException {
+        User user = new User("keepuser", "pass", "Keep", "", "User", 
+                           "", "keep@test.com", false, true, false);
+        db.register(user);
+        int schemaVersion = db.getSchemaVersion();
+        assertTrue(schemaVersion > 0, "Fresh start should apply every migration");
+        
+        db.closeConnection();
+        db = new Database();
+        db.connectToDatabase(true);
+        
+        assertTrue(db.doesUserExist("keepuser"), "Persistent start should keep existing data");
+        assertEquals(schemaVersion, db.getSchemaVersion(), "No migration should be re-applied");
+        db.initializeModerationTables();
+        assertEquals(schemaVersion, db.getSchemaVersion(), "Moderation setup should be a no-op");
+        
+        db.closeConnection();
+        db = new Database();
+        db.connectToDatabase();
+        assertTrue(db.isDatabaseEmpty(), "Default start should still reset the database");
+    }
+    
+    @Test
+    public void testPostListsCarryReplyCounts() throws SQLException {
+        User user = new User("countuser", "pass", "Count", "", "User", 
+                           "", "count@test.com", false, true, false);
+        db.register(user);
+        int postId = db.createPost(new Post(0, "countuser", "Counted", "Content", "General", 
+                                          java.time.LocalDateTime.now(), false));
+        int otherId = db.createPost(new Post(0, "countuser", "Quiet", "Content", "General", 
+                                           java.time.LocalDateTime.now(), false));
+        int firstReply = -1;
+        for (int i = 0; i < 3; i++) {
+            int replyId = db.createReply(new Reply(0, postId, "countuser", "Reply " + i, 
+                                                 java.time.LocalDateTime.now()));
+            if (firstReply < 0) firstReply = replyId;
+        }
+        
+        for (Post post : db.getPostsByThread("General").getAllPosts()) {
+            int expected = post.getPostId() == postId ? 3 : 0;
+            assertEquals(expected, post.getReplyCount(), "Listed posts should include their reply count");
+        }
+        
+        assertTrue(db.deleteReply(firstReply), "Reply should be deleted");
+        assertEquals(2, db.getPostById(postId).getReplyCount(), "Deleting a reply should lower the count");
+        assertEquals(0, db.getPostById(otherId).getReplyCount(), "Other posts are unaffected");
+        assertFalse(db.deleteReply(firstReply), "Deleting twice should fail");
+        assertEquals(2, db.getReplyCountForPost(postId), "Failed delete must not change the count");
+    }
+    
+    @Test
+    public void testKeysetPagesCoverEveryPostOnce() throws SQLException {
+        User user = new User("pageuser", "pass", "Page", "", "User", 
+                           "", "page@test.com", false, true, false);
+        db.register(user);
+        // Several posts share a timestamp so the postId tie-breaker is exercised
+        java.time.LocalDateTime base = java.time.LocalDateTime.of(2025, 11, 1, 12, 0);
+        for (int i = 0; i < 23; i++) {
+            String thread = i % 2 == 0 ? "General" : "Questions";
+            db.createPost(new Post(0, "pageuser", "Post " + i, "Content", thread, 
+                                 base.plusMinutes(i / 3), false));
+        }
+        
+        java.util.List<PostSummary> seen = new java.util.ArrayList<>();
+        PageCursor cursor = null;
+        int pages = 0;
+        do {
+            PostPage page = db.getAllPostsPage("", cursor, 5);
+            assertTrue(page.size() <= 5, "A page should never exceed its size");
+            seen.addAll(page.getSummaries());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+        
+        assertEquals(5, pages, "23 posts should take 5 pages of 5");
+        assertEquals(23, seen.size(), "Every post should be returned");
+        assertEquals(23, seen.stream().map(PostSummary::getPostId).distinct().count(), "No post should repeat");
+        for (int i = 1; i < seen.size(); i++) {
+            PostSummary prev = seen.get(i - 1), next = seen.get(i);
+            assertTrue(prev.getTimestamp().isAfter(next.getTimestamp()) 
+                    || (prev.getTimestamp().equals(next.getTimestamp()) && prev.getPostId() > next.getPostId()),
+                    "Pages should be ordered newest first, then by postId");
+        }
+        
+        PostPage exact = db.getPostsByThreadPage("General", "", null, 12);
+        assertEquals(12, exact.size(), "All 12 General posts fit one page");
+        assertFalse(exact.hasMore(), "A page that ends exactly at the last post has no next page");
+        
+        PostPage authored = db.getPostsByAuthorPage("pageuser", "", PageCursor.after(seen.get(19)), 10);
+        assertEquals(3, authored.size(), "Only the posts after the cursor remain");
+        assertEquals(seen.get(20).getPostId(), authored.getSummaries().get(0).getPostId());
+        
+        assertEquals(0, db.getUnreadPostsPage("pageuser", "", null, 10).size(), 
+                "A user's own posts are never unread");
+    }
+    
+    @Test
+    public void testPostSummariesUseStoredPreview() throws SQLException {
+        User user = new User("previewuser", "pass", "Preview", "", "User", 
+                           "", "preview@test.com", false, true, false);
+        db.register(user);
+        String longBody = "x".repeat(150) + " Zebra";
+        int longId = db.createPost(new Post(0, "previewuser", "Long", longBody, "General", 
+                                          java.time.LocalDateTime.now(), false));
+        db.createPost(new Post(0, "previewuser", "Short", "Brief body", "General", 
+                             java.time.LocalDateTime.now(), false));
+        
+        PostPage page = db.getAllPostsPage("", null, 10);
+        assertEquals(2, page.size());
+        for (PostSummary summary : page.getSummaries()) {
+            String expected = summary.getPostId() == longId ? "x".repeat(100) + "..." : "Brief body";
+            assertEquals(expected, summary.getPreview(), "Summaries should carry the stored preview");
+        }
+        
+        PostPage found = db.getAllPostsPage("zebra", null, 10);
+        assertEquals(1, found.size(), "Search should still look past the preview into the content");
+        assertEquals(longId, found.getSummaries().get(0).getPostId());
+        assertEquals(0, db.getAllPostsPage("zebra brief", null, 10).size(), "Every keyword must match");
+        
+        Post edited = db.getPostById(longId);
+        assertEquals(longBody, edited.getContent(), "Opening a post still loads the full content");
+        edited.setContent("Now short");
+        assertTrue(db.updatePost(edited));
+        assertEquals("Now short", db.getPostsByAuthorPage("previewuser", "now", null, 10)
+                .getSummaries().get(0).getPreview(), "Editing a post should refresh its preview");
+    }
+    
+    @Test
+    public void testTextTimestampsMigrateInPlace() throws SQLException {
+        User user = new User("timeuser", "pass", "Time", "", "User", 
+                           "", "time@test.com", false, true, false);
+        db.register(user);
+        int postId = db.createPost(new Post(0, "timeuser", "Timed", "Content", "General", 
+                                          java.time.LocalDateTime.now(), false));
+        
+        // Put the two tables back the way they were before migration 8, with times stored as text
+        try (java.sql.Connection conn = db.getConnectionPool().getConnection();
+             java.sql.Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE privateMessages ALTER COLUMN timestamp SET DATA TYPE VARCHAR(50)");
+            stmt.execute("ALTER TABLE moderationFlags ALTER COLUMN timestamp SET DATA TYPE VARCHAR(50)");
+            stmt.execute("DELETE FROM schema_migrations WHERE version = 8");
+            stmt.execute("INSERT INTO privateMessages (senderId, recipientId, content, timestamp) VALUES "
+                    + "('staff', 'timeuser', 'older', '2025-11-20T09:05'), "
+                    + "('staff', 'timeuser', 'newer', '2025-11-20T10:15:30.5')");
+            stmt.execute("INSERT INTO moderationFlags (postId, staffId, flagReason, timestamp) VALUES "
+                    + "(" + postId + ", 'staff', 'first', '2025-11-20T08:00:00'), "
+                    + "(" + postId + ", 'staff', 'second', '2025-11-21T08:00')");
+        }
+        
+        db.closeConnection();
+        db = new Database();
+        db.connectToDatabase(true);
+        
+        try (java.sql.Connection conn = db.getConnectionPool().getConnection();
+             java.sql.Statement stmt = conn.createStatement();
+             java.sql.ResultSet rs = stmt.executeQuery("SELECT DATA_TYPE FROM INFORMATION_SCHEMA.COLUMNS "
+                     + "WHERE TABLE_NAME IN ('PRIVATEMESSAGES', 'MODERATIONFLAGS') AND COLUMN_NAME = 'TIMESTAMP'")) {
+            int columns = 0;
+            while (rs.next()) {
+                assertEquals("TIMESTAMP", rs.getString(1), "Time columns should now be native TIMESTAMPs");
+                columns++;
+            }
+            assertEquals(2, columns);
+        }
+        
+        java.util.List<PrivateMessage> inbox = db.getPrivateMessagesForUser("timeuser");
+        assertEquals(2, inbox.size(), "Existing messages should survive the migration");
+        assertEquals("newer", inbox.get(0).getContent(), "Inbox should be newest first");
+        assertEquals(java.time.LocalDateTime.of(2025, 11, 20, 10, 15, 30, 500_000_000), inbox.get(0).getTimestamp());
+        assertEquals(java.time.LocalDateTime.of(2025, 11, 20, 9, 5), inbox.get(1).getTimestamp());
+        
+        java.util.List<ModerationFlag> flags = db.getModerationFlagsForPost(postId);
+        assertEquals("second", flags.get(0).getFlagReason(), "Flags should be newest first");
+        assertEquals(java.time.LocalDateTime.of(2025, 11, 21, 8, 0), flags.get(0).getTimestamp());
+        assertEquals(java.util.Collections.emptyList(), db.getMissingIndexes(), "Time indexes should exist");
+        
+        assertTrue(db.createModerationFlag(new ModerationFlag(postId, "staff", "third")), 
+                "New flags should still be stored");
+        assertEquals("third", db.getAllModerationFlags().get(0).getFlagReason());
+    }
+    
+    @Test
+    public void testSearchIndexFollowsPostsAndReplies() throws SQLException {
+        User user = new User("searchuser", "pass", "Search", "", "User", 
+                           "", "search@test.com", false, true, false);
+        db.register(user);
+        java.time.LocalDateTime now = java.time.LocalDateTime.now();
+        int recursion = db.createPost(new Post(0, "searchuser", "Recursion help", "Base case?", "General", now, false));
+        int loops = db.createPost(new Post(0, "searchuser", "Loops", "While or for?", "Questions", now, false));
+        db.createReply(new Reply(0, loops, "searchuser", "Prefer a for loop here", now));
+        
+        assertEquals(2, db.getSearchIndex().getPostCount());
+        assertEquals(java.util.List.of(recursion), postIds(db.getAllPostsPage("recur", null, 10)),
+                "A keyword should match words that start with it");
+        assertEquals(java.util.List.of(recursion), postIds(db.getAllPostsPage("CURSION", null, 10)),
+                "A keyword should match inside a word, as Post.matchesKeyword does");
+        assertEquals(java.util.List.of(recursion), postIds(db.getAllPostsPage("e case", null, 10)),
+                "Keywords too short for the index should still be matched");
+        assertTrue(db.getAllPostsPage("cursive", null, 10).getSummaries().isEmpty(),
+                "A keyword that is not in any post should not match");
+        assertEquals(java.util.List.of(loops), postIds(db.getAllPostsPage("WHILE for", null, 10)),
+                "Every keyword should be required, ignoring case");
+        assertTrue(db.getAllPostsPage("recursion loops", null, 10).getSummaries().isEmpty());
+        
+        // Editing a post replaces its words in the index
+        Post edited = db.getPostById(recursion);
+        edited.setTitle("Stack overflow");
+        assertTrue(db.updatePost(edited));
+        assertTrue(db.getAllPostsPage("recursion", null, 10).getSummaries().isEmpty(),
+                "Old words of an edited post should no longer match");
+        assertEquals(java.util.List.of(recursion), postIds(db.getAllPostsPage("overflow base", null, 10)));
+        
+        // Deleted posts are still listed, so they can still be found
+        db.deletePost(loops);
+        assertEquals(java.util.List.of(loops), postIds(db.getAllPostsPage("loops", null, 10)));
+        
+        assertEquals(1, db.searchReplies("efer oop").size(), "Reply search should match substrings too");
+        ReplyList replies = db.searchReplies("prefer LOOP");
+        assertEquals(1, replies.size(), "Replies should be searchable");
+        assertTrue(db.deleteReply(replies.getAllReplies().get(0).getReplyId()));
+        assertTrue(db.searchReplies("prefer").isEmpty(), "A deleted reply should leave the index");
+        
+        // The index is rebuilt from the tables when the database is reopened
+        db.closeConnection();
+        db = new Database();
+        db.connectToDatabase(true);
+        assertEquals(2, db.getSearchIndex().getPostCount());
+        assertEquals(java.util.List.of(recursion), postIds(db.getAllPostsPage("stack", null, 10)));
+    }
+    
+    @Test
+    public void testPostPageSearchIgnoresAccents() throws SQLException {
+        db.register(new User("accentuser", "pass", "Accent", "", "User", 
+                           "", "accent@test.com", false, true, false));
+        java.time.LocalDateTime now = java.time.LocalDateTime.now();
+        int cafe = db.createPost(new Post(0, "accentuser", "Café hours", "Résumé workshop", "General", now, false));
+        db.createPost(new Post(0, "accentuser", "Library", "Quiet rooms", "General", now, false));
+        
+        assertEquals(java.util.List.of(cafe), postIds(db.getAllPostsPage("cafe", null, 10)),
+                "A plain keyword should match an accented title");
+        assertEquals(java.util.List.of(cafe), postIds(db.getAllPostsPage("RESUMÉ", null, 10)),
+                "Keywords should match the content ignoring case and accents");
+        assertEquals(java.util.List.of(cafe), postIds(db.getPostsByAuthorPage("accentuser", "FÉ", null, 10)),
+                "Keywords too short for the index should ignore accents too");
+        
+        // Posts stored before migration 12 are keyed when it runs
+        try (java.sql.Connection conn = db.getConnectionPool().getConnection();
+             java.sql.Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE posts DROP COLUMN searchKey");
+            stmt.execute("DELETE FROM schema_migrations WHERE version = 12");
+        }
+        db.closeConnection();
+        db = new Database();
+        db.connectToDatabase(true);
+        assertEquals(java.util.List.of(cafe), postIds(db.getAllPostsPage("cafe resume", null, 10)));
+    }
+    
+    @Test
+    public void testRankedSearchOrdersByRelevance() throws SQLException {
+        User user = new User("rankuser", "pass", "Rank", "", "User", 
+                           "", "rank@test.com", false, true, false);
+        db.register(user);
+        java.time.LocalDateTime now = java.time.LocalDateTime.now();
+        int inContent = db.createPost(new Post(0, "rankuser", "Homework 3", 
+                "I wrote a recursive function for this", "General", now.minusMinutes(1), false));
+        int inTitle = db.createPost(new Post(0, "rankuser", "Recursion question", 
+                "Why does it never stop?", "General", now.minusMinutes(5), false));
+        int inReply = db.createPost(new Post(0, "rankuser", "Stack traces", 
+                "What does this error mean?", "Questions", now, false));
+        db.createReply(new Reply(0, inReply, "rankuser", "Your recursion has no base case", now));
+        for (int i = 0; i < 10; i++) {
+            db.createPost(new Post(0, "rankuser", "Filler " + i, "Nothing to see", "General", now, false));
+        }
+        
+        java.util.List<SearchHit> hits = db.getAllPostsRanked("recur", 10);
+        java.util.List<Integer> order = new java.util.ArrayList<>();
+        for (SearchHit hit : hits) order.add(hit.getSummary().getPostId());
+        assertEquals(java.util.List.of(inTitle, inContent, inReply), order,
+                "Title hits should outrank content hits, which outrank reply hits");
+        assertTrue(hits.get(0).getScore() > hits.get(1).getScore());
+        
+        assertEquals(java.util.List.of(new SearchHit.Span(0, 5)), hits.get(0).getTitleHighlights(),
+                "The matching start of \"Recursion\" should be highlighted");
+        assertEquals(java.util.List.of(new SearchHit.Span(10, 15)), hits.get(1).getPreviewHighlights());
+        
+        assertEquals(1, db.getAllPostsRanked("recur", 1).size(), "Only the top results are returned");
+        assertEquals(inTitle, db.getAllPostsRanked("recur", 1).get(0).getSummary().getPostId());
+        assertEquals(java.util.List.of(inReply), 
+                java.util.List.of(db.getPostsByThreadRanked("Questions", "recursion", 10).get(0).getSummary().getPostId()),
+                "The thread filter should still apply");
+        assertTrue(db.getAllPostsRanked("nomatch", 10).isEmpty());
+        
+        // A deleted top match gives its place to the next active one instead of being dropped later
+        assertTrue(db.deletePost(inTitle));
+        assertEquals(inContent, db.getAllPostsRanked("recur", 1, true).get(0).getSummary().getPostId());
+        assertEquals(inReply, db.getPostsByThreadRanked("Questions", "recursion", 1, true).get(0).getSummary().getPostId());
+        assertEquals(2, db.getPostsByAuthorRanked("rankuser", "recur", 10, true).size());
+    }
+    
+    @Test
+    public void testPageCacheDropsOnlyChangedPages() throws SQLException {
+        User user = new User("cacheuser", "pass", "Cache", "", "User", 
+                           "", "cache@test.com", false, true, false);
+        db.register(user);
+        db.register(new User("other", "pass", "Other", "", "User", 
+                           "", "other@test.com", false, true, false));
+        java.time.LocalDateTime now = java.time.LocalDateTime.now();
+        int general = db.createPost(new Post(0, "cacheuser", "General post", "Text", "General", now, false));
+        int question = db.createPost(new Post(0, "other", "Question post", "Text", "Questions", now, false));
+        database.PageCache cache = db.getPageCache();
+        
+        db.getPostsByThreadPage("General", "", null, 10);
+        db.getPostsByThreadPage("Questions", "", null, 10);
+        db.getUnreadPostsPage("cacheuser", "", null, 10);
+        long misses = cache.getMisses();
+        assertSame(db.getPostsByThreadPage("General", "", null, 10), db.getPostsByThreadPage("General", "", null, 10),
+                "An unchanged page should come from the cache");
+        assertEquals(misses, cache.getMisses());
+        assertEquals(2, cache.getHits());
+        
+        // A reply changes the reply count shown on the Questions page only
+        PostPage generalPage = db.getPostsByThreadPage("General", "", null, 10);
+        db.createReply(new Reply(0, question, "cacheuser", "An answer", now));
+        assertSame(generalPage, db.getPostsByThreadPage("General", "", null, 10));
+        assertEquals(1, db.getPostsByThreadPage("Questions", "", null, 10).getSummaries().get(0).getReplyCount());
+        
+        // Reading a post removes it from that reader's unread list
+        assertEquals(java.util.List.of(question), postIds(db.getUnreadPostsPage("cacheuser", "", null, 10)));
+        db.markPostAsRead(question, "cacheuser");
+        assertTrue(db.getUnreadPostsPage("cacheuser", "", null, 10).getSummaries().isEmpty());
+        
+        // A new post shows up in its thread
+        int newer = db.createPost(new Post(0, "other", "Newer", "Text", "General", now.plusMinutes(1), false));
+        assertEquals(java.util.List.of(newer, general), postIds(db.getPostsByThreadPage("General", "", null, 10)));
+        assertEquals(java.util.List.of(newer), postIds(db.getUnreadPostsPage("cacheuser", "", null, 10)));
+        
+        // Deleting and editing are seen too
+        db.deletePost(general);
+        assertTrue(db.getPostsByThreadPage("General", "", null, 10).getSummaries().get(1).isDeleted());
+        assertTrue(db.getAllPostsPage("renamed", null, 10).getSummaries().isEmpty());
+        Post edited = db.getPostById(question);
+        edited.setTitle("Renamed");
+        assertTrue(db.updatePost(edited));
+        assertEquals(java.util.List.of(question), postIds(db.getAllPostsPage("renamed", null, 10)));
+        
+        // The least recently used pages make room for new ones
+        for (int size = 1; size <= 200; size++) db.getAllPostsPage("", null, size);
+        assertEquals(cache.getCapacity(), cache.size());
+        assertTrue(cache.getEvictions() > 0);
+    }
+    
+    @Test
+    public void testPostCacheKeepsPopularPostsAndFollowsWrites() throws SQLException {
+        User user = new User("postcache", "pass", "Post", "", "Cache", 
+                           "", "postcache@test.com", false, true, false);
+        db.register(user);
+        java.time.LocalDateTime now = java.time.LocalDateTime.now();
+        String longBody = "Long body ".repeat(200);
+        int popular = db.createPost(new Post(0, "postcache", "Popular", longBody, "General", now, false));
+        database.PostCache cache = db.getPostCache();
+        
+        Post first = db.getPostById(popular);
+        first.setTitle("Changed by the caller");
+        Post second = db.getPostById(popular);
+        assertEquals(1, cache.getHits());
+        assertNotSame(first, second, "Every call should get its own Post");
+        assertEquals("Popular", second.getTitle(), "Changing a returned Post must not change the cache");
+        assertEquals(longBody, second.getContent());
+        
+        // Writes are seen by the next read
+        db.createReply(new Reply(0, popular, "postcache", "A reply", now));
+        assertEquals(1, db.getPostById(popular).getReplyCount());
+        second.setContent("Edited body");
+        assertTrue(db.updatePost(second));
+        assertEquals("Edited body", db.getPostById(popular).getContent());
+        db.deletePost(popular);
+        assertTrue(db.getPostById(popular).isDeleted());
+        
+        // Posts read once cannot push out a post that is read all the time
+        for (int i = 0; i < 5; i++) db.getPostById(popular);
+        for (int i = 0; i < cache.getCapacity() + 50; i++) {
+            int once = db.createPost(new Post(0, "postcache", "Once " + i, "Text", "General", now, false));
+            db.getPostById(once);
+        }
+        assertEquals(cache.getCapacity(), cache.size());
+        assertTrue(cache.getRejections() > 0, "Posts read once should not always be admitted");
+        long hits = cache.getHits();
+        db.getPostById(popular);
+        assertEquals(hits + 1, cache.getHits(), "The popular post should still be cached");
+        assertNull(db.getPostById(-5));
+    }
+    
+    @Test
+    public void testReadStatusMigratesToBitmapsAndFindsUnread() throws SQLException {
+        db.register(new User("bitreader", "pass", "Bit", "", "Reader", 
+                           "", "bitreader@test.com", false, true, false));
+        db.register(new User("bitauthor", "pass", "Bit", "", "Author", 
+                           "", "bitauthor@test.com", false, true, false));
+        java.time.LocalDateTime now = java.time.LocalDateTime.now();
+        int[] ids = new int[6];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = db.createPost(new Post(0, "bitauthor", "Post " + i, "Text", "General", now.plusMinutes(i), false));
+        }
+        db.createPost(new Post(0, "bitreader", "Own post", "Text", "General", now, false));
+        
+        // Put the read state back the way it was before migration 9, one row per read post
+        try (java.sql.Connection conn = db.getConnectionPool().getConnection();
+             java.sql.Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE postReadSets");
+            stmt.execute("DELETE FROM schema_migrations WHERE version = 9");
+            stmt.execute("CREATE TABLE postReadStatus (id INT AUTO_INCREMENT PRIMARY KEY, postId INT, "
+                    + "userName VARCHAR(255), isRead BOOL DEFAULT FALSE, UNIQUE(postId, userName))");
+            stmt.execute("INSERT INTO postReadStatus (postId, userName, isRead) VALUES "
+                    + "(" + ids[0] + ", 'bitreader', TRUE), (" + ids[1] + ", 'bitreader', TRUE), "
+                    + "(" + ids[2] + ", 'bitreader', FALSE)");
+        }
+        db.closeConnection();
+        db = new Database();
+        db.connectToDatabase(true);
+        
+        assertTrue(db.isPostRead(ids[0], "bitreader"), "Read rows should become bitmap entries");
+        assertTrue(db.isPostRead(ids[1], "bitreader"));
+        assertFalse(db.isPostRead(ids[2], "bitreader"), "Rows marked unread should not");
+        assertEquals(java.util.List.of(ids[5], ids[4], ids[3], ids[2]),
+                postIds(db.getUnreadPostsPage("bitreader", "", null, 10)),
+                "Unread posts exclude read posts and the reader's own");
+        
+        // Once most posts are read, the unread set is the one bound to the query
+        db.markPostAsRead(ids[2], "bitreader");
+        db.markPostAsRead(ids[3], "bitreader");
+        db.markPostAsRead(ids[3], "bitreader");
+        db.markPostAsRead(-1, "bitreader");
+        assertEquals(java.util.List.of(ids[5], ids[4]), postIds(db.getUnreadPostsPage("bitreader", "", null, 10)));
+        assertEquals(2, db.getUnreadPosts("bitreader").size());
+        assertEquals(1, db.getUnreadPostsRanked("bitreader", "post", 10).stream()
+                .filter(hit -> hit.getSummary().getPostId() == ids[4]).count());
+        assertEquals(1, db.getUnreadPosts("bitauthor").size(),
+                "Another reader has read nothing, and only the post they did not write is unread");
+        
+        // The bitmaps are stored, and the old table is gone
+        db.closeConnection();
+        db = new Database();
+        db.connectToDatabase(true);
+        assertTrue(db.isPostRead(ids[3], "bitreader"));
+        assertEquals(java.util.List.of(ids[5], ids[4]), postIds(db.getUnreadPostsPage("bitreader", "", null, 10)));
+        try (java.sql.Connection conn = db.getConnectionPool().getConnection();
+             java.sql.ResultSet rs = conn.getMetaData().getTables(null, null, "POSTREADSTATUS", null)) {
+            assertFalse(rs.next(), "postReadStatus should be dropped");
+        }
+        
+        // A run that dropped the old table but was not recorded is simply run again
+        try (java.sql.Connection conn = db.getConnectionPool().getConnection();
+             java.sql.Statement stmt = conn.createStatement()) {
+            stmt.execute("DELETE FROM schema_migrations WHERE version = 9");
+        }
+        db.closeConnection();
+        db = new Database();
+        db.connectToDatabase(true);
+        assertEquals(java.util.List.of(ids[5], ids[4]), postIds(db.getUnreadPostsPage("bitreader", "", null, 10)),
+                "Re-running the migration should keep the stored bitmaps");
+    }
+    
+    @Test
+    public void testReadMarksAreStoredInBatches() throws SQLException {
+        db.register(new User("batchreader", "pass", "Batch", "", "Reader", 
+                           "", "batchreader@test.com", false, true, false));
+        db.register(new User("batchauthor", "pass", "Batch", "", "Author", 
+                           "", "batchauthor@test.com", false, true, false));
+        java.time.LocalDateTime now = java.time.LocalDateTime.now();
+        int first = db.createPost(new Post(0, "batchauthor", "First", "Text", "General", now, false));
+        int second = db.createPost(new Post(0, "batchauthor", "Second", "Text", "General", now, false));
+        
+        // Marks are seen at once, and repeated marks are kept once
+        db.markPostAsRead(first, "batchreader");
+        db.markPostAsRead(first, "batchreader");
+        db.markPostAsRead(second, "batchreader");
+        db.markPostAsRead(first, "ghost");
+        assertTrue(db.isPostRead(first, "batchreader"));
+        assertTrue(db.isPostRead(second, "batchreader"));
+        assertEquals(0, db.getUnreadPosts("batchreader").size());
+        
+        // A reader that cannot be stored does not keep the others from being stored
+        db.flushReadMarks();
+        assertEquals(0, db.getReadState().getUnstoredCount());
+        assertFalse(db.isPostRead(first, "ghost"), "A set that could not be stored is dropped");
+        try (java.sql.Connection conn = db.getConnectionPool().getConnection();
+             java.sql.PreparedStatement pstmt = conn.prepareStatement(
+                     "SELECT readPosts FROM postReadSets WHERE userName = ?")) {
+            pstmt.setString(1, "batchreader");
+            try (java.sql.ResultSet rs = pstmt.executeQuery()) {
+                assertTrue(rs.next(), "The reader's set should be stored");
+                CompressedBitmap stored = CompressedBitmap.fromBytes(rs.getBytes(1));
+                assertEquals(2, stored.cardinality());
+                assertTrue(stored.contains(first) && stored.contains(second));
+            }
+            pstmt.setString(1, "ghost");
+            try (java.sql.ResultSet rs = pstmt.executeQuery()) {
+                assertFalse(rs.next());
+            }
+        }
+        
+        // Marks still waiting when the database closes are stored on the way out
+        int third = db.createPost(new Post(0, "batchauthor", "Third", "Text", "General", now, false));
+        db.markPostAsRead(third, "batchreader");
+        db.closeConnection();
+        db = new Database();
+        db.connectToDatabase(true);
+        assertTrue(db.isPostRead(third, "batchreader"));
+        
+        // Reconnecting stores the waiting marks first, and later marks go through the new pool
+        int fourth = db.createPost(new Post(0, "batchauthor", "Fourth", "Text", "General", now, false));
+        int fifth = db.createPost(new Post(0, "batchauthor", "Fifth", "Text", "General", now, false));
+        db.markPostAsRead(fourth, "batchreader");
+        db.connectToDatabase(true);
+        assertTrue(db.isPostRead(fourth, "batchreader"), "Waiting marks should survive a reconnect");
+        db.markPostAsRead(fifth, "batchreader");
+        db.closeConnection();
+        db = new Database();
+        db.connectToDatabase(true);
+        assertTrue(db.isPostRead(fifth, "batchreader"));
+    }
+    
+    @Test
+    public void testConversationsLoadInOneQuery() {
+        PrivateMessage first = new PrivateMessage("staff", "student", 7, "Please fix the title", null);
+        assertTrue(db.createPrivateMessage(first));
+        assertEquals(first.getMessageId(), first.getConversationId(), "A new message starts a conversation");
+        
+        // Each reply answers the one before, three levels deep
+        PrivateMessage answer = new PrivateMessage("student", "staff", 7, "Done", first.getMessageId());
+        assertTrue(db.createPrivateMessage(answer));
+        PrivateMessage thanks = new PrivateMessage("staff", "student", 7, "Thanks", answer.getMessageId());
+        assertTrue(db.createPrivateMessage(thanks));
+        PrivateMessage last = new PrivateMessage("student", "staff", 7, "x".repeat(300), thanks.getMessageId());
+        assertTrue(db.createPrivateMessage(last));
+        assertEquals(first.getMessageId(), last.getConversationId(), "Replies join their parent's conversation");
+        
+        PrivateMessage other = new PrivateMessage("staff", "student", null, "Unrelated", null);
+        assertTrue(db.createPrivateMessage(other));
+        
+        java.util.List<PrivateMessage> conversation = db.getConversation(first.getMessageId());
+        assertEquals(java.util.List.of(first.getMessageId(), answer.getMessageId(), thanks.getMessageId(),
+                last.getMessageId()), conversation.stream().map(PrivateMessage::getMessageId).toList(),
+                "The whole conversation should come back oldest first");
+        
+    }
+    
+    @Test
+    public void testConversationRootsMigrateFromParentLinks() throws SQLException {
+        // Put privateMessages back the way it was before migration 10, with parent links only
+        try (java.sql.Connection conn = db.getConnectionPool().getConnection();
+             java.sql.Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP INDEX idx_pm_root_time");
+            stmt.execute("ALTER TABLE privateMessages DROP COLUMN rootMessageId");
+            stmt.execute("ALTER TABLE privateMessages DROP COLUMN preview");
+            stmt.execute("DELETE FROM schema_migrations WHERE version = 10");
+            stmt.execute("INSERT INTO privateMessages (messageId, senderId, recipientId, content, parentMessageId, timestamp) VALUES "
+                    + "(1, 'staff', 'student', 'root', NULL, TIMESTAMP '2025-11-20 09:00:00'), "
+                    + "(2, 'student', 'staff', 'reply', 1, TIMESTAMP '2025-11-20 09:05:00'), "
+                    + "(3, 'staff', 'student', 'deeper', 2, TIMESTAMP '2025-11-20 09:10:00'), "
+                    + "(4, 'staff', 'student', 'orphan', 99, TIMESTAMP '2025-11-20 09:15:00')");
+            stmt.execute("ALTER TABLE privateMessages ALTER COLUMN messageId RESTART WITH 5");
+        }
+        db.closeConnection();
+        db = new Database();
+        db.connectToDatabase(true);
+        
+        assertEquals(java.util.List.of(1, 2, 3),
+                db.getConversation(1).stream().map(PrivateMessage::getMessageId).toList(),
+                "Every level under the root should join its conversation");
+        assertEquals(java.util.List.of(4), db.getConversation(4).stream().map(PrivateMessage::getMessageId).toList(),
+                "A reply whose parent is gone starts its own conversation");
+        
+        // A new reply to a migrated message joins the migrated conversation
+        PrivateMessage reply = new PrivateMessage("student", "staff", null, "Late reply", 3);
+        assertTrue(db.createPrivateMessage(reply));
+        assertEquals(1, reply.getConversationId());
+    }
+    
+    @Test
+    public void testInboxPagesFilterInTheQuery() {
+        java.time.LocalDateTime base = java.time.LocalDateTime.of(2025, 11, 20, 9, 0);
+        java.util.List<Integer> ids = new java.util.ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            PrivateMessage message = new PrivateMessage("staff", "pager", null, "Message " + i, null);
+            message.setTimestamp(base.plusMinutes(i / 2));  // Pairs share a time; messageId breaks the tie
+            assertTrue(db.createPrivateMessage(message));
+            ids.add(0, message.getMessageId());
+            if (i % 3 == 0) db.markPrivateMessageAsRead(message.getMessageId());
+        }
+        assertTrue(db.createPrivateMessage(new PrivateMessage("staff", "someone", null, "Not for pager", null)));
+        
+        // Every message once, newest first, across pages, each page knowing the unread count
+        java.util.List<Integer> seen = new java.util.ArrayList<>();
+        MessagePage page = db.getPrivateMessagesPage("pager", MessagePage.Filter.ALL, null, 3);
+        while (true) {
+            assertEquals(4, page.getUnreadCount());
+            page.getMessages().forEach(message -> seen.add(message.getMessageId()));
+            if (!page.hasMore()) break;
+            page = db.getPrivateMessagesPage("pager", MessagePage.Filter.ALL, page.getNextCursor(), 3);
+        }
+        assertEquals(ids, seen);
+        
+        MessagePage unread = db.getPrivateMessagesPage("pager", MessagePage.Filter.UNREAD, null, 10);
+        assertEquals(4, unread.size());
+        assertFalse(unread.hasMore());
+        assertTrue(unread.getMessages().stream().noneMatch(PrivateMessage::isRead));
+        MessagePage read = db.getPrivateMessagesPage("pager", MessagePage.Filter.of("Read Only"), null, 10);
+        assertEquals(java.util.List.of(ids.get(0), ids.get(3), ids.get(6)),
+                read.getMessages().stream().map(PrivateMessage::getMessageId).toList());
+        
+        // An empty page still carries the count
+        for (PrivateMessage message : unread.getMessages()) db.markPrivateMessageAsRead(message.getMessageId());
+        MessagePage none = db.getPrivateMessagesPage("pager", MessagePage.Filter.UNREAD, null, 10);
+        assertEquals(0, none.size());
+        assertEquals(0, none.getUnreadCount());
+        assertEquals(1, db.getPrivateMessagesPage("someone", MessagePage.Filter.UNREAD, null, 10).getUnreadCount());
+    }
+    
+    @Test
+    public void testUnreadCounterFollowsWritesAndNotifies() throws SQLException {
+        java.util.List<Integer> pushed = new java.util.concurrent.CopyOnWriteArrayList<>();
+        database.UnreadCounter.Subscription subscription =
+                db.subscribeUnreadMessageCount("counted", pushed::add);
+        assertEquals(java.util.List.of(0), pushed, "A subscriber is given the count straight away");
+        
+        PrivateMessage first = new PrivateMessage("staff", "counted", null, "One", null);
+        PrivateMessage second = new PrivateMessage("staff", "counted", null, "Two", null);
+        assertTrue(db.createPrivateMessage(first));
+        assertTrue(db.createPrivateMessage(second));
+        assertTrue(db.createPrivateMessage(new PrivateMessage("counted", "staff", null, "Reply", first.getMessageId())));
+        assertTrue(db.markPrivateMessageAsRead(first.getMessageId()));
+        assertTrue(db.markPrivateMessageAsRead(first.getMessageId()), "Reading a read message still succeeds");
+        assertTrue(db.markPrivateMessageAsUnread(second.getMessageId()));
+        assertFalse(db.markPrivateMessageAsRead(-1));
+        assertEquals(java.util.List.of(0, 1, 2, 1), pushed, "Only real changes are pushed");
+        assertEquals(1, db.getUnreadMessageCount("counted"));
+        assertEquals(1, db.getUnreadMessageCount("staff"));
+        
+        subscription.close();
+        assertTrue(db.markPrivateMessageAsUnread(first.getMessageId()));
+        assertEquals(4, pushed.size(), "A closed subscription hears nothing");
+        assertEquals(2, db.getUnreadMessageCount("counted"));
+        
+        // The counts are read back from the messages when the database is opened again
+        db.closeConnection();
+        db = new Database();
+        db.connectToDatabase(true);
+        assertEquals(2, db.getUnreadMessageCount("counted"));
+        assertEquals(1, db.getUnreadMessageCount("staff"));
+        assertEquals(0, db.getUnreadCounter().getSubscribedUserCount());
+    }
+    
+    @Test
+    public void testInboxListsCarryPreviewsNotBodies() {
+        String body = "Please look again at the base case of your recursion. ".repeat(4).trim();
+        assertTrue(db.createPrivateMessage(new PrivateMessage("staff", "student1", null, body, null)));
+        int broadcastId = db.createBroadcast("staff", java.util.List.of("student1"), null, "Short notice");
+        
+        java.util.List<PrivateMessage> listed =
+                db.getPrivateMessagesPage("student1", MessagePage.Filter.ALL, null, 10).getMessages();
+        assertEquals(2, listed.size());
+        for (PrivateMessage message : listed) {
+            assertNull(message.getContent(), "The inbox list should not read message bodies");
+        }
+        PrivateMessage direct = listed.get(0).isBroadcast() ? listed.get(1) : listed.get(0);
+        assertEquals(PostSummary.previewOf(body), direct.getPreview());
+        assertTrue(direct.getPreview().length() < body.length(), "A long body is cut in the preview");
+        
+        PrivateMessage found = db.searchPrivateMessages("student1", "recursion", 0, 10).getMessages().get(0);
+        assertNull(found.getContent());
+        assertEquals(direct.getPreview(), found.getPreview());
+        
+        // The body is read when a message is opened
+        assertEquals(body, db.getPrivateMessageContent(direct.getMessageId(), false));
+        assertEquals("Short notice", db.getPrivateMessageContent(broadcastId, true));
+        assertNull(db.getPrivateMessageContent(99999, false));
+        assertEquals(body, db.getPrivateMessagesForUser("student1").stream()
+                .filter(message -> !message.isBroadcast()).findFirst().get().getContent(),
+                "Whole-message reads still carry the body");
+    }
+    
+    @Test
+    public void testBroadcastsAreStoredOnceAndMergedIntoInboxes() throws SQLException {
+        java.util.List<String> students = new java.util.ArrayList<>();
+        for (int i = 0; i < 40; i++) students.add("student" + i);
+        students.add("student0");
+        assertTrue(db.createPrivateMessage(new PrivateMessage("staff", "student1", null, "Direct", null)));
+        int broadcastId = db.createBroadcast("staff", students, null, "Exam moved to Friday");
+        assertTrue(broadcastId > 0);
+        assertEquals(-1, db.createBroadcast("staff", java.util.List.of(), null, "Nobody"));
+        
+        try (java.sql.Connection conn = db.getConnectionPool().getConnection();
+             java.sql.Statement stmt = conn.createStatement();
+             java.sql.ResultSet rs = stmt.executeQuery("SELECT (SELECT COUNT(*) FROM broadcasts), "
+                     + "(SELECT COUNT(*) FROM broadcastRecipients), (SELECT COUNT(*) FROM privateMessages)")) {
+            assertTrue(rs.next());
+            assertEquals(1, rs.getInt(1), "The body is stored once");
+            assertEquals(40, rs.getInt(2), "One read flag per distinct recipient");
+            assertEquals(1, rs.getInt(3), "No private message copies are made");
+        }
+        
+        // The broadcast is merged into the inbox, newest first, and into the counts
+        java.util.List<PrivateMessage> inbox = db.getPrivateMessagesForUser("student1");
+        assertEquals(2, inbox.size());
+        assertTrue(inbox.get(0).isBroadcast());
+        assertEquals(broadcastId, inbox.get(0).getMessageId());
+        assertEquals("Exam moved to Friday", inbox.get(0).getContent());
+        assertEquals("student1", inbox.get(0).getRecipientId());
+        assertEquals(2, db.getUnreadMessageCount("student1"));
+        assertEquals(1, db.getUnreadMessageCount("student0"));
+        
+        // Marking is per recipient
+        assertTrue(db.markBroadcastAsRead(broadcastId, "student1"));
+        assertFalse(db.markBroadcastAsRead(broadcastId, "stranger"));
+        assertEquals(1, db.getUnreadMessageCount("student1"));
+        assertEquals(1, db.getUnreadMessageCount("student2"));
+        MessagePage unread = db.getPrivateMessagesPage("student1", MessagePage.Filter.UNREAD, null, 10);
+        assertEquals(1, unread.size());
+        assertFalse(unread.getMessages().get(0).isBroadcast());
+        assertEquals(1, unread.getUnreadCount());
+        
+        // Paging one message at a time walks both kinds once each
+        java.util.List<Boolean> kinds = new java.util.ArrayList<>();
+        MessagePage page = db.getPrivateMessagesPage("student1", MessagePage.Filter.ALL, null, 1);
+        while (true) {
+            page.getMessages().forEach(message -> kinds.add(message.isBroadcast()));
+            if (!page.hasMore()) break;
+            page = db.getPrivateMessagesPage("student1", MessagePage.Filter.ALL, page.getNextCursor(), 1);
+        }
+        assertEquals(java.util.List.of(true, false), kinds);
+        
+        // The seeded counts include broadcasts
+        db.closeConnection();
+        db = new Database();
+        db.connectToDatabase(true);
+        assertEquals(1, db.getUnreadMessageCount("student1"));
+        assertEquals(1, db.getUnreadMessageCount("student39"));
+    }
+    
+    @Test
+    public void testMessageSearchIsIndexedRankedAndPaged() throws SQLException {
+        java.time.LocalDateTime now = java.time.LocalDateTime.now();
+        PrivateMessage old = message("staff", "alice", "Your recursion homework needs a base case", now.minusDays(90));
+        PrivateMessage fresh = message("staff", "alice", "Recursion looks fine now", now);
+        PrivateMessage sent = message("alice", "staff", "Question about recursion and the base case", now.minusDays(1));
+        message("staff", "bob", "Recursion notes for bob", now);
+        PrivateMessage oldGrades = message("staff", "alice", "Grades posted", now.minusDays(60));
+        PrivateMessage newGrades = message("staff", "alice", "Grades posted", now.minusHours(1));
+        
+        // Received and sent messages are searched, other users' are not, and keywords are prefixes
+        MessageSearchPage all = db.searchPrivateMessages("alice", "recur", 0, 10);
+        assertEquals(3, all.getTotalMatches());
+        assertEquals(java.util.Set.of(old.getMessageId(), fresh.getMessageId(), sent.getMessageId()),
+                all.getMessages().stream().map(PrivateMessage::getMessageId).collect(java.util.stream.Collectors.toSet()));
+        assertFalse(all.hasMore());
+        
+        // Every keyword must match; the newer, shorter match ranks first
+        MessageSearchPage both = db.searchPrivateMessages("alice", "base recursion", 0, 10);
+        assertEquals(java.util.List.of(sent.getMessageId(), old.getMessageId()),
+                both.getMessages().stream().map(PrivateMessage::getMessageId).toList());
+        
+        // Equal matches are ordered by recency
+        assertEquals(java.util.List.of(newGrades.getMessageId(), oldGrades.getMessageId()),
+                db.searchPrivateMessages("alice", "GRADES", 0, 10).getMessages().stream()
+                        .map(PrivateMessage::getMessageId).toList());
+        
+        // Pages cover the ranking once
+        MessageSearchPage first = db.searchPrivateMessages("alice", "recur", 0, 2);
+        assertEquals(2, first.size());
+        assertEquals(2, first.getNextOffset());
+        MessageSearchPage second = db.searchPrivateMessages("alice", "recur", first.getNextOffset(), 2);
+        assertEquals(1, second.size());
+        assertFalse(second.hasMore());
+        java.util.List<PrivateMessage> paged = new java.util.ArrayList<>(first.getMessages());
+        paged.addAll(second.getMessages());
+        assertEquals(all.getMessages().stream().map(PrivateMessage::getMessageId).toList(),
+                paged.stream().map(PrivateMessage::getMessageId).toList());
+        
+        assertEquals(0, db.searchPrivateMessages("alice", "  ", 0, 10).size());
+        assertEquals(0, db.searchPrivateMessages("alice", "lunch", 0, 10).getTotalMatches());
+        assertEquals(0, db.searchPrivateMessages("nobody", "recursion", 0, 10).getTotalMatches());
+        
+        // A broadcast is found by its recipients only, ranked among their messages
+        int broadcastId = db.createBroadcast("staff", java.util.List.of("alice", "carol"), null,
+                "Recursion review session");
+        MessageSearchPage withBroadcast = db.searchPrivateMessages("alice", "recur", 0, 10);
+        assertEquals(4, withBroadcast.getTotalMatches());
+        PrivateMessage announced = withBroadcast.getMessages().stream()
+                .filter(PrivateMessage::isBroadcast).findFirst().get();
+        assertEquals(broadcastId, announced.getMessageId());
+        assertEquals("alice", announced.getRecipientId());
+        assertEquals("Recursion review session", announced.getPreview());
+        assertEquals(broadcastId, db.searchPrivateMessages("carol", "review", 0, 10).getMessages().get(0).getMessageId());
+        assertEquals(1, db.searchPrivateMessages("bob", "recursion", 0, 10).getTotalMatches());
+        assertEquals(0, db.searchPrivateMessages("alice", "review base", 0, 10).getTotalMatches());
+        
+        // The index is rebuilt from the tables when the database is opened again
+        db.closeConnection();
+        db = new Database();
+        db.connectToDatabase(true);
+        assertEquals(6, db.getMessageSearchIndex().getMessageCount());
+        assertEquals(2, db.searchPrivateMessages("alice", "base recursion", 0, 10).getTotalMatches());
+        assertEquals(1, db.searchPrivateMessages("bob", "recursion", 0, 10).getTotalMatches());
+        assertEquals(4, db.searchPrivateMessages("alice", "recur", 0, 10).getTotalMatches());
+        assertEquals(1, db.searchPrivateMessages("carol", "session", 0, 10).getTotalMatches());
+    }
+    
+    private PrivateMessage message(String sender, String recipient, String content, java.time.LocalDateTime sent) {
+        PrivateMessage message = new PrivateMessage(sender, recipient, null, content, null);
+        message.setTimestamp(sent);
+        assertTrue(db.createPrivateMessage(message));
+        return message;
+    }
+    
+    private static java.util.List<Integer> postIds(PostPage page) {
+        java.util.List<Integer> ids = new java.util.ArrayList<>();
+        for (PostSummary summary : page.getSummaries()) ids.add(summary.getPostId());
+        return ids;
+    }
+}
@@ -271,4 +271,34 @@ public class GradeTesting {
         );
     }
 
-}
\ No newline at end of file
+    /**
+     * Tests that changing the grading parameters regrades the whole class in one pass, and that
+     * the per-user counters are rebuilt from the stored posts and replies on a persistent restart.
+     */
+    @Test
+    public void testClassRegradeAndCountersAfterRestart() throws SQLException {
+        Post testPost = new Post("student_smith", "Test Post", "Test content", "General");
+        int postId = db.createPost(testPost);
+        db.createReply(new Reply(postId, "staff_jones", "Staff reply"));
+
+        assertEquals(60, (int) db.getGradeEngine().getClassGrades().get("student_smith"), 
+            "Class grades before the change use the default parameters.");
+        int replyId = db.createReply(new Reply(postId, "student_smith", "Student reply"));
+        assertEquals(100, (int) db.getGradeEngine().getClassGrades().get("student_smith"), 
+            "Class grades should follow new replies without a parameter change.");
+        assertTrue(db.deleteReply(replyId));
+        assertTrue("Parameters should save", db.saveModerationConfig(new ModerationConfig(2, 1, 70.0, 85.0, 1, true)));
+        assertEquals(30, (int) db.getGradeEngine().getClassGrades().get("student_smith"), 
+            "Saving parameters should regrade the student.");
+        assertEquals(40, (int) db.getGradeEngine().getClassGrades().get("staff_jones"), 
+            "Saving parameters should regrade every user in the same pass.");
+
+        db.closeConnection();
+        db = new Database();
+        db.connectToDatabase(true);
+        assertEquals(30, db.getOverallGrade("student_smith"), 
+            "Counters and parameters should be reloaded on a persistent start.");
+        assertEquals(1, db.getGradeEngine().getReplyCount("staff_jones"), 
+            "Reply counters should be reloaded on a persistent start.");
+    }
+}
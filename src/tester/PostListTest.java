@@ -0,0 +1,212 @@
+package tester;
+
+import entityClasses.Post;
+import entityClasses.PostList;
+import entityClasses.Reply;
+import entityClasses.ReplyList;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p> Title: PostListTest Class </p>
+ * <p> Description: Checks that PostList queries give the same posts, in the same order, as
+ * applying each filter and sort one after another, including when a limit is set, and that
+ * the id and thread indexes of PostList and ReplyList stay in step with their contents.</p>
+ *
+ * @author CSE 360 Team
+ * @version 1.00 2025-11-30 Initial implementation
+ * @version 1.01 2025-12-01 Index and parallel filtering tests
+ * @version 1.02 2025-12-02 Search key tests
+ * @version 1.03 2025-12-11 Removal tests
+ */
+public class PostListTest {
+
+    private PostList posts;
+
+    @BeforeEach
+    public void setUp() {
+        posts = new PostList();
+        LocalDateTime start = LocalDateTime.of(2025, 11, 1, 9, 0);
+        String[] threads = {"General", "Questions"};
+        String[] authors = {"alice", "bob", "carol"};
+        for (int i = 1; i <= 60; i++) {
+            // Every fifth post shares its timestamp with the one before it
+            LocalDateTime time = start.plusMinutes(i % 5 == 0 ? i - 1 : i);
+            String title = (i % 3 == 0 ? "Recursion question " : "Loop note ") + i;
+            posts.addPost(new Post(i, authors[i % 3], title, "Body of post " + i,
+                    threads[i % 2], time, i % 7 == 0));
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        PostList.setParallelThreshold(10_000);
+        ReplyList.setParallelThreshold(10_000);
+    }
+
+    @Test
+    public void testQueryMatchesChainedFilters() {
+        PostList chained = posts.filterByThread("general").searchByKeywords("recursion")
+                .filterActive().sortByNewest();
+        PostList fused = posts.query().thread("general").matching("recursion")
+                .activeOnly().newestFirst().run();
+        assertEquals(ids(chained), ids(fused));
+        assertFalse(fused.isEmpty());
+        for (Post post : fused.getAllPosts()) {
+            assertFalse(post.isDeleted());
+            assertEquals("General", post.getThread());
+        }
+    }
+
+    @Test
+    public void testLimitKeepsTopOfFullSort() {
+        List<Integer> newest = ids(posts.sortByNewest());
+        List<Integer> oldest = ids(posts.sortByOldest());
+        for (int limit : new int[] {0, 1, 4, 5, 17, 60, 100}) {
+            assertEquals(newest.subList(0, Math.min(limit, newest.size())),
+                    ids(posts.query().newestFirst().limit(limit).run()), "newest, limit " + limit);
+            assertEquals(oldest.subList(0, Math.min(limit, oldest.size())),
+                    ids(posts.query().oldestFirst().limit(limit).run()), "oldest, limit " + limit);
+        }
+    }
+
+    @Test
+    public void testLimitWithoutOrderKeepsListOrder() {
+        PostList firstByBob = posts.query().author("BOB").limit(3).run();
+        assertEquals(List.of(1, 4, 7), ids(firstByBob));
+    }
+
+    @Test
+    public void testQueryLeavesSourceUnchanged() {
+        List<Integer> before = ids(posts);
+        posts.query().activeOnly().newestFirst().limit(5).run();
+        assertEquals(before, ids(posts));
+    }
+
+    @Test
+    public void testIndexesFollowAddAndRemove() {
+        assertEquals(17, posts.getPostById(17).getPostId());
+        assertNull(posts.getPostById(999));
+
+        // Added after the index was built
+        posts.addPost(new Post(999, "dave", "Late post", "Added later", "Questions",
+                LocalDateTime.of(2025, 12, 1, 9, 0), false));
+        assertEquals("dave", posts.getPostById(999).getAuthor());
+        assertEquals(999, posts.filterByThread("QUESTIONS").sortByNewest().getAllPosts().get(0).getPostId());
+
+        assertTrue(posts.removePostById(17));
+        assertFalse(posts.removePostById(17), "A removed id is gone from the index");
+        assertNull(posts.getPostById(17));
+        assertEquals(60, posts.size());
+        assertFalse(ids(posts.filterByThread("Questions")).contains(17));
+    }
+
+    @Test
+    public void testRemovalsKeepIndexesInStep() {
+        // Remove every other post, looking up the rest after each removal
+        List<Integer> kept = new ArrayList<>();
+        for (int id = 1; id <= 60; id++) {
+            if (id % 2 == 0) kept.add(id);
+        }
+        for (int id = 1; id <= 60; id += 2) {
+            assertTrue(posts.removePostById(id));
+            assertNull(posts.getPostById(id));
+            for (int other : kept) assertEquals(other, posts.getPostById(other).getPostId());
+        }
+        assertEquals(kept, ids(posts));
+        assertEquals(ids(new PostList(posts.getAllPosts()).filterByThread("General")),
+                ids(posts.filterByThread("General")), "Thread lookups match a freshly indexed list");
+
+        // A list given the same id twice loses both, and the other posts stay found
+        Post again = new Post(2, "erin", "Same id", "Added twice", "General",
+                LocalDateTime.of(2025, 12, 2, 9, 0), false);
+        posts.addPost(again);
+        assertTrue(posts.removePostById(2));
+        assertNull(posts.getPostById(2));
+        assertFalse(ids(posts.filterByThread("General")).contains(2));
+        assertEquals(4, posts.getPostById(4).getPostId());
+
+        assertTrue(posts.removePost(posts.getPostById(4)));
+        assertNull(posts.getPostById(4));
+        assertEquals(28, posts.size());
+    }
+
+    @Test
+    public void testParallelQueryMatchesSequential() {
+        List<Integer> all = ids(posts.query().activeOnly().matching("loop").oldestFirst().run());
+        List<Integer> top = ids(posts.query().thread("General").newestFirst().limit(6).run());
+        List<Integer> unordered = ids(posts.query().author("carol").run());
+
+        PostList.setParallelThreshold(1);
+        assertEquals(all, ids(posts.query().activeOnly().matching("loop").oldestFirst().run()));
+        assertEquals(top, ids(posts.query().thread("General").newestFirst().limit(6).run()));
+        assertEquals(unordered, ids(posts.query().author("carol").run()));
+    }
+
+    @Test
+    public void testReplyListIndexes() {
+        ReplyList replies = new ReplyList();
+        for (int i = 1; i <= 30; i++) {
+            replies.addReply(new Reply(i, i % 4, i % 2 == 0 ? "alice" : "bob", "Reply " + i,
+                    LocalDateTime.of(2025, 11, 1, 9, i)));
+        }
+        assertEquals(8, replies.getReplyCountForPost(1));
+        assertEquals(0, replies.getReplyCountForPost(42));
+        assertEquals(List.of(3, 7, 11, 15, 19, 23, 27),
+                replies.filterByPostId(3).getAllReplies().stream().map(Reply::getReplyId).toList());
+        assertEquals(12, replies.getReplyById(12).getReplyId());
+
+        replies.addReply(new Reply(31, 3, "carol", "Late reply", LocalDateTime.of(2025, 11, 2, 9, 0)));
+        assertEquals(8, replies.getReplyCountForPost(3));
+        assertTrue(replies.removeReplyById(3));
+        assertEquals(7, replies.getReplyCountForPost(3));
+        assertNull(replies.getReplyById(3));
+
+        List<Reply> byAlice = replies.filterByAuthor("ALICE").getAllReplies();
+        ReplyList.setParallelThreshold(1);
+        assertEquals(byAlice, replies.filterByAuthor("ALICE").getAllReplies());
+        assertEquals(15, byAlice.size());
+    }
+
+    @Test
+    public void testSearchIgnoresCaseAndAccents() {
+        Post post = new Post(100, "dave", "Résumé tips", "Meet at the CAFÉ", "General",
+                LocalDateTime.of(2025, 12, 1, 9, 0), false);
+        assertTrue(post.matchesAllKeywords("resume cafe"));
+        assertTrue(post.matchesKeyword("SUMÉ"));
+        assertFalse(post.matchesKeyword("coffee"));
+
+        // Changing the text replaces the cached search keys
+        post.setTitle("Coffee tips");
+        post.setContent("Meet at the library");
+        assertFalse(post.matchesKeyword("resume"));
+        assertFalse(post.matchesKeyword("cafe"));
+        assertTrue(post.matchesAllKeywords("coffee library"));
+
+        Reply reply = new Reply(1, 100, "erin", "Naïve question", LocalDateTime.of(2025, 12, 1, 9, 5));
+        assertTrue(reply.matchesKeyword("naive"));
+        reply.setContent("Simple question");
+        assertFalse(reply.matchesKeyword("naive"));
+        ReplyList replies = new ReplyList(List.of(reply));
+        assertEquals(1, replies.searchByKeywords("SIMPLE quest").size());
+    }
+
+    @Test
+    public void testQueryUsesSearchKeys() {
+        posts.addPost(new Post(100, "dave", "Récursion à la carte", "Body", "General",
+                LocalDateTime.of(2025, 12, 1, 9, 0), false));
+        List<Integer> found = ids(posts.query().matching("recursion A").newestFirst().run());
+        assertEquals(100, found.get(0));
+        assertEquals(ids(posts.searchByKeywords("recursion question").sortByNewest()),
+                ids(posts.query().matching("RECURSION Question").newestFirst().run()));
+    }
+
+    private static List<Integer> ids(PostList list) {
+        return list.getAllPosts().stream().map(Post::getPostId).toList();
+    }
+}
@@ -0,0 +1,129 @@
+package tester;
+
+import database.Database;
+import entityClasses.*;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p> Title: QueryPlanTest Class </p>
+ * <p> Description: Runs the hot forum reads through Database, records the SQL each one
+ * prepares, and EXPLAINs exactly those statements, failing if H2 would answer any of them by
+ * scanning a whole table instead of using one of the managed indexes.  The statements are
+ * taken from the connection pool as Database prepares them, parameters and all, so the test
+ * follows every change to the queries without a copy to keep in step.</p>
+ *
+ * @author CSE 360 Team
+ * @version 1.00 2025-11-24 Initial implementation
+ * @version 1.01 2025-12-11 Explains the recorded statements instead of hand-written copies
+ */
+public class QueryPlanTest {
+
+    private Database db;
+    private int broadcastId;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        db = new Database();
+        db.connectToDatabase();
+
+        db.register(new User("planuser", "pass", "Plan", "", "User",
+                "", "plan@test.com", false, true, false));
+        db.register(new User("reader", "pass", "Read", "", "Er",
+                "", "reader@test.com", false, true, false));
+        LocalDateTime base = LocalDateTime.of(2025, 11, 1, 0, 0);
+        for (int i = 0; i < 200; i++) {
+            int postId = db.createPost(new Post(0, "planuser", "Post " + i, "Body " + i,
+                    i % 2 == 0 ? "General" : "Questions", base.plusMinutes(i * 7), false));
+            if (i % 10 == 0) {
+                db.createReply(new Reply(0, postId, "reader", "Reply " + i, base.plusMinutes(i * 7 + 1)));
+                db.markPostAsRead(postId, "reader");
+            }
+        }
+        db.createRequest("planuser", "Please help");
+        PrivateMessage feedback = new PrivateMessage("planuser", "reader", 7, "Feedback on your post", null);
+        db.createPrivateMessage(feedback);
+        db.createPrivateMessage(new PrivateMessage("reader", "planuser", 7, "Thanks for the feedback",
+                feedback.getMessageId()));
+        broadcastId = db.createBroadcast("planuser", java.util.List.of("reader", "planuser"), null, "Exam on Friday");
+        db.createModerationFlag(new ModerationFlag(7, "planuser", "Off topic"));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        db.closeConnection();
+    }
+
+    @Test
+    public void testManagedIndexesExistAfterStartup() {
+        assertEquals(java.util.Collections.emptyList(), db.getMissingIndexes(),
+                "Every managed index should be created when the database is opened");
+    }
+
+    @Test
+    public void testHotQueriesNeverScanATable() {
+        LocalDateTime cursorTime = LocalDateTime.of(2025, 11, 1, 12, 0);
+        PageCursor cursor = new PageCursor(cursorTime, 50);
+        MessagePage.Cursor messageCursor = new MessagePage.Cursor(cursorTime, 50);
+        int messageId = db.getPrivateMessagesForUser("reader").get(0).getMessageId();
+        for (int postId = 1; postId <= 150; postId++) db.markPostAsRead(postId, "skimmer");
+        
+        Map<String, Runnable> reads = new LinkedHashMap<>();
+        reads.put("getAllPosts", () -> db.getAllPosts());
+        reads.put("getPostsByThread", () -> db.getPostsByThread("General"));
+        reads.put("getPostsByAuthor", () -> db.getPostsByAuthor("planuser"));
+        reads.put("getPostById", () -> { db.getPostCache().clear(); db.getPostById(7); });
+        reads.put("getAllPostsPage", () -> db.getAllPostsPage(null, null, 25));
+        reads.put("getAllPostsPage after", () -> db.getAllPostsPage(null, cursor, 25));
+        reads.put("getAllPostsPage search", () -> db.getAllPostsPage("post", cursor, 25));
+        reads.put("getPostsByThreadPage", () -> db.getPostsByThreadPage("General", null, cursor, 25));
+        reads.put("getPostsByAuthorPage", () -> db.getPostsByAuthorPage("planuser", null, null, 25));
+        reads.put("getFlaggedPostsPage", () -> db.getFlaggedPostsPage(true, null, null, 25));
+        reads.put("getUnreadPostsPage few read", () -> db.getUnreadPostsPage("reader", null, null, 25));
+        reads.put("getUnreadPostsPage most read", () -> db.getUnreadPostsPage("skimmer", null, null, 25));
+        reads.put("getAllPostsRanked", () -> db.getAllPostsRanked("body", 10));
+        reads.put("getRepliesForPost", () -> db.getRepliesForPost(7));
+        reads.put("getAllReplies", () -> db.getAllReplies());
+        reads.put("isPostRead", () -> db.isPostRead(7, "newreader"));
+        reads.put("getActiveRequests", () -> db.getActiveRequests());
+        reads.put("getClosedRequests", () -> db.getClosedRequests());
+        reads.put("getPrivateMessagesForUser", () -> db.getPrivateMessagesForUser("reader"));
+        reads.put("getPrivateMessagesPage", () -> db.getPrivateMessagesPage("reader", MessagePage.Filter.ALL, null, 25));
+        reads.put("getPrivateMessagesPage unread after",
+                () -> db.getPrivateMessagesPage("reader", MessagePage.Filter.UNREAD, messageCursor, 25));
+        reads.put("getPrivateMessageReplies", () -> db.getPrivateMessageReplies(messageId));
+        reads.put("getConversation", () -> db.getConversation(messageId));
+        reads.put("searchPrivateMessages", () -> db.searchPrivateMessages("reader", "feedback", 0, 25));
+        reads.put("getPrivateMessageContent", () -> db.getPrivateMessageContent(messageId, false));
+        reads.put("getPrivateMessageContent broadcast", () -> db.getPrivateMessageContent(broadcastId, true));
+        reads.put("getAllModerationFlags", () -> db.getAllModerationFlags());
+        reads.put("getModerationFlagsByStaff", () -> db.getModerationFlagsByStaff("planuser"));
+        reads.put("getModerationFlagsForPost", () -> db.getModerationFlagsForPost(7));
+        
+        for (Map.Entry<String, Runnable> read : reads.entrySet()) {
+            Set<String> statements = new LinkedHashSet<>();
+            db.getConnectionPool().setStatementListener(statements::add);
+            try {
+                read.getValue().run();
+            } finally {
+                db.getConnectionPool().setStatementListener(null);
+            }
+            statements.removeIf(sql -> !sql.trim().toUpperCase().startsWith("SELECT"));
+            assertFalse(statements.isEmpty(), read.getKey() + " should run a query");
+            for (String sql : statements) {
+                String plan = db.explainQuery(sql);
+                assertNotNull(plan, read.getKey() + " should be explainable: " + sql);
+                assertFalse(plan.contains("tableScan"),
+                        read.getKey() + " falls back to a table scan:\n" + sql + "\n" + plan);
+            }
+        }
+    }
+}